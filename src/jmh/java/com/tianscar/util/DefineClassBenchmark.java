@@ -0,0 +1,194 @@
+package com.tianscar.util;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures {@link Scalpel#defineClass} in batches of freshly generated classes.
+ * <p>
+ * Every invocation defines {@value #CLASSES} classes, in batches of {@code classCount} with a fresh app loader each,
+ * so that the per-invocation setup of JMH stays negligible even for single-class batches. The score is reported
+ * as classes per second, and {@code metaspaceBytes} as the metaspace growth
+ * (from the {@code Metaspace} {@link MemoryPoolMXBean}) per iteration.
+ * With the bootstrap loader, {@code ARRAY} pays for the {@code malloc} plus {@code GetByteArrayRegion} copy of the bytecode
+ * and {@code DIRECT_BUFFER} does not, so their difference is the cost of the copy.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefineClassBenchmark {
+
+    // The bootstrap loader never unloads, so every class defined in the fork needs a unique name
+    private static final AtomicLong SERIAL = new AtomicLong();
+
+    // A multiple of every classCount
+    static final int CLASSES = 10000;
+
+    @State(Scope.Thread)
+    public static class Batch {
+
+        // BOOTSTRAP goes through JVM_DefineClass, APP through the reflective ClassLoader.defineClass
+        @Param({"BOOTSTRAP", "APP"})
+        public String loader;
+
+        @Param({"ARRAY", "HEAP_BUFFER", "DIRECT_BUFFER"})
+        public String source;
+
+        @Param({"1", "100", "10000"})
+        public int classCount;
+
+        private boolean array;
+        private String[] names;
+        private byte[][] arrays;
+        private ByteBuffer[] buffers;
+        private ByteBuffer direct;
+        private ClassLoader[] classLoaders;
+
+        @Setup(Level.Trial)
+        public void allocate() {
+            array = source.equals("ARRAY");
+            names = new String[CLASSES];
+            arrays = new byte[CLASSES][];
+            buffers = new ByteBuffer[CLASSES];
+            classLoaders = new ClassLoader[CLASSES / classCount];
+        }
+
+        // Not measured: generates the classes of the next invocation and a fresh app loader for each batch
+        @Setup(Level.Invocation)
+        public void generate() throws IOException {
+            int size = 0;
+            for (int i = 0; i < CLASSES; i ++) {
+                names[i] = "com.tianscar.util.jmh.generated.Defined" + SERIAL.getAndIncrement();
+                arrays[i] = classFile(names[i].replace('.', '/'));
+                size += arrays[i].length;
+            }
+            if (source.equals("DIRECT_BUFFER")) {
+                if (direct == null || direct.capacity() < size) direct = ByteBuffer.allocateDirect(size);
+                direct.clear();
+                for (int i = 0; i < CLASSES; i ++) {
+                    // A view of the class file in place, as a region of a mapped file would be
+                    ByteBuffer buffer = direct.duplicate();
+                    buffer.put(arrays[i]);
+                    buffer.limit(buffer.position());
+                    buffer.position(direct.position());
+                    direct.position(buffer.limit());
+                    buffers[i] = buffer;
+                }
+            }
+            else if (source.equals("HEAP_BUFFER")) {
+                for (int i = 0; i < CLASSES; i ++) {
+                    buffers[i] = ByteBuffer.wrap(arrays[i]);
+                }
+            }
+            for (int i = 0; i < classLoaders.length; i ++) {
+                classLoaders[i] = loader.equals("APP") ? new ClassLoader(null) {} : null;
+            }
+        }
+
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Metaspace {
+
+        private static final MemoryPoolMXBean POOL;
+        static {
+            MemoryPoolMXBean metaspace = null;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getName().equals("Metaspace")) {
+                    metaspace = pool;
+                    break;
+                }
+            }
+            POOL = metaspace;
+        }
+
+        public long metaspaceBytes;
+        private long used;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            metaspaceBytes = 0;
+        }
+
+        @Setup(Level.Invocation)
+        public void before() {
+            if (POOL != null) used = POOL.getUsage().getUsed();
+        }
+
+        @TearDown(Level.Invocation)
+        public void after() {
+            if (POOL != null) metaspaceBytes += POOL.getUsage().getUsed() - used;
+        }
+
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLASSES)
+    public Class<?> defineClass(Batch batch, Metaspace metaspace) {
+        Class<?> clazz = null;
+        if (batch.array) {
+            for (int i = 0; i < CLASSES; i ++) {
+                byte[] array = batch.arrays[i];
+                clazz = Scalpel.defineClass(batch.names[i], batch.classLoaders[i / batch.classCount], array, 0, array.length, null);
+            }
+        }
+        else {
+            for (int i = 0; i < CLASSES; i ++) {
+                clazz = Scalpel.defineClass(batch.names[i], batch.classLoaders[i / batch.classCount], batch.buffers[i], null);
+            }
+        }
+        return clazz;
+    }
+
+    // A public class with no members, extending Object
+    private static byte[] classFile(String internalName) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + internalName.length());
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);                 // minor_version
+        out.writeShort(52);                // major_version
+        out.writeShort(5);                 // constant_pool_count
+        out.writeByte(1);                  // #1 CONSTANT_Utf8
+        out.writeUTF(internalName);
+        out.writeByte(7);                  // #2 CONSTANT_Class
+        out.writeShort(1);
+        out.writeByte(1);                  // #3 CONSTANT_Utf8
+        out.writeUTF("java/lang/Object");
+        out.writeByte(7);                  // #4 CONSTANT_Class
+        out.writeShort(3);
+        out.writeShort(0x0001 | 0x0020);   // ACC_PUBLIC | ACC_SUPER
+        out.writeShort(2);                 // this_class
+        out.writeShort(4);                 // super_class
+        out.writeShort(0);                 // interfaces_count
+        out.writeShort(0);                 // fields_count
+        out.writeShort(0);                 // methods_count
+        out.writeShort(0);                 // attributes_count
+        return bytes.toByteArray();
+    }
+
+}
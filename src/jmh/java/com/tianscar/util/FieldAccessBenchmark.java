@@ -0,0 +1,80 @@
+package com.tianscar.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FieldAccessBenchmark {
+
+    private static int staticValue;
+    private int value;
+
+    // AUTO measures the public entry points, which use the best strategy
+    @Param({"AUTO", "REFLECTION", "LOOKUP", "UNSAFE", "JNI"})
+    public String strategy;
+
+    @Param({"false", "true"})
+    public boolean isStatic;
+
+    private Field field;
+    private Scalpel.FieldAccessor accessor;
+    private MethodHandle getter;
+    private MethodHandle setter;
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        field = FieldAccessBenchmark.class.getDeclaredField(isStatic ? "staticValue" : "value");
+        switch (strategy) {
+            case "AUTO":
+                break;
+            case "LOOKUP":
+                getter = Scalpel.unreflectGetter(field);
+                setter = Scalpel.unreflectSetter(field);
+                if (isStatic) {
+                    getter = MethodHandles.dropArguments(getter, 0, Object.class);
+                    setter = MethodHandles.dropArguments(setter, 0, Object.class);
+                }
+                getter = getter.asType(MethodType.methodType(int.class, Object.class));
+                setter = setter.asType(MethodType.methodType(void.class, Object.class, int.class));
+                break;
+            default:
+                accessor = Scalpel.fieldAccessor(field, Scalpel.Strategy.valueOf(strategy));
+                break;
+        }
+    }
+
+    @Benchmark
+    public int getInt() throws Throwable {
+        if (accessor != null) return accessor.getInt(this);
+        else if (getter != null) return (int) getter.invokeExact((Object) this);
+        else return Scalpel.getIntField(this, field);
+    }
+
+    @Benchmark
+    public void setInt() throws Throwable {
+        if (accessor != null) accessor.setInt(this, 1);
+        else if (setter != null) setter.invokeExact((Object) this, 1);
+        else Scalpel.setIntField(this, field, 1);
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.tianscar.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstantiationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Invocation {
+
+        // AUTO measures the cached invoker of the public API, which uses the best strategy
+        @Param({"AUTO", "REFLECTION", "LOOKUP", "JNI"})
+        public String strategy;
+
+        @Param({"0", "1", "4", "16"})
+        public int arity;
+
+        private Scalpel.ConstructorInvoker<Target> invoker;
+        private Object[] args;
+
+        @Setup
+        public void setup() throws NoSuchMethodException {
+            Class<?>[] parameterTypes = new Class<?>[arity];
+            Arrays.fill(parameterTypes, int.class);
+            Constructor<Target> constructor = Target.class.getDeclaredConstructor(parameterTypes);
+            invoker = strategy.equals("AUTO") ? Scalpel.constructorInvoker(constructor)
+                    : Scalpel.constructorInvoker(constructor, Scalpel.Strategy.valueOf(strategy));
+            args = new Object[arity];
+            for (int i = 0; i < arity; i ++) {
+                args[i] = i;
+            }
+        }
+
+    }
+
+    @State(Scope.Benchmark)
+    public static class Allocation {
+
+        // UNSAFE is what the public entry point uses when sun.misc.Unsafe is available; JNI is its fallback
+        @Param({"UNSAFE", "JNI"})
+        public String allocationStrategy;
+
+        private Scalpel.Strategy strategy;
+
+        @Setup
+        public void setup() {
+            strategy = Scalpel.Strategy.valueOf(allocationStrategy);
+        }
+
+    }
+
+    @Benchmark
+    public Target newInstance(Invocation invocation) throws InstantiationException, InvocationTargetException {
+        return invocation.invoker.newInstance(invocation.args);
+    }
+
+    @Benchmark
+    public Target allocateInstance(Allocation allocation) throws InstantiationException {
+        return Scalpel.allocateInstance(Target.class, allocation.strategy);
+    }
+
+    @SuppressWarnings("unused")
+    public static final class Target {
+
+        private int value;
+
+        private Target() {
+        }
+
+        private Target(int a) {
+            value = a;
+        }
+
+        private Target(int a, int b, int c, int d) {
+            value = a + b + c + d;
+        }
+
+        private Target(int a, int b, int c, int d, int e, int f, int g, int h,
+                       int i, int j, int k, int l, int m, int n, int o, int p) {
+            value = a + b + c + d + e + f + g + h + i + j + k + l + m + n + o + p;
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.tianscar.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MethodInvokeBenchmark {
+
+    // AUTO measures the cached invoker of the public API, which uses the best strategy
+    @Param({"AUTO", "REFLECTION", "LOOKUP", "JNI"})
+    public String strategy;
+
+    @Param({"false", "true"})
+    public boolean isStatic;
+
+    @Param({"0", "1", "4", "16"})
+    public int arity;
+
+    private Scalpel.MethodInvoker invoker;
+    private Object[] args;
+    private Scalpel.ArgumentFrame frame;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        Class<?>[] parameterTypes = new Class<?>[arity];
+        Arrays.fill(parameterTypes, int.class);
+        Method method = Targets.class.getDeclaredMethod((isStatic ? "static" : "instance") + arity, parameterTypes);
+        invoker = strategy.equals("AUTO") ? Scalpel.methodInvoker(method) : Scalpel.methodInvoker(method, Scalpel.Strategy.valueOf(strategy));
+        args = new Object[arity];
+        frame = new Scalpel.ArgumentFrame(arity);
+        for (int i = 0; i < arity; i ++) {
+            args[i] = i;
+            frame.putInt(i);
+        }
+    }
+
+    @Benchmark
+    public int invokeInt() throws InvocationTargetException {
+        return invoker.invokeInt(Targets.INSTANCE, args);
+    }
+
+    @Benchmark
+    public int invokeIntWithFrame() throws InvocationTargetException {
+        return invoker.invokeInt(Targets.INSTANCE, frame);
+    }
+
+    @SuppressWarnings("unused")
+    private static final class Targets {
+
+        static final Targets INSTANCE = new Targets();
+
+        private int instance0() {
+            return 0;
+        }
+
+        private int instance1(int a) {
+            return a;
+        }
+
+        private int instance4(int a, int b, int c, int d) {
+            return a + b + c + d;
+        }
+
+        private int instance16(int a, int b, int c, int d, int e, int f, int g, int h,
+                               int i, int j, int k, int l, int m, int n, int o, int p) {
+            return a + b + c + d + e + f + g + h + i + j + k + l + m + n + o + p;
+        }
+
+        private static int static0() {
+            return 0;
+        }
+
+        private static int static1(int a) {
+            return a;
+        }
+
+        private static int static4(int a, int b, int c, int d) {
+            return a + b + c + d;
+        }
+
+        private static int static16(int a, int b, int c, int d, int e, int f, int g, int h,
+                                     int i, int j, int k, int l, int m, int n, int o, int p) {
+            return a + b + c + d + e + f + g + h + i + j + k + l + m + n + o + p;
+        }
+
+    }
+
+}
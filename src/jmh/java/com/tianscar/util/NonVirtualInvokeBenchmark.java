@@ -0,0 +1,103 @@
+package com.tianscar.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NonVirtualInvokeBenchmark {
+
+    // AUTO measures the cached invoker of the public API, which uses the best strategy
+    @Param({"AUTO", "LOOKUP", "JNI"})
+    public String strategy;
+
+    @Param({"0", "1", "4", "16"})
+    public int arity;
+
+    private final Base target = new Derived();
+    private Scalpel.MethodInvoker invoker;
+    private Object[] args;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        Class<?>[] parameterTypes = new Class<?>[arity];
+        Arrays.fill(parameterTypes, int.class);
+        Method method = Base.class.getDeclaredMethod("method" + arity, parameterTypes);
+        invoker = strategy.equals("AUTO") ? Scalpel.nonVirtualMethodInvoker(method)
+                : Scalpel.nonVirtualMethodInvoker(method, Scalpel.Strategy.valueOf(strategy));
+        args = new Object[arity];
+        for (int i = 0; i < arity; i ++) {
+            args[i] = i;
+        }
+    }
+
+    @Benchmark
+    public int invokeNonVirtualInt() throws InvocationTargetException {
+        return invoker.invokeInt(target, args);
+    }
+
+    public static class Base {
+
+        public int method0() {
+            return 0;
+        }
+
+        public int method1(int a) {
+            return a;
+        }
+
+        public int method4(int a, int b, int c, int d) {
+            return a + b + c + d;
+        }
+
+        public int method16(int a, int b, int c, int d, int e, int f, int g, int h,
+                            int i, int j, int k, int l, int m, int n, int o, int p) {
+            return a + b + c + d + e + f + g + h + i + j + k + l + m + n + o + p;
+        }
+
+    }
+
+    public static class Derived extends Base {
+
+        @Override
+        public int method0() {
+            return -1;
+        }
+
+        @Override
+        public int method1(int a) {
+            return -1;
+        }
+
+        @Override
+        public int method4(int a, int b, int c, int d) {
+            return -1;
+        }
+
+        @Override
+        public int method16(int a, int b, int c, int d, int e, int f, int g, int h,
+                            int i, int j, int k, int l, int m, int n, int o, int p) {
+            return -1;
+        }
+
+    }
+
+}
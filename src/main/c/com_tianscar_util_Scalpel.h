@@ -7,6 +7,52 @@
 #ifdef __cplusplus
 extern "C" {
 #endif
+#undef com_tianscar_util_Scalpel_TYPE_OBJECT
+#define com_tianscar_util_Scalpel_TYPE_OBJECT 0L
+#undef com_tianscar_util_Scalpel_TYPE_BOOLEAN
+#define com_tianscar_util_Scalpel_TYPE_BOOLEAN 1L
+#undef com_tianscar_util_Scalpel_TYPE_BYTE
+#define com_tianscar_util_Scalpel_TYPE_BYTE 2L
+#undef com_tianscar_util_Scalpel_TYPE_CHAR
+#define com_tianscar_util_Scalpel_TYPE_CHAR 3L
+#undef com_tianscar_util_Scalpel_TYPE_SHORT
+#define com_tianscar_util_Scalpel_TYPE_SHORT 4L
+#undef com_tianscar_util_Scalpel_TYPE_INT
+#define com_tianscar_util_Scalpel_TYPE_INT 5L
+#undef com_tianscar_util_Scalpel_TYPE_LONG
+#define com_tianscar_util_Scalpel_TYPE_LONG 6L
+#undef com_tianscar_util_Scalpel_TYPE_FLOAT
+#define com_tianscar_util_Scalpel_TYPE_FLOAT 7L
+#undef com_tianscar_util_Scalpel_TYPE_DOUBLE
+#define com_tianscar_util_Scalpel_TYPE_DOUBLE 8L
+#undef com_tianscar_util_Scalpel_DISPATCH_STATIC
+#define com_tianscar_util_Scalpel_DISPATCH_STATIC 0L
+#undef com_tianscar_util_Scalpel_DISPATCH_VIRTUAL
+#define com_tianscar_util_Scalpel_DISPATCH_VIRTUAL 1L
+#undef com_tianscar_util_Scalpel_DISPATCH_NONVIRTUAL
+#define com_tianscar_util_Scalpel_DISPATCH_NONVIRTUAL 2L
+#undef com_tianscar_util_Scalpel_SNAPSHOT_MAGIC
+#define com_tianscar_util_Scalpel_SNAPSHOT_MAGIC 1396916556L
+#undef com_tianscar_util_Scalpel_SNAPSHOT_VERSION
+#define com_tianscar_util_Scalpel_SNAPSHOT_VERSION 1L
+#undef com_tianscar_util_Scalpel_SNAPSHOT_CHUNK_SIZE
+#define com_tianscar_util_Scalpel_SNAPSHOT_CHUNK_SIZE 65536L
+#undef com_tianscar_util_Scalpel_ENTRY_ALLOCATE_INSTANCE
+#define com_tianscar_util_Scalpel_ENTRY_ALLOCATE_INSTANCE 0L
+#undef com_tianscar_util_Scalpel_ENTRY_NEW_INSTANCE
+#define com_tianscar_util_Scalpel_ENTRY_NEW_INSTANCE 1L
+#undef com_tianscar_util_Scalpel_ENTRY_GET_FIELD
+#define com_tianscar_util_Scalpel_ENTRY_GET_FIELD 2L
+#undef com_tianscar_util_Scalpel_ENTRY_SET_FIELD
+#define com_tianscar_util_Scalpel_ENTRY_SET_FIELD 3L
+#undef com_tianscar_util_Scalpel_ENTRY_INVOKE_METHOD
+#define com_tianscar_util_Scalpel_ENTRY_INVOKE_METHOD 4L
+#undef com_tianscar_util_Scalpel_ENTRY_INVOKE_NONVIRTUAL_METHOD
+#define com_tianscar_util_Scalpel_ENTRY_INVOKE_NONVIRTUAL_METHOD 5L
+#undef com_tianscar_util_Scalpel_ENTRY_DEFINE_CLASS
+#define com_tianscar_util_Scalpel_ENTRY_DEFINE_CLASS 6L
+#undef com_tianscar_util_Scalpel_ENTRY_DEFINE_CLASSES
+#define com_tianscar_util_Scalpel_ENTRY_DEFINE_CLASSES 7L
 /*
  * Class:     com_tianscar_util_Scalpel
  * Method:    AllocObject
@@ -17,555 +63,843 @@ JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_AllocObject
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    NewObject
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Constructor;[Ljava/lang/Object;)Ljava/lang/Object;
+ * Method:    JVM_DefineClass
+ * Signature: (Ljava/lang/String;Ljava/lang/ClassLoader;[BIILjava/security/ProtectionDomain;)Ljava/lang/Class;
  */
-JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_NewObject
-  (JNIEnv *, jclass, jclass, jobject, jobjectArray);
+JNIEXPORT jclass JNICALL Java_com_tianscar_util_Scalpel_JVM_1DefineClass__Ljava_lang_String_2Ljava_lang_ClassLoader_2_3BIILjava_security_ProtectionDomain_2
+  (JNIEnv *, jclass, jstring, jobject, jbyteArray, jint, jint, jobject);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetObjectField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;)Ljava/lang/Object;
+ * Method:    JVM_DefineClass
+ * Signature: (Ljava/lang/String;Ljava/lang/ClassLoader;Ljava/nio/ByteBuffer;IILjava/security/ProtectionDomain;)Ljava/lang/Class;
  */
-JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_GetObjectField
-  (JNIEnv *, jclass, jobject, jobject);
+JNIEXPORT jclass JNICALL Java_com_tianscar_util_Scalpel_JVM_1DefineClass__Ljava_lang_String_2Ljava_lang_ClassLoader_2Ljava_nio_ByteBuffer_2IILjava_security_ProtectionDomain_2
+  (JNIEnv *, jclass, jstring, jobject, jobject, jint, jint, jobject);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetBooleanField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;)Z
+ * Method:    JVM_DefineClasses
+ * Signature: ([Ljava/lang/String;Ljava/lang/ClassLoader;[[BLjava/security/ProtectionDomain;)[Ljava/lang/Class;
  */
-JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_GetBooleanField
-  (JNIEnv *, jclass, jobject, jobject);
+JNIEXPORT jobjectArray JNICALL Java_com_tianscar_util_Scalpel_JVM_1DefineClasses
+  (JNIEnv *, jclass, jobjectArray, jobject, jobjectArray, jobject);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetByteField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;)B
+ * Method:    FromReflectedField
+ * Signature: (Ljava/lang/reflect/Field;)J
  */
-JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_GetByteField
-  (JNIEnv *, jclass, jobject, jobject);
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_FromReflectedField
+  (JNIEnv *, jclass, jobject);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetCharField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;)C
+ * Method:    GetObjectFieldByID
+ * Signature: (Ljava/lang/Object;J)Ljava/lang/Object;
  */
-JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_GetCharField
-  (JNIEnv *, jclass, jobject, jobject);
+JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_GetObjectFieldByID
+  (JNIEnv *, jclass, jobject, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetShortField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;)S
+ * Method:    GetBooleanFieldByID
+ * Signature: (Ljava/lang/Object;J)Z
  */
-JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_GetShortField
-  (JNIEnv *, jclass, jobject, jobject);
+JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_GetBooleanFieldByID
+  (JNIEnv *, jclass, jobject, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetIntField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;)I
+ * Method:    GetByteFieldByID
+ * Signature: (Ljava/lang/Object;J)B
  */
-JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_GetIntField
-  (JNIEnv *, jclass, jobject, jobject);
+JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_GetByteFieldByID
+  (JNIEnv *, jclass, jobject, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetLongField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;)J
+ * Method:    GetCharFieldByID
+ * Signature: (Ljava/lang/Object;J)C
  */
-JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_GetLongField
-  (JNIEnv *, jclass, jobject, jobject);
+JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_GetCharFieldByID
+  (JNIEnv *, jclass, jobject, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetFloatField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;)F
+ * Method:    GetShortFieldByID
+ * Signature: (Ljava/lang/Object;J)S
  */
-JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_GetFloatField
-  (JNIEnv *, jclass, jobject, jobject);
+JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_GetShortFieldByID
+  (JNIEnv *, jclass, jobject, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetDoubleField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;)D
+ * Method:    GetIntFieldByID
+ * Signature: (Ljava/lang/Object;J)I
  */
-JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_GetDoubleField
-  (JNIEnv *, jclass, jobject, jobject);
+JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_GetIntFieldByID
+  (JNIEnv *, jclass, jobject, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetObjectField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;Ljava/lang/Object;)V
+ * Method:    GetLongFieldByID
+ * Signature: (Ljava/lang/Object;J)J
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetObjectField
-  (JNIEnv *, jclass, jobject, jobject, jobject);
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_GetLongFieldByID
+  (JNIEnv *, jclass, jobject, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetBooleanField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;Z)V
+ * Method:    GetFloatFieldByID
+ * Signature: (Ljava/lang/Object;J)F
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetBooleanField
-  (JNIEnv *, jclass, jobject, jobject, jboolean);
+JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_GetFloatFieldByID
+  (JNIEnv *, jclass, jobject, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetByteField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;B)V
+ * Method:    GetDoubleFieldByID
+ * Signature: (Ljava/lang/Object;J)D
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetByteField
-  (JNIEnv *, jclass, jobject, jobject, jbyte);
+JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_GetDoubleFieldByID
+  (JNIEnv *, jclass, jobject, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetCharField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;C)V
+ * Method:    SetObjectFieldByID
+ * Signature: (Ljava/lang/Object;JLjava/lang/Object;)V
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetCharField
-  (JNIEnv *, jclass, jobject, jobject, jchar);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetObjectFieldByID
+  (JNIEnv *, jclass, jobject, jlong, jobject);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetShortField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;S)V
+ * Method:    SetBooleanFieldByID
+ * Signature: (Ljava/lang/Object;JZ)V
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetShortField
-  (JNIEnv *, jclass, jobject, jobject, jshort);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetBooleanFieldByID
+  (JNIEnv *, jclass, jobject, jlong, jboolean);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetIntField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;I)V
+ * Method:    SetByteFieldByID
+ * Signature: (Ljava/lang/Object;JB)V
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetIntField
-  (JNIEnv *, jclass, jobject, jobject, jint);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetByteFieldByID
+  (JNIEnv *, jclass, jobject, jlong, jbyte);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetLongField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;J)V
+ * Method:    SetCharFieldByID
+ * Signature: (Ljava/lang/Object;JC)V
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetLongField
-  (JNIEnv *, jclass, jobject, jobject, jlong);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetCharFieldByID
+  (JNIEnv *, jclass, jobject, jlong, jchar);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetFloatField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;F)V
+ * Method:    SetShortFieldByID
+ * Signature: (Ljava/lang/Object;JS)V
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetFloatField
-  (JNIEnv *, jclass, jobject, jobject, jfloat);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetShortFieldByID
+  (JNIEnv *, jclass, jobject, jlong, jshort);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetDoubleField
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Field;D)V
+ * Method:    SetIntFieldByID
+ * Signature: (Ljava/lang/Object;JI)V
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetDoubleField
-  (JNIEnv *, jclass, jobject, jobject, jdouble);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetIntFieldByID
+  (JNIEnv *, jclass, jobject, jlong, jint);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallVoidMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)V
+ * Method:    SetLongFieldByID
+ * Signature: (Ljava/lang/Object;JJ)V
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallVoidMethod
-  (JNIEnv *, jclass, jobject, jobject, jobjectArray);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetLongFieldByID
+  (JNIEnv *, jclass, jobject, jlong, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallObjectMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)Ljava/lang/Object;
+ * Method:    SetFloatFieldByID
+ * Signature: (Ljava/lang/Object;JF)V
  */
-JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_CallObjectMethod
-  (JNIEnv *, jclass, jobject, jobject, jobjectArray);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetFloatFieldByID
+  (JNIEnv *, jclass, jobject, jlong, jfloat);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallBooleanMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)Z
+ * Method:    SetDoubleFieldByID
+ * Signature: (Ljava/lang/Object;JD)V
  */
-JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_CallBooleanMethod
-  (JNIEnv *, jclass, jobject, jobject, jobjectArray);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetDoubleFieldByID
+  (JNIEnv *, jclass, jobject, jlong, jdouble);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallByteMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)B
+ * Method:    GetStaticObjectFieldByID
+ * Signature: (Ljava/lang/Class;J)Ljava/lang/Object;
  */
-JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_CallByteMethod
-  (JNIEnv *, jclass, jobject, jobject, jobjectArray);
+JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_GetStaticObjectFieldByID
+  (JNIEnv *, jclass, jclass, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallCharMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)C
+ * Method:    GetStaticBooleanFieldByID
+ * Signature: (Ljava/lang/Class;J)Z
  */
-JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_CallCharMethod
-  (JNIEnv *, jclass, jobject, jobject, jobjectArray);
+JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_GetStaticBooleanFieldByID
+  (JNIEnv *, jclass, jclass, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallShortMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)S
+ * Method:    GetStaticByteFieldByID
+ * Signature: (Ljava/lang/Class;J)B
  */
-JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_CallShortMethod
-  (JNIEnv *, jclass, jobject, jobject, jobjectArray);
+JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_GetStaticByteFieldByID
+  (JNIEnv *, jclass, jclass, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallIntMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)I
+ * Method:    GetStaticCharFieldByID
+ * Signature: (Ljava/lang/Class;J)C
  */
-JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_CallIntMethod
-  (JNIEnv *, jclass, jobject, jobject, jobjectArray);
+JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_GetStaticCharFieldByID
+  (JNIEnv *, jclass, jclass, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallLongMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)J
+ * Method:    GetStaticShortFieldByID
+ * Signature: (Ljava/lang/Class;J)S
  */
-JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_CallLongMethod
-  (JNIEnv *, jclass, jobject, jobject, jobjectArray);
+JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_GetStaticShortFieldByID
+  (JNIEnv *, jclass, jclass, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallFloatMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)F
+ * Method:    GetStaticIntFieldByID
+ * Signature: (Ljava/lang/Class;J)I
  */
-JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_CallFloatMethod
-  (JNIEnv *, jclass, jobject, jobject, jobjectArray);
+JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_GetStaticIntFieldByID
+  (JNIEnv *, jclass, jclass, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallDoubleMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)D
+ * Method:    GetStaticLongFieldByID
+ * Signature: (Ljava/lang/Class;J)J
  */
-JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_CallDoubleMethod
-  (JNIEnv *, jclass, jobject, jobject, jobjectArray);
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_GetStaticLongFieldByID
+  (JNIEnv *, jclass, jclass, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallNonvirtualVoidMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)V
+ * Method:    GetStaticFloatFieldByID
+ * Signature: (Ljava/lang/Class;J)F
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualVoidMethod
-  (JNIEnv *, jclass, jobject, jclass, jobject, jobjectArray);
+JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_GetStaticFloatFieldByID
+  (JNIEnv *, jclass, jclass, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallNonvirtualObjectMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)Ljava/lang/Object;
+ * Method:    GetStaticDoubleFieldByID
+ * Signature: (Ljava/lang/Class;J)D
  */
-JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualObjectMethod
-  (JNIEnv *, jclass, jobject, jclass, jobject, jobjectArray);
+JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_GetStaticDoubleFieldByID
+  (JNIEnv *, jclass, jclass, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallNonvirtualBooleanMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)Z
+ * Method:    SetStaticObjectFieldByID
+ * Signature: (Ljava/lang/Class;JLjava/lang/Object;)V
  */
-JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualBooleanMethod
-  (JNIEnv *, jclass, jobject, jclass, jobject, jobjectArray);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticObjectFieldByID
+  (JNIEnv *, jclass, jclass, jlong, jobject);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallNonvirtualByteMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)B
+ * Method:    SetStaticBooleanFieldByID
+ * Signature: (Ljava/lang/Class;JZ)V
  */
-JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualByteMethod
-  (JNIEnv *, jclass, jobject, jclass, jobject, jobjectArray);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticBooleanFieldByID
+  (JNIEnv *, jclass, jclass, jlong, jboolean);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallNonvirtualCharMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)C
+ * Method:    SetStaticByteFieldByID
+ * Signature: (Ljava/lang/Class;JB)V
  */
-JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualCharMethod
-  (JNIEnv *, jclass, jobject, jclass, jobject, jobjectArray);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticByteFieldByID
+  (JNIEnv *, jclass, jclass, jlong, jbyte);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallNonvirtualShortMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)S
+ * Method:    SetStaticCharFieldByID
+ * Signature: (Ljava/lang/Class;JC)V
  */
-JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualShortMethod
-  (JNIEnv *, jclass, jobject, jclass, jobject, jobjectArray);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticCharFieldByID
+  (JNIEnv *, jclass, jclass, jlong, jchar);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallNonvirtualIntMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)I
+ * Method:    SetStaticShortFieldByID
+ * Signature: (Ljava/lang/Class;JS)V
  */
-JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualIntMethod
-  (JNIEnv *, jclass, jobject, jclass, jobject, jobjectArray);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticShortFieldByID
+  (JNIEnv *, jclass, jclass, jlong, jshort);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallNonvirtualLongMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)J
+ * Method:    SetStaticIntFieldByID
+ * Signature: (Ljava/lang/Class;JI)V
  */
-JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualLongMethod
-  (JNIEnv *, jclass, jobject, jclass, jobject, jobjectArray);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticIntFieldByID
+  (JNIEnv *, jclass, jclass, jlong, jint);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallNonvirtualFloatMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)F
+ * Method:    SetStaticLongFieldByID
+ * Signature: (Ljava/lang/Class;JJ)V
  */
-JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualFloatMethod
-  (JNIEnv *, jclass, jobject, jclass, jobject, jobjectArray);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticLongFieldByID
+  (JNIEnv *, jclass, jclass, jlong, jlong);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallNonvirtualDoubleMethod
- * Signature: (Ljava/lang/Object;Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)D
+ * Method:    SetStaticFloatFieldByID
+ * Signature: (Ljava/lang/Class;JF)V
  */
-JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualDoubleMethod
-  (JNIEnv *, jclass, jobject, jclass, jobject, jobjectArray);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticFloatFieldByID
+  (JNIEnv *, jclass, jclass, jlong, jfloat);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetStaticObjectField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;)Ljava/lang/Object;
+ * Method:    SetStaticDoubleFieldByID
+ * Signature: (Ljava/lang/Class;JD)V
  */
-JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_GetStaticObjectField
-  (JNIEnv *, jclass, jclass, jobject);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticDoubleFieldByID
+  (JNIEnv *, jclass, jclass, jlong, jdouble);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetStaticBooleanField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;)Z
+ * Method:    FromReflectedMethod
+ * Signature: (Ljava/lang/reflect/Executable;)J
  */
-JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_GetStaticBooleanField
-  (JNIEnv *, jclass, jclass, jobject);
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_FromReflectedMethod
+  (JNIEnv *, jclass, jobject);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetStaticByteField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;)B
+ * Method:    GetObjectSize
+ * Signature: (Ljava/lang/Object;)J
  */
-JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_GetStaticByteField
-  (JNIEnv *, jclass, jclass, jobject);
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_GetObjectSize
+  (JNIEnv *, jclass, jobject);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetStaticCharField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;)C
+ * Method:    IsClassInitialized
+ * Signature: (Ljava/lang/Class;)Z
  */
-JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_GetStaticCharField
-  (JNIEnv *, jclass, jclass, jobject);
+JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_IsClassInitialized
+  (JNIEnv *, jclass, jclass);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetStaticShortField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;)S
+ * Method:    NewObjectByID
+ * Signature: (Ljava/lang/Class;J[B[Ljava/lang/Object;)Ljava/lang/Object;
  */
-JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_GetStaticShortField
-  (JNIEnv *, jclass, jclass, jobject);
+JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_NewObjectByID
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetStaticIntField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;)I
+ * Method:    CallVoidMethodByID
+ * Signature: (Ljava/lang/Object;J[B[Ljava/lang/Object;)V
  */
-JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_GetStaticIntField
-  (JNIEnv *, jclass, jclass, jobject);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallVoidMethodByID
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetStaticLongField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;)J
+ * Method:    CallObjectMethodByID
+ * Signature: (Ljava/lang/Object;J[B[Ljava/lang/Object;)Ljava/lang/Object;
  */
-JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_GetStaticLongField
-  (JNIEnv *, jclass, jclass, jobject);
+JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_CallObjectMethodByID
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetStaticFloatField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;)F
+ * Method:    CallBooleanMethodByID
+ * Signature: (Ljava/lang/Object;J[B[Ljava/lang/Object;)Z
  */
-JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_GetStaticFloatField
-  (JNIEnv *, jclass, jclass, jobject);
+JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_CallBooleanMethodByID
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    GetStaticDoubleField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;)D
+ * Method:    CallByteMethodByID
+ * Signature: (Ljava/lang/Object;J[B[Ljava/lang/Object;)B
  */
-JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_GetStaticDoubleField
-  (JNIEnv *, jclass, jclass, jobject);
+JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_CallByteMethodByID
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetStaticObjectField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;Ljava/lang/Object;)V
+ * Method:    CallCharMethodByID
+ * Signature: (Ljava/lang/Object;J[B[Ljava/lang/Object;)C
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticObjectField
-  (JNIEnv *, jclass, jclass, jobject, jobject);
+JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_CallCharMethodByID
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetStaticBooleanField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;Z)V
+ * Method:    CallShortMethodByID
+ * Signature: (Ljava/lang/Object;J[B[Ljava/lang/Object;)S
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticBooleanField
-  (JNIEnv *, jclass, jclass, jobject, jboolean);
+JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_CallShortMethodByID
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetStaticByteField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;B)V
+ * Method:    CallIntMethodByID
+ * Signature: (Ljava/lang/Object;J[B[Ljava/lang/Object;)I
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticByteField
-  (JNIEnv *, jclass, jclass, jobject, jbyte);
+JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_CallIntMethodByID
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetStaticCharField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;C)V
+ * Method:    CallLongMethodByID
+ * Signature: (Ljava/lang/Object;J[B[Ljava/lang/Object;)J
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticCharField
-  (JNIEnv *, jclass, jclass, jobject, jchar);
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_CallLongMethodByID
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetStaticShortField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;S)V
+ * Method:    CallFloatMethodByID
+ * Signature: (Ljava/lang/Object;J[B[Ljava/lang/Object;)F
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticShortField
-  (JNIEnv *, jclass, jclass, jobject, jshort);
+JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_CallFloatMethodByID
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetStaticIntField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;I)V
+ * Method:    CallDoubleMethodByID
+ * Signature: (Ljava/lang/Object;J[B[Ljava/lang/Object;)D
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticIntField
-  (JNIEnv *, jclass, jclass, jobject, jint);
+JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_CallDoubleMethodByID
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetStaticLongField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;J)V
+ * Method:    CallNonvirtualVoidMethodByID
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[Ljava/lang/Object;)V
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticLongField
-  (JNIEnv *, jclass, jclass, jobject, jlong);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualVoidMethodByID
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetStaticFloatField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;F)V
+ * Method:    CallNonvirtualObjectMethodByID
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[Ljava/lang/Object;)Ljava/lang/Object;
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticFloatField
-  (JNIEnv *, jclass, jclass, jobject, jfloat);
+JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualObjectMethodByID
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    SetStaticDoubleField
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Field;D)V
+ * Method:    CallNonvirtualBooleanMethodByID
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[Ljava/lang/Object;)Z
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStaticDoubleField
-  (JNIEnv *, jclass, jclass, jobject, jdouble);
+JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualBooleanMethodByID
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallStaticVoidMethod
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)V
+ * Method:    CallNonvirtualByteMethodByID
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[Ljava/lang/Object;)B
  */
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallStaticVoidMethod
-  (JNIEnv *, jclass, jclass, jobject, jobjectArray);
+JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualByteMethodByID
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallStaticObjectMethod
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)Ljava/lang/Object;
+ * Method:    CallNonvirtualCharMethodByID
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[Ljava/lang/Object;)C
  */
-JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_CallStaticObjectMethod
-  (JNIEnv *, jclass, jclass, jobject, jobjectArray);
+JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualCharMethodByID
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallStaticBooleanMethod
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)Z
+ * Method:    CallNonvirtualShortMethodByID
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[Ljava/lang/Object;)S
  */
-JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_CallStaticBooleanMethod
-  (JNIEnv *, jclass, jclass, jobject, jobjectArray);
+JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualShortMethodByID
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallStaticByteMethod
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)B
+ * Method:    CallNonvirtualIntMethodByID
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[Ljava/lang/Object;)I
  */
-JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_CallStaticByteMethod
-  (JNIEnv *, jclass, jclass, jobject, jobjectArray);
+JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualIntMethodByID
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallStaticCharMethod
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)C
+ * Method:    CallNonvirtualLongMethodByID
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[Ljava/lang/Object;)J
  */
-JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_CallStaticCharMethod
-  (JNIEnv *, jclass, jclass, jobject, jobjectArray);
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualLongMethodByID
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallStaticShortMethod
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)S
+ * Method:    CallNonvirtualFloatMethodByID
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[Ljava/lang/Object;)F
  */
-JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_CallStaticShortMethod
-  (JNIEnv *, jclass, jclass, jobject, jobjectArray);
+JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualFloatMethodByID
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallStaticIntMethod
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)I
+ * Method:    CallNonvirtualDoubleMethodByID
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[Ljava/lang/Object;)D
  */
-JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_CallStaticIntMethod
-  (JNIEnv *, jclass, jclass, jobject, jobjectArray);
+JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualDoubleMethodByID
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallStaticLongMethod
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)J
+ * Method:    CallStaticVoidMethodByID
+ * Signature: (Ljava/lang/Class;J[B[Ljava/lang/Object;)V
  */
-JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_CallStaticLongMethod
-  (JNIEnv *, jclass, jclass, jobject, jobjectArray);
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallStaticVoidMethodByID
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallStaticFloatMethod
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)F
+ * Method:    CallStaticObjectMethodByID
+ * Signature: (Ljava/lang/Class;J[B[Ljava/lang/Object;)Ljava/lang/Object;
  */
-JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_CallStaticFloatMethod
-  (JNIEnv *, jclass, jclass, jobject, jobjectArray);
+JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_CallStaticObjectMethodByID
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    CallStaticDoubleMethod
- * Signature: (Ljava/lang/Class;Ljava/lang/reflect/Method;[Ljava/lang/Object;)D
+ * Method:    CallStaticBooleanMethodByID
+ * Signature: (Ljava/lang/Class;J[B[Ljava/lang/Object;)Z
  */
-JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_CallStaticDoubleMethod
-  (JNIEnv *, jclass, jclass, jobject, jobjectArray);
+JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_CallStaticBooleanMethodByID
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    JVM_DefineClass
- * Signature: (Ljava/lang/String;Ljava/lang/ClassLoader;[BIILjava/security/ProtectionDomain;)Ljava/lang/Class;
+ * Method:    CallStaticByteMethodByID
+ * Signature: (Ljava/lang/Class;J[B[Ljava/lang/Object;)B
  */
-JNIEXPORT jclass JNICALL Java_com_tianscar_util_Scalpel_JVM_1DefineClass__Ljava_lang_String_2Ljava_lang_ClassLoader_2_3BIILjava_security_ProtectionDomain_2
-  (JNIEnv *, jclass, jstring, jobject, jbyteArray, jint, jint, jobject);
+JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_CallStaticByteMethodByID
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jobjectArray);
 
 /*
  * Class:     com_tianscar_util_Scalpel
- * Method:    JVM_DefineClass
- * Signature: (Ljava/lang/String;Ljava/lang/ClassLoader;Ljava/nio/ByteBuffer;ILjava/security/ProtectionDomain;)Ljava/lang/Class;
+ * Method:    CallStaticCharMethodByID
+ * Signature: (Ljava/lang/Class;J[B[Ljava/lang/Object;)C
+ */
+JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_CallStaticCharMethodByID
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticShortMethodByID
+ * Signature: (Ljava/lang/Class;J[B[Ljava/lang/Object;)S
+ */
+JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_CallStaticShortMethodByID
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticIntMethodByID
+ * Signature: (Ljava/lang/Class;J[B[Ljava/lang/Object;)I
+ */
+JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_CallStaticIntMethodByID
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticLongMethodByID
+ * Signature: (Ljava/lang/Class;J[B[Ljava/lang/Object;)J
+ */
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_CallStaticLongMethodByID
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticFloatMethodByID
+ * Signature: (Ljava/lang/Class;J[B[Ljava/lang/Object;)F
+ */
+JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_CallStaticFloatMethodByID
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticDoubleMethodByID
+ * Signature: (Ljava/lang/Class;J[B[Ljava/lang/Object;)D
+ */
+JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_CallStaticDoubleMethodByID
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallVoidMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;J[B[J[Ljava/lang/Object;)V
+ */
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallVoidMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallObjectMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;J[B[J[Ljava/lang/Object;)Ljava/lang/Object;
+ */
+JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_CallObjectMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallBooleanMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;J[B[J[Ljava/lang/Object;)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_CallBooleanMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallByteMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;J[B[J[Ljava/lang/Object;)B
+ */
+JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_CallByteMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallCharMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;J[B[J[Ljava/lang/Object;)C
+ */
+JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_CallCharMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallShortMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;J[B[J[Ljava/lang/Object;)S
+ */
+JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_CallShortMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallIntMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;J[B[J[Ljava/lang/Object;)I
+ */
+JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_CallIntMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallLongMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;J[B[J[Ljava/lang/Object;)J
+ */
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_CallLongMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallFloatMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;J[B[J[Ljava/lang/Object;)F
+ */
+JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_CallFloatMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallDoubleMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;J[B[J[Ljava/lang/Object;)D
+ */
+JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_CallDoubleMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallNonvirtualVoidMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[J[Ljava/lang/Object;)V
+ */
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualVoidMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallNonvirtualObjectMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[J[Ljava/lang/Object;)Ljava/lang/Object;
+ */
+JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualObjectMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallNonvirtualBooleanMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[J[Ljava/lang/Object;)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualBooleanMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallNonvirtualByteMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[J[Ljava/lang/Object;)B
+ */
+JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualByteMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallNonvirtualCharMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[J[Ljava/lang/Object;)C
+ */
+JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualCharMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallNonvirtualShortMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[J[Ljava/lang/Object;)S
+ */
+JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualShortMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallNonvirtualIntMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[J[Ljava/lang/Object;)I
+ */
+JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualIntMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallNonvirtualLongMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[J[Ljava/lang/Object;)J
+ */
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualLongMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallNonvirtualFloatMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[J[Ljava/lang/Object;)F
+ */
+JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualFloatMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallNonvirtualDoubleMethodByIDWithFrame
+ * Signature: (Ljava/lang/Object;Ljava/lang/Class;J[B[J[Ljava/lang/Object;)D
+ */
+JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualDoubleMethodByIDWithFrame
+  (JNIEnv *, jclass, jobject, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticVoidMethodByIDWithFrame
+ * Signature: (Ljava/lang/Class;J[B[J[Ljava/lang/Object;)V
+ */
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallStaticVoidMethodByIDWithFrame
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticObjectMethodByIDWithFrame
+ * Signature: (Ljava/lang/Class;J[B[J[Ljava/lang/Object;)Ljava/lang/Object;
+ */
+JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_CallStaticObjectMethodByIDWithFrame
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticBooleanMethodByIDWithFrame
+ * Signature: (Ljava/lang/Class;J[B[J[Ljava/lang/Object;)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_CallStaticBooleanMethodByIDWithFrame
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticByteMethodByIDWithFrame
+ * Signature: (Ljava/lang/Class;J[B[J[Ljava/lang/Object;)B
+ */
+JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_CallStaticByteMethodByIDWithFrame
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticCharMethodByIDWithFrame
+ * Signature: (Ljava/lang/Class;J[B[J[Ljava/lang/Object;)C
+ */
+JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_CallStaticCharMethodByIDWithFrame
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticShortMethodByIDWithFrame
+ * Signature: (Ljava/lang/Class;J[B[J[Ljava/lang/Object;)S
+ */
+JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_CallStaticShortMethodByIDWithFrame
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticIntMethodByIDWithFrame
+ * Signature: (Ljava/lang/Class;J[B[J[Ljava/lang/Object;)I
+ */
+JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_CallStaticIntMethodByIDWithFrame
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticLongMethodByIDWithFrame
+ * Signature: (Ljava/lang/Class;J[B[J[Ljava/lang/Object;)J
+ */
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_CallStaticLongMethodByIDWithFrame
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticFloatMethodByIDWithFrame
+ * Signature: (Ljava/lang/Class;J[B[J[Ljava/lang/Object;)F
+ */
+JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_CallStaticFloatMethodByIDWithFrame
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    CallStaticDoubleMethodByIDWithFrame
+ * Signature: (Ljava/lang/Class;J[B[J[Ljava/lang/Object;)D
+ */
+JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_CallStaticDoubleMethodByIDWithFrame
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
+
+/*
+ * Class:     com_tianscar_util_Scalpel
+ * Method:    NewObjectByIDWithFrame
+ * Signature: (Ljava/lang/Class;J[B[J[Ljava/lang/Object;)Ljava/lang/Object;
  */
-JNIEXPORT jclass JNICALL Java_com_tianscar_util_Scalpel_JVM_1DefineClass__Ljava_lang_String_2Ljava_lang_ClassLoader_2Ljava_nio_ByteBuffer_2ILjava_security_ProtectionDomain_2
-  (JNIEnv *, jclass, jstring, jobject, jobject, jint, jobject);
+JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_NewObjectByIDWithFrame
+  (JNIEnv *, jclass, jclass, jlong, jbyteArray, jlongArray, jobjectArray);
 
 #ifdef __cplusplus
 }
@@ -1,4 +1,5 @@
 #include "com_tianscar_util_Scalpel.h"
+#include <jvmti.h>
 
 #if defined(_MSC_VER) || defined(__MINGW32__)
 #include <libloaderapi.h>
@@ -7,53 +8,60 @@
 #endif
 
 #include <malloc.h>
+#include <stdint.h>
+#include <string.h>
 
 static jclass IllegalArgumentException_class;
 static jclass OutOfMemoryError_class;
-
-static jmethodID Class_getComponentType_methodID;
-
-static jclass void_class;
+static jclass NullPointerException_class;
 
 static jclass Boolean_class;
-static jclass boolean_class;
-static jmethodID Boolean_booleanValue_methodID;
+static jfieldID Boolean_value_fieldID;
 
 static jclass Byte_class;
-static jclass byte_class;
-static jmethodID Byte_byteValue_methodID;
+static jfieldID Byte_value_fieldID;
 
 static jclass Character_class;
-static jclass char_class;
-static jmethodID Character_charValue_methodID;
+static jfieldID Character_value_fieldID;
 
 static jclass Short_class;
-static jclass short_class;
-static jmethodID Short_shortValue_methodID;
+static jfieldID Short_value_fieldID;
 
 static jclass Integer_class;
-static jclass int_class;
-static jmethodID Integer_intValue_methodID;
+static jfieldID Integer_value_fieldID;
 
 static jclass Long_class;
-static jclass long_class;
-static jmethodID Long_longValue_methodID;
+static jfieldID Long_value_fieldID;
 
 static jclass Float_class;
-static jclass float_class;
-static jmethodID Float_floatValue_methodID;
+static jfieldID Float_value_fieldID;
 
 static jclass Double_class;
-static jclass double_class;
-static jmethodID Double_doubleValue_methodID;
-
-static jmethodID Executable_getParameterTypes_methodID;
-static jmethodID Executable_isVarArgs_methodID;
+static jfieldID Double_value_fieldID;
 
 typedef jclass (*JVM_DefineClass_function)(JNIEnv *env, const char *name, jobject loader, const jbyte *buf, jsize len, jobject pd);
 
 static JVM_DefineClass_function JVM_DefineClass;
 
+// Optional; NULL if the VM provides no JVMTI environment
+static jvmtiEnv *jvmti;
+
+#define TYPE_OBJECT 0
+#define TYPE_BOOLEAN 1
+#define TYPE_BYTE 2
+#define TYPE_CHAR 3
+#define TYPE_SHORT 4
+#define TYPE_INT 5
+#define TYPE_LONG 6
+#define TYPE_FLOAT 7
+#define TYPE_DOUBLE 8
+
+#ifdef _MSC_VER
+#define STACK_ARRAY(type, name, length) type *name = _alloca(sizeof(type) * ((length) > 0 ? (length) : 1))
+#else
+#define STACK_ARRAY(type, name, length) type name[(length) > 0 ? (length) : 1]
+#endif
+
 JNIEXPORT jint JNICALL
 JNI_OnLoad(JavaVM *vm, void *reserved) {
     (void) reserved;
@@ -70,81 +78,51 @@ JNI_OnLoad(JavaVM *vm, void *reserved) {
 #endif
     if (!JVM_DefineClass) return -1;
 
+    if ((*vm)->GetEnv(vm, (void**) &jvmti, JVMTI_VERSION_1_0) != JNI_OK) jvmti = NULL;
+
     IllegalArgumentException_class = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/IllegalArgumentException"));
     OutOfMemoryError_class = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/OutOfMemoryError"));
-
-    jclass Class_class = (*env)->FindClass(env, "java/lang/Class");
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    Class_getComponentType_methodID = (*env)->GetMethodID(env, Class_class, "getComponentType", "()Ljava/lang/Class;");
-    if ((*env)->ExceptionOccurred(env)) return -1;
-
-    jclass Void_class = (*env)->FindClass(env, "java/lang/Void");
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    void_class = (*env)->NewGlobalRef(env, (*env)->GetStaticObjectField(env, Void_class, (*env)->GetStaticFieldID(env, Void_class, "TYPE", "Ljava/lang/Class;")));
-    if ((*env)->ExceptionOccurred(env)) return -1;
+    NullPointerException_class = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/NullPointerException"));
 
     Boolean_class = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/Boolean"));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    boolean_class = (*env)->NewGlobalRef(env, (*env)->GetStaticObjectField(env, Boolean_class, (*env)->GetStaticFieldID(env, Boolean_class, "TYPE", "Ljava/lang/Class;")));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    Boolean_booleanValue_methodID = (*env)->GetMethodID(env, Boolean_class, "booleanValue", "()Z");
-    if ((*env)->ExceptionOccurred(env)) return -1;
+    if ((*env)->ExceptionCheck(env)) return -1;
+    Boolean_value_fieldID = (*env)->GetFieldID(env, Boolean_class, "value", "Z");
+    if ((*env)->ExceptionCheck(env)) return -1;
 
     Byte_class = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/Byte"));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    byte_class = (*env)->NewGlobalRef(env, (*env)->GetStaticObjectField(env, Byte_class, (*env)->GetStaticFieldID(env, Byte_class, "TYPE", "Ljava/lang/Class;")));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    Byte_byteValue_methodID = (*env)->GetMethodID(env, Byte_class, "byteValue", "()B");
-    if ((*env)->ExceptionOccurred(env)) return -1;
+    if ((*env)->ExceptionCheck(env)) return -1;
+    Byte_value_fieldID = (*env)->GetFieldID(env, Byte_class, "value", "B");
+    if ((*env)->ExceptionCheck(env)) return -1;
 
     Character_class = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/Character"));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    char_class = (*env)->NewGlobalRef(env, (*env)->GetStaticObjectField(env, Character_class, (*env)->GetStaticFieldID(env, Character_class, "TYPE", "Ljava/lang/Class;")));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    Character_charValue_methodID = (*env)->GetMethodID(env, Character_class, "charValue", "()C");
-    if ((*env)->ExceptionOccurred(env)) return -1;
+    if ((*env)->ExceptionCheck(env)) return -1;
+    Character_value_fieldID = (*env)->GetFieldID(env, Character_class, "value", "C");
+    if ((*env)->ExceptionCheck(env)) return -1;
 
     Short_class = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/Short"));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    short_class = (*env)->NewGlobalRef(env, (*env)->GetStaticObjectField(env, Short_class, (*env)->GetStaticFieldID(env, Short_class, "TYPE", "Ljava/lang/Class;")));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    Short_shortValue_methodID = (*env)->GetMethodID(env, Short_class, "shortValue", "()S");
-    if ((*env)->ExceptionOccurred(env)) return -1;
+    if ((*env)->ExceptionCheck(env)) return -1;
+    Short_value_fieldID = (*env)->GetFieldID(env, Short_class, "value", "S");
+    if ((*env)->ExceptionCheck(env)) return -1;
 
     Integer_class = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/Integer"));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    int_class = (*env)->NewGlobalRef(env, (*env)->GetStaticObjectField(env, Integer_class, (*env)->GetStaticFieldID(env, Integer_class, "TYPE", "Ljava/lang/Class;")));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    Integer_intValue_methodID = (*env)->GetMethodID(env, Integer_class, "intValue", "()I");
-    if ((*env)->ExceptionOccurred(env)) return -1;
+    if ((*env)->ExceptionCheck(env)) return -1;
+    Integer_value_fieldID = (*env)->GetFieldID(env, Integer_class, "value", "I");
+    if ((*env)->ExceptionCheck(env)) return -1;
 
     Long_class = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/Long"));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    long_class = (*env)->NewGlobalRef(env, (*env)->GetStaticObjectField(env, Long_class, (*env)->GetStaticFieldID(env, Long_class, "TYPE", "Ljava/lang/Class;")));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    Long_longValue_methodID = (*env)->GetMethodID(env, Long_class, "longValue", "()J");
-    if ((*env)->ExceptionOccurred(env)) return -1;
+    if ((*env)->ExceptionCheck(env)) return -1;
+    Long_value_fieldID = (*env)->GetFieldID(env, Long_class, "value", "J");
+    if ((*env)->ExceptionCheck(env)) return -1;
 
     Float_class = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/Float"));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    float_class = (*env)->NewGlobalRef(env, (*env)->GetStaticObjectField(env, Float_class, (*env)->GetStaticFieldID(env, Float_class, "TYPE", "Ljava/lang/Class;")));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    Float_floatValue_methodID = (*env)->GetMethodID(env, Float_class, "floatValue", "()F");
-    if ((*env)->ExceptionOccurred(env)) return -1;
+    if ((*env)->ExceptionCheck(env)) return -1;
+    Float_value_fieldID = (*env)->GetFieldID(env, Float_class, "value", "F");
+    if ((*env)->ExceptionCheck(env)) return -1;
 
     Double_class = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/Double"));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    double_class = (*env)->NewGlobalRef(env, (*env)->GetStaticObjectField(env, Double_class, (*env)->GetStaticFieldID(env, Double_class, "TYPE", "Ljava/lang/Class;")));
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    Double_doubleValue_methodID = (*env)->GetMethodID(env, Double_class, "doubleValue", "()D");
-    if ((*env)->ExceptionOccurred(env)) return -1;
-
-    jclass Executable_class = (*env)->FindClass(env, "java/lang/reflect/Executable");
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    Executable_getParameterTypes_methodID = (*env)->GetMethodID(env, Executable_class, "getParameterTypes", "()[Ljava/lang/Class;");
-    if ((*env)->ExceptionOccurred(env)) return -1;
-    Executable_isVarArgs_methodID = (*env)->GetMethodID(env, Executable_class, "isVarArgs", "()Z");
-    if ((*env)->ExceptionOccurred(env)) return -1;
+    if ((*env)->ExceptionCheck(env)) return -1;
+    Double_value_fieldID = (*env)->GetFieldID(env, Double_class, "value", "D");
+    if ((*env)->ExceptionCheck(env)) return -1;
 
     return JNI_VERSION_1_1;
 }
@@ -155,151 +133,20 @@ JNI_OnUnload(JavaVM *vm, void *reserved) {
     JNIEnv* env;
     if ((*vm)->GetEnv(vm, (void**) &env, JNI_VERSION_1_1) != JNI_OK) return;
 
+    if (jvmti) (*jvmti)->DisposeEnvironment(jvmti);
+
     (*env)->DeleteGlobalRef(env, IllegalArgumentException_class);
     (*env)->DeleteGlobalRef(env, OutOfMemoryError_class);
-
-    (*env)->DeleteGlobalRef(env, void_class);
+    (*env)->DeleteGlobalRef(env, NullPointerException_class);
 
     (*env)->DeleteGlobalRef(env, Boolean_class);
-    (*env)->DeleteGlobalRef(env, boolean_class);
-
     (*env)->DeleteGlobalRef(env, Byte_class);
-    (*env)->DeleteGlobalRef(env, byte_class);
-
     (*env)->DeleteGlobalRef(env, Character_class);
-    (*env)->DeleteGlobalRef(env, char_class);
-
     (*env)->DeleteGlobalRef(env, Short_class);
-    (*env)->DeleteGlobalRef(env, short_class);
-
     (*env)->DeleteGlobalRef(env, Integer_class);
-    (*env)->DeleteGlobalRef(env, int_class);
-
     (*env)->DeleteGlobalRef(env, Long_class);
-    (*env)->DeleteGlobalRef(env, long_class);
-
     (*env)->DeleteGlobalRef(env, Float_class);
-    (*env)->DeleteGlobalRef(env, float_class);
-
     (*env)->DeleteGlobalRef(env, Double_class);
-    (*env)->DeleteGlobalRef(env, double_class);
-}
-
-#define UNBOX_PRIMITIVE(primitive_keyword, primitive_keyword_upper, boxed_class_name, jvalue_member) \
-    ((*env)->IsSameObject(env, param_class, primitive_keyword ## _class)) { \
-        if (jarg == NULL) (*env)->ThrowNew(env, IllegalArgumentException_class, "Cannot unbox a null argument; expected " #boxed_class_name); \
-        else if (!(*env)->IsSameObject(env, jarg_class, boxed_class_name ## _class)) \
-            (*env)->ThrowNew(env, IllegalArgumentException_class, "Cannot unbox an argument with wrong type; expected " #boxed_class_name); \
-        else \
-            args[i].jvalue_member = (*env)->Call ## primitive_keyword_upper ## Method(env, jarg, boxed_class_name ## _ ## primitive_keyword ## Value_methodID); \
-    }
-#define UNBOX_VARARGS(primitive_keyword, primitive_keyword_upper, boxed_class_name) \
-        ((*env)->IsSameObject(env, varargs_elements_class, primitive_keyword ## _class)) { \
-            j ## primitive_keyword ## Array jarray = (*env)->New ## primitive_keyword_upper ## Array(env, num_varargs_params); \
-            if ((*env)->ExceptionOccurred(env)) return JNI_FALSE; \
-            if (!jarray) { \
-                (*env)->ThrowNew(env, OutOfMemoryError_class, NULL); \
-                return JNI_FALSE; \
-            } \
-            args[num_non_varargs_params].l = jarray; \
-            j ## primitive_keyword *varargs = (*env)->Get ## primitive_keyword_upper ## ArrayElements(env, jarray, NULL); \
-            if ((*env)->ExceptionOccurred(env)) return JNI_FALSE; \
-            if (!varargs) { \
-                (*env)->ThrowNew(env, OutOfMemoryError_class, NULL); \
-                return JNI_FALSE; \
-            } \
-            for (jsize i = 0; i < num_varargs_params; i ++) { \
-                jobject jarg = (*env)->GetObjectArrayElement(env, jargs, i + num_non_varargs_params); \
-                if ((*env)->ExceptionOccurred(env)) return JNI_FALSE; \
-                if (jarg == NULL) { \
-                    (*env)->ThrowNew(env, IllegalArgumentException_class, "Cannot unbox a null argument; expected " #boxed_class_name); \
-                    return JNI_FALSE; \
-                } \
-                jclass arg_class = (*env)->GetObjectClass(env, jarg); \
-                if ((*env)->ExceptionOccurred(env)) return JNI_FALSE; \
-                if (!(*env)->IsSameObject(env, arg_class, boxed_class_name ## _class)) { \
-                    (*env)->ThrowNew(env, IllegalArgumentException_class, "Cannot unbox an argument with wrong type; expected " #boxed_class_name); \
-                    return JNI_FALSE; \
-                } else \
-                    varargs[i] = (*env)->Call ## primitive_keyword_upper ## Method(env, jarg, boxed_class_name ## _ ## primitive_keyword ## Value_methodID); \
-            } \
-            (*env)->Release ## primitive_keyword_upper ## ArrayElements(env, jarray, varargs, 0); \
-        }
-jboolean unbox(JNIEnv *env, jobject executable, jobjectArray jargs, jvalue *args, jsize num_args) {
-    jobject parameterTypes = (*env)->CallObjectMethod(env, executable, Executable_getParameterTypes_methodID);
-    if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-    jsize num_params = (*env)->GetArrayLength(env, parameterTypes);
-    if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-    jboolean has_varargs = (*env)->CallBooleanMethod(env, executable, Executable_isVarArgs_methodID);
-    if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-    jclass varargs_array_class;
-    jclass varargs_elements_class;
-    if (has_varargs) {
-        varargs_array_class = (*env)->GetObjectArrayElement(env, parameterTypes, num_params - 1);
-        if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-        varargs_elements_class = (*env)->CallObjectMethod(env, varargs_array_class, Class_getComponentType_methodID);
-        if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-    }
-    jsize num_non_varargs_params = num_params - (has_varargs ? 1 : 0);
-    if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-    if ((!has_varargs && num_args != num_params) || (has_varargs && num_args < num_non_varargs_params)) {
-        (*env)->ThrowNew(env, IllegalArgumentException_class, "Wrong number of arguments");
-        return JNI_FALSE;
-    }
-    jsize num_varargs_params = num_args - num_non_varargs_params;
-    // Unbox non-varargs
-    for (jsize i = 0; i < num_non_varargs_params; i ++) {
-        jclass param_class = (*env)->GetObjectArrayElement(env, parameterTypes, i);
-        if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-        jobject jarg = (*env)->GetObjectArrayElement(env, jargs, i);
-        if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-        jclass jarg_class = jarg == NULL ? NULL : (*env)->GetObjectClass(env, jarg);
-        if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-        if UNBOX_PRIMITIVE(int, Int, Integer, i)
-        else if UNBOX_PRIMITIVE(long, Long, Long, j)
-        else if UNBOX_PRIMITIVE(short, Short, Short, s)
-        else if UNBOX_PRIMITIVE(char, Char, Character, c)
-        else if UNBOX_PRIMITIVE(boolean, Boolean, Boolean, z)
-        else if UNBOX_PRIMITIVE(byte, Byte, Byte, b)
-        else if UNBOX_PRIMITIVE(float, Float, Float, f)
-        else if UNBOX_PRIMITIVE(double, Double, Double, d)
-        else {
-            if (jarg != NULL && !(*env)->IsAssignableFrom(env, jarg_class, param_class))
-                (*env)->ThrowNew(env, IllegalArgumentException_class, "Incompatible argument type");
-            else args[i].l = jarg;
-        }
-        if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-    }
-    // Unbox varargs
-    if (has_varargs) {
-        if UNBOX_VARARGS(int, Int, Integer)
-        else if UNBOX_VARARGS(long, Long, Long)
-        else if UNBOX_VARARGS(short, Short, Short)
-        else if UNBOX_VARARGS(char, Char, Character)
-        else if UNBOX_VARARGS(boolean, Boolean, Boolean)
-        else if UNBOX_VARARGS(byte, Byte, Byte)
-        else if UNBOX_VARARGS(float, Float, Float)
-        else if UNBOX_VARARGS(double, Double, Double)
-        else {
-            jobjectArray jarray = args[num_non_varargs_params].l = (*env)->NewObjectArray(env, num_varargs_params, varargs_elements_class, NULL);
-            if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-            if (!jarray) {
-                (*env)->ThrowNew(env, OutOfMemoryError_class, NULL);
-                return JNI_FALSE;
-            }
-            for (jsize i = 0; i < num_varargs_params; i ++) {
-                jobject jarg = (*env)->GetObjectArrayElement(env, jargs, i + num_non_varargs_params);
-                if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-                jclass arg_class = jarg == NULL ? NULL : (*env)->GetObjectClass(env, jarg);
-                if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-                if (jarg != NULL && !(*env)->IsAssignableFrom(env, arg_class, varargs_elements_class))
-                    (*env)->ThrowNew(env, IllegalArgumentException_class, "Incompatible argument type");
-                else (*env)->SetObjectArrayElement(env, jarray, i, jarg);
-                if ((*env)->ExceptionOccurred(env)) return JNI_FALSE;
-            }
-        }
-    }
-    return JNI_TRUE;
 }
 
 JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_AllocObject
@@ -308,601 +155,509 @@ JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_AllocObject
     return (*env)->AllocObject(env, clazz);
 }
 
-JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_NewObject
-        (JNIEnv *env, jclass unused, jclass clazz, jobject constructor, jobjectArray jargs) {
-    (void) unused;
-    jmethodID constructor_methodID = (*env)->FromReflectedMethod(env, constructor);
-    if ((*env)->ExceptionOccurred(env)) return NULL;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return NULL;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, constructor, jargs, args, num_args)) return (*env)->NewObjectA(env, clazz, constructor_methodID, args);
-    else return NULL;
-}
-
-#define GET_FIELD_FUNCTION(keyword, keyword_upper) \
-JNIEXPORT j ## keyword JNICALL Java_com_tianscar_util_Scalpel_Get ## keyword_upper ## Field \
-        (JNIEnv *env, jclass unused, jobject object, jobject field) { \
-    (void) unused; \
-    jfieldID field_fieldID = (*env)->FromReflectedField(env, field); \
-    if ((*env)->ExceptionOccurred(env)) return (j ## keyword) 0; \
-    return (*env)->Get ## keyword_upper ## Field(env, object, field_fieldID); \
-}
-
-GET_FIELD_FUNCTION(object, Object)
-GET_FIELD_FUNCTION(boolean, Boolean)
-GET_FIELD_FUNCTION(byte, Byte)
-GET_FIELD_FUNCTION(char, Char)
-GET_FIELD_FUNCTION(short, Short)
-GET_FIELD_FUNCTION(int, Int)
-GET_FIELD_FUNCTION(long, Long)
-GET_FIELD_FUNCTION(float, Float)
-GET_FIELD_FUNCTION(double, Double)
-
-#define SET_FIELD_FUNCTION(keyword, keyword_upper) \
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_Set ## keyword_upper ## Field \
-        (JNIEnv *env, jclass unused, jobject object, jobject field, j ## keyword value) { \
-    (void) unused; \
-    jfieldID field_fieldID = (*env)->FromReflectedField(env, field); \
-    if ((*env)->ExceptionOccurred(env)) return; \
-    return (*env)->Set ## keyword_upper ## Field(env, object, field_fieldID, value); \
-}
-
-SET_FIELD_FUNCTION(object, Object)
-SET_FIELD_FUNCTION(boolean, Boolean)
-SET_FIELD_FUNCTION(byte, Byte)
-SET_FIELD_FUNCTION(char, Char)
-SET_FIELD_FUNCTION(short, Short)
-SET_FIELD_FUNCTION(int, Int)
-SET_FIELD_FUNCTION(long, Long)
-SET_FIELD_FUNCTION(float, Float)
-SET_FIELD_FUNCTION(double, Double)
-
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallVoidMethod
-        (JNIEnv *env, jclass unused, jobject object, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) (*env)->CallVoidMethodA(env, object, method_methodID, args);
-}
-
-JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_CallObjectMethod
-        (JNIEnv *env, jclass unused, jobject object, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jobject) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jobject) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallObjectMethodA(env, object, method_methodID, args);
-    else return (jobject) 0;
-}
-
-JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_CallBooleanMethod
-        (JNIEnv *env, jclass unused, jobject object, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jboolean) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jboolean) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallBooleanMethodA(env, object, method_methodID, args);
-    else return (jboolean) 0;
-}
-
-JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_CallByteMethod
-        (JNIEnv *env, jclass unused, jobject object, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jbyte) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jbyte) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallByteMethodA(env, object, method_methodID, args);
-    else return (jbyte) 0;
-}
-
-JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_CallCharMethod
-        (JNIEnv *env, jclass unused, jobject object, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jchar) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jchar) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallCharMethodA(env, object, method_methodID, args);
-    else return (jchar) 0;
-}
-
-JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_CallShortMethod
-        (JNIEnv *env, jclass unused, jobject object, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jshort) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jshort) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallShortMethodA(env, object, method_methodID, args);
-    else return (jshort) 0;
-}
-
-JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_CallIntMethod
-        (JNIEnv *env, jclass unused, jobject object, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jint) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jint) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallIntMethodA(env, object, method_methodID, args);
-    else return (jint) 0;
-}
-
-JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_CallLongMethod
-        (JNIEnv *env, jclass unused, jobject object, jobject method, jobjectArray jargs) {
+// The copy of the array can not be replaced by pinning it with GetPrimitiveArrayCritical, since JVM_DefineClass
+// may run Java code (e.g. to load the supertypes) and collect garbage, neither of which a critical region allows
+JNIEXPORT jclass JNICALL Java_com_tianscar_util_Scalpel_JVM_1DefineClass__Ljava_lang_String_2Ljava_lang_ClassLoader_2_3BIILjava_security_ProtectionDomain_2
+        (JNIEnv *env, jclass unused, jstring jname, jobject loader, jbyteArray jbuf, jint off, jint len, jobject pd) {
     (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jlong) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jlong) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallLongMethodA(env, object, method_methodID, args);
-    else return (jlong) 0;
+    const char *name = jname ? (*env)->GetStringUTFChars(env, jname, NULL) : NULL;
+    if ((*env)->ExceptionCheck(env)) return NULL;
+    jbyte *buf = malloc(len > 0 ? len : 1);
+    if (!buf) {
+        if (name) (*env)->ReleaseStringUTFChars(env, jname, name);
+        (*env)->ThrowNew(env, OutOfMemoryError_class, NULL);
+        return NULL;
+    }
+    (*env)->GetByteArrayRegion(env, jbuf, off, len, buf);
+    jclass clazz = (*env)->ExceptionCheck(env) ? NULL : JVM_DefineClass(env, name, loader, buf, len, pd);
+    if (name) (*env)->ReleaseStringUTFChars(env, jname, name);
+    free(buf);
+    return clazz;
 }
 
-JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_CallFloatMethod
-        (JNIEnv *env, jclass unused, jobject object, jobject method, jobjectArray jargs) {
+JNIEXPORT jclass JNICALL Java_com_tianscar_util_Scalpel_JVM_1DefineClass__Ljava_lang_String_2Ljava_lang_ClassLoader_2Ljava_nio_ByteBuffer_2IILjava_security_ProtectionDomain_2
+        (JNIEnv *env, jclass unused, jstring jname, jobject loader, jobject jbuf, jint off, jint len, jobject pd) {
     (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jfloat) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jfloat) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallFloatMethodA(env, object, method_methodID, args);
-    else return (jfloat) 0;
+    const char *name = jname ? (*env)->GetStringUTFChars(env, jname, NULL) : NULL;
+    if ((*env)->ExceptionCheck(env)) return NULL;
+    // The address of the buffer itself, regardless of its position
+    jbyte *buf = (*env)->GetDirectBufferAddress(env, jbuf);
+    jclass clazz = buf && buf != (jbyte *) -1 ? JVM_DefineClass(env, name, loader, buf + off, len, pd) : NULL;
+    if (!clazz && !(*env)->ExceptionCheck(env)) (*env)->ThrowNew(env, IllegalArgumentException_class, "Direct buffer address not available");
+    if (name) (*env)->ReleaseStringUTFChars(env, jname, name);
+    return clazz;
 }
 
-JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_CallDoubleMethod
-        (JNIEnv *env, jclass unused, jobject object, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jboolean) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jboolean) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallBooleanMethodA(env, object, method_methodID, args);
-    else return (jboolean) 0;
+JNIEXPORT jobjectArray JNICALL Java_com_tianscar_util_Scalpel_JVM_1DefineClasses
+        (JNIEnv *env, jclass clazz, jobjectArray jnames, jobject loader, jobjectArray jbufs, jobject pd) {
+    jsize count = (*env)->GetArrayLength(env, jnames);
+    if ((*env)->GetArrayLength(env, jbufs) != count) {
+        (*env)->ThrowNew(env, IllegalArgumentException_class, "Names and bytecodes differ in length");
+        return NULL;
+    }
+    // One buffer, large enough for the largest class, serves the whole batch
+    jsize capacity = 1;
+    for (jsize i = 0; i < count; i ++) {
+        jbyteArray jbuf = (*env)->GetObjectArrayElement(env, jbufs, i);
+        if ((*env)->ExceptionCheck(env)) return NULL;
+        if (!jbuf) {
+            (*env)->ThrowNew(env, NullPointerException_class, NULL);
+            return NULL;
+        }
+        jsize len = (*env)->GetArrayLength(env, jbuf);
+        (*env)->DeleteLocalRef(env, jbuf);
+        if (len > capacity) capacity = len;
+    }
+    // The class of a class is java.lang.Class
+    jclass class_class = (*env)->GetObjectClass(env, clazz);
+    jobjectArray classes = (*env)->NewObjectArray(env, count, class_class, NULL);
+    (*env)->DeleteLocalRef(env, class_class);
+    if (!classes) return NULL;
+    jbyte *buf = malloc(capacity);
+    if (!buf) {
+        (*env)->DeleteLocalRef(env, classes);
+        (*env)->ThrowNew(env, OutOfMemoryError_class, NULL);
+        return NULL;
+    }
+    for (jsize i = 0; i < count; i ++) {
+        // Every step runs only if no exception is pending, and every reference is released below
+        jstring jname = (*env)->GetObjectArrayElement(env, jnames, i);
+        jbyteArray jbuf = (*env)->ExceptionCheck(env) ? NULL : (*env)->GetObjectArrayElement(env, jbufs, i);
+        const char *name = NULL;
+        jclass defined = NULL;
+        jsize len = 0;
+        if (!(*env)->ExceptionCheck(env) && !jbuf) (*env)->ThrowNew(env, NullPointerException_class, NULL);
+        if (!(*env)->ExceptionCheck(env)) {
+            len = (*env)->GetArrayLength(env, jbuf);
+            // The arrays are not copied by the caller, so an element may have been replaced by a larger one
+            if (len > capacity) {
+                jbyte *grown = realloc(buf, len);
+                if (grown) {
+                    buf = grown;
+                    capacity = len;
+                }
+                else (*env)->ThrowNew(env, OutOfMemoryError_class, NULL);
+            }
+        }
+        if (!(*env)->ExceptionCheck(env)) (*env)->GetByteArrayRegion(env, jbuf, 0, len, buf);
+        if (!(*env)->ExceptionCheck(env) && jname) name = (*env)->GetStringUTFChars(env, jname, NULL);
+        if (!(*env)->ExceptionCheck(env)) defined = JVM_DefineClass(env, name, loader, buf, len, pd);
+        if (defined) {
+            (*env)->SetObjectArrayElement(env, classes, i, defined);
+            (*env)->DeleteLocalRef(env, defined);
+        }
+        if (name) (*env)->ReleaseStringUTFChars(env, jname, name);
+        if (jbuf) (*env)->DeleteLocalRef(env, jbuf);
+        if (jname) (*env)->DeleteLocalRef(env, jname);
+        if ((*env)->ExceptionCheck(env)) break;
+    }
+    free(buf);
+    if ((*env)->ExceptionCheck(env)) {
+        (*env)->DeleteLocalRef(env, classes);
+        return NULL;
+    }
+    return classes;
 }
 
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualVoidMethod
-        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jobject method, jobjectArray jargs) {
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_FromReflectedField
+        (JNIEnv *env, jclass unused, jobject field) {
     (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) (*env)->CallNonvirtualVoidMethodA(env, object, clazz, method_methodID, args);
+    return (jlong) (intptr_t) (*env)->FromReflectedField(env, field);
 }
 
-JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualObjectMethod
-        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jobject) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jobject) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallNonvirtualObjectMethodA(env, object, clazz, method_methodID, args);
-    else return (jobject) 0;
+#define GET_FIELD_BY_ID_FUNCTION(keyword, keyword_upper) \
+JNIEXPORT j ## keyword JNICALL Java_com_tianscar_util_Scalpel_Get ## keyword_upper ## FieldByID \
+        (JNIEnv *env, jclass unused, jobject object, jlong fieldID) { \
+    (void) unused; \
+    return (*env)->Get ## keyword_upper ## Field(env, object, (jfieldID) (intptr_t) fieldID); \
+}
+
+GET_FIELD_BY_ID_FUNCTION(object, Object)
+GET_FIELD_BY_ID_FUNCTION(boolean, Boolean)
+GET_FIELD_BY_ID_FUNCTION(byte, Byte)
+GET_FIELD_BY_ID_FUNCTION(char, Char)
+GET_FIELD_BY_ID_FUNCTION(short, Short)
+GET_FIELD_BY_ID_FUNCTION(int, Int)
+GET_FIELD_BY_ID_FUNCTION(long, Long)
+GET_FIELD_BY_ID_FUNCTION(float, Float)
+GET_FIELD_BY_ID_FUNCTION(double, Double)
+
+#define SET_FIELD_BY_ID_FUNCTION(keyword, keyword_upper) \
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_Set ## keyword_upper ## FieldByID \
+        (JNIEnv *env, jclass unused, jobject object, jlong fieldID, j ## keyword value) { \
+    (void) unused; \
+    (*env)->Set ## keyword_upper ## Field(env, object, (jfieldID) (intptr_t) fieldID, value); \
+}
+
+SET_FIELD_BY_ID_FUNCTION(object, Object)
+SET_FIELD_BY_ID_FUNCTION(boolean, Boolean)
+SET_FIELD_BY_ID_FUNCTION(byte, Byte)
+SET_FIELD_BY_ID_FUNCTION(char, Char)
+SET_FIELD_BY_ID_FUNCTION(short, Short)
+SET_FIELD_BY_ID_FUNCTION(int, Int)
+SET_FIELD_BY_ID_FUNCTION(long, Long)
+SET_FIELD_BY_ID_FUNCTION(float, Float)
+SET_FIELD_BY_ID_FUNCTION(double, Double)
+
+#define GET_STATIC_FIELD_BY_ID_FUNCTION(keyword, keyword_upper) \
+JNIEXPORT j ## keyword JNICALL Java_com_tianscar_util_Scalpel_GetStatic ## keyword_upper ## FieldByID \
+        (JNIEnv *env, jclass unused, jclass clazz, jlong fieldID) { \
+    (void) unused; \
+    return (*env)->GetStatic ## keyword_upper ## Field(env, clazz, (jfieldID) (intptr_t) fieldID); \
+}
+
+GET_STATIC_FIELD_BY_ID_FUNCTION(object, Object)
+GET_STATIC_FIELD_BY_ID_FUNCTION(boolean, Boolean)
+GET_STATIC_FIELD_BY_ID_FUNCTION(byte, Byte)
+GET_STATIC_FIELD_BY_ID_FUNCTION(char, Char)
+GET_STATIC_FIELD_BY_ID_FUNCTION(short, Short)
+GET_STATIC_FIELD_BY_ID_FUNCTION(int, Int)
+GET_STATIC_FIELD_BY_ID_FUNCTION(long, Long)
+GET_STATIC_FIELD_BY_ID_FUNCTION(float, Float)
+GET_STATIC_FIELD_BY_ID_FUNCTION(double, Double)
+
+#define SET_STATIC_FIELD_BY_ID_FUNCTION(keyword, keyword_upper) \
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStatic ## keyword_upper ## FieldByID \
+        (JNIEnv *env, jclass unused, jclass clazz, jlong fieldID, j ## keyword value) { \
+    (void) unused; \
+    (*env)->SetStatic ## keyword_upper ## Field(env, clazz, (jfieldID) (intptr_t) fieldID, value); \
 }
 
-JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualBooleanMethod
-        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jboolean) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jboolean) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallNonvirtualBooleanMethodA(env, object, clazz, method_methodID, args);
-    else return (jboolean) 0;
-}
+SET_STATIC_FIELD_BY_ID_FUNCTION(object, Object)
+SET_STATIC_FIELD_BY_ID_FUNCTION(boolean, Boolean)
+SET_STATIC_FIELD_BY_ID_FUNCTION(byte, Byte)
+SET_STATIC_FIELD_BY_ID_FUNCTION(char, Char)
+SET_STATIC_FIELD_BY_ID_FUNCTION(short, Short)
+SET_STATIC_FIELD_BY_ID_FUNCTION(int, Int)
+SET_STATIC_FIELD_BY_ID_FUNCTION(long, Long)
+SET_STATIC_FIELD_BY_ID_FUNCTION(float, Float)
+SET_STATIC_FIELD_BY_ID_FUNCTION(double, Double)
 
-JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualByteMethod
-        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jobject method, jobjectArray jargs) {
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_FromReflectedMethod
+        (JNIEnv *env, jclass unused, jobject executable) {
     (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jbyte) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jbyte) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallNonvirtualByteMethodA(env, object, clazz, method_methodID, args);
-    else return (jbyte) 0;
+    return (jlong) (intptr_t) (*env)->FromReflectedMethod(env, executable);
 }
 
-JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualCharMethod
-        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jobject method, jobjectArray jargs) {
+JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_GetObjectSize
+        (JNIEnv *env, jclass unused, jobject object) {
+    (void) env;
     (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jchar) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jchar) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallNonvirtualCharMethodA(env, object, clazz, method_methodID, args);
-    else return (jchar) 0;
+    jlong size;
+    if (!jvmti || (*jvmti)->GetObjectSize(jvmti, object, &size) != JVMTI_ERROR_NONE) return -1;
+    return size;
 }
 
-JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualShortMethod
-        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jobject method, jobjectArray jargs) {
+JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_IsClassInitialized
+        (JNIEnv *env, jclass unused, jclass clazz) {
+    (void) env;
     (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jshort) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jshort) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallNonvirtualShortMethodA(env, object, clazz, method_methodID, args);
-    else return (jshort) 0;
+    jint status;
+    if (!jvmti || (*jvmti)->GetClassStatus(jvmti, clazz, &status) != JVMTI_ERROR_NONE) return JNI_FALSE;
+    return (status & JVMTI_CLASS_STATUS_INITIALIZED) ? JNI_TRUE : JNI_FALSE;
 }
 
-JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualIntMethod
-        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jint) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jint) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallNonvirtualIntMethodA(env, object, clazz, method_methodID, args);
-    else return (jint) 0;
+// The arguments have already been checked against the type codes and converted to the exact wrapper types
+// on the Java side, so the primitive values are read from the value fields of the wrappers directly.
+// Must be called in a local frame with a capacity of num_args + 1, as every reference argument is kept until the call
+static jboolean unbox_by_codes(JNIEnv *env, jbyteArray jcodes, jobjectArray jargs, jvalue *args, jsize num_args) {
+    STACK_ARRAY(jbyte, codes, num_args);
+    (*env)->GetByteArrayRegion(env, jcodes, 0, num_args, codes);
+    if ((*env)->ExceptionCheck(env)) return JNI_FALSE;
+    for (jsize i = 0; i < num_args; i ++) {
+        jobject jarg = (*env)->GetObjectArrayElement(env, jargs, i);
+        if ((*env)->ExceptionCheck(env)) return JNI_FALSE;
+        switch (codes[i]) {
+            case TYPE_BOOLEAN: args[i].z = (*env)->GetBooleanField(env, jarg, Boolean_value_fieldID); break;
+            case TYPE_BYTE: args[i].b = (*env)->GetByteField(env, jarg, Byte_value_fieldID); break;
+            case TYPE_CHAR: args[i].c = (*env)->GetCharField(env, jarg, Character_value_fieldID); break;
+            case TYPE_SHORT: args[i].s = (*env)->GetShortField(env, jarg, Short_value_fieldID); break;
+            case TYPE_INT: args[i].i = (*env)->GetIntField(env, jarg, Integer_value_fieldID); break;
+            case TYPE_LONG: args[i].j = (*env)->GetLongField(env, jarg, Long_value_fieldID); break;
+            case TYPE_FLOAT: args[i].f = (*env)->GetFloatField(env, jarg, Float_value_fieldID); break;
+            case TYPE_DOUBLE: args[i].d = (*env)->GetDoubleField(env, jarg, Double_value_fieldID); break;
+            default: args[i].l = jarg; continue;
+        }
+        (*env)->DeleteLocalRef(env, jarg);
+    }
+    return JNI_TRUE;
 }
 
-JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualLongMethod
-        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jlong) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jlong) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallNonvirtualLongMethodA(env, object, clazz, method_methodID, args);
-    else return (jlong) 0;
+// Pops the local frame of a call, keeping the returned reference alive in the enclosing frame
+static jobject pop_local_frame_object(JNIEnv *env, jobject result) {
+    return (*env)->PopLocalFrame(env, result);
 }
 
-JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualFloatMethod
-        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jfloat) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jfloat) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallNonvirtualFloatMethodA(env, object, clazz, method_methodID, args);
-    else return (jfloat) 0;
+#define POP_LOCAL_FRAME_FUNCTION(keyword) \
+static j ## keyword pop_local_frame_ ## keyword(JNIEnv *env, j ## keyword result) { \
+    (*env)->PopLocalFrame(env, NULL); \
+    return result; \
 }
 
-JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualDoubleMethod
-        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jdouble) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jdouble) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallNonvirtualDoubleMethodA(env, object, clazz, method_methodID, args);
-    else return (jdouble) 0;
-}
+POP_LOCAL_FRAME_FUNCTION(boolean)
+POP_LOCAL_FRAME_FUNCTION(byte)
+POP_LOCAL_FRAME_FUNCTION(char)
+POP_LOCAL_FRAME_FUNCTION(short)
+POP_LOCAL_FRAME_FUNCTION(int)
+POP_LOCAL_FRAME_FUNCTION(long)
+POP_LOCAL_FRAME_FUNCTION(float)
+POP_LOCAL_FRAME_FUNCTION(double)
 
-#define GET_STATIC_FIELD_FUNCTION(keyword, keyword_upper) \
-JNIEXPORT j ## keyword JNICALL Java_com_tianscar_util_Scalpel_GetStatic ## keyword_upper ## Field \
-        (JNIEnv *env, jclass unused, jclass clazz, jobject field) { \
-    (void) unused; \
-    jfieldID field_fieldID = (*env)->FromReflectedField(env, field); \
-    if ((*env)->ExceptionOccurred(env)) return (j ## keyword) 0; \
-    return (*env)->GetStatic ## keyword_upper ## Field(env, clazz, field_fieldID); \
-}
-
-GET_STATIC_FIELD_FUNCTION(object, Object)
-GET_STATIC_FIELD_FUNCTION(boolean, Boolean)
-GET_STATIC_FIELD_FUNCTION(byte, Byte)
-GET_STATIC_FIELD_FUNCTION(char, Char)
-GET_STATIC_FIELD_FUNCTION(short, Short)
-GET_STATIC_FIELD_FUNCTION(int, Int)
-GET_STATIC_FIELD_FUNCTION(long, Long)
-GET_STATIC_FIELD_FUNCTION(float, Float)
-GET_STATIC_FIELD_FUNCTION(double, Double)
-
-#define SET_STATIC_FIELD_FUNCTION(keyword, keyword_upper) \
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_SetStatic ## keyword_upper ## Field \
-        (JNIEnv *env, jclass unused, jclass clazz, jobject field, j ## keyword value) { \
+#define CALL_METHOD_BY_ID_FUNCTION(keyword, keyword_upper) \
+JNIEXPORT j ## keyword JNICALL Java_com_tianscar_util_Scalpel_Call ## keyword_upper ## MethodByID \
+        (JNIEnv *env, jclass unused, jobject object, jlong methodID, jbyteArray jcodes, jobjectArray jargs) { \
     (void) unused; \
-    jfieldID field_fieldID = (*env)->FromReflectedField(env, field); \
-    if ((*env)->ExceptionOccurred(env)) return; \
-    return (*env)->SetStatic ## keyword_upper ## Field(env, clazz, field_fieldID, value); \
-}
-
-SET_STATIC_FIELD_FUNCTION(object, Object)
-SET_STATIC_FIELD_FUNCTION(boolean, Boolean)
-SET_STATIC_FIELD_FUNCTION(byte, Byte)
-SET_STATIC_FIELD_FUNCTION(char, Char)
-SET_STATIC_FIELD_FUNCTION(short, Short)
-SET_STATIC_FIELD_FUNCTION(int, Int)
-SET_STATIC_FIELD_FUNCTION(long, Long)
-SET_STATIC_FIELD_FUNCTION(float, Float)
-SET_STATIC_FIELD_FUNCTION(double, Double)
-
-JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallStaticVoidMethod
-        (JNIEnv *env, jclass unused, jclass clazz, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) (*env)->CallStaticVoidMethodA(env, clazz, method_methodID, args);
+    jsize num_args = (*env)->GetArrayLength(env, jargs); \
+    STACK_ARRAY(jvalue, args, num_args); \
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return (j ## keyword) 0; \
+    j ## keyword result = (j ## keyword) 0; \
+    if (unbox_by_codes(env, jcodes, jargs, args, num_args)) \
+        result = (*env)->Call ## keyword_upper ## MethodA(env, object, (jmethodID) (intptr_t) methodID, args); \
+    return pop_local_frame_ ## keyword(env, result); \
 }
 
-JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_CallStaticObjectMethod
-        (JNIEnv *env, jclass unused, jclass clazz, jobject method, jobjectArray jargs) {
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallVoidMethodByID
+        (JNIEnv *env, jclass unused, jobject object, jlong methodID, jbyteArray jcodes, jobjectArray jargs) {
     (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jobject) 0;
     jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jobject) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallStaticObjectMethodA(env, clazz, method_methodID, args);
-    else return (jobject) 0;
-}
-
-JNIEXPORT jboolean JNICALL Java_com_tianscar_util_Scalpel_CallStaticBooleanMethod
-        (JNIEnv *env, jclass unused, jclass clazz, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jboolean) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jboolean) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallStaticBooleanMethodA(env, clazz, method_methodID, args);
-    else return (jboolean) 0;
-}
-
-JNIEXPORT jbyte JNICALL Java_com_tianscar_util_Scalpel_CallStaticByteMethod
-        (JNIEnv *env, jclass unused, jclass clazz, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jbyte) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jbyte) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallStaticByteMethodA(env, clazz, method_methodID, args);
-    else return (jbyte) 0;
-}
-
-JNIEXPORT jchar JNICALL Java_com_tianscar_util_Scalpel_CallStaticCharMethod
-        (JNIEnv *env, jclass unused, jclass clazz, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jchar) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jchar) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallStaticCharMethodA(env, clazz, method_methodID, args);
-    else return (jchar) 0;
-}
-
-JNIEXPORT jshort JNICALL Java_com_tianscar_util_Scalpel_CallStaticShortMethod
-        (JNIEnv *env, jclass unused, jclass clazz, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jshort) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jshort) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallStaticShortMethodA(env, clazz, method_methodID, args);
-    else return (jshort) 0;
-}
-
-JNIEXPORT jint JNICALL Java_com_tianscar_util_Scalpel_CallStaticIntMethod
-        (JNIEnv *env, jclass unused, jclass clazz, jobject method, jobjectArray jargs) {
-    (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jint) 0;
-    jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jint) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallStaticIntMethodA(env, clazz, method_methodID, args);
-    else return (jint) 0;
+    STACK_ARRAY(jvalue, args, num_args);
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return;
+    if (unbox_by_codes(env, jcodes, jargs, args, num_args))
+        (*env)->CallVoidMethodA(env, object, (jmethodID) (intptr_t) methodID, args);
+    (*env)->PopLocalFrame(env, NULL);
+}
+
+CALL_METHOD_BY_ID_FUNCTION(object, Object)
+CALL_METHOD_BY_ID_FUNCTION(boolean, Boolean)
+CALL_METHOD_BY_ID_FUNCTION(byte, Byte)
+CALL_METHOD_BY_ID_FUNCTION(char, Char)
+CALL_METHOD_BY_ID_FUNCTION(short, Short)
+CALL_METHOD_BY_ID_FUNCTION(int, Int)
+CALL_METHOD_BY_ID_FUNCTION(long, Long)
+CALL_METHOD_BY_ID_FUNCTION(float, Float)
+CALL_METHOD_BY_ID_FUNCTION(double, Double)
+
+#define CALL_NONVIRTUAL_METHOD_BY_ID_FUNCTION(keyword, keyword_upper) \
+JNIEXPORT j ## keyword JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtual ## keyword_upper ## MethodByID \
+        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jlong methodID, jbyteArray jcodes, jobjectArray jargs) { \
+    (void) unused; \
+    jsize num_args = (*env)->GetArrayLength(env, jargs); \
+    STACK_ARRAY(jvalue, args, num_args); \
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return (j ## keyword) 0; \
+    j ## keyword result = (j ## keyword) 0; \
+    if (unbox_by_codes(env, jcodes, jargs, args, num_args)) \
+        result = (*env)->CallNonvirtual ## keyword_upper ## MethodA(env, object, clazz, (jmethodID) (intptr_t) methodID, args); \
+    return pop_local_frame_ ## keyword(env, result); \
 }
 
-JNIEXPORT jlong JNICALL Java_com_tianscar_util_Scalpel_CallStaticLongMethod
-        (JNIEnv *env, jclass unused, jclass clazz, jobject method, jobjectArray jargs) {
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualVoidMethodByID
+        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jlong methodID, jbyteArray jcodes, jobjectArray jargs) {
     (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jlong) 0;
     jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jlong) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallStaticLongMethodA(env, clazz, method_methodID, args);
-    else return (jlong) 0;
+    STACK_ARRAY(jvalue, args, num_args);
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return;
+    if (unbox_by_codes(env, jcodes, jargs, args, num_args))
+        (*env)->CallNonvirtualVoidMethodA(env, object, clazz, (jmethodID) (intptr_t) methodID, args);
+    (*env)->PopLocalFrame(env, NULL);
+}
+
+CALL_NONVIRTUAL_METHOD_BY_ID_FUNCTION(object, Object)
+CALL_NONVIRTUAL_METHOD_BY_ID_FUNCTION(boolean, Boolean)
+CALL_NONVIRTUAL_METHOD_BY_ID_FUNCTION(byte, Byte)
+CALL_NONVIRTUAL_METHOD_BY_ID_FUNCTION(char, Char)
+CALL_NONVIRTUAL_METHOD_BY_ID_FUNCTION(short, Short)
+CALL_NONVIRTUAL_METHOD_BY_ID_FUNCTION(int, Int)
+CALL_NONVIRTUAL_METHOD_BY_ID_FUNCTION(long, Long)
+CALL_NONVIRTUAL_METHOD_BY_ID_FUNCTION(float, Float)
+CALL_NONVIRTUAL_METHOD_BY_ID_FUNCTION(double, Double)
+
+#define CALL_STATIC_METHOD_BY_ID_FUNCTION(keyword, keyword_upper) \
+JNIEXPORT j ## keyword JNICALL Java_com_tianscar_util_Scalpel_CallStatic ## keyword_upper ## MethodByID \
+        (JNIEnv *env, jclass unused, jclass clazz, jlong methodID, jbyteArray jcodes, jobjectArray jargs) { \
+    (void) unused; \
+    jsize num_args = (*env)->GetArrayLength(env, jargs); \
+    STACK_ARRAY(jvalue, args, num_args); \
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return (j ## keyword) 0; \
+    j ## keyword result = (j ## keyword) 0; \
+    if (unbox_by_codes(env, jcodes, jargs, args, num_args)) \
+        result = (*env)->CallStatic ## keyword_upper ## MethodA(env, clazz, (jmethodID) (intptr_t) methodID, args); \
+    return pop_local_frame_ ## keyword(env, result); \
 }
 
-JNIEXPORT jfloat JNICALL Java_com_tianscar_util_Scalpel_CallStaticFloatMethod
-        (JNIEnv *env, jclass unused, jclass clazz, jobject method, jobjectArray jargs) {
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallStaticVoidMethodByID
+        (JNIEnv *env, jclass unused, jclass clazz, jlong methodID, jbyteArray jcodes, jobjectArray jargs) {
     (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jfloat) 0;
     jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jfloat) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallStaticFloatMethodA(env, clazz, method_methodID, args);
-    else return (jfloat) 0;
-}
-
-JNIEXPORT jdouble JNICALL Java_com_tianscar_util_Scalpel_CallStaticDoubleMethod
-        (JNIEnv *env, jclass unused, jclass clazz, jobject method, jobjectArray jargs) {
+    STACK_ARRAY(jvalue, args, num_args);
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return;
+    if (unbox_by_codes(env, jcodes, jargs, args, num_args))
+        (*env)->CallStaticVoidMethodA(env, clazz, (jmethodID) (intptr_t) methodID, args);
+    (*env)->PopLocalFrame(env, NULL);
+}
+
+CALL_STATIC_METHOD_BY_ID_FUNCTION(object, Object)
+CALL_STATIC_METHOD_BY_ID_FUNCTION(boolean, Boolean)
+CALL_STATIC_METHOD_BY_ID_FUNCTION(byte, Byte)
+CALL_STATIC_METHOD_BY_ID_FUNCTION(char, Char)
+CALL_STATIC_METHOD_BY_ID_FUNCTION(short, Short)
+CALL_STATIC_METHOD_BY_ID_FUNCTION(int, Int)
+CALL_STATIC_METHOD_BY_ID_FUNCTION(long, Long)
+CALL_STATIC_METHOD_BY_ID_FUNCTION(float, Float)
+CALL_STATIC_METHOD_BY_ID_FUNCTION(double, Double)
+
+JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_NewObjectByID
+        (JNIEnv *env, jclass unused, jclass clazz, jlong methodID, jbyteArray jcodes, jobjectArray jargs) {
     (void) unused;
-    jmethodID method_methodID = (*env)->FromReflectedMethod(env, method);
-    if ((*env)->ExceptionOccurred(env)) return (jdouble) 0;
     jsize num_args = (*env)->GetArrayLength(env, jargs);
-    if ((*env)->ExceptionOccurred(env)) return (jdouble) 0;
-#ifdef _MSC_VER
-    jvalue *args = _alloca(num_args);
-#else
-    jvalue args[num_args];
-#endif
-    if (unbox(env, method, jargs, args, num_args)) return (*env)->CallStaticDoubleMethodA(env, clazz, method_methodID, args);
-    else return (jdouble) 0;
-}
-
-JNIEXPORT jclass JNICALL Java_com_tianscar_util_Scalpel_JVM_1DefineClass__Ljava_lang_String_2Ljava_lang_ClassLoader_2_3BIILjava_security_ProtectionDomain_2
-        (JNIEnv *env, jclass unused, jstring jname, jobject loader, jbyteArray jbuf, jint off, jint len, jobject pd) {
-    (void) unused;
-    const char *name = (*env)->GetStringUTFChars(env, jname, NULL);
-    if ((*env)->ExceptionOccurred(env)) return NULL;
-    jbyte *buf = malloc(len);
-    if (!buf) {
-        (*env)->ReleaseStringUTFChars(env, jname, name);
-        (*env)->ThrowNew(env, OutOfMemoryError_class, NULL);
-        return NULL;
+    STACK_ARRAY(jvalue, args, num_args);
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return NULL;
+    jobject result = NULL;
+    if (unbox_by_codes(env, jcodes, jargs, args, num_args))
+        result = (*env)->NewObjectA(env, clazz, (jmethodID) (intptr_t) methodID, args);
+    return (*env)->PopLocalFrame(env, result);
+}
+
+// The frame has already been checked against the type codes on the Java side.
+// Must be called in a local frame with a capacity of num_args + 1, as every reference argument is kept until the call
+static jboolean frame_to_jvalues(JNIEnv *env, jbyteArray jcodes, jlongArray jprimitives, jobjectArray jreferences, jvalue *args, jsize num_args) {
+    STACK_ARRAY(jbyte, codes, num_args);
+    STACK_ARRAY(jlong, primitives, num_args);
+    (*env)->GetByteArrayRegion(env, jcodes, 0, num_args, codes);
+    (*env)->GetLongArrayRegion(env, jprimitives, 0, num_args, primitives);
+    if ((*env)->ExceptionCheck(env)) return JNI_FALSE;
+    for (jsize i = 0; i < num_args; i ++) {
+        switch (codes[i]) {
+            case TYPE_BOOLEAN: args[i].z = primitives[i] != 0 ? JNI_TRUE : JNI_FALSE; break;
+            case TYPE_BYTE: args[i].b = (jbyte) primitives[i]; break;
+            case TYPE_CHAR: args[i].c = (jchar) primitives[i]; break;
+            case TYPE_SHORT: args[i].s = (jshort) primitives[i]; break;
+            case TYPE_INT: args[i].i = (jint) primitives[i]; break;
+            case TYPE_LONG: args[i].j = primitives[i]; break;
+            case TYPE_FLOAT: {
+                jint bits = (jint) primitives[i];
+                memcpy(&args[i].f, &bits, sizeof(jfloat));
+                break;
+            }
+            case TYPE_DOUBLE: memcpy(&args[i].d, &primitives[i], sizeof(jdouble)); break;
+            default:
+                args[i].l = (*env)->GetObjectArrayElement(env, jreferences, i);
+                if ((*env)->ExceptionCheck(env)) return JNI_FALSE;
+                break;
+        }
     }
-    (*env)->GetByteArrayRegion(env, jbuf, off, len, buf);
-    jclass clazz = JVM_DefineClass(env, name, loader, buf, len, pd);
-    (*env)->ReleaseStringUTFChars(env, jname, name);
-    free(buf);
-    return clazz;
+    return JNI_TRUE;
 }
 
-JNIEXPORT jclass JNICALL Java_com_tianscar_util_Scalpel_JVM_1DefineClass__Ljava_lang_String_2Ljava_lang_ClassLoader_2Ljava_nio_ByteBuffer_2ILjava_security_ProtectionDomain_2
-        (JNIEnv *env, jclass unused, jstring jname, jobject loader, jobject jbuf, jint len, jobject pd) {
-    (void) unused;
-    const char *name = (*env)->GetStringUTFChars(env, jname, NULL);
-    if ((*env)->ExceptionOccurred(env)) return NULL;
-    jbyte *buf = (*env)->GetDirectBufferAddress(env, jbuf);
-    if (buf == (jbyte *) -1) buf = NULL;
-    jclass clazz = JVM_DefineClass(env, name, loader, buf, len, pd);
-    (*env)->ReleaseStringUTFChars(env, jname, name);
-    return clazz;
+#define CALL_METHOD_BY_ID_WITH_FRAME_FUNCTION(keyword, keyword_upper) \
+JNIEXPORT j ## keyword JNICALL Java_com_tianscar_util_Scalpel_Call ## keyword_upper ## MethodByIDWithFrame \
+        (JNIEnv *env, jclass unused, jobject object, jlong methodID, jbyteArray jcodes, jlongArray jprimitives, jobjectArray jreferences) { \
+    (void) unused; \
+    jsize num_args = (*env)->GetArrayLength(env, jcodes); \
+    STACK_ARRAY(jvalue, args, num_args); \
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return (j ## keyword) 0; \
+    j ## keyword result = (j ## keyword) 0; \
+    if (frame_to_jvalues(env, jcodes, jprimitives, jreferences, args, num_args)) \
+        result = (*env)->Call ## keyword_upper ## MethodA(env, object, (jmethodID) (intptr_t) methodID, args); \
+    return pop_local_frame_ ## keyword(env, result); \
+}
+
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallVoidMethodByIDWithFrame
+        (JNIEnv *env, jclass unused, jobject object, jlong methodID, jbyteArray jcodes, jlongArray jprimitives, jobjectArray jreferences) {
+    (void) unused;
+    jsize num_args = (*env)->GetArrayLength(env, jcodes);
+    STACK_ARRAY(jvalue, args, num_args);
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return;
+    if (frame_to_jvalues(env, jcodes, jprimitives, jreferences, args, num_args))
+        (*env)->CallVoidMethodA(env, object, (jmethodID) (intptr_t) methodID, args);
+    (*env)->PopLocalFrame(env, NULL);
+}
+
+CALL_METHOD_BY_ID_WITH_FRAME_FUNCTION(object, Object)
+CALL_METHOD_BY_ID_WITH_FRAME_FUNCTION(boolean, Boolean)
+CALL_METHOD_BY_ID_WITH_FRAME_FUNCTION(byte, Byte)
+CALL_METHOD_BY_ID_WITH_FRAME_FUNCTION(char, Char)
+CALL_METHOD_BY_ID_WITH_FRAME_FUNCTION(short, Short)
+CALL_METHOD_BY_ID_WITH_FRAME_FUNCTION(int, Int)
+CALL_METHOD_BY_ID_WITH_FRAME_FUNCTION(long, Long)
+CALL_METHOD_BY_ID_WITH_FRAME_FUNCTION(float, Float)
+CALL_METHOD_BY_ID_WITH_FRAME_FUNCTION(double, Double)
+
+#define CALL_NONVIRTUAL_METHOD_BY_ID_WITH_FRAME_FUNCTION(keyword, keyword_upper) \
+JNIEXPORT j ## keyword JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtual ## keyword_upper ## MethodByIDWithFrame \
+        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jlong methodID, jbyteArray jcodes, jlongArray jprimitives, jobjectArray jreferences) { \
+    (void) unused; \
+    jsize num_args = (*env)->GetArrayLength(env, jcodes); \
+    STACK_ARRAY(jvalue, args, num_args); \
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return (j ## keyword) 0; \
+    j ## keyword result = (j ## keyword) 0; \
+    if (frame_to_jvalues(env, jcodes, jprimitives, jreferences, args, num_args)) \
+        result = (*env)->CallNonvirtual ## keyword_upper ## MethodA(env, object, clazz, (jmethodID) (intptr_t) methodID, args); \
+    return pop_local_frame_ ## keyword(env, result); \
+}
+
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallNonvirtualVoidMethodByIDWithFrame
+        (JNIEnv *env, jclass unused, jobject object, jclass clazz, jlong methodID, jbyteArray jcodes, jlongArray jprimitives, jobjectArray jreferences) {
+    (void) unused;
+    jsize num_args = (*env)->GetArrayLength(env, jcodes);
+    STACK_ARRAY(jvalue, args, num_args);
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return;
+    if (frame_to_jvalues(env, jcodes, jprimitives, jreferences, args, num_args))
+        (*env)->CallNonvirtualVoidMethodA(env, object, clazz, (jmethodID) (intptr_t) methodID, args);
+    (*env)->PopLocalFrame(env, NULL);
+}
+
+CALL_NONVIRTUAL_METHOD_BY_ID_WITH_FRAME_FUNCTION(object, Object)
+CALL_NONVIRTUAL_METHOD_BY_ID_WITH_FRAME_FUNCTION(boolean, Boolean)
+CALL_NONVIRTUAL_METHOD_BY_ID_WITH_FRAME_FUNCTION(byte, Byte)
+CALL_NONVIRTUAL_METHOD_BY_ID_WITH_FRAME_FUNCTION(char, Char)
+CALL_NONVIRTUAL_METHOD_BY_ID_WITH_FRAME_FUNCTION(short, Short)
+CALL_NONVIRTUAL_METHOD_BY_ID_WITH_FRAME_FUNCTION(int, Int)
+CALL_NONVIRTUAL_METHOD_BY_ID_WITH_FRAME_FUNCTION(long, Long)
+CALL_NONVIRTUAL_METHOD_BY_ID_WITH_FRAME_FUNCTION(float, Float)
+CALL_NONVIRTUAL_METHOD_BY_ID_WITH_FRAME_FUNCTION(double, Double)
+
+#define CALL_STATIC_METHOD_BY_ID_WITH_FRAME_FUNCTION(keyword, keyword_upper) \
+JNIEXPORT j ## keyword JNICALL Java_com_tianscar_util_Scalpel_CallStatic ## keyword_upper ## MethodByIDWithFrame \
+        (JNIEnv *env, jclass unused, jclass clazz, jlong methodID, jbyteArray jcodes, jlongArray jprimitives, jobjectArray jreferences) { \
+    (void) unused; \
+    jsize num_args = (*env)->GetArrayLength(env, jcodes); \
+    STACK_ARRAY(jvalue, args, num_args); \
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return (j ## keyword) 0; \
+    j ## keyword result = (j ## keyword) 0; \
+    if (frame_to_jvalues(env, jcodes, jprimitives, jreferences, args, num_args)) \
+        result = (*env)->CallStatic ## keyword_upper ## MethodA(env, clazz, (jmethodID) (intptr_t) methodID, args); \
+    return pop_local_frame_ ## keyword(env, result); \
+}
+
+JNIEXPORT void JNICALL Java_com_tianscar_util_Scalpel_CallStaticVoidMethodByIDWithFrame
+        (JNIEnv *env, jclass unused, jclass clazz, jlong methodID, jbyteArray jcodes, jlongArray jprimitives, jobjectArray jreferences) {
+    (void) unused;
+    jsize num_args = (*env)->GetArrayLength(env, jcodes);
+    STACK_ARRAY(jvalue, args, num_args);
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return;
+    if (frame_to_jvalues(env, jcodes, jprimitives, jreferences, args, num_args))
+        (*env)->CallStaticVoidMethodA(env, clazz, (jmethodID) (intptr_t) methodID, args);
+    (*env)->PopLocalFrame(env, NULL);
+}
+
+CALL_STATIC_METHOD_BY_ID_WITH_FRAME_FUNCTION(object, Object)
+CALL_STATIC_METHOD_BY_ID_WITH_FRAME_FUNCTION(boolean, Boolean)
+CALL_STATIC_METHOD_BY_ID_WITH_FRAME_FUNCTION(byte, Byte)
+CALL_STATIC_METHOD_BY_ID_WITH_FRAME_FUNCTION(char, Char)
+CALL_STATIC_METHOD_BY_ID_WITH_FRAME_FUNCTION(short, Short)
+CALL_STATIC_METHOD_BY_ID_WITH_FRAME_FUNCTION(int, Int)
+CALL_STATIC_METHOD_BY_ID_WITH_FRAME_FUNCTION(long, Long)
+CALL_STATIC_METHOD_BY_ID_WITH_FRAME_FUNCTION(float, Float)
+CALL_STATIC_METHOD_BY_ID_WITH_FRAME_FUNCTION(double, Double)
+
+JNIEXPORT jobject JNICALL Java_com_tianscar_util_Scalpel_NewObjectByIDWithFrame
+        (JNIEnv *env, jclass unused, jclass clazz, jlong methodID, jbyteArray jcodes, jlongArray jprimitives, jobjectArray jreferences) {
+    (void) unused;
+    jsize num_args = (*env)->GetArrayLength(env, jcodes);
+    STACK_ARRAY(jvalue, args, num_args);
+    if ((*env)->PushLocalFrame(env, num_args + 1) != JNI_OK) return NULL;
+    jobject result = NULL;
+    if (frame_to_jvalues(env, jcodes, jprimitives, jreferences, args, num_args))
+        result = (*env)->NewObjectA(env, clazz, (jmethodID) (intptr_t) methodID, args);
+    return (*env)->PopLocalFrame(env, result);
 }
@@ -2,17 +2,89 @@ package com.tianscar.util;
 
 import sun.misc.Unsafe;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.StreamCorruptedException;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.invoke.WrongMethodTypeException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Field;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.ProtectionDomain;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import static java.lang.reflect.Modifier.isAbstract;
+import static java.lang.reflect.Modifier.isFinal;
+import static java.lang.reflect.Modifier.isPrivate;
+import static java.lang.reflect.Modifier.isPublic;
 import static java.lang.reflect.Modifier.isStatic;
+import static java.lang.reflect.Modifier.isVolatile;
 
 /**
  * <p>A simple tool which designed to help deal with some problems (e.g. unresolved internal bugs; strong encapsulation in Java 16+) in the use of JRE without any extra configurations (e.g. javaagent; <code>--add-opens</code>) or modify and/or recompile the JRE files.
@@ -31,9 +103,98 @@ public final class Scalpel {
     private static final String KEY_JAVASCALPEL_LIBJVM_PATHNAME = "javascalpel.libjvm.pathname";
     private static final String KEY_JAVASCALPEL_LIBJAVASCALPEL_PATHNAME = "javascalpel.libjavascalpel.pathname";
 
-    static {
-        System.load(System.getProperty(KEY_JAVASCALPEL_LIBJVM_PATHNAME));
-        System.load(System.getProperty(KEY_JAVASCALPEL_LIBJAVASCALPEL_PATHNAME));
+    // Loaded on the first use of the native functions, so that the pure Java paths never load them
+    private static final class NativeLibraries {
+        private static final UnsatisfiedLinkError FAILURE;
+        static {
+            UnsatisfiedLinkError failure = null;
+            try {
+                System.load(libjvmPathname());
+                System.load(libjavascalpelPathname());
+            } catch (UnsatisfiedLinkError e) {
+                failure = e;
+            } catch (IOException | RuntimeException e) {
+                failure = new UnsatisfiedLinkError("Unable to load " + System.mapLibraryName("javascalpel") + ": " + e);
+                failure.initCause(e);
+            }
+            FAILURE = failure;
+        }
+    }
+
+    private static void requireNativeLibraries() throws UnsatisfiedLinkError {
+        UnsatisfiedLinkError failure = NativeLibraries.FAILURE;
+        if (failure != null) {
+            UnsatisfiedLinkError error = new UnsatisfiedLinkError(failure.getMessage());
+            error.initCause(failure);
+            throw error;
+        }
+    }
+
+    private static boolean isNativeLibrariesAvailable() {
+        return NativeLibraries.FAILURE == null;
+    }
+
+    // The property, or the libjvm of the running JDK, in the layout of either Java 8 or Java 9+
+    private static String libjvmPathname() throws UnsatisfiedLinkError {
+        String pathname = System.getProperty(KEY_JAVASCALPEL_LIBJVM_PATHNAME);
+        if (pathname != null) return pathname;
+        Path home = Paths.get(System.getProperty("java.home"));
+        String arch = System.getProperty("os.arch");
+        String name = System.mapLibraryName("jvm");
+        for (String dir : new String[] {"lib/server", "bin/server", "lib/" + arch + "/server",
+                "lib/client", "bin/client", "lib/" + arch + "/client"}) {
+            Path path = home.resolve(dir).resolve(name);
+            if (Files.isRegularFile(path)) return path.toString();
+        }
+        throw new UnsatisfiedLinkError(name + " not found in " + home + "; set " + KEY_JAVASCALPEL_LIBJVM_PATHNAME);
+    }
+
+    // The property, or the library bundled for the current platform, extracted into a fresh temporary file;
+    // a shared location could be prepared by another user and swapped between a check and System.load
+    private static String libjavascalpelPathname() throws UnsatisfiedLinkError, IOException {
+        String pathname = System.getProperty(KEY_JAVASCALPEL_LIBJAVASCALPEL_PATHNAME);
+        if (pathname != null) return pathname;
+        String name = System.mapLibraryName("javascalpel");
+        String resource = "/native/" + nativePlatform() + "/" + name;
+        try (InputStream in = Scalpel.class.getResourceAsStream(resource)) {
+            if (in == null) throw new UnsatisfiedLinkError(resource + " not bundled; set " + KEY_JAVASCALPEL_LIBJAVASCALPEL_PATHNAME);
+            int dot = name.lastIndexOf('.');
+            // Created exclusively, and readable and writable by the owner only on POSIX file systems
+            Path file = Files.createTempFile(name.substring(0, dot), name.substring(dot));
+            try {
+                Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+            // Unlinking a loaded library is fine on *nix; on Windows the file outlives the process
+            file.toFile().deleteOnExit();
+            return file.toString();
+        }
+    }
+
+    // e.g. linux-x86_64, windows-x86, macos-aarch64
+    private static String nativePlatform() {
+        String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+        if (os.startsWith("windows")) os = "windows";
+        else if (os.startsWith("mac") || os.startsWith("darwin")) os = "macos";
+        else os = os.replaceAll("\\W", "");
+        String arch = System.getProperty("os.arch").toLowerCase(Locale.ROOT);
+        switch (arch) {
+            case "amd64": case "x86_64": case "x64": arch = "x86_64"; break;
+            case "x86": case "i386": case "i486": case "i586": case "i686": arch = "x86"; break;
+            case "arm64": case "aarch64": arch = "aarch64"; break;
+        }
+        return os + "-" + arch;
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new AssertionError(e);
+        }
     }
 
     private Scalpel() {
@@ -65,13 +226,380 @@ public final class Scalpel {
         try {
             Field field = MethodHandles.Lookup.class.getDeclaredField("IMPL_LOOKUP");
             if (trySetAccessible(field)) lookup = (MethodHandles.Lookup) field.get(null);
+            else if (UNSAFE != null) lookup = (MethodHandles.Lookup) UNSAFE.getObject(UNSAFE.staticFieldBase(field), UNSAFE.staticFieldOffset(field));
             else lookup = null;
-        } catch (NoSuchFieldException | IllegalAccessException e) {
+        } catch (NoSuchFieldException | IllegalAccessException | UnsupportedOperationException e) {
             lookup = null;
         }
         LOOKUP = lookup;
     }
 
+    /**
+     * Returns a lookup object with full privilege access on the specified class,
+     * which can access every member of the class regardless of its accessibility
+     * and of the module the class belongs to.
+     *
+     * @param clazz the lookup class
+     * @return a lookup object with full privilege access on the class
+     *
+     * @throws    IllegalArgumentException if the specified class is a primitive type or an array class.
+     * @throws    NullPointerException if the specified class is null.
+     * @throws    UnsupportedOperationException if the full privilege lookup is not available on this JVM.
+     */
+    public static MethodHandles.Lookup lookupFor(Class<?> clazz) throws IllegalArgumentException, NullPointerException, UnsupportedOperationException {
+        if (clazz == null) throw new NullPointerException();
+        return MEMBER_CACHE.get(clazz).lookup();
+    }
+
+    /**
+     * Produces a method handle giving read access to the specified field, bypassing all access checks.
+     *
+     * <p>The type of the method handle is exactly the one of the field: {@code (D)T} for an instance field
+     * declared by {@code D}, or {@code ()T} for a static field. So it can be invoked with {@code invokeExact},
+     * e.g. through a {@code static final} holder which the JIT is able to constant-fold.
+     * The method handle is produced once per field and cached.
+     *
+     * @param field the field to be read
+     * @return a method handle which can load values from the field
+     *
+     * @throws    NullPointerException if the specified field is null.
+     * @throws    ExceptionInInitializerError if the initialization provoked
+     *              by this method fails.
+     */
+    public static MethodHandle unreflectGetter(Field field) throws NullPointerException, ExceptionInInitializerError {
+        return cached(MEMBER_CACHE.get(field.getDeclaringClass()).getterHandles, field, f -> resolveFieldHandle(f, false));
+    }
+
+    /**
+     * Produces a method handle giving write access to the specified field, bypassing all access checks,
+     * including the {@code final} modifier.
+     *
+     * <p>The type of the method handle is exactly the one of the field: {@code (D, T)void} for an instance field
+     * declared by {@code D}, or {@code (T)void} for a static field. So it can be invoked with {@code invokeExact},
+     * e.g. through a {@code static final} holder which the JIT is able to constant-fold.
+     * The method handle is produced once per field and cached.
+     *
+     * @param field the field to be written
+     * @return a method handle which can store values into the field
+     *
+     * @throws    NullPointerException if the specified field is null.
+     * @throws    ExceptionInInitializerError if the initialization provoked
+     *              by this method fails.
+     */
+    public static MethodHandle unreflectSetter(Field field) throws NullPointerException, ExceptionInInitializerError {
+        return cached(MEMBER_CACHE.get(field.getDeclaringClass()).setterHandles, field, f -> resolveFieldHandle(f, true));
+    }
+
+    private static MethodHandle resolveFieldHandle(Field field, boolean setter) throws ExceptionInInitializerError {
+        if (LOOKUP != null) {
+            try {
+                return setter ? LOOKUP.unreflectSetter(field) : LOOKUP.unreflectGetter(field);
+            } catch (IllegalAccessException ignored) {
+                // Trusted final fields (e.g. static final ones) have no write access
+            }
+        }
+        // Adapt the methods of the field accessor, which can always access the field
+        FieldAccessor accessor = fieldAccessor(field);
+        MethodHandle handle = accessorMethod(accessor.type, setter).bindTo(accessor);
+        if (accessor.isStatic) handle = MethodHandles.insertArguments(handle, 0, (Object) null);
+        return handle.asType(fieldHandleType(accessor, setter));
+    }
+
+    // The typed getter or setter of FieldAccessor for the specified field type, taking the accessor as receiver
+    private static MethodHandle accessorMethod(Class<?> type, boolean setter) {
+        Class<?> erasedType = type.isPrimitive() ? type : Object.class;
+        String name = type.isPrimitive() ? Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1) : "Object";
+        try {
+            return setter ?
+                    MethodHandles.lookup().findVirtual(FieldAccessor.class, "set" + name, MethodType.methodType(void.class, Object.class, erasedType)) :
+                    MethodHandles.lookup().findVirtual(FieldAccessor.class, "get" + name, MethodType.methodType(erasedType, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodType fieldHandleType(FieldAccessor accessor, boolean setter) {
+        if (accessor.isStatic) return setter ? MethodType.methodType(void.class, accessor.type) : MethodType.methodType(accessor.type);
+        else return setter ? MethodType.methodType(void.class, accessor.declaringClass, accessor.type) :
+                MethodType.methodType(accessor.type, accessor.declaringClass);
+    }
+
+    /**
+     * Produces a method handle for the specified method, bypassing all access checks.
+     *
+     * <p>The type of the method handle is exactly the one of the method, with the declaring class
+     * prepended as the receiver type if the method is not static. A variable arity method is adapted
+     * to fixed arity, so the method handle can always be invoked with {@code invokeExact}, e.g. through
+     * a {@code static final} holder which the JIT is able to constant-fold.
+     * The method handle is produced once per method and cached.
+     *
+     * <p>A caller sensitive method sees the declaring class of the method as its caller.
+     *
+     * @param method the method to be invoked
+     * @return a method handle which can invoke the method
+     *
+     * @throws    NullPointerException if the specified method is null.
+     * @throws    UnsupportedOperationException if the full privilege lookup is not available on this JVM.
+     */
+    public static MethodHandle unreflect(Method method) throws NullPointerException, UnsupportedOperationException {
+        return cached(MEMBER_CACHE.get(method.getDeclaringClass()).methodHandles, method, Scalpel::resolveMethodHandle);
+    }
+
+    private static MethodHandle resolveMethodHandle(Method method) throws UnsupportedOperationException {
+        if (LOOKUP == null) throw new UnsupportedOperationException("Full privilege lookup not available");
+        try {
+            return LOOKUP.unreflect(method).asFixedArity();
+        } catch (IllegalAccessException e) {
+            // Caller sensitive methods can not be looked up without a caller
+            try {
+                return lookupFor(method.getDeclaringClass()).unreflect(method).asFixedArity();
+            } catch (IllegalAccessException ex) {
+                throw new UnsupportedOperationException(ex);
+            }
+        }
+    }
+
+    /**
+     * Produces a method handle for the specified constructor, bypassing all access checks.
+     *
+     * <p>The type of the method handle is exactly the one of the constructor, returning the declaring class.
+     * A variable arity constructor is adapted to fixed arity, so the method handle can always be invoked
+     * with {@code invokeExact}, e.g. through a {@code static final} holder which the JIT is able to constant-fold.
+     * The method handle is produced once per constructor and cached.
+     *
+     * @param constructor the constructor to be invoked
+     * @return a method handle which can create new instances with the constructor
+     *
+     * @throws    NullPointerException if the specified constructor is null.
+     * @throws    UnsupportedOperationException if the full privilege lookup is not available on this JVM,
+     *              or if the constructor belongs to an abstract class.
+     */
+    public static MethodHandle unreflectConstructor(Constructor<?> constructor) throws NullPointerException, UnsupportedOperationException {
+        return cached(MEMBER_CACHE.get(constructor.getDeclaringClass()).constructorHandles, constructor, Scalpel::resolveConstructorHandle);
+    }
+
+    private static MethodHandle resolveConstructorHandle(Constructor<?> constructor) throws UnsupportedOperationException {
+        if (LOOKUP == null) throw new UnsupportedOperationException("Full privilege lookup not available");
+        try {
+            return LOOKUP.unreflectConstructor(constructor).asFixedArity();
+        } catch (IllegalAccessException e) {
+            throw new UnsupportedOperationException(e);
+        }
+    }
+
+
+    // ---------------- Lambda ----------------
+
+    /**
+     * <p>Binds the specified method to an instance of the specified functional interface,
+     * like a method reference does, bypassing all access checks.
+     *
+     * <p>The parameters of the single abstract method of the interface are the ones of the method,
+     * preceded by the receiver if the method is not static; they are adapted the same way as
+     * the ones of a method reference, e.g. by wrapping, unwrapping and widening the primitive values.
+     * The instance is spun by {@link LambdaMetafactory} within the declaring class of the method
+     * whenever the interface is visible from there, and it calls the method directly,
+     * so the JIT can inline it as any other lambda. Otherwise, the instance is a
+     * {@link MethodHandleProxies#asInterfaceInstance(Class, MethodHandle) proxy} which calls the
+     * method through its {@link #unreflect(Method) method handle}.
+     *
+     * <p>A new instance, and possibly a new class, is created for every call of this method,
+     * so the instance should be stored (e.g. in a {@code static final} field) rather than re-created.
+     *
+     * @param method the method to be bound
+     * @param functionalInterface the functional interface to be implemented
+     * @param <F> the type of the functional interface
+     * @return an instance of the functional interface which calls the method
+     *
+     * @throws    IllegalArgumentException if the specified class is not a functional interface,
+     *              or if its single abstract method does not match the method.
+     * @throws    NullPointerException if the specified method or functional interface is null.
+     * @throws    UnsupportedOperationException if the full privilege lookup is not available on this JVM.
+     *
+     * @see #unreflect(Method)
+     */
+    public static <F> F bind(Method method, Class<F> functionalInterface) throws IllegalArgumentException, NullPointerException, UnsupportedOperationException {
+        MethodHandle handle = unreflect(method);
+        return bind(lookupFor(method.getDeclaringClass()), handle, new Object[0], handle.type(), functionalInterface, handle);
+    }
+
+    /**
+     * <p>Binds the getter of the specified field to an instance of the specified functional interface,
+     * e.g. {@link java.util.function.ToLongFunction} for an instance field, or {@link java.util.function.LongSupplier}
+     * for a static field.
+     *
+     * <p>The single abstract method of the interface takes the object to extract the value from,
+     * or no parameters if the field is static, and returns the value of the field. The instance calls the
+     * {@link #fieldAccessor(Field) accessor} of the field directly, so the JIT can inline it as any other lambda;
+     * {@link #bind(Method, Class)} describes how the instance is created.
+     *
+     * @param field the field to be read
+     * @param functionalInterface the functional interface to be implemented
+     * @param <F> the type of the functional interface
+     * @return an instance of the functional interface which reads the field
+     *
+     * @throws    IllegalArgumentException if the specified class is not a functional interface,
+     *              or if its single abstract method does not match the field.
+     * @throws    NullPointerException if the specified field or functional interface is null.
+     * @throws    ExceptionInInitializerError if the initialization provoked
+     *              by this method fails.
+     *
+     * @see #unreflectGetter(Field)
+     */
+    public static <F> F bindGetter(Field field, Class<F> functionalInterface) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
+        return bindAccessor(field, false, functionalInterface);
+    }
+
+    /**
+     * <p>Binds the setter of the specified field to an instance of the specified functional interface,
+     * e.g. {@link java.util.function.ObjLongConsumer} for an instance field, or {@link java.util.function.LongConsumer}
+     * for a static field.
+     *
+     * <p>The single abstract method of the interface takes the object whose field should be modified,
+     * unless the field is static, and the new value of the field. The instance calls the
+     * {@link #fieldAccessor(Field) accessor} of the field directly, so the JIT can inline it as any other lambda;
+     * {@link #bind(Method, Class)} describes how the instance is created.
+     *
+     * @param field the field to be written
+     * @param functionalInterface the functional interface to be implemented
+     * @param <F> the type of the functional interface
+     * @return an instance of the functional interface which writes the field
+     *
+     * @throws    IllegalArgumentException if the specified class is not a functional interface,
+     *              or if its single abstract method does not match the field.
+     * @throws    NullPointerException if the specified field or functional interface is null.
+     * @throws    ExceptionInInitializerError if the initialization provoked
+     *              by this method fails.
+     *
+     * @see #unreflectSetter(Field)
+     */
+    public static <F> F bindSetter(Field field, Class<F> functionalInterface) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
+        return bindAccessor(field, true, functionalInterface);
+    }
+
+    private static <F> F bindAccessor(Field field, boolean setter, Class<F> functionalInterface) {
+        FieldAccessor accessor = fieldAccessor(field);
+        // The accessor, and the ignored object of a static field, are captured by the instance
+        Object[] captured = accessor.isStatic ? new Object[] {accessor, null} : new Object[] {accessor};
+        MethodHandle fallback = setter ? unreflectSetter(field) : unreflectGetter(field);
+        return bind(MethodHandles.lookup(), accessorMethod(accessor.type, setter), captured, fieldHandleType(accessor, setter),
+                functionalInterface, fallback);
+    }
+
+    private static <F> F bind(MethodHandles.Lookup caller, MethodHandle implementation, Object[] captured, MethodType type,
+                              Class<F> functionalInterface, MethodHandle fallback) {
+        if (!functionalInterface.isInterface()) throw new IllegalArgumentException(functionalInterface.getTypeName() + " is not an interface");
+        Method[] methods = functionalMethods(functionalInterface);
+        Method method = methods[0];
+        MethodType methodType = MethodType.methodType(method.getReturnType(), method.getParameterTypes());
+        if (methodType.parameterCount() != type.parameterCount())
+            throw new IllegalArgumentException("Illegal parameter count of " + method + "; expected " + type.parameterCount());
+        if (isVisible(functionalInterface, caller.lookupClass())) {
+            Class<?>[] capturedTypes = new Class<?>[captured.length];
+            for (int i = 0; i < captured.length; i ++) {
+                capturedTypes[i] = implementation.type().parameterType(i);
+            }
+            MethodType instantiatedType = instantiatedType(type, methodType);
+            try {
+                CallSite site;
+                MethodType factoryType = MethodType.methodType(functionalInterface, capturedTypes);
+                if (methods.length == 1) site = LambdaMetafactory.metafactory(caller, method.getName(), factoryType,
+                        methodType, implementation, instantiatedType);
+                else {
+                    Object[] args = new Object[methods.length + 4];
+                    args[0] = methodType;
+                    args[1] = implementation;
+                    args[2] = instantiatedType;
+                    args[3] = LambdaMetafactory.FLAG_BRIDGES;
+                    args[4] = methods.length - 1;
+                    for (int i = 1; i < methods.length; i ++) {
+                        args[i + 4] = MethodType.methodType(methods[i].getReturnType(), methods[i].getParameterTypes());
+                    }
+                    site = LambdaMetafactory.altMetafactory(caller, method.getName(), factoryType, args);
+                }
+                return functionalInterface.cast(site.getTarget().invokeWithArguments(captured));
+            } catch (LambdaConversionException | IllegalArgumentException ignored) {
+                // e.g. the method handle of a caller sensitive method, which is not direct
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        try {
+            return MethodHandleProxies.asInterfaceInstance(functionalInterface, fallback);
+        } catch (WrongMethodTypeException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    // The single abstract method of the functional interface, followed by the ones it bridges
+    private static Method[] functionalMethods(Class<?> functionalInterface) throws IllegalArgumentException {
+        List<Method> methods = new ArrayList<>();
+        Method functional = null;
+        for (Method method : functionalInterface.getMethods()) {
+            if (!isAbstract(method.getModifiers()) || isObjectMethod(method)) continue;
+            if (functional != null && (!functional.getName().equals(method.getName()) ||
+                    functional.getParameterCount() != method.getParameterCount()))
+                throw new IllegalArgumentException(functionalInterface.getTypeName() + " is not a functional interface");
+            methods.add(method);
+            if (functional == null || isMoreSpecific(method, functional)) functional = method;
+        }
+        if (functional == null) throw new IllegalArgumentException(functionalInterface.getTypeName() + " is not a functional interface");
+        // Keep one method per distinct type, since the same method can be inherited from several interfaces
+        Set<MethodType> methodTypes = new HashSet<>();
+        methodTypes.add(MethodType.methodType(functional.getReturnType(), functional.getParameterTypes()));
+        methods.removeIf(method -> !methodTypes.add(MethodType.methodType(method.getReturnType(), method.getParameterTypes())));
+        methods.add(0, functional);
+        return methods.toArray(new Method[0]);
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean isMoreSpecific(Method method, Method than) {
+        if (!than.getReturnType().isAssignableFrom(method.getReturnType())) return false;
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Class<?>[] thanParameterTypes = than.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i ++) {
+            if (!thanParameterTypes[i].isAssignableFrom(parameterTypes[i])) return false;
+        }
+        return true;
+    }
+
+    // Whether a class spun within the specified class can refer to the specified target class
+    private static boolean isVisible(Class<?> target, Class<?> clazz) {
+        if (!isPublic(target.getModifiers()) && (target.getClassLoader() != clazz.getClassLoader() ||
+                !Objects.equals(target.getPackage(), clazz.getPackage()))) return false;
+        try {
+            return Class.forName(target.getName(), false, clazz.getClassLoader()) == target;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    // The type of the member specialized to the single abstract method, as javac does for method references
+    private static MethodType instantiatedType(MethodType type, MethodType methodType) {
+        Class<?>[] parameterTypes = new Class<?>[type.parameterCount()];
+        for (int i = 0; i < parameterTypes.length; i ++) {
+            parameterTypes[i] = instantiatedType(type.parameterType(i), methodType.parameterType(i));
+        }
+        Class<?> returnType = methodType.returnType() == void.class ? void.class : instantiatedType(type.returnType(), methodType.returnType());
+        return MethodType.methodType(returnType, parameterTypes);
+    }
+
+    private static Class<?> instantiatedType(Class<?> type, Class<?> functionalType) {
+        if (functionalType.isPrimitive()) return functionalType;
+        else if (type.isPrimitive()) return type == void.class ? functionalType : MethodType.methodType(type).wrap().returnType();
+        else return functionalType.isAssignableFrom(type) ? type : functionalType;
+    }
+
 
     // ---------------- Reflect ----------------
 
@@ -140,10 +668,22 @@ public final class Scalpel {
      *           underlying constructor represents an abstract class.
      * @throws NullPointerException    if the specified class is null
      */
-    @SuppressWarnings("unchecked")
     public static <T> T allocateInstance(Class<T> clazz) throws InstantiationException, NullPointerException {
-        if (UNSAFE == null) return AllocObject(clazz);
-        else return (T) UNSAFE.allocateInstance(clazz);
+        return allocateInstance(clazz, UNSAFE == null ? Strategy.JNI : Strategy.UNSAFE);
+    }
+
+    // The JNI strategy is the fallback when sun.misc.Unsafe is not available
+    @SuppressWarnings("unchecked")
+    static <T> T allocateInstance(Class<T> clazz, Strategy strategy) throws InstantiationException, NullPointerException {
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        T instance;
+        if (strategy == Strategy.JNI) {
+            requireNativeLibraries();
+            instance = AllocObject(clazz);
+        }
+        else instance = (T) UNSAFE.allocateInstance(clazz);
+        if (INSTRUMENTED) record(ENTRY_ALLOCATE_INSTANCE, strategy, clazz, start);
+        return instance;
     }
 
     /**
@@ -194,11 +734,11 @@ public final class Scalpel {
      */
     public static <T> T newInstance(Constructor<T> constructor, Object... args) throws InstantiationException, InvocationTargetException,
             NullPointerException, IllegalArgumentException, ExceptionInInitializerError {
-        try {
-            if (trySetAccessible(constructor)) return constructor.newInstance(args);
-        } catch (IllegalAccessException ignored) {
-        }
-        return NewObject(constructor.getDeclaringClass(), constructor, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        ConstructorInvoker<T> invoker = constructorInvoker(constructor);
+        T value = invoker.newInstance(args);
+        if (INSTRUMENTED) record(ENTRY_NEW_INSTANCE, invoker.getStrategy(), constructor, start);
+        return value;
     }
 
     /**
@@ -220,14 +760,11 @@ public final class Scalpel {
      * @see #getField(Object, Field)
      */
     public static Object getObjectField(Object object, Field field) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType().isPrimitive()) throw new IllegalArgumentException("Illegal field type; expected non-primitive");
-        try {
-            if (trySetAccessible(field)) return field.get(object);
-        } catch (IllegalAccessException ignored) {
-        }
-        return isStatic(field.getModifiers()) ?
-                GetStaticObjectField(field.getDeclaringClass(), field) :
-                GetObjectField(object, field);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        Object value = accessor.getObject(object);
+        if (INSTRUMENTED) record(ENTRY_GET_FIELD, accessor.getStrategy(), field, start);
+        return value;
     }
 
     /**
@@ -251,14 +788,11 @@ public final class Scalpel {
      * @see #getField(Object, Field)
      */
     public static boolean getBooleanField(Object object, Field field) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != boolean.class) throw new IllegalArgumentException("Illegal field type; expected boolean");
-        try {
-            if (trySetAccessible(field)) return field.getBoolean(object);
-        } catch (IllegalAccessException ignored) {
-        }
-        return isStatic(field.getModifiers()) ?
-                GetStaticBooleanField(field.getDeclaringClass(), field) :
-                GetBooleanField(object, field);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        boolean value = accessor.getBoolean(object);
+        if (INSTRUMENTED) record(ENTRY_GET_FIELD, accessor.getStrategy(), field, start);
+        return value;
     }
 
     /**
@@ -282,14 +816,11 @@ public final class Scalpel {
      * @see #getField(Object, Field)
      */
     public static byte getByteField(Object object, Field field) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != byte.class) throw new IllegalArgumentException("Illegal field type; expected byte");
-        try {
-            if (trySetAccessible(field)) return field.getByte(object);
-        } catch (IllegalAccessException ignored) {
-        }
-        return isStatic(field.getModifiers()) ?
-                GetStaticByteField(field.getDeclaringClass(), field) :
-                GetByteField(object, field);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        byte value = accessor.getByte(object);
+        if (INSTRUMENTED) record(ENTRY_GET_FIELD, accessor.getStrategy(), field, start);
+        return value;
     }
 
     /**
@@ -313,14 +844,11 @@ public final class Scalpel {
      * @see #getField(Object, Field)
      */
     public static char getCharField(Object object, Field field) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != char.class) throw new IllegalArgumentException("Illegal field type; expected char");
-        try {
-            if (trySetAccessible(field)) return field.getChar(object);
-        } catch (IllegalAccessException ignored) {
-        }
-        return isStatic(field.getModifiers()) ?
-                GetStaticCharField(field.getDeclaringClass(), field) :
-                GetCharField(object, field);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        char value = accessor.getChar(object);
+        if (INSTRUMENTED) record(ENTRY_GET_FIELD, accessor.getStrategy(), field, start);
+        return value;
     }
 
     /**
@@ -344,14 +872,11 @@ public final class Scalpel {
      * @see #getField(Object, Field)
      */
     public static short getShortField(Object object, Field field) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != short.class) throw new IllegalArgumentException("Illegal field type; expected short");
-        try {
-            if (trySetAccessible(field)) return field.getShort(object);
-        } catch (IllegalAccessException ignored) {
-        }
-        return isStatic(field.getModifiers()) ?
-                GetStaticShortField(field.getDeclaringClass(), field) :
-                GetShortField(object, field);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        short value = accessor.getShort(object);
+        if (INSTRUMENTED) record(ENTRY_GET_FIELD, accessor.getStrategy(), field, start);
+        return value;
     }
 
     /**
@@ -375,14 +900,11 @@ public final class Scalpel {
      * @see #getField(Object, Field)
      */
     public static int getIntField(Object object, Field field) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != int.class) throw new IllegalArgumentException("Illegal field type; expected int");
-        try {
-            if (trySetAccessible(field)) return field.getInt(object);
-        } catch (IllegalAccessException ignored) {
-        }
-        return isStatic(field.getModifiers()) ?
-                GetStaticIntField(field.getDeclaringClass(), field) :
-                GetIntField(object, field);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        int value = accessor.getInt(object);
+        if (INSTRUMENTED) record(ENTRY_GET_FIELD, accessor.getStrategy(), field, start);
+        return value;
     }
 
     /**
@@ -406,14 +928,11 @@ public final class Scalpel {
      * @see #getField(Object, Field)
      */
     public static long getLongField(Object object, Field field) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != long.class) throw new IllegalArgumentException("Illegal field type; expected long");
-        try {
-            if (trySetAccessible(field)) return field.getLong(object);
-        } catch (IllegalAccessException ignored) {
-        }
-        return isStatic(field.getModifiers()) ?
-                GetStaticLongField(field.getDeclaringClass(), field) :
-                GetLongField(object, field);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        long value = accessor.getLong(object);
+        if (INSTRUMENTED) record(ENTRY_GET_FIELD, accessor.getStrategy(), field, start);
+        return value;
     }
 
     /**
@@ -437,14 +956,11 @@ public final class Scalpel {
      * @see #getField(Object, Field)
      */
     public static float getFloatField(Object object, Field field) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != float.class) throw new IllegalArgumentException("Illegal field type; expected float");
-        try {
-            if (trySetAccessible(field)) return field.getFloat(object);
-        } catch (IllegalAccessException ignored) {
-        }
-        return isStatic(field.getModifiers()) ?
-                GetStaticFloatField(field.getDeclaringClass(), field) :
-                GetFloatField(object, field);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        float value = accessor.getFloat(object);
+        if (INSTRUMENTED) record(ENTRY_GET_FIELD, accessor.getStrategy(), field, start);
+        return value;
     }
 
     /**
@@ -468,14 +984,11 @@ public final class Scalpel {
      * @see #getField(Object, Field)
      */
     public static double getDoubleField(Object object, Field field) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != double.class) throw new IllegalArgumentException("Illegal field type; expected double");
-        try {
-            if (trySetAccessible(field)) return field.getDouble(object);
-        } catch (IllegalAccessException ignored) {
-        }
-        return isStatic(field.getModifiers()) ?
-                GetStaticDoubleField(field.getDeclaringClass(), field) :
-                GetDoubleField(object, field);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        double value = accessor.getDouble(object);
+        if (INSTRUMENTED) record(ENTRY_GET_FIELD, accessor.getStrategy(), field, start);
+        return value;
     }
 
     /**
@@ -523,33 +1036,11 @@ public final class Scalpel {
      *              by this method fails.
      */
     public static Object getField(Object object, Field field) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        try {
-            if (trySetAccessible(field)) return field.get(object);
-        } catch (IllegalAccessException ignored) {
-        }
-        Class<?> fieldType = field.getType();
-        if (isStatic(field.getModifiers())) {
-            if (fieldType == boolean.class) return GetStaticBooleanField(field.getDeclaringClass(), field);
-            else if (fieldType == byte.class) return GetStaticByteField(field.getDeclaringClass(), field);
-            else if (fieldType == char.class) return GetStaticCharField(field.getDeclaringClass(), field);
-            else if (fieldType == short.class) return GetStaticShortField(field.getDeclaringClass(), field);
-            else if (fieldType == int.class) return GetStaticIntField(field.getDeclaringClass(), field);
-            else if (fieldType == long.class) return GetStaticLongField(field.getDeclaringClass(), field);
-            else if (fieldType == float.class) return GetStaticFloatField(field.getDeclaringClass(), field);
-            else if (fieldType == double.class) return GetStaticDoubleField(field.getDeclaringClass(), field);
-            else return GetStaticObjectField(field.getDeclaringClass(), field);
-        }
-        else {
-            if (fieldType == boolean.class) return GetBooleanField(object, field);
-            else if (fieldType == byte.class) return GetByteField(object, field);
-            else if (fieldType == char.class) return GetCharField(object, field);
-            else if (fieldType == short.class) return GetShortField(object, field);
-            else if (fieldType == int.class) return GetIntField(object, field);
-            else if (fieldType == long.class) return GetLongField(object, field);
-            else if (fieldType == float.class) return GetFloatField(object, field);
-            else if (fieldType == double.class) return GetDoubleField(object, field);
-            else return GetObjectField(object, field);
-        }
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        Object value = accessor.get(object);
+        if (INSTRUMENTED) record(ENTRY_GET_FIELD, accessor.getStrategy(), field, start);
+        return value;
     }
 
     /**
@@ -571,17 +1062,10 @@ public final class Scalpel {
      * @see #setField(Object, Field, Object)
      */
     public static void setObjectField(Object object, Field field, Object value) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (!field.getType().isAssignableFrom(value.getClass()))
-            throw new IllegalArgumentException("Illegal field type; expected " + field.getType().getTypeName());
-        try {
-            if (trySetAccessible(field)) {
-                field.set(object, value);
-                return;
-            }
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(field.getModifiers())) SetStaticObjectField(field.getDeclaringClass(), field, value);
-        else SetObjectField(object, field, value);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        accessor.setObject(object, value);
+        if (INSTRUMENTED) record(ENTRY_SET_FIELD, accessor.getStrategy(), field, start);
     }
 
     /**
@@ -603,16 +1087,10 @@ public final class Scalpel {
      * @see #setField(Object, Field, Object)
      */
     public static void setBooleanField(Object object, Field field, boolean value) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != boolean.class) throw new IllegalArgumentException("Illegal field type; expected boolean");
-        try {
-            if (trySetAccessible(field)) {
-                field.setBoolean(object, value);
-                return;
-            }
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(field.getModifiers())) SetStaticBooleanField(field.getDeclaringClass(), field, value);
-        else SetBooleanField(object, field, value);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        accessor.setBoolean(object, value);
+        if (INSTRUMENTED) record(ENTRY_SET_FIELD, accessor.getStrategy(), field, start);
     }
 
     /**
@@ -634,16 +1112,10 @@ public final class Scalpel {
      * @see #setField(Object, Field, Object)
      */
     public static void setByteField(Object object, Field field, byte value) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != byte.class) throw new IllegalArgumentException("Illegal field type; expected byte");
-        try {
-            if (trySetAccessible(field)) {
-                field.setByte(object, value);
-                return;
-            }
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(field.getModifiers())) SetStaticByteField(field.getDeclaringClass(), field, value);
-        else SetByteField(object, field, value);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        accessor.setByte(object, value);
+        if (INSTRUMENTED) record(ENTRY_SET_FIELD, accessor.getStrategy(), field, start);
     }
 
     /**
@@ -665,16 +1137,10 @@ public final class Scalpel {
      * @see #setField(Object, Field, Object)
      */
     public static void setCharField(Object object, Field field, char value) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != char.class) throw new IllegalArgumentException("Illegal field type; expected char");
-        try {
-            if (trySetAccessible(field)) {
-                field.setChar(object, value);
-                return;
-            }
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(field.getModifiers())) SetStaticCharField(field.getDeclaringClass(), field, value);
-        else SetCharField(object, field, value);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        accessor.setChar(object, value);
+        if (INSTRUMENTED) record(ENTRY_SET_FIELD, accessor.getStrategy(), field, start);
     }
 
     /**
@@ -696,16 +1162,10 @@ public final class Scalpel {
      * @see #setField(Object, Field, Object)
      */
     public static void setShortField(Object object, Field field, short value) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != short.class) throw new IllegalArgumentException("Illegal field type; expected short");
-        try {
-            if (trySetAccessible(field)) {
-                field.setShort(object, value);
-                return;
-            }
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(field.getModifiers())) SetStaticShortField(field.getDeclaringClass(), field, value);
-        else SetShortField(object, field, value);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        accessor.setShort(object, value);
+        if (INSTRUMENTED) record(ENTRY_SET_FIELD, accessor.getStrategy(), field, start);
     }
 
     /**
@@ -727,16 +1187,10 @@ public final class Scalpel {
      * @see #setField(Object, Field, Object)
      */
     public static void setIntField(Object object, Field field, int value) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != int.class) throw new IllegalArgumentException("Illegal field type; expected int");
-        try {
-            if (trySetAccessible(field)) {
-                field.setInt(object, value);
-                return;
-            }
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(field.getModifiers())) SetStaticIntField(field.getDeclaringClass(), field, value);
-        else SetIntField(object, field, value);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        accessor.setInt(object, value);
+        if (INSTRUMENTED) record(ENTRY_SET_FIELD, accessor.getStrategy(), field, start);
     }
 
     /**
@@ -758,16 +1212,10 @@ public final class Scalpel {
      * @see #setField(Object, Field, Object)
      */
     public static void setLongField(Object object, Field field, long value) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != long.class) throw new IllegalArgumentException("Illegal field type; expected long");
-        try {
-            if (trySetAccessible(field)) {
-                field.setLong(object, value);
-                return;
-            }
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(field.getModifiers())) SetStaticLongField(field.getDeclaringClass(), field, value);
-        else SetLongField(object, field, value);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        accessor.setLong(object, value);
+        if (INSTRUMENTED) record(ENTRY_SET_FIELD, accessor.getStrategy(), field, start);
     }
 
     /**
@@ -789,16 +1237,10 @@ public final class Scalpel {
      * @see #setField(Object, Field, Object)
      */
     public static void setFloatField(Object object, Field field, float value) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != float.class) throw new IllegalArgumentException("Illegal field type; expected float");
-        try {
-            if (trySetAccessible(field)) {
-                field.setFloat(object, value);
-                return;
-            }
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(field.getModifiers())) SetStaticFloatField(field.getDeclaringClass(), field, value);
-        else SetFloatField(object, field, value);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        accessor.setFloat(object, value);
+        if (INSTRUMENTED) record(ENTRY_SET_FIELD, accessor.getStrategy(), field, start);
     }
 
     /**
@@ -820,16 +1262,10 @@ public final class Scalpel {
      * @see #setField(Object, Field, Object)
      */
     public static void setDoubleField(Object object, Field field, double value) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (field.getType() != double.class) throw new IllegalArgumentException("Illegal field type; expected double");
-        try {
-            if (trySetAccessible(field)) {
-                field.setDouble(object, value);
-                return;
-            }
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(field.getModifiers())) SetStaticDoubleField(field.getDeclaringClass(), field, value);
-        else SetDoubleField(object, field, value);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        accessor.setDouble(object, value);
+        if (INSTRUMENTED) record(ENTRY_SET_FIELD, accessor.getStrategy(), field, start);
     }
 
     /**
@@ -889,20 +1325,10 @@ public final class Scalpel {
      *              by this method fails.
      */
     public static void setField(Object object, Field field, Object value) throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        Class<?> fieldType = field.getType();
-        try {
-            if (fieldType == boolean.class) setBooleanField(object, field, (Boolean) value);
-            else if (fieldType == byte.class) setByteField(object, field, (Byte) value);
-            else if (fieldType == char.class) setCharField(object, field, (Character) value);
-            else if (fieldType == short.class) setShortField(object, field, (Short) value);
-            else if (fieldType == int.class) setIntField(object, field, (Integer) value);
-            else if (fieldType == long.class) setLongField(object, field, (Long) value);
-            else if (fieldType == float.class) setFloatField(object, field, (Float) value);
-            else if (fieldType == double.class) setDoubleField(object, field, (Double) value);
-            else setObjectField(object, field, value);
-        } catch (ClassCastException e) {
-            throw new IllegalArgumentException(e);
-        }
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        FieldAccessor accessor = fieldAccessor(field);
+        accessor.set(object, value);
+        if (INSTRUMENTED) record(ENTRY_SET_FIELD, accessor.getStrategy(), field, start);
     }
 
     /**
@@ -932,16 +1358,10 @@ public final class Scalpel {
      */
     public static void invokeVoidMethod(Object object, Method method, Object... args)
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (method.getReturnType() != void.class && method.getReturnType() != Void.class) throw new IllegalArgumentException("Illegal return type; expected void");
-        try {
-            if (trySetAccessible(method)) {
-                method.invoke(object, args);
-                return;
-            }
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(method.getModifiers())) CallStaticVoidMethod(method.getDeclaringClass(), method, args);
-        else CallVoidMethod(object, method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = methodInvoker(method);
+        invoker.invokeVoid(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_METHOD, invoker.getStrategy(), method, start);
     }
 
     /**
@@ -971,13 +1391,11 @@ public final class Scalpel {
      */
     public static Object invokeObjectMethod(Object object, Method method, Object... args)
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (method.getReturnType().isPrimitive()) throw new IllegalArgumentException("Illegal return type; expected non-primitive");
-        try {
-            if (trySetAccessible(method)) return method.invoke(object, args);
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(method.getModifiers())) return CallStaticObjectMethod(method.getDeclaringClass(), method, args);
-        else return CallObjectMethod(object, method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = methodInvoker(method);
+        Object value = invoker.invokeObject(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1008,13 +1426,11 @@ public final class Scalpel {
      */
     public static boolean invokeBooleanMethod(Object object, Method method, Object... args)
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (method.getReturnType() != boolean.class) throw new IllegalArgumentException("Illegal return type; expected boolean");
-        try {
-            if (trySetAccessible(method)) return (boolean) method.invoke(object, args);
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(method.getModifiers())) return CallStaticBooleanMethod(method.getDeclaringClass(), method, args);
-        else return CallBooleanMethod(object, method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = methodInvoker(method);
+        boolean value = invoker.invokeBoolean(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1045,13 +1461,11 @@ public final class Scalpel {
      */
     public static byte invokeByteMethod(Object object, Method method, Object... args)
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (method.getReturnType() != byte.class) throw new IllegalArgumentException("Illegal return type; expected byte");
-        try {
-            if (trySetAccessible(method)) return (byte) method.invoke(object, args);
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(method.getModifiers())) return CallStaticByteMethod(method.getDeclaringClass(), method, args);
-        else return CallByteMethod(object, method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = methodInvoker(method);
+        byte value = invoker.invokeByte(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1082,13 +1496,11 @@ public final class Scalpel {
      */
     public static char invokeCharMethod(Object object, Method method, Object... args)
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (method.getReturnType() != char.class) throw new IllegalArgumentException("Illegal return type; expected char");
-        try {
-            if (trySetAccessible(method)) return (char) method.invoke(object, args);
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(method.getModifiers())) return CallStaticCharMethod(method.getDeclaringClass(), method, args);
-        else return CallCharMethod(object, method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = methodInvoker(method);
+        char value = invoker.invokeChar(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1119,13 +1531,11 @@ public final class Scalpel {
      */
     public static short invokeShortMethod(Object object, Method method, Object... args)
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (method.getReturnType() != short.class) throw new IllegalArgumentException("Illegal return type; expected short");
-        try {
-            if (trySetAccessible(method)) return (short) method.invoke(object, args);
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(method.getModifiers())) return CallStaticShortMethod(method.getDeclaringClass(), method, args);
-        else return CallShortMethod(object, method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = methodInvoker(method);
+        short value = invoker.invokeShort(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1156,13 +1566,11 @@ public final class Scalpel {
      */
     public static int invokeIntMethod(Object object, Method method, Object... args)
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (method.getReturnType() != int.class) throw new IllegalArgumentException("Illegal return type; expected int");
-        try {
-            if (trySetAccessible(method)) return (int) method.invoke(object, args);
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(method.getModifiers())) return CallStaticIntMethod(method.getDeclaringClass(), method, args);
-        else return CallIntMethod(object, method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = methodInvoker(method);
+        int value = invoker.invokeInt(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1193,13 +1601,11 @@ public final class Scalpel {
      */
     public static long invokeLongMethod(Object object, Method method, Object... args)
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (method.getReturnType() != long.class) throw new IllegalArgumentException("Illegal return type; expected long");
-        try {
-            if (trySetAccessible(method)) return (long) method.invoke(object, args);
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(method.getModifiers())) return CallStaticLongMethod(method.getDeclaringClass(), method, args);
-        else return CallLongMethod(object, method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = methodInvoker(method);
+        long value = invoker.invokeLong(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1230,13 +1636,11 @@ public final class Scalpel {
      */
     public static float invokeFloatMethod(Object object, Method method, Object... args)
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (method.getReturnType() != float.class) throw new IllegalArgumentException("Illegal return type; expected float");
-        try {
-            if (trySetAccessible(method)) return (float) method.invoke(object, args);
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(method.getModifiers())) return CallStaticFloatMethod(method.getDeclaringClass(), method, args);
-        else return CallFloatMethod(object, method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = methodInvoker(method);
+        float value = invoker.invokeFloat(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1267,13 +1671,11 @@ public final class Scalpel {
      */
     public static double invokeDoubleMethod(Object object, Method method, Object... args)
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (method.getReturnType() != double.class) throw new IllegalArgumentException("Illegal return type; expected double");
-        try {
-            if (trySetAccessible(method)) return (double) method.invoke(object, args);
-        } catch (IllegalAccessException ignored) {
-        }
-        if (isStatic(method.getModifiers())) return CallStaticDoubleMethod(method.getDeclaringClass(), method, args);
-        else return CallDoubleMethod(object, method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = methodInvoker(method);
+        double value = invoker.invokeDouble(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1329,41 +1731,11 @@ public final class Scalpel {
      */
     public static Object invokeMethod(Object object, Method method, Object... args)
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        try {
-            if (trySetAccessible(method)) return method.invoke(object, args);
-        } catch (IllegalAccessException ignored) {
-        }
-        Class<?> returnType = method.getReturnType();
-        if (isStatic(method.getModifiers())) {
-            if (returnType == void.class) {
-                CallStaticVoidMethod(method.getDeclaringClass(), method, args);
-                return null;
-            }
-            else if (returnType == boolean.class) return CallStaticBooleanMethod(method.getDeclaringClass(), method, args);
-            else if (returnType == byte.class) return CallStaticByteMethod(method.getDeclaringClass(), method, args);
-            else if (returnType == char.class) return CallStaticCharMethod(method.getDeclaringClass(), method, args);
-            else if (returnType == short.class) return CallStaticShortMethod(method.getDeclaringClass(), method, args);
-            else if (returnType == int.class) return CallStaticIntMethod(method.getDeclaringClass(), method, args);
-            else if (returnType == long.class) return CallStaticLongMethod(method.getDeclaringClass(), method, args);
-            else if (returnType == float.class) return CallStaticFloatMethod(method.getDeclaringClass(), method, args);
-            else if (returnType == double.class) return CallStaticDoubleMethod(method.getDeclaringClass(), method, args);
-            else return CallStaticObjectMethod(method.getDeclaringClass(), method, args);
-        }
-        else {
-            if (returnType == void.class) {
-                CallVoidMethod(object, method, args);
-                return null;
-            }
-            else if (returnType == boolean.class) return CallBooleanMethod(object, method, args);
-            else if (returnType == byte.class) return CallByteMethod(object, method, args);
-            else if (returnType == char.class) return CallCharMethod(object, method, args);
-            else if (returnType == short.class) return CallShortMethod(object, method, args);
-            else if (returnType == int.class) return CallIntMethod(object, method, args);
-            else if (returnType == long.class) return CallLongMethod(object, method, args);
-            else if (returnType == float.class) return CallFloatMethod(object, method, args);
-            else if (returnType == double.class) return CallDoubleMethod(object, method, args);
-            else return CallObjectMethod(object, method, args);
-        }
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = methodInvoker(method);
+        Object value = invoker.invoke(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
 
@@ -1400,18 +1772,10 @@ public final class Scalpel {
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
         if (method.getReturnType() != void.class && method.getReturnType() != Void.class) throw new IllegalArgumentException("Illegal return type; expected void");
         else if (isStatic(method.getModifiers())) throw new IllegalArgumentException("Illegal method modifier; expected non-static");
-        if (LOOKUP != null) {
-            try {
-                LOOKUP.unreflectSpecial(method, method.getDeclaringClass()).bindTo(object).invokeWithArguments(args);
-                return;
-            } catch (WrongMethodTypeException e) {
-                throw new IllegalArgumentException(e);
-            } catch (RuntimeException | Error | InvocationTargetException e) {
-                throw e;
-            } catch (Throwable ignored) {
-            }
-        }
-        CallNonvirtualVoidMethod(object, method.getDeclaringClass(), method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = nonVirtualMethodInvoker(method);
+        invoker.invokeVoid(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_NONVIRTUAL_METHOD, invoker.getStrategy(), method, start);
     }
 
     /**
@@ -1445,17 +1809,11 @@ public final class Scalpel {
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
         if (method.getReturnType().isPrimitive()) throw new IllegalArgumentException("Illegal return type; expected non-primitive");
         else if (isStatic(method.getModifiers())) throw new IllegalArgumentException("Illegal method modifier; expected non-static");
-        if (LOOKUP != null) {
-            try {
-                return LOOKUP.unreflectSpecial(method, method.getDeclaringClass()).bindTo(object).invokeWithArguments(args);
-            } catch (WrongMethodTypeException e) {
-                throw new IllegalArgumentException(e);
-            } catch (RuntimeException | Error | InvocationTargetException e) {
-                throw e;
-            } catch (Throwable ignored) {
-            }
-        }
-        return CallNonvirtualObjectMethod(object, method.getDeclaringClass(), method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = nonVirtualMethodInvoker(method);
+        Object value = invoker.invokeObject(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_NONVIRTUAL_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1490,17 +1848,11 @@ public final class Scalpel {
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
         if (method.getReturnType() != boolean.class) throw new IllegalArgumentException("Illegal return type; expected boolean");
         else if (isStatic(method.getModifiers())) throw new IllegalArgumentException("Illegal method modifier; expected non-static");
-        if (LOOKUP != null) {
-            try {
-                return (boolean) LOOKUP.unreflectSpecial(method, method.getDeclaringClass()).bindTo(object).invokeWithArguments(args);
-            } catch (WrongMethodTypeException e) {
-                throw new IllegalArgumentException(e);
-            } catch (RuntimeException | Error | InvocationTargetException e) {
-                throw e;
-            } catch (Throwable ignored) {
-            }
-        }
-        return CallNonvirtualBooleanMethod(object, method.getDeclaringClass(), method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = nonVirtualMethodInvoker(method);
+        boolean value = invoker.invokeBoolean(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_NONVIRTUAL_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1535,17 +1887,11 @@ public final class Scalpel {
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
         if (method.getReturnType() != byte.class) throw new IllegalArgumentException("Illegal return type; expected byte");
         else if (isStatic(method.getModifiers())) throw new IllegalArgumentException("Illegal method modifier; expected non-static");
-        if (LOOKUP != null) {
-            try {
-                return (byte) LOOKUP.unreflectSpecial(method, method.getDeclaringClass()).bindTo(object).invokeWithArguments(args);
-            } catch (WrongMethodTypeException e) {
-                throw new IllegalArgumentException(e);
-            } catch (RuntimeException | Error | InvocationTargetException e) {
-                throw e;
-            } catch (Throwable ignored) {
-            }
-        }
-        return CallNonvirtualByteMethod(object, method.getDeclaringClass(), method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = nonVirtualMethodInvoker(method);
+        byte value = invoker.invokeByte(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_NONVIRTUAL_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1580,17 +1926,11 @@ public final class Scalpel {
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
         if (method.getReturnType() != char.class) throw new IllegalArgumentException("Illegal return type; expected char");
         else if (isStatic(method.getModifiers())) throw new IllegalArgumentException("Illegal method modifier; expected non-static");
-        if (LOOKUP != null) {
-            try {
-                return (char) LOOKUP.unreflectSpecial(method, method.getDeclaringClass()).bindTo(object).invokeWithArguments(args);
-            } catch (WrongMethodTypeException e) {
-                throw new IllegalArgumentException(e);
-            } catch (RuntimeException | Error | InvocationTargetException e) {
-                throw e;
-            } catch (Throwable ignored) {
-            }
-        }
-        return CallNonvirtualCharMethod(object, method.getDeclaringClass(), method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = nonVirtualMethodInvoker(method);
+        char value = invoker.invokeChar(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_NONVIRTUAL_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1625,17 +1965,11 @@ public final class Scalpel {
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
         if (method.getReturnType() != short.class) throw new IllegalArgumentException("Illegal return type; expected short");
         else if (isStatic(method.getModifiers())) throw new IllegalArgumentException("Illegal method modifier; expected non-static");
-        if (LOOKUP != null) {
-            try {
-                return (short) LOOKUP.unreflectSpecial(method, method.getDeclaringClass()).bindTo(object).invokeWithArguments(args);
-            } catch (WrongMethodTypeException e) {
-                throw new IllegalArgumentException(e);
-            } catch (RuntimeException | Error | InvocationTargetException e) {
-                throw e;
-            } catch (Throwable ignored) {
-            }
-        }
-        return CallNonvirtualShortMethod(object, method.getDeclaringClass(), method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = nonVirtualMethodInvoker(method);
+        short value = invoker.invokeShort(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_NONVIRTUAL_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1670,17 +2004,11 @@ public final class Scalpel {
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
         if (method.getReturnType() != int.class) throw new IllegalArgumentException("Illegal return type; expected int");
         else if (isStatic(method.getModifiers())) throw new IllegalArgumentException("Illegal method modifier; expected non-static");
-        if (LOOKUP != null) {
-            try {
-                return (int) LOOKUP.unreflectSpecial(method, method.getDeclaringClass()).bindTo(object).invokeWithArguments(args);
-            } catch (WrongMethodTypeException e) {
-                throw new IllegalArgumentException(e);
-            } catch (RuntimeException | Error | InvocationTargetException e) {
-                throw e;
-            } catch (Throwable ignored) {
-            }
-        }
-        return CallNonvirtualIntMethod(object, method.getDeclaringClass(), method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = nonVirtualMethodInvoker(method);
+        int value = invoker.invokeInt(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_NONVIRTUAL_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1715,17 +2043,11 @@ public final class Scalpel {
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
         if (method.getReturnType() != long.class) throw new IllegalArgumentException("Illegal return type; expected long");
         else if (isStatic(method.getModifiers())) throw new IllegalArgumentException("Illegal method modifier; expected non-static");
-        if (LOOKUP != null) {
-            try {
-                return (long) LOOKUP.unreflectSpecial(method, method.getDeclaringClass()).bindTo(object).invokeWithArguments(args);
-            } catch (WrongMethodTypeException e) {
-                throw new IllegalArgumentException(e);
-            } catch (RuntimeException | Error | InvocationTargetException e) {
-                throw e;
-            } catch (Throwable ignored) {
-            }
-        }
-        return CallNonvirtualLongMethod(object, method.getDeclaringClass(), method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = nonVirtualMethodInvoker(method);
+        long value = invoker.invokeLong(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_NONVIRTUAL_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1760,17 +2082,11 @@ public final class Scalpel {
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
         if (method.getReturnType() != float.class) throw new IllegalArgumentException("Illegal return type; expected float");
         else if (isStatic(method.getModifiers())) throw new IllegalArgumentException("Illegal method modifier; expected non-static");
-        if (LOOKUP != null) {
-            try {
-                return (float) LOOKUP.unreflectSpecial(method, method.getDeclaringClass()).bindTo(object).invokeWithArguments(args);
-            } catch (WrongMethodTypeException e) {
-                throw new IllegalArgumentException(e);
-            } catch (RuntimeException | Error | InvocationTargetException e) {
-                throw e;
-            } catch (Throwable ignored) {
-            }
-        }
-        return CallNonvirtualFloatMethod(object, method.getDeclaringClass(), method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = nonVirtualMethodInvoker(method);
+        float value = invoker.invokeFloat(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_NONVIRTUAL_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1805,17 +2121,11 @@ public final class Scalpel {
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
         if (method.getReturnType() != double.class) throw new IllegalArgumentException("Illegal return type; expected double");
         else if (isStatic(method.getModifiers())) throw new IllegalArgumentException("Illegal method modifier; expected non-static");
-        if (LOOKUP != null) {
-            try {
-                return (double) LOOKUP.unreflectSpecial(method, method.getDeclaringClass()).bindTo(object).invokeWithArguments(args);
-            } catch (WrongMethodTypeException e) {
-                throw new IllegalArgumentException(e);
-            } catch (RuntimeException | Error | InvocationTargetException e) {
-                throw e;
-            } catch (Throwable ignored) {
-            }
-        }
-        return CallNonvirtualDoubleMethod(object, method.getDeclaringClass(), method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = nonVirtualMethodInvoker(method);
+        double value = invoker.invokeDouble(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_NONVIRTUAL_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
     /**
@@ -1865,35 +2175,35 @@ public final class Scalpel {
      */
     public static Object invokeNonVirtualMethod(Object object, Method method, Object... args)
             throws InvocationTargetException, IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
-        if (LOOKUP != null) {
-            try {
-                return LOOKUP.unreflectSpecial(method, method.getDeclaringClass()).bindTo(object).invokeWithArguments(args);
-            } catch (WrongMethodTypeException e) {
-                throw new IllegalArgumentException(e);
-            } catch (RuntimeException | Error | InvocationTargetException e) {
-                throw e;
-            } catch (Throwable ignored) {
-            }
-        }
-        Class<?> returnType = method.getReturnType();
-        if (returnType == void.class) {
-            invokeNonVirtualVoidMethod(object, method, args);
-            return null;
-        }
-        else if (returnType == int.class) return invokeNonVirtualIntMethod(object, method, args);
-        else if (returnType == long.class) return invokeNonVirtualLongMethod(object, method, args);
-        else if (returnType == short.class) return invokeNonVirtualShortMethod(object, method, args);
-        else if (returnType == char.class) return invokeNonVirtualCharMethod(object, method, args);
-        else if (returnType == boolean.class) return invokeNonVirtualBooleanMethod(object, method, args);
-        else if (returnType == byte.class) return invokeNonVirtualByteMethod(object, method, args);
-        else if (returnType == float.class) return invokeNonVirtualFloatMethod(object, method, args);
-        else if (returnType == double.class) return invokeNonVirtualDoubleMethod(object, method, args);
-        else return invokeNonVirtualObjectMethod(object, method, args);
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        MethodInvoker invoker = nonVirtualMethodInvoker(method);
+        Object value = invoker.invoke(object, args);
+        if (INSTRUMENTED) record(ENTRY_INVOKE_NONVIRTUAL_METHOD, invoker.getStrategy(), method, start);
+        return value;
     }
 
 
     // ---------------- Class ----------------
 
+    // The defineClass methods of ClassLoader, looked up once; null if not found
+    private static final Method DEFINE_CLASS_BYTES;
+    private static final Method DEFINE_CLASS_BUFFER;
+    static {
+        Method method;
+        try {
+            method = ClassLoader.class.getDeclaredMethod("defineClass", String.class, byte[].class, int.class, int.class, ProtectionDomain.class);
+        } catch (NoSuchMethodException e) {
+            method = null;
+        }
+        DEFINE_CLASS_BYTES = method;
+        try {
+            method = ClassLoader.class.getDeclaredMethod("defineClass", String.class, ByteBuffer.class, ProtectionDomain.class);
+        } catch (NoSuchMethodException e) {
+            method = null;
+        }
+        DEFINE_CLASS_BUFFER = method;
+    }
+
     /**
      * Converts an array of bytes into an instance of class {@code Class},
      * with a given {@code ProtectionDomain}.
@@ -1951,14 +2261,19 @@ public final class Scalpel {
      */
     public static Class<?> defineClass(String name, ClassLoader classLoader, byte[] bytecode, int offset, int length, ProtectionDomain protectionDomain)
             throws ClassFormatError, NoClassDefFoundError, IndexOutOfBoundsException, NullPointerException {
-        if (classLoader != null) {
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        if (classLoader != null && DEFINE_CLASS_BYTES != null) {
             try {
-                Method method = ClassLoader.class.getDeclaredMethod("defineClass", String.class, byte[].class, int.class, int.class, ProtectionDomain.class);
-                return (Class<?>) invokeObjectMethod(classLoader, method, name, bytecode, offset, length, protectionDomain);
-            } catch (InvocationTargetException | NoSuchMethodException ignored) {
+                Class<?> clazz = (Class<?>) invokeObjectMethod(classLoader, DEFINE_CLASS_BYTES, name, bytecode, offset, length, protectionDomain);
+                if (INSTRUMENTED) recordDefineClass(Strategy.REFLECTION, name, classLoader, length, start);
+                return clazz;
+            } catch (InvocationTargetException ignored) {
             }
         }
-        return JVM_DefineClass(name == null ? null : name.replace('.', '/'), classLoader, bytecode, offset, length, protectionDomain);
+        requireNativeLibraries();
+        Class<?> clazz = JVM_DefineClass(name == null ? null : name.replace('.', '/'), classLoader, bytecode, offset, length, protectionDomain);
+        if (INSTRUMENTED) recordDefineClass(Strategy.JNI, name, classLoader, length, start);
+        return clazz;
     }
 
     /**
@@ -1990,9 +2305,11 @@ public final class Scalpel {
      *
      * @param  bytecode
      *         The bytes that make up the class data. The bytes from positions
-     *         {@code bytecode.position()} through {@code bytecode.position() + bytecode.limit() -1
+     *         {@code bytecode.position()} through {@code bytecode.limit() -1
      *         } should have the format of a valid class file as defined by
      *         <cite>The Java Virtual Machine Specification</cite>.
+     *         A direct buffer (e.g. a slice of a memory-mapped file) is read in place,
+     *         without being copied.
      *
      * @param  protectionDomain
      *         The {@code ProtectionDomain} of the class, or {@code null}.
@@ -2014,107 +2331,6977 @@ public final class Scalpel {
      */
     public static Class<?> defineClass(String name, ClassLoader classLoader, ByteBuffer bytecode, ProtectionDomain protectionDomain)
             throws ClassFormatError, NoClassDefFoundError, NullPointerException {
-        if (classLoader != null) {
+        long start = INSTRUMENTED ? System.nanoTime() : 0L;
+        if (classLoader != null && DEFINE_CLASS_BUFFER != null) {
             try {
-                Method method = ClassLoader.class.getDeclaredMethod("defineClass", String.class, ByteBuffer.class, ProtectionDomain.class);
-                return (Class<?>) invokeObjectMethod(classLoader, method, name, bytecode, protectionDomain);
-            } catch (InvocationTargetException | NoSuchMethodException ignored) {
+                int size = bytecode.remaining();
+                Class<?> clazz = (Class<?>) invokeObjectMethod(classLoader, DEFINE_CLASS_BUFFER, name, bytecode, protectionDomain);
+                if (INSTRUMENTED) recordDefineClass(Strategy.REFLECTION, name, classLoader, size, start);
+                return clazz;
+            } catch (InvocationTargetException ignored) {
             }
         }
+        requireNativeLibraries();
+        String internalName = name == null ? null : name.replace('.', '/');
         int length = bytecode.remaining();
-        if (bytecode.isDirect()) return JVM_DefineClass(name.replace('.', '/'), classLoader, bytecode, length, protectionDomain);
+        Class<?> clazz;
+        // Read in place, from the position; no copy at all
+        if (bytecode.isDirect()) clazz = JVM_DefineClass(internalName, classLoader, bytecode, bytecode.position(), length, protectionDomain);
         else if (bytecode.hasArray()) {
-            return JVM_DefineClass(name.replace('.', '/'), classLoader, bytecode.array(),
+            clazz = JVM_DefineClass(internalName, classLoader, bytecode.array(),
                     bytecode.position() + bytecode.arrayOffset(), length, protectionDomain);
         }
         else {
             byte[] array = new byte[length];
             bytecode.get(array);
-            return JVM_DefineClass(name.replace('.', '/'), classLoader, array, 0, length, protectionDomain);
+            clazz = JVM_DefineClass(internalName, classLoader, array, 0, length, protectionDomain);
         }
+        if (INSTRUMENTED) recordDefineClass(Strategy.JNI, name, classLoader, length, start);
+        return clazz;
     }
 
+    /**
+     * Converts a class file into an instance of class {@code Class},
+     * with the given {@code ProtectionDomain}.
+     *
+     * <p> The file is mapped into memory and read in place as if by
+     * {@link #defineClass(String, ClassLoader, ByteBuffer, ProtectionDomain)},
+     * so its bytes reach the VM without being copied on the Java heap.
+     *
+     * @param  name
+     *         The expected <a href="#binary-name">binary name</a> of the class, or
+     *         {@code null} if not known
+     *
+     * @param  path
+     *         The path of the class file
+     *
+     * @param  protectionDomain
+     *         The {@code ProtectionDomain} of the class, or {@code null}.
+     *
+     * @return  The {@code Class} object created from the file,
+     *          and {@code ProtectionDomain}.
+     *
+     * @throws  IOException
+     *          If the file cannot be opened or mapped
+     *
+     * @throws  ClassFormatError
+     *          If the file did not contain a valid class.
+     *
+     * @throws  NoClassDefFoundError
+     *          If {@code name} is not {@code null} and not equal to the
+     *          <a href="#binary-name">binary name</a> of the class specified by the file
+     *
+     * @throws  NullPointerException
+     *          If {@code path} is {@code null}.
+     *
+     * @see      #defineClass(String, ClassLoader, ByteBuffer, ProtectionDomain)
+     */
+    public static Class<?> defineClass(String name, ClassLoader classLoader, Path path, ProtectionDomain protectionDomain)
+            throws IOException, ClassFormatError, NoClassDefFoundError, NullPointerException {
+        MappedByteBuffer bytecode;
+        // The mapping outlives the channel, until the buffer is collected
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            bytecode = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+        }
+        return defineClass(name, classLoader, bytecode, protectionDomain);
+    }
 
-    // ---------------- JNI ----------------
+    /**
+     * Converts a set of arrays of bytes into instances of class {@code Class},
+     * with a given {@code ProtectionDomain}.
+     *
+     * <p> The classes are defined in the order of their dependencies, i.e. the superclass and
+     * the superinterfaces of a class are defined before the class if they are in the same set,
+     * regardless of the iteration order of {@code bytecodes}.
+     *
+     * <p> With the bootstrap {@code ClassLoader} (i.e. {@code null}), the whole set is defined
+     * in a single native call, which copies all the bytes through one buffer. Otherwise each
+     * class is defined as if by {@link #defineClass(String, ClassLoader, byte[], int, int, ProtectionDomain)}.
+     * If a class cannot be defined, the classes defined before it remain defined.
+     *
+     * @param  classLoader
+     *         The {@code ClassLoader} to define the classes with, or {@code null}
+     *         for the bootstrap {@code ClassLoader}
+     *
+     * @param  protectionDomain
+     *         The {@code ProtectionDomain} of the classes
+     *
+     * @param  bytecodes
+     *         The <a href="#binary-name">binary names</a> of the classes, mapped to the bytes
+     *         that make up their class data
+     *
+     * @return  The {@code Class} objects created from the data, mapped by their
+     *          <a href="#binary-name">binary names</a>, in the order they were defined.
+     *
+     * @throws  ClassFormatError
+     *          If the data did not contain a valid class
+     *
+     * @throws  NoClassDefFoundError
+     *          If a name is not equal to the <a href="#binary-name">binary name</a>
+     *          of the class specified by its bytes
+     *
+     * @throws  NullPointerException
+     *          If {@code bytecodes}, or any name or bytes in it is {@code null}.
+     */
+    public static Map<String, Class<?>> defineClasses(ClassLoader classLoader, ProtectionDomain protectionDomain, Map<String, byte[]> bytecodes)
+            throws ClassFormatError, NoClassDefFoundError, NullPointerException {
+        String[] names = definitionOrder(supertypes(bytecodes));
+        Map<String, Class<?>> classes = new LinkedHashMap<>((int) (names.length / 0.75f) + 1);
+        if (classLoader == null) {
+            long start = INSTRUMENTED ? System.nanoTime() : 0L;
+            String[] internalNames = new String[names.length];
+            byte[][] arrays = new byte[names.length][];
+            for (int i = 0; i < names.length; i ++) {
+                internalNames[i] = names[i].replace('.', '/');
+                arrays[i] = Objects.requireNonNull(bytecodes.get(names[i]));
+            }
+            requireNativeLibraries();
+            Class<?>[] defined = JVM_DefineClasses(internalNames, null, arrays, protectionDomain);
+            if (INSTRUMENTED) recordDefineClasses(names, arrays, start);
+            for (int i = 0; i < names.length; i ++) {
+                classes.put(names[i], defined[i]);
+            }
+        }
+        else {
+            for (String name : names) {
+                byte[] bytecode = bytecodes.get(name);
+                classes.put(name, defineClass(name, classLoader, bytecode, 0, bytecode.length, protectionDomain));
+            }
+        }
+        return classes;
+    }
 
-    private static native<T> T AllocObject(Class<T> clazz) throws InstantiationException;
-    private static native<T> T NewObject(Class<T> clazz, Constructor<T> constructor, Object... args)
-            throws InstantiationException, InvocationTargetException;
-
-    private static native Object GetObjectField(Object obj, Field field);
-    private static native boolean GetBooleanField(Object obj, Field field);
-    private static native byte GetByteField(Object obj, Field field);
-    private static native char GetCharField(Object obj, Field field);
-    private static native short GetShortField(Object obj, Field field);
-    private static native int GetIntField(Object obj, Field field);
-    private static native long GetLongField(Object obj, Field field);
-    private static native float GetFloatField(Object obj, Field field);
-    private static native double GetDoubleField(Object obj, Field field);
-
-    private static native void SetObjectField(Object obj, Field field, Object value);
-    private static native void SetBooleanField(Object obj, Field field, boolean value);
-    private static native void SetByteField(Object obj, Field field, byte value);
-    private static native void SetCharField(Object obj, Field field, char value);
-    private static native void SetShortField(Object obj, Field field, short value);
-    private static native void SetIntField(Object obj, Field field, int value);
-    private static native void SetLongField(Object obj, Field field, long value);
-    private static native void SetFloatField(Object obj, Field field, float value);
-    private static native void SetDoubleField(Object obj, Field field, double value);
-
-    private static native void CallVoidMethod(Object obj, Method method, Object... args) throws InvocationTargetException;
-    private static native Object CallObjectMethod(Object obj, Method method, Object... args) throws InvocationTargetException;
-    private static native boolean CallBooleanMethod(Object obj, Method method, Object... args) throws InvocationTargetException;
-    private static native byte CallByteMethod(Object obj, Method method, Object... args) throws InvocationTargetException;
-    private static native char CallCharMethod(Object obj, Method method, Object... args) throws InvocationTargetException;
-    private static native short CallShortMethod(Object obj, Method method, Object... args) throws InvocationTargetException;
-    private static native int CallIntMethod(Object obj, Method method, Object... args) throws InvocationTargetException;
-    private static native long CallLongMethod(Object obj, Method method, Object... args) throws InvocationTargetException;
-    private static native float CallFloatMethod(Object obj, Method method, Object... args) throws InvocationTargetException;
-    private static native double CallDoubleMethod(Object obj, Method method, Object... args) throws InvocationTargetException;
-
-    private static native void CallNonvirtualVoidMethod(Object obj, Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native Object CallNonvirtualObjectMethod(Object obj, Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native boolean CallNonvirtualBooleanMethod(Object obj, Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native byte CallNonvirtualByteMethod(Object obj, Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native char CallNonvirtualCharMethod(Object obj, Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native short CallNonvirtualShortMethod(Object obj, Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native int CallNonvirtualIntMethod(Object obj, Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native long CallNonvirtualLongMethod(Object obj, Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native float CallNonvirtualFloatMethod(Object obj, Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native double CallNonvirtualDoubleMethod(Object obj, Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-
-    private static native Object GetStaticObjectField(Class<?> clazz, Field field);
-    private static native boolean GetStaticBooleanField(Class<?> clazz, Field field);
-    private static native byte GetStaticByteField(Class<?> clazz, Field field);
-    private static native char GetStaticCharField(Class<?> clazz, Field field);
-    private static native short GetStaticShortField(Class<?> clazz, Field field);
-    private static native int GetStaticIntField(Class<?> clazz, Field field);
-    private static native long GetStaticLongField(Class<?> clazz, Field field);
-    private static native float GetStaticFloatField(Class<?> clazz, Field field);
-    private static native double GetStaticDoubleField(Class<?> clazz, Field field);
-
-    private static native void SetStaticObjectField(Class<?> clazz, Field field, Object value);
-    private static native void SetStaticBooleanField(Class<?> clazz, Field field, boolean value);
-    private static native void SetStaticByteField(Class<?> clazz, Field field, byte value);
-    private static native void SetStaticCharField(Class<?> clazz, Field field, char value);
-    private static native void SetStaticShortField(Class<?> clazz, Field field, short value);
-    private static native void SetStaticIntField(Class<?> clazz, Field field, int value);
-    private static native void SetStaticLongField(Class<?> clazz, Field field, long value);
-    private static native void SetStaticFloatField(Class<?> clazz, Field field, float value);
-    private static native void SetStaticDoubleField(Class<?> clazz, Field field, double value);
-
-    private static native void CallStaticVoidMethod(Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native Object CallStaticObjectMethod(Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native boolean CallStaticBooleanMethod(Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native byte CallStaticByteMethod(Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native char CallStaticCharMethod(Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native short CallStaticShortMethod(Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native int CallStaticIntMethod(Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native long CallStaticLongMethod(Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native float CallStaticFloatMethod(Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
-    private static native double CallStaticDoubleMethod(Class<?> clazz, Method method, Object... args) throws InvocationTargetException;
+    /**
+     * Defines all the classes in a directory or a JAR file, concurrently.
+     *
+     * <p> The class files are read (through the zip file system for a JAR file), then each class is
+     * defined on the specified {@code Executor} once its superclass and superinterfaces in the same set
+     * are defined, as if by {@link #defineClass(String, ClassLoader, byte[], int, int, ProtectionDomain)}.
+     * The classes without dependencies on each other are defined concurrently. With a
+     * {@code ClassLoader}, each class is defined while holding its class loading lock, i.e. the lock
+     * of the class name if the {@code ClassLoader} is parallel capable, or the {@code ClassLoader} itself
+     * otherwise. The {@code module-info} class and the entries in {@code META-INF} are skipped.
+     *
+     * @param  jarOrDir
+     *         The path of the directory or the JAR file, where the path of a class file
+     *         relative to the root is the <a href="#binary-name">binary name</a> of the class
+     *
+     * @param  classLoader
+     *         The {@code ClassLoader} to define the classes with, or {@code null}
+     *         for the bootstrap {@code ClassLoader}
+     *
+     * @param  protectionDomain
+     *         The {@code ProtectionDomain} of the classes
+     *
+     * @param  executor
+     *         The {@code Executor} to define the classes on, e.g. {@link java.util.concurrent.ForkJoinPool#commonPool()}
+     *
+     * @return  A {@code CompletableFuture} of the {@code Class} objects, mapped by their
+     *          <a href="#binary-name">binary names</a> in an order of their dependencies, which completes
+     *          exceptionally (e.g. with a {@code ClassFormatError}) if any class cannot be defined.
+     *          The classes defined before the failure remain defined.
+     *
+     * @throws  IOException
+     *          If the directory or the JAR file cannot be read
+     *
+     * @throws  NullPointerException
+     *          If {@code jarOrDir} or {@code executor} is {@code null}.
+     */
+    public static CompletableFuture<Map<String, Class<?>>> defineAll(Path jarOrDir, ClassLoader classLoader, ProtectionDomain protectionDomain,
+                                                                     Executor executor) throws IOException, NullPointerException {
+        Objects.requireNonNull(executor);
+        Map<String, byte[]> bytecodes;
+        if (Files.isDirectory(jarOrDir)) bytecodes = readClassFiles(jarOrDir);
+        else {
+            try (FileSystem jar = FileSystems.newFileSystem(jarOrDir, (ClassLoader) null)) {
+                bytecodes = readClassFiles(jar.getPath("/"));
+            }
+        }
+        Map<String, String[]> supertypes = supertypes(bytecodes);
+        String[] names = definitionOrder(supertypes);
+        Map<String, CompletableFuture<Class<?>>> futures = new HashMap<>((int) (names.length / 0.75f) + 1);
+        for (String name : names) {
+            // The supertypes are scheduled first, except for a cycle, which the VM reports
+            List<CompletableFuture<Class<?>>> dependencies = new ArrayList<>(2);
+            for (String dependency : supertypes.get(name)) {
+                CompletableFuture<Class<?>> future = dependency == null ? null : futures.get(dependency);
+                if (future != null) dependencies.add(future);
+            }
+            byte[] bytecode = bytecodes.get(name);
+            futures.put(name, CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+                    .thenApplyAsync(ignored -> defineClassLocked(name, classLoader, bytecode, protectionDomain), executor));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<String, Class<?>> classes = new LinkedHashMap<>((int) (names.length / 0.75f) + 1);
+            for (String name : names) {
+                classes.put(name, futures.get(name).join());
+            }
+            return classes;
+        });
+    }
 
-    private static native Class<?> JVM_DefineClass(String name, ClassLoader loader, byte[] buf, int off, int len, ProtectionDomain pd) throws ClassFormatError, NoClassDefFoundError, IndexOutOfBoundsException;
-    private static native Class<?> JVM_DefineClass(String name, ClassLoader loader, ByteBuffer buf, int len, ProtectionDomain pd) throws ClassFormatError, NoClassDefFoundError;
+    // ClassLoader.getClassLoadingLock, looked up once; null if not found
+    private static final Method GET_CLASS_LOADING_LOCK;
+    static {
+        Method method;
+        try {
+            method = ClassLoader.class.getDeclaredMethod("getClassLoadingLock", String.class);
+        } catch (NoSuchMethodException e) {
+            method = null;
+        }
+        GET_CLASS_LOADING_LOCK = method;
+    }
+
+    // Defines the class under the same lock as ClassLoader.loadClass would
+    private static Class<?> defineClassLocked(String name, ClassLoader classLoader, byte[] bytecode, ProtectionDomain protectionDomain) {
+        if (classLoader == null) return defineClass(name, null, bytecode, 0, bytecode.length, protectionDomain);
+        Object lock;
+        try {
+            lock = GET_CLASS_LOADING_LOCK == null ? classLoader : invokeObjectMethod(classLoader, GET_CLASS_LOADING_LOCK, name);
+        } catch (InvocationTargetException e) {
+            lock = classLoader;
+        }
+        synchronized (lock) {
+            return defineClass(name, classLoader, bytecode, 0, bytecode.length, protectionDomain);
+        }
+    }
+
+    private static Map<String, byte[]> readClassFiles(Path root) throws IOException {
+        Map<String, byte[]> bytecodes = new HashMap<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return root.relativize(dir).toString().equals("META-INF") ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String fileName = String.valueOf(file.getFileName());
+                if (attrs.isRegularFile() && fileName.endsWith(".class") && !fileName.equals("module-info.class")) {
+                    StringBuilder name = new StringBuilder();
+                    for (Path element : root.relativize(file)) {
+                        if (name.length() > 0) name.append('.');
+                        name.append(element.toString());
+                    }
+                    bytecodes.put(name.substring(0, name.length() - ".class".length()), Files.readAllBytes(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return bytecodes;
+    }
+
+    private static Map<String, String[]> supertypes(Map<String, byte[]> bytecodes) throws NullPointerException {
+        Map<String, String[]> supertypes = new HashMap<>((int) (bytecodes.size() / 0.75f) + 1);
+        for (Map.Entry<String, byte[]> entry : bytecodes.entrySet()) {
+            supertypes.put(Objects.requireNonNull(entry.getKey()), supertypeNames(Objects.requireNonNull(entry.getValue())));
+        }
+        return supertypes;
+    }
+
+    // Orders the names so that the supertypes in the same set come first; a cycle is left to the VM to report
+    private static String[] definitionOrder(Map<String, String[]> supertypes) {
+        String[] order = new String[supertypes.size()];
+        int size = 0;
+        Set<String> visited = new HashSet<>((int) (supertypes.size() / 0.75f) + 1);
+        // An explicit stack, since the chains of generated classes may be deep
+        ArrayDeque<String> stack = new ArrayDeque<>();
+        ArrayDeque<Integer> cursors = new ArrayDeque<>();
+        for (String root : supertypes.keySet()) {
+            if (!visited.add(root)) continue;
+            stack.push(root);
+            cursors.push(0);
+            while (!stack.isEmpty()) {
+                String[] dependencies = supertypes.get(stack.peek());
+                int cursor = cursors.pop();
+                if (cursor < dependencies.length) {
+                    cursors.push(cursor + 1);
+                    String dependency = dependencies[cursor];
+                    if (dependency != null && supertypes.containsKey(dependency) && visited.add(dependency)) {
+                        stack.push(dependency);
+                        cursors.push(0);
+                    }
+                }
+                else order[size ++] = stack.pop();
+            }
+        }
+        return order;
+    }
+
+    private static final String[] NO_SUPERTYPES = new String[0];
+
+    // The binary names of the superclass (null for java.lang.Object) and the superinterfaces of a class file;
+    // none if it cannot be parsed, as the VM reports the malformed class file once it is defined
+    private static String[] supertypeNames(byte[] bytecode) {
+        try {
+            if (u4(bytecode, 0) != 0xCAFEBABE) return NO_SUPERTYPES;
+            int count = u2(bytecode, 8);
+            int[] offsets = new int[count];
+            int position = 10;
+            for (int i = 1; i < count; i ++) {
+                offsets[i] = position;
+                switch (bytecode[position]) {
+                    case 1: // CONSTANT_Utf8
+                        position += 3 + u2(bytecode, position + 1);
+                        break;
+                    case 7: case 8: case 16: case 19: case 20: // CONSTANT_Class, String, MethodType, Module, Package
+                        position += 3;
+                        break;
+                    case 15: // CONSTANT_MethodHandle
+                        position += 4;
+                        break;
+                    case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                        position += 5;
+                        break;
+                    case 5: case 6: // CONSTANT_Long, Double, which take two entries
+                        position += 9;
+                        i ++;
+                        break;
+                    default:
+                        return NO_SUPERTYPES;
+                }
+            }
+            int superClass = u2(bytecode, position + 4);
+            int interfaceCount = u2(bytecode, position + 6);
+            String[] names = new String[interfaceCount + 1];
+            if (superClass != 0) names[0] = className(bytecode, offsets, superClass);
+            for (int i = 0; i < interfaceCount; i ++) {
+                names[i + 1] = className(bytecode, offsets, u2(bytecode, position + 8 + i * 2));
+            }
+            return names;
+        } catch (IndexOutOfBoundsException e) {
+            return NO_SUPERTYPES;
+        }
+    }
+
+    // Decoded as standard UTF-8, which only differs from the modified UTF-8 of class files
+    // for NUL and supplementary characters, neither of which a class name practically has
+    private static String className(byte[] bytecode, int[] offsets, int index) {
+        int offset = offsets[u2(bytecode, offsets[index] + 1)];
+        return new String(bytecode, offset + 3, u2(bytecode, offset + 1), StandardCharsets.UTF_8).replace('/', '.');
+    }
+
+    private static int u2(byte[] bytes, int index) {
+        return ((bytes[index] & 0xFF) << 8) | (bytes[index + 1] & 0xFF);
+    }
+
+    private static int u4(byte[] bytes, int index) {
+        return (u2(bytes, index) << 16) | u2(bytes, index + 2);
+    }
+
+    // ---------------- Bytecode Cache ----------------
+
+    /**
+     * <p>Opens the bytecode cache stored in the specified file, creating it on the first {@link BytecodeCache#save()}
+     * if it does not exist.
+     *
+     * <p>The file is memory-mapped, so the cached classes are defined from the mapping in place.
+     * A file written by another JDK (i.e. another vendor or runtime version), or an unreadable one,
+     * is treated as empty and replaced on the next save.
+     *
+     * @param file the path of the cache file
+     * @return the bytecode cache
+     *
+     * @throws IOException    if the file exists but cannot be mapped.
+     * @throws NullPointerException    if the specified path is null
+     *
+     * @see BytecodeCache
+     */
+    public static BytecodeCache bytecodeCache(Path file) throws IOException, NullPointerException {
+        return new BytecodeCache(Objects.requireNonNull(file));
+    }
+
+    /**
+     * <p>A persistent cache of transformed bytecode, obtained by {@link #bytecodeCache(Path)}.
+     *
+     * <p>An entry is keyed by the <a href="Scalpel.html#binary-name">binary name</a> of the class, the identity of
+     * the transform and the JDK version, and records the SHA-256 hash of the original bytes.
+     * A transform identity is chosen by the caller and must change whenever the output of the transform changes;
+     * the JDK version covers the originals of the JDK classes, so that they need not be read to find their entries.
+     * The originals of other classes should be checked with {@link #get(String, String, byte[])}.
+     *
+     * <p>The new entries are kept in memory until {@link #save()} or {@link #close()}, which rewrite the file
+     * atomically if the file system supports it. The methods of this class are thread-safe.
+     */
+    public static final class BytecodeCache implements Closeable {
+
+        private static final int MAGIC = 0x5343424B;
+        private static final int HASH_SIZE = 32;
+        private static final String JDK_VERSION = System.getProperty("java.vendor") + " " + System.getProperty("java.runtime.version");
+
+        private final Path file;
+        private final Map<String, Entry> entries = new HashMap<>();
+        private boolean modified = false;
+
+        private static final class Entry {
+            private final byte[] hash;
+            private final ByteBuffer bytecode;
+            private Entry(byte[] hash, ByteBuffer bytecode) {
+                this.hash = hash;
+                this.bytecode = bytecode;
+            }
+        }
+
+        BytecodeCache(Path file) throws IOException {
+            this.file = file;
+            if (!Files.isRegularFile(file)) return;
+            MappedByteBuffer mapped;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            try {
+                // magic, index length, index (written by a DataOutputStream), class files
+                if (mapped.getInt(0) != MAGIC) return;
+                byte[] index = new byte[mapped.getInt(4)];
+                ((ByteBuffer) mapped.duplicate().position(8)).get(index);
+                int base = 8 + index.length;
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(index));
+                if (!in.readUTF().equals(JDK_VERSION)) return;
+                for (int count = in.readInt(); count > 0; count --) {
+                    String key = key(in.readUTF(), in.readUTF());
+                    byte[] hash = new byte[HASH_SIZE];
+                    in.readFully(hash);
+                    int offset = base + in.readInt();
+                    int length = in.readInt();
+                    ByteBuffer bytecode = mapped.duplicate();
+                    bytecode.limit(offset + length).position(offset);
+                    entries.put(key, new Entry(hash, bytecode.slice().asReadOnlyBuffer()));
+                }
+            } catch (IOException | RuntimeException e) {
+                // Corrupted, replaced on the next save
+                entries.clear();
+            }
+        }
+
+        // A binary name has no NUL
+        private static String key(String name, String transform) {
+            return name + '\0' + transform;
+        }
+
+        /**
+         * Returns the cached bytecode of the specified class produced by the specified transform.
+         *
+         * @param name the <a href="Scalpel.html#binary-name">binary name</a> of the class
+         * @param transform the identity of the transform
+         * @return a read-only buffer of the transformed bytecode, direct if it is mapped from the file,
+         *           or {@code null} if not cached
+         *
+         * @throws NullPointerException    if the specified name or transform is null
+         */
+        public synchronized ByteBuffer get(String name, String transform) throws NullPointerException {
+            Entry entry = entries.get(key(Objects.requireNonNull(name), Objects.requireNonNull(transform)));
+            return entry == null ? null : entry.bytecode.duplicate();
+        }
+
+        /**
+         * Returns the cached bytecode of the specified class produced by the specified transform,
+         * if it was transformed from the same original bytes.
+         *
+         * @param name the <a href="Scalpel.html#binary-name">binary name</a> of the class
+         * @param transform the identity of the transform
+         * @param original the original bytecode of the class
+         * @return a read-only buffer of the transformed bytecode, direct if it is mapped from the file,
+         *           or {@code null} if not cached or cached for other original bytes
+         *
+         * @throws NullPointerException    if any argument is null
+         */
+        public ByteBuffer get(String name, String transform, byte[] original) throws NullPointerException {
+            byte[] hash = sha256(original);
+            synchronized (this) {
+                Entry entry = entries.get(key(Objects.requireNonNull(name), Objects.requireNonNull(transform)));
+                return entry == null || !MessageDigest.isEqual(entry.hash, hash) ? null : entry.bytecode.duplicate();
+            }
+        }
+
+        /**
+         * Caches the transformed bytecode of the specified class, replacing any cached one.
+         *
+         * @param name the <a href="Scalpel.html#binary-name">binary name</a> of the class
+         * @param transform the identity of the transform
+         * @param original the original bytecode of the class
+         * @param transformed the transformed bytecode of the class, which must not be modified afterwards
+         *
+         * @throws NullPointerException    if any argument is null
+         */
+        public void put(String name, String transform, byte[] original, byte[] transformed) throws NullPointerException {
+            Entry entry = new Entry(sha256(original), ByteBuffer.wrap(transformed).asReadOnlyBuffer());
+            synchronized (this) {
+                entries.put(key(Objects.requireNonNull(name), Objects.requireNonNull(transform)), entry);
+                modified = true;
+            }
+        }
+
+        /**
+         * Defines the specified class from its cached bytecode produced by the specified transform,
+         * as if by {@link Scalpel#defineClass(String, ClassLoader, ByteBuffer, ProtectionDomain)}.
+         * If not cached, the original bytecode is transformed and cached first; otherwise,
+         * neither the original bytecode is obtained nor the transform is run.
+         *
+         * @param name the <a href="Scalpel.html#binary-name">binary name</a> of the class
+         * @param classLoader the {@code ClassLoader} to define the class with, or {@code null}
+         *                    for the bootstrap {@code ClassLoader}
+         * @param protectionDomain the {@code ProtectionDomain} of the class, or {@code null}
+         * @param transform the identity of the transform
+         * @param original the supplier of the original bytecode of the class
+         * @param transformer the transform
+         * @return the defined class
+         *
+         * @throws ClassFormatError    if the transformed bytecode is not a valid class.
+         * @throws NoClassDefFoundError    if the name of the class is not equal to the transformed bytecode's.
+         * @throws NullPointerException    if any argument other than {@code classLoader} and
+         *           {@code protectionDomain} is null, or if the transform returns null
+         */
+        public Class<?> defineClass(String name, ClassLoader classLoader, ProtectionDomain protectionDomain, String transform,
+                                    Supplier<byte[]> original, UnaryOperator<byte[]> transformer)
+                throws ClassFormatError, NoClassDefFoundError, NullPointerException {
+            ByteBuffer bytecode = get(name, transform);
+            if (bytecode == null) {
+                byte[] bytes = original.get();
+                byte[] transformed = Objects.requireNonNull(transformer.apply(bytes.clone()));
+                put(name, transform, bytes, transformed);
+                return Scalpel.defineClass(name, classLoader, transformed, 0, transformed.length, protectionDomain);
+            }
+            return Scalpel.defineClass(name, classLoader, bytecode, protectionDomain);
+        }
+
+        /**
+         * Writes the cache to its file if any entry was put since it was opened or last saved.
+         * The file is written to a temporary file in the same directory first, then moved over the old one.
+         *
+         * @throws IOException    if the file cannot be written.
+         */
+        public synchronized void save() throws IOException {
+            if (!modified) return;
+            ByteArrayOutputStream index = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(index);
+            out.writeUTF(JDK_VERSION);
+            out.writeInt(entries.size());
+            int offset = 0;
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                String key = entry.getKey();
+                int separator = key.indexOf('\0');
+                out.writeUTF(key.substring(0, separator));
+                out.writeUTF(key.substring(separator + 1));
+                out.write(entry.getValue().hash);
+                int length = entry.getValue().bytecode.remaining();
+                out.writeInt(offset);
+                out.writeInt(length);
+                offset = Math.addExact(offset, length);
+            }
+            out.flush();
+            Path parent = file.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, String.valueOf(file.getFileName()), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(index.size());
+                    header.flip();
+                    writeFully(channel, header);
+                    writeFully(channel, ByteBuffer.wrap(index.toByteArray()));
+                    for (Entry entry : entries.values()) {
+                        writeFully(channel, entry.bytecode.duplicate());
+                    }
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            modified = false;
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        /**
+         * Saves the cache, as if by {@link #save()}.
+         * The buffers obtained from the cache remain valid.
+         *
+         * @throws IOException    if the file cannot be written.
+         */
+        @Override
+        public void close() throws IOException {
+            save();
+        }
+
+    }
+
+    // ---------------- Accessor ----------------
+
+    /**
+     * The way a resolved accessor reaches its underlying member.
+     *
+     * <p>The API always resolves the best available strategy; only the benchmarks and tests
+     * of this package pick one, through package-private overloads.
+     *
+     * @see #fieldAccessor(Field)
+     * @see #methodInvoker(Method)
+     */
+    public enum Strategy {
+        /**
+         * Core reflection, or a method handle unreflected from a member whose
+         * {@code accessible} flag has been set.
+         */
+        REFLECTION,
+        /**
+         * A method handle produced by the full privilege lookup, which bypasses all access checks.
+         *
+         * @see #unreflect(Method)
+         */
+        LOOKUP,
+        /**
+         * The memory access methods of {@code sun.misc.Unsafe}, with the field offset resolved once.
+         */
+        UNSAFE,
+        /**
+         * The JNI functions of the native library, with the member ID resolved once.
+         * The native library is loaded when this strategy is first needed, which throws an
+         * {@code UnsatisfiedLinkError} if it cannot be loaded.
+         */
+        JNI
+    }
+
+    // The accessors resolved for the members declared by each class. Since the failed attempts of reflective
+    // access are remembered as well, the strategy of every member is decided only once. The cache of a class
+    // is only reachable through the class itself, so it never keeps a class (and its ClassLoader) from being unloaded.
+    private static final ClassValue<MemberCache> MEMBER_CACHE = new ClassValue<MemberCache>() {
+        @Override
+        protected MemberCache computeValue(Class<?> type) {
+            return new MemberCache(type);
+        }
+    };
+
+    private static final class MemberCache {
+        final Class<?> type;
+        final ConcurrentMap<Field, FieldAccessor> fieldAccessors = new ConcurrentHashMap<>();
+        final ConcurrentMap<Method, MethodInvoker> methodInvokers = new ConcurrentHashMap<>();
+        final ConcurrentMap<Method, MethodInvoker> nonVirtualMethodInvokers = new ConcurrentHashMap<>();
+        final ConcurrentMap<Constructor<?>, ConstructorInvoker<?>> constructorInvokers = new ConcurrentHashMap<>();
+        final ConcurrentMap<Field, MethodHandle> getterHandles = new ConcurrentHashMap<>();
+        final ConcurrentMap<Field, MethodHandle> setterHandles = new ConcurrentHashMap<>();
+        final ConcurrentMap<Method, MethodHandle> methodHandles = new ConcurrentHashMap<>();
+        final ConcurrentMap<Constructor<?>, MethodHandle> constructorHandles = new ConcurrentHashMap<>();
+        private volatile MethodHandles.Lookup lookup;
+        MemberCache(Class<?> type) {
+            this.type = type;
+        }
+        MethodHandles.Lookup lookup() throws UnsupportedOperationException {
+            MethodHandles.Lookup lookup = this.lookup;
+            if (lookup == null) {
+                if (LOOKUP == null) throw new UnsupportedOperationException("Full privilege lookup not available");
+                this.lookup = lookup = LOOKUP.in(type);
+            }
+            return lookup;
+        }
+    }
+
+    // Not computeIfAbsent, since the resolution may initialize classes which use the cache recursively
+    private static <K, V> V cached(ConcurrentMap<K, V> cache, K key, Function<? super K, ? extends V> resolver) {
+        V value = cache.get(key);
+        if (value == null) {
+            value = resolver.apply(key);
+            V previous = cache.putIfAbsent(key, value);
+            if (previous != null) value = previous;
+        }
+        return value;
+    }
+
+    /**
+     * Returns a reusable accessor of the specified field.
+     *
+     * <p>The best available access strategy, together with everything it needs
+     * (e.g. the offset or the {@code jfieldID} of the field), is resolved once per field and cached,
+     * so neither this method nor {@link #getField(Object, Field)} and the other
+     * field access methods, which all share the accessor, resolve it again.
+     * Fields are accessed through {@code sun.misc.Unsafe} whenever their offsets are available,
+     * falling back to core reflection and, at last, to JNI.
+     * Static fields are accessed through the cached declaring class (or its static field base).
+     *
+     * @param field the field to be accessed
+     * @return the accessor of the field
+     *
+     * @throws    NullPointerException if the specified field is null.
+     * @throws    ExceptionInInitializerError if the initialization provoked
+     *              by this method fails.
+     */
+    public static FieldAccessor fieldAccessor(Field field) throws NullPointerException, ExceptionInInitializerError {
+        return cached(MEMBER_CACHE.get(field.getDeclaringClass()).fieldAccessors, field, Scalpel::resolveFieldAccessor);
+    }
+
+    /**
+     * <p>Reads the values of the specified static or instance fields of an object at once.
+     *
+     * <p>The value of {@code fields[i]} is stored at index {@code i}: in {@code primitives} if the field is
+     * primitive, without being wrapped, or in {@code references} otherwise. A {@code boolean} is stored as
+     * {@code 1} or {@code 0}, a {@code float} as its raw {@code int} bits and a {@code double} as its raw
+     * {@code long} bits (see {@link Float#intBitsToFloat(int)} and {@link Double#longBitsToDouble(long)});
+     * the other primitive values are stored as they are widened to {@code long}.
+     *
+     * <p>The accessors of the fields are resolved only once (see {@link #fieldAccessor(Field)}), so
+     * as long as the fields are accessed through {@code sun.misc.Unsafe}, no reflective or native call is involved.
+     *
+     * @param object the object to extract the values from; ignored by the static fields
+     * @param fields the fields to be read
+     * @param primitives the array to store the values of the primitive fields into
+     * @param references the array to store the values of the other fields into
+     *
+     * @throws    IllegalArgumentException  if the specified object is not
+     *              an instance of the class or interface declaring one of the
+     *              fields (or a subclass or implementor thereof), or if one of the
+     *              arrays is shorter than the fields.
+     * @throws    NullPointerException      if one of the arguments is null, except the object
+     *              when all the fields are static.
+     * @throws    ExceptionInInitializerError if the initialization provoked
+     *              by this method fails.
+     *
+     * @see #writeFields(Object, Field[], long[], Object[])
+     */
+    public static void readFields(Object object, Field[] fields, long[] primitives, Object[] references)
+            throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
+        FieldAccessor[] accessors = fieldAccessors(fields, primitives, references);
+        for (int i = 0; i < accessors.length; i ++) {
+            accessors[i].read(object, i, primitives, references);
+        }
+    }
+
+    /**
+     * <p>Writes the values of the specified static or instance fields of an object at once.
+     *
+     * <p>The value of {@code fields[i]} is taken from index {@code i}, in the layout described
+     * by {@link #readFields(Object, Field[], long[], Object[])}; a {@code boolean} is {@code true} if the
+     * stored value is not {@code 0}, and the other primitive values are narrowed from {@code long}.
+     * Final fields are written as well.
+     *
+     * @param object the object whose fields should be modified; ignored by the static fields
+     * @param fields the fields to be written
+     * @param primitives the array to take the values of the primitive fields from
+     * @param references the array to take the values of the other fields from
+     *
+     * @throws    IllegalArgumentException  if the specified object is not
+     *              an instance of the class or interface declaring one of the
+     *              fields (or a subclass or implementor thereof), if one of the
+     *              arrays is shorter than the fields, or if a reference value
+     *              is not assignable to its field.
+     * @throws    NullPointerException      if one of the arguments is null, except the object
+     *              when all the fields are static.
+     * @throws    ExceptionInInitializerError if the initialization provoked
+     *              by this method fails.
+     *
+     * @see #readFields(Object, Field[], long[], Object[])
+     */
+    public static void writeFields(Object object, Field[] fields, long[] primitives, Object[] references)
+            throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
+        FieldAccessor[] accessors = fieldAccessors(fields, primitives, references);
+        for (int i = 0; i < accessors.length; i ++) {
+            accessors[i].write(object, i, primitives, references);
+        }
+    }
+
+    // Resolves all the accessors before any value is moved, so that an invalid field fails the whole batch
+    private static FieldAccessor[] fieldAccessors(Field[] fields, long[] primitives, Object[] references)
+            throws IllegalArgumentException, NullPointerException, ExceptionInInitializerError {
+        if (primitives.length < fields.length || references.length < fields.length)
+            throw new IllegalArgumentException("Array too short; expected length at least " + fields.length);
+        FieldAccessor[] accessors = new FieldAccessor[fields.length];
+        for (int i = 0; i < fields.length; i ++) {
+            accessors[i] = fieldAccessor(fields[i]);
+        }
+        return accessors;
+    }
+
+    private static FieldAccessor resolveFieldAccessor(Field field) throws ExceptionInInitializerError {
+        FieldAccessor accessor = newFieldAccessor(field, Strategy.UNSAFE);
+        if (accessor == null) accessor = newFieldAccessor(field, Strategy.REFLECTION);
+        return accessor == null ? newFieldAccessor(field, Strategy.JNI) : accessor;
+    }
+
+    /**
+     * <p>Returns a new accessor of the specified field, which uses the specified strategy.
+     *
+     * <p>Unlike {@link #fieldAccessor(Field)}, the accessor is neither cached nor resolved
+     * to the best available strategy. Fields support the {@link Strategy#UNSAFE UNSAFE}
+     * (when the offset of the field is available), {@link Strategy#REFLECTION REFLECTION}
+     * (when the field is not final and can be made accessible) and {@link Strategy#JNI JNI}
+     * strategies.
+     *
+     * @param field the field to be accessed
+     * @param strategy the strategy of the accessor
+     * @return the accessor of the field
+     *
+     * @throws    UnsupportedOperationException if the strategy is not available for the field.
+     * @throws    NullPointerException if the specified field or strategy is null.
+     * @throws    ExceptionInInitializerError if the initialization provoked
+     *              by this method fails.
+     */
+    static FieldAccessor fieldAccessor(Field field, Strategy strategy)
+            throws UnsupportedOperationException, NullPointerException, ExceptionInInitializerError {
+        FieldAccessor accessor = newFieldAccessor(Objects.requireNonNull(field), strategy);
+        if (accessor == null) throw new UnsupportedOperationException("Strategy " + strategy + " not available for field " + field);
+        return accessor;
+    }
+
+    // Returns null if the strategy is not available
+    private static FieldAccessor newFieldAccessor(Field field, Strategy strategy) throws ExceptionInInitializerError {
+        switch (strategy) {
+            case UNSAFE:
+                if (UNSAFE == null) return null;
+                try {
+                    if (isStatic(field.getModifiers())) {
+                        ensureClassInitialized(field.getDeclaringClass());
+                        return new UnsafeFieldAccessor(field, UNSAFE.staticFieldBase(field), UNSAFE.staticFieldOffset(field));
+                    }
+                    else return new UnsafeFieldAccessor(field, null, UNSAFE.objectFieldOffset(field));
+                } catch (UnsupportedOperationException e) {
+                    // The fields of hidden classes and records have no stable offsets
+                    return null;
+                }
+            case REFLECTION:
+                return !isFinal(field.getModifiers()) && trySetAccessible(field) ? new ReflectFieldAccessor(field) : null;
+            case JNI:
+                requireNativeLibraries();
+                return new JNIFieldAccessor(field, FromReflectedField(field));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * <p>A precompiled handle of a static or instance field, obtained by {@link #fieldAccessor(Field)}.
+     *
+     * <p>The typed getters and setters require the exact type of the field, as
+     * {@link #getIntField(Object, Field)} and the others do; {@link #get(Object)} and
+     * {@link #set(Object, Object)} work on any field, wrapping and unwrapping the primitive values.
+     *
+     * <p>For a static field, the {@code object} argument is ignored; it may be null.
+     * For an instance field, a null {@code object} causes a {@code NullPointerException},
+     * and an {@code object} which is not an instance of the class or interface declaring the
+     * field causes an {@code IllegalArgumentException}.
+     */
+    public static abstract class FieldAccessor {
+
+        final Field field;
+        final Class<?> type;
+        final byte typeCode;
+        final Class<?> declaringClass;
+        final boolean isStatic;
+
+        FieldAccessor(Field field) {
+            this.field = field;
+            this.type = field.getType();
+            this.typeCode = typeCode(type);
+            this.declaringClass = field.getDeclaringClass();
+            this.isStatic = isStatic(field.getModifiers());
+        }
+
+        // Moves the value of the field to its slot in the layout of readFields, without wrapping it
+        final void read(Object object, int index, long[] primitives, Object[] references) {
+            switch (typeCode) {
+                case TYPE_BOOLEAN: primitives[index] = getBoolean(object) ? 1L : 0L; break;
+                case TYPE_BYTE: primitives[index] = getByte(object); break;
+                case TYPE_CHAR: primitives[index] = getChar(object); break;
+                case TYPE_SHORT: primitives[index] = getShort(object); break;
+                case TYPE_INT: primitives[index] = getInt(object); break;
+                case TYPE_LONG: primitives[index] = getLong(object); break;
+                case TYPE_FLOAT: primitives[index] = Float.floatToRawIntBits(getFloat(object)); break;
+                case TYPE_DOUBLE: primitives[index] = Double.doubleToRawLongBits(getDouble(object)); break;
+                default: references[index] = getObject(object); break;
+            }
+        }
+
+        final void copy(Object source, Object target) {
+            switch (typeCode) {
+                case TYPE_BOOLEAN: setBoolean(target, getBoolean(source)); break;
+                case TYPE_BYTE: setByte(target, getByte(source)); break;
+                case TYPE_CHAR: setChar(target, getChar(source)); break;
+                case TYPE_SHORT: setShort(target, getShort(source)); break;
+                case TYPE_INT: setInt(target, getInt(source)); break;
+                case TYPE_LONG: setLong(target, getLong(source)); break;
+                case TYPE_FLOAT: setFloat(target, getFloat(source)); break;
+                case TYPE_DOUBLE: setDouble(target, getDouble(source)); break;
+                default: setObject(target, getObject(source)); break;
+            }
+        }
+
+        final void write(Object object, int index, long[] primitives, Object[] references) {
+            switch (typeCode) {
+                case TYPE_BOOLEAN: setBoolean(object, primitives[index] != 0L); break;
+                case TYPE_BYTE: setByte(object, (byte) primitives[index]); break;
+                case TYPE_CHAR: setChar(object, (char) primitives[index]); break;
+                case TYPE_SHORT: setShort(object, (short) primitives[index]); break;
+                case TYPE_INT: setInt(object, (int) primitives[index]); break;
+                case TYPE_LONG: setLong(object, primitives[index]); break;
+                case TYPE_FLOAT: setFloat(object, Float.intBitsToFloat((int) primitives[index])); break;
+                case TYPE_DOUBLE: setDouble(object, Double.longBitsToDouble(primitives[index])); break;
+                default: setObject(object, references[index]); break;
+            }
+        }
+
+        /**
+         * Returns the underlying field.
+         *
+         * @return the underlying field
+         */
+        public Field getField() {
+            return field;
+        }
+
+        /**
+         * Returns the strategy this accessor resolved.
+         *
+         * @return the strategy of this accessor
+         */
+        public abstract Strategy getStrategy();
+
+        /**
+         * Gets the value of the non-primitive field.
+         *
+         * @param object the object to extract the non-primitive value from
+         * @return the value of the non-primitive field
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field value is primitive.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract Object getObject(Object object) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Gets the value of the {@code boolean} field.
+         *
+         * @param object the object to extract the {@code boolean} value from
+         * @return the value of the {@code boolean} field
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code boolean} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract boolean getBoolean(Object object) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Gets the value of the {@code byte} field.
+         *
+         * @param object the object to extract the {@code byte} value from
+         * @return the value of the {@code byte} field
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code byte} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract byte getByte(Object object) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Gets the value of the {@code char} field.
+         *
+         * @param object the object to extract the {@code char} value from
+         * @return the value of the {@code char} field
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code char} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract char getChar(Object object) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Gets the value of the {@code short} field.
+         *
+         * @param object the object to extract the {@code short} value from
+         * @return the value of the {@code short} field
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code short} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract short getShort(Object object) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Gets the value of the {@code int} field.
+         *
+         * @param object the object to extract the {@code int} value from
+         * @return the value of the {@code int} field
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code int} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract int getInt(Object object) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Gets the value of the {@code long} field.
+         *
+         * @param object the object to extract the {@code long} value from
+         * @return the value of the {@code long} field
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code long} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract long getLong(Object object) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Gets the value of the {@code float} field.
+         *
+         * @param object the object to extract the {@code float} value from
+         * @return the value of the {@code float} field
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code float} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract float getFloat(Object object) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Gets the value of the {@code double} field.
+         *
+         * @param object the object to extract the {@code double} value from
+         * @return the value of the {@code double} field
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code double} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract double getDouble(Object object) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Sets the value of the non-primitive field.
+         *
+         * @param object the object whose field should be modified
+         * @param value the new value for the field of {@code object} being modified
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the value cannot be assigned to the field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract void setObject(Object object, Object value) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Sets the value of the {@code boolean} field.
+         *
+         * @param object the object whose field should be modified
+         * @param value the new value for the field of {@code object} being modified
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code boolean} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract void setBoolean(Object object, boolean value) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Sets the value of the {@code byte} field.
+         *
+         * @param object the object whose field should be modified
+         * @param value the new value for the field of {@code object} being modified
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code byte} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract void setByte(Object object, byte value) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Sets the value of the {@code char} field.
+         *
+         * @param object the object whose field should be modified
+         * @param value the new value for the field of {@code object} being modified
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code char} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract void setChar(Object object, char value) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Sets the value of the {@code short} field.
+         *
+         * @param object the object whose field should be modified
+         * @param value the new value for the field of {@code object} being modified
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code short} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract void setShort(Object object, short value) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Sets the value of the {@code int} field.
+         *
+         * @param object the object whose field should be modified
+         * @param value the new value for the field of {@code object} being modified
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code int} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract void setInt(Object object, int value) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Sets the value of the {@code long} field.
+         *
+         * @param object the object whose field should be modified
+         * @param value the new value for the field of {@code object} being modified
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code long} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract void setLong(Object object, long value) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Sets the value of the {@code float} field.
+         *
+         * @param object the object whose field should be modified
+         * @param value the new value for the field of {@code object} being modified
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code float} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract void setFloat(Object object, float value) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Sets the value of the {@code double} field.
+         *
+         * @param object the object whose field should be modified
+         * @param value the new value for the field of {@code object} being modified
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor
+         *              thereof), or if the field is not a {@code double} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         */
+        public abstract void setDouble(Object object, double value) throws IllegalArgumentException, NullPointerException;
+
+        /**
+         * Gets the value of the field; primitive values are wrapped in an appropriate
+         * object before being returned.
+         *
+         * @param object the object to extract the value from
+         * @return the value of the field
+         *
+         * @throws    IllegalArgumentException  if the specified object is not
+         *              an instance of the class or interface declaring the
+         *              underlying field (or a subclass or implementor thereof).
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see Scalpel#getField(Object, Field)
+         */
+        public Object get(Object object) throws IllegalArgumentException, NullPointerException {
+            if (type == boolean.class) return getBoolean(object);
+            else if (type == byte.class) return getByte(object);
+            else if (type == char.class) return getChar(object);
+            else if (type == short.class) return getShort(object);
+            else if (type == int.class) return getInt(object);
+            else if (type == long.class) return getLong(object);
+            else if (type == float.class) return getFloat(object);
+            else if (type == double.class) return getDouble(object);
+            else return getObject(object);
+        }
+
+        /**
+         * Sets the value of the field; primitive values are unwrapped from the
+         * specified value.
+         *
+         * @param object the object whose field should be modified
+         * @param value the new value for the field of {@code object} being modified
+         *
+         * @throws    IllegalArgumentException  if the specified object is not an
+         *              instance of the class or interface declaring the underlying
+         *              field (or a subclass or implementor thereof),
+         *              or if an unwrapping conversion fails.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see Scalpel#setField(Object, Field, Object)
+         */
+        public void set(Object object, Object value) throws IllegalArgumentException, NullPointerException {
+            try {
+                if (type == boolean.class) setBoolean(object, (Boolean) value);
+                else if (type == byte.class) setByte(object, (Byte) value);
+                else if (type == char.class) setChar(object, (Character) value);
+                else if (type == short.class) setShort(object, (Short) value);
+                else if (type == int.class) setInt(object, (Integer) value);
+                else if (type == long.class) setLong(object, (Long) value);
+                else if (type == float.class) setFloat(object, (Float) value);
+                else if (type == double.class) setDouble(object, (Double) value);
+                else setObject(object, value);
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        final void checkType(Class<?> expected) throws IllegalArgumentException {
+            if (type != expected) throw new IllegalArgumentException("Illegal field type; expected " + expected.getName());
+        }
+
+        final void checkObjectType() throws IllegalArgumentException {
+            if (type.isPrimitive()) throw new IllegalArgumentException("Illegal field type; expected non-primitive");
+        }
+
+        final void checkValue(Object value) throws IllegalArgumentException {
+            if (value != null && !type.isInstance(value))
+                throw new IllegalArgumentException("Illegal field type; expected " + type.getTypeName());
+        }
+
+        final Object checkObject(Object object) throws IllegalArgumentException, NullPointerException {
+            if (object == null) throw new NullPointerException();
+            else if (!declaringClass.isInstance(object))
+                throw new IllegalArgumentException("Illegal object type; expected " + declaringClass.getTypeName());
+            return object;
+        }
+
+    }
+
+    private static final class ReflectFieldAccessor extends FieldAccessor {
+
+        ReflectFieldAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public Strategy getStrategy() {
+            return Strategy.REFLECTION;
+        }
+
+        @Override
+        public Object getObject(Object object) {
+            checkObjectType();
+            try {
+                return field.get(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean getBoolean(Object object) {
+            checkType(boolean.class);
+            try {
+                return field.getBoolean(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public byte getByte(Object object) {
+            checkType(byte.class);
+            try {
+                return field.getByte(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public char getChar(Object object) {
+            checkType(char.class);
+            try {
+                return field.getChar(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public short getShort(Object object) {
+            checkType(short.class);
+            try {
+                return field.getShort(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int getInt(Object object) {
+            checkType(int.class);
+            try {
+                return field.getInt(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public long getLong(Object object) {
+            checkType(long.class);
+            try {
+                return field.getLong(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public float getFloat(Object object) {
+            checkType(float.class);
+            try {
+                return field.getFloat(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public double getDouble(Object object) {
+            checkType(double.class);
+            try {
+                return field.getDouble(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void setObject(Object object, Object value) {
+            checkObjectType();
+            checkValue(value);
+            try {
+                field.set(object, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void setBoolean(Object object, boolean value) {
+            checkType(boolean.class);
+            try {
+                field.setBoolean(object, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void setByte(Object object, byte value) {
+            checkType(byte.class);
+            try {
+                field.setByte(object, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void setChar(Object object, char value) {
+            checkType(char.class);
+            try {
+                field.setChar(object, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void setShort(Object object, short value) {
+            checkType(short.class);
+            try {
+                field.setShort(object, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void setInt(Object object, int value) {
+            checkType(int.class);
+            try {
+                field.setInt(object, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void setLong(Object object, long value) {
+            checkType(long.class);
+            try {
+                field.setLong(object, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void setFloat(Object object, float value) {
+            checkType(float.class);
+            try {
+                field.setFloat(object, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void setDouble(Object object, double value) {
+            checkType(double.class);
+            try {
+                field.setDouble(object, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Object get(Object object) {
+            try {
+                return field.get(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+    }
+
+    private static final class UnsafeFieldAccessor extends FieldAccessor {
+
+        private final Object base;
+        private final long offset;
+        private final boolean isVolatile;
+
+        UnsafeFieldAccessor(Field field, Object base, long offset) {
+            super(field);
+            this.base = base;
+            this.offset = offset;
+            this.isVolatile = isVolatile(field.getModifiers());
+        }
+
+        @Override
+        public Strategy getStrategy() {
+            return Strategy.UNSAFE;
+        }
+
+        private Object target(Object object) {
+            return isStatic ? base : checkObject(object);
+        }
+
+        @Override
+        public Object getObject(Object object) {
+            checkObjectType();
+            Object target = target(object);
+            return isVolatile ? UNSAFE.getObjectVolatile(target, offset) : UNSAFE.getObject(target, offset);
+        }
+
+        @Override
+        public boolean getBoolean(Object object) {
+            checkType(boolean.class);
+            Object target = target(object);
+            return isVolatile ? UNSAFE.getBooleanVolatile(target, offset) : UNSAFE.getBoolean(target, offset);
+        }
+
+        @Override
+        public byte getByte(Object object) {
+            checkType(byte.class);
+            Object target = target(object);
+            return isVolatile ? UNSAFE.getByteVolatile(target, offset) : UNSAFE.getByte(target, offset);
+        }
+
+        @Override
+        public char getChar(Object object) {
+            checkType(char.class);
+            Object target = target(object);
+            return isVolatile ? UNSAFE.getCharVolatile(target, offset) : UNSAFE.getChar(target, offset);
+        }
+
+        @Override
+        public short getShort(Object object) {
+            checkType(short.class);
+            Object target = target(object);
+            return isVolatile ? UNSAFE.getShortVolatile(target, offset) : UNSAFE.getShort(target, offset);
+        }
+
+        @Override
+        public int getInt(Object object) {
+            checkType(int.class);
+            Object target = target(object);
+            return isVolatile ? UNSAFE.getIntVolatile(target, offset) : UNSAFE.getInt(target, offset);
+        }
+
+        @Override
+        public long getLong(Object object) {
+            checkType(long.class);
+            Object target = target(object);
+            return isVolatile ? UNSAFE.getLongVolatile(target, offset) : UNSAFE.getLong(target, offset);
+        }
+
+        @Override
+        public float getFloat(Object object) {
+            checkType(float.class);
+            Object target = target(object);
+            return isVolatile ? UNSAFE.getFloatVolatile(target, offset) : UNSAFE.getFloat(target, offset);
+        }
+
+        @Override
+        public double getDouble(Object object) {
+            checkType(double.class);
+            Object target = target(object);
+            return isVolatile ? UNSAFE.getDoubleVolatile(target, offset) : UNSAFE.getDouble(target, offset);
+        }
+
+        @Override
+        public void setObject(Object object, Object value) {
+            checkObjectType();
+            checkValue(value);
+            Object target = target(object);
+            if (isVolatile) UNSAFE.putObjectVolatile(target, offset, value);
+            else UNSAFE.putObject(target, offset, value);
+        }
+
+        @Override
+        public void setBoolean(Object object, boolean value) {
+            checkType(boolean.class);
+            Object target = target(object);
+            if (isVolatile) UNSAFE.putBooleanVolatile(target, offset, value);
+            else UNSAFE.putBoolean(target, offset, value);
+        }
+
+        @Override
+        public void setByte(Object object, byte value) {
+            checkType(byte.class);
+            Object target = target(object);
+            if (isVolatile) UNSAFE.putByteVolatile(target, offset, value);
+            else UNSAFE.putByte(target, offset, value);
+        }
+
+        @Override
+        public void setChar(Object object, char value) {
+            checkType(char.class);
+            Object target = target(object);
+            if (isVolatile) UNSAFE.putCharVolatile(target, offset, value);
+            else UNSAFE.putChar(target, offset, value);
+        }
+
+        @Override
+        public void setShort(Object object, short value) {
+            checkType(short.class);
+            Object target = target(object);
+            if (isVolatile) UNSAFE.putShortVolatile(target, offset, value);
+            else UNSAFE.putShort(target, offset, value);
+        }
+
+        @Override
+        public void setInt(Object object, int value) {
+            checkType(int.class);
+            Object target = target(object);
+            if (isVolatile) UNSAFE.putIntVolatile(target, offset, value);
+            else UNSAFE.putInt(target, offset, value);
+        }
+
+        @Override
+        public void setLong(Object object, long value) {
+            checkType(long.class);
+            Object target = target(object);
+            if (isVolatile) UNSAFE.putLongVolatile(target, offset, value);
+            else UNSAFE.putLong(target, offset, value);
+        }
+
+        @Override
+        public void setFloat(Object object, float value) {
+            checkType(float.class);
+            Object target = target(object);
+            if (isVolatile) UNSAFE.putFloatVolatile(target, offset, value);
+            else UNSAFE.putFloat(target, offset, value);
+        }
+
+        @Override
+        public void setDouble(Object object, double value) {
+            checkType(double.class);
+            Object target = target(object);
+            if (isVolatile) UNSAFE.putDoubleVolatile(target, offset, value);
+            else UNSAFE.putDouble(target, offset, value);
+        }
+
+    }
+
+    private static final class JNIFieldAccessor extends FieldAccessor {
+
+        private final long fieldID;
+
+        JNIFieldAccessor(Field field, long fieldID) {
+            super(field);
+            this.fieldID = fieldID;
+        }
+
+        @Override
+        public Strategy getStrategy() {
+            return Strategy.JNI;
+        }
+
+        @Override
+        public Object getObject(Object object) {
+            checkObjectType();
+            return isStatic ? GetStaticObjectFieldByID(declaringClass, fieldID) : GetObjectFieldByID(checkObject(object), fieldID);
+        }
+
+        @Override
+        public boolean getBoolean(Object object) {
+            checkType(boolean.class);
+            return isStatic ? GetStaticBooleanFieldByID(declaringClass, fieldID) : GetBooleanFieldByID(checkObject(object), fieldID);
+        }
+
+        @Override
+        public byte getByte(Object object) {
+            checkType(byte.class);
+            return isStatic ? GetStaticByteFieldByID(declaringClass, fieldID) : GetByteFieldByID(checkObject(object), fieldID);
+        }
+
+        @Override
+        public char getChar(Object object) {
+            checkType(char.class);
+            return isStatic ? GetStaticCharFieldByID(declaringClass, fieldID) : GetCharFieldByID(checkObject(object), fieldID);
+        }
+
+        @Override
+        public short getShort(Object object) {
+            checkType(short.class);
+            return isStatic ? GetStaticShortFieldByID(declaringClass, fieldID) : GetShortFieldByID(checkObject(object), fieldID);
+        }
+
+        @Override
+        public int getInt(Object object) {
+            checkType(int.class);
+            return isStatic ? GetStaticIntFieldByID(declaringClass, fieldID) : GetIntFieldByID(checkObject(object), fieldID);
+        }
+
+        @Override
+        public long getLong(Object object) {
+            checkType(long.class);
+            return isStatic ? GetStaticLongFieldByID(declaringClass, fieldID) : GetLongFieldByID(checkObject(object), fieldID);
+        }
+
+        @Override
+        public float getFloat(Object object) {
+            checkType(float.class);
+            return isStatic ? GetStaticFloatFieldByID(declaringClass, fieldID) : GetFloatFieldByID(checkObject(object), fieldID);
+        }
+
+        @Override
+        public double getDouble(Object object) {
+            checkType(double.class);
+            return isStatic ? GetStaticDoubleFieldByID(declaringClass, fieldID) : GetDoubleFieldByID(checkObject(object), fieldID);
+        }
+
+        @Override
+        public void setObject(Object object, Object value) {
+            checkObjectType();
+            checkValue(value);
+            if (isStatic) SetStaticObjectFieldByID(declaringClass, fieldID, value);
+            else SetObjectFieldByID(checkObject(object), fieldID, value);
+        }
+
+        @Override
+        public void setBoolean(Object object, boolean value) {
+            checkType(boolean.class);
+            if (isStatic) SetStaticBooleanFieldByID(declaringClass, fieldID, value);
+            else SetBooleanFieldByID(checkObject(object), fieldID, value);
+        }
+
+        @Override
+        public void setByte(Object object, byte value) {
+            checkType(byte.class);
+            if (isStatic) SetStaticByteFieldByID(declaringClass, fieldID, value);
+            else SetByteFieldByID(checkObject(object), fieldID, value);
+        }
+
+        @Override
+        public void setChar(Object object, char value) {
+            checkType(char.class);
+            if (isStatic) SetStaticCharFieldByID(declaringClass, fieldID, value);
+            else SetCharFieldByID(checkObject(object), fieldID, value);
+        }
+
+        @Override
+        public void setShort(Object object, short value) {
+            checkType(short.class);
+            if (isStatic) SetStaticShortFieldByID(declaringClass, fieldID, value);
+            else SetShortFieldByID(checkObject(object), fieldID, value);
+        }
+
+        @Override
+        public void setInt(Object object, int value) {
+            checkType(int.class);
+            if (isStatic) SetStaticIntFieldByID(declaringClass, fieldID, value);
+            else SetIntFieldByID(checkObject(object), fieldID, value);
+        }
+
+        @Override
+        public void setLong(Object object, long value) {
+            checkType(long.class);
+            if (isStatic) SetStaticLongFieldByID(declaringClass, fieldID, value);
+            else SetLongFieldByID(checkObject(object), fieldID, value);
+        }
+
+        @Override
+        public void setFloat(Object object, float value) {
+            checkType(float.class);
+            if (isStatic) SetStaticFloatFieldByID(declaringClass, fieldID, value);
+            else SetFloatFieldByID(checkObject(object), fieldID, value);
+        }
+
+        @Override
+        public void setDouble(Object object, double value) {
+            checkType(double.class);
+            if (isStatic) SetStaticDoubleFieldByID(declaringClass, fieldID, value);
+            else SetDoubleFieldByID(checkObject(object), fieldID, value);
+        }
+
+    }
+
+    private static final byte TYPE_OBJECT = 0;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_BYTE = 2;
+    private static final byte TYPE_CHAR = 3;
+    private static final byte TYPE_SHORT = 4;
+    private static final byte TYPE_INT = 5;
+    private static final byte TYPE_LONG = 6;
+    private static final byte TYPE_FLOAT = 7;
+    private static final byte TYPE_DOUBLE = 8;
+
+    private static final Class<?>[] WRAPPER_CLASSES = new Class<?>[] {
+            null, Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class, Float.class, Double.class
+    };
+
+    private static byte typeCode(Class<?> clazz) {
+        if (clazz == boolean.class) return TYPE_BOOLEAN;
+        else if (clazz == byte.class) return TYPE_BYTE;
+        else if (clazz == char.class) return TYPE_CHAR;
+        else if (clazz == short.class) return TYPE_SHORT;
+        else if (clazz == int.class) return TYPE_INT;
+        else if (clazz == long.class) return TYPE_LONG;
+        else if (clazz == float.class) return TYPE_FLOAT;
+        else if (clazz == double.class) return TYPE_DOUBLE;
+        else return TYPE_OBJECT;
+    }
+
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    private static final int DISPATCH_STATIC = 0;
+    private static final int DISPATCH_VIRTUAL = 1;
+    private static final int DISPATCH_NONVIRTUAL = 2;
+
+    /**
+     * Returns a reusable invoker of the specified method.
+     *
+     * <p>The best available invocation strategy, together with everything it needs
+     * (e.g. the {@code jmethodID} of the method, the type codes of its parameters,
+     * its varargs shape and whether it dispatches statically or virtually), is resolved
+     * once per method and cached, so neither this method nor {@link #invokeMethod(Object, Method, Object...)}
+     * and the other method invocation methods, which all share the invoker, resolve it again.
+     *
+     * @param method the method to be invoked
+     * @return the invoker of the method
+     *
+     * @throws    NullPointerException if the specified method is null.
+     * @throws    ExceptionInInitializerError if the initialization provoked
+     *              by this method fails.
+     */
+    public static MethodInvoker methodInvoker(Method method) throws NullPointerException, ExceptionInInitializerError {
+        return cached(MEMBER_CACHE.get(method.getDeclaringClass()).methodInvokers, method, Scalpel::resolveMethodInvoker);
+    }
+
+    private static MethodInvoker resolveMethodInvoker(Method method) throws ExceptionInInitializerError {
+        MethodInvoker invoker = newMethodInvoker(method, Strategy.REFLECTION);
+        if (invoker == null) invoker = newMethodInvoker(method, Strategy.LOOKUP);
+        return invoker == null ? newMethodInvoker(method, Strategy.JNI) : invoker;
+    }
+
+    /**
+     * <p>Returns a new invoker of the specified method, which uses the specified strategy.
+     *
+     * <p>Unlike {@link #methodInvoker(Method)}, the invoker is neither cached nor resolved
+     * to the best available strategy. Methods support the {@link Strategy#REFLECTION REFLECTION}
+     * (when the method can be made accessible), {@link Strategy#LOOKUP LOOKUP} (when the full
+     * privilege lookup is available, and the method is not caller sensitive) and
+     * {@link Strategy#JNI JNI} strategies.
+     *
+     * @param method the method to be invoked
+     * @param strategy the strategy of the invoker
+     * @return the invoker of the method
+     *
+     * @throws    UnsupportedOperationException if the strategy is not available for the method.
+     * @throws    NullPointerException if the specified method or strategy is null.
+     * @throws    ExceptionInInitializerError if the initialization provoked
+     *              by this method fails.
+     */
+    static MethodInvoker methodInvoker(Method method, Strategy strategy)
+            throws UnsupportedOperationException, NullPointerException, ExceptionInInitializerError {
+        MethodInvoker invoker = newMethodInvoker(Objects.requireNonNull(method), strategy);
+        if (invoker == null) throw new UnsupportedOperationException("Strategy " + strategy + " not available for method " + method);
+        return invoker;
+    }
+
+    // Returns null if the strategy is not available
+    private static MethodInvoker newMethodInvoker(Method method, Strategy strategy) throws ExceptionInInitializerError {
+        int dispatch = isStatic(method.getModifiers()) ? DISPATCH_STATIC : DISPATCH_VIRTUAL;
+        if (dispatch == DISPATCH_STATIC) ensureClassInitialized(method.getDeclaringClass());
+        try {
+            switch (strategy) {
+                case REFLECTION:
+                    return trySetAccessible(method) ? new HandleMethodInvoker(method, dispatch, Strategy.REFLECTION,
+                            MethodHandles.lookup().unreflect(method)) : null;
+                case LOOKUP:
+                    // Not the cached handle, since caller sensitive methods should not see another caller
+                    return LOOKUP == null ? null : new HandleMethodInvoker(method, dispatch, Strategy.LOOKUP, LOOKUP.unreflect(method));
+                case JNI:
+                    requireNativeLibraries();
+                    return new JNIMethodInvoker(method, dispatch, FromReflectedMethod(method));
+                default:
+                    return null;
+            }
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a reusable invoker of the specified method, which bypasses all overriding methods.
+     *
+     * <p>The invoker is resolved once per method and cached. It invokes a special method handle
+     * produced by the full privilege lookup, adapted to the spread arguments, if available;
+     * otherwise, the {@code CallNonvirtual<type>MethodA} JNI functions.
+     *
+     * @param method the method to be invoked
+     * @return the invoker of the method
+     *
+     * @throws    IllegalArgumentException if the underlying method is a static method.
+     * @throws    NullPointerException if the specified method is null.
+     *
+     * @see #methodInvoker(Method)
+     * @see #invokeNonVirtualMethod(Object, Method, Object...)
+     */
+    public static MethodInvoker nonVirtualMethodInvoker(Method method) throws IllegalArgumentException, NullPointerException {
+        if (isStatic(method.getModifiers())) throw new IllegalArgumentException("Illegal method modifier; expected non-static");
+        return cached(MEMBER_CACHE.get(method.getDeclaringClass()).nonVirtualMethodInvokers, method, Scalpel::resolveNonVirtualMethodInvoker);
+    }
+
+    private static MethodInvoker resolveNonVirtualMethodInvoker(Method method) {
+        MethodInvoker invoker = newNonVirtualMethodInvoker(method, Strategy.LOOKUP);
+        return invoker == null ? newNonVirtualMethodInvoker(method, Strategy.JNI) : invoker;
+    }
+
+    /**
+     * <p>Returns a new invoker of the specified method, which bypasses all overriding methods
+     * and uses the specified strategy.
+     *
+     * <p>Unlike {@link #nonVirtualMethodInvoker(Method)}, the invoker is neither cached nor resolved
+     * to the best available strategy. Methods support the {@link Strategy#LOOKUP LOOKUP} (when the
+     * full privilege lookup is available) and {@link Strategy#JNI JNI} strategies.
+     *
+     * @param method the method to be invoked
+     * @param strategy the strategy of the invoker
+     * @return the invoker of the method
+     *
+     * @throws    UnsupportedOperationException if the strategy is not available for the method.
+     * @throws    IllegalArgumentException if the underlying method is a static method.
+     * @throws    NullPointerException if the specified method or strategy is null.
+     */
+    static MethodInvoker nonVirtualMethodInvoker(Method method, Strategy strategy)
+            throws UnsupportedOperationException, IllegalArgumentException, NullPointerException {
+        if (isStatic(method.getModifiers())) throw new IllegalArgumentException("Illegal method modifier; expected non-static");
+        MethodInvoker invoker = newNonVirtualMethodInvoker(method, strategy);
+        if (invoker == null) throw new UnsupportedOperationException("Strategy " + strategy + " not available for method " + method);
+        return invoker;
+    }
+
+    // Returns null if the strategy is not available
+    private static MethodInvoker newNonVirtualMethodInvoker(Method method, Strategy strategy) {
+        switch (strategy) {
+            case LOOKUP:
+                if (LOOKUP == null) return null;
+                Class<?> declaringClass = method.getDeclaringClass();
+                try {
+                    MethodHandle handle;
+                    try {
+                        handle = LOOKUP.unreflectSpecial(method, declaringClass);
+                    } catch (IllegalAccessException e) {
+                        // Caller sensitive methods can not be looked up without a caller
+                        handle = lookupFor(declaringClass).unreflectSpecial(method, declaringClass);
+                    }
+                    return new HandleMethodInvoker(method, DISPATCH_NONVIRTUAL, Strategy.LOOKUP, handle);
+                } catch (IllegalAccessException | UnsupportedOperationException e) {
+                    return null;
+                }
+            case JNI:
+                requireNativeLibraries();
+                return new JNIMethodInvoker(method, DISPATCH_NONVIRTUAL, FromReflectedMethod(method));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns a reusable invoker of the specified constructor.
+     *
+     * <p>The best available invocation strategy, together with everything it needs
+     * (e.g. the {@code jmethodID} of the constructor and the type codes of its parameters),
+     * is resolved once per constructor and cached, so neither this method nor
+     * {@link #newInstance(Constructor, Object...)}, which shares the invoker, resolve it again.
+     *
+     * @param constructor the constructor to be invoked
+     * @return the invoker of the constructor
+     *
+     * @throws    NullPointerException if the specified constructor is null.
+     * @throws    ExceptionInInitializerError if the initialization provoked
+     *              by this method fails.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ConstructorInvoker<T> constructorInvoker(Constructor<T> constructor) throws NullPointerException, ExceptionInInitializerError {
+        return (ConstructorInvoker<T>) cached(MEMBER_CACHE.get(constructor.getDeclaringClass()).constructorInvokers, constructor,
+                Scalpel::resolveConstructorInvoker);
+    }
+
+    private static <T> ConstructorInvoker<T> resolveConstructorInvoker(Constructor<T> constructor) throws ExceptionInInitializerError {
+        ConstructorInvoker<T> invoker = newConstructorInvoker(constructor, Strategy.REFLECTION);
+        if (invoker == null) invoker = newConstructorInvoker(constructor, Strategy.LOOKUP);
+        return invoker == null ? newConstructorInvoker(constructor, Strategy.JNI) : invoker;
+    }
+
+    /**
+     * <p>Returns a new invoker of the specified constructor, which uses the specified strategy.
+     *
+     * <p>Unlike {@link #constructorInvoker(Constructor)}, the invoker is neither cached nor resolved
+     * to the best available strategy. Constructors support the {@link Strategy#REFLECTION REFLECTION}
+     * (when the constructor can be made accessible), {@link Strategy#LOOKUP LOOKUP} (when the full
+     * privilege lookup is available) and {@link Strategy#JNI JNI} strategies.
+     *
+     * @param constructor the constructor to be invoked
+     * @param strategy the strategy of the invoker
+     * @return the invoker of the constructor
+     *
+     * @throws    UnsupportedOperationException if the strategy is not available for the constructor.
+     * @throws    NullPointerException if the specified constructor or strategy is null.
+     * @throws    ExceptionInInitializerError if the initialization provoked
+     *              by this method fails.
+     */
+    static <T> ConstructorInvoker<T> constructorInvoker(Constructor<T> constructor, Strategy strategy)
+            throws UnsupportedOperationException, NullPointerException, ExceptionInInitializerError {
+        ConstructorInvoker<T> invoker = newConstructorInvoker(Objects.requireNonNull(constructor), strategy);
+        if (invoker == null) throw new UnsupportedOperationException("Strategy " + strategy + " not available for constructor " + constructor);
+        return invoker;
+    }
+
+    // Returns null if the strategy is not available
+    private static <T> ConstructorInvoker<T> newConstructorInvoker(Constructor<T> constructor, Strategy strategy) throws ExceptionInInitializerError {
+        ensureClassInitialized(constructor.getDeclaringClass());
+        switch (strategy) {
+            case REFLECTION:
+                try {
+                    return trySetAccessible(constructor) ? new HandleConstructorInvoker<>(constructor, Strategy.REFLECTION,
+                            MethodHandles.lookup().unreflectConstructor(constructor)) : null;
+                } catch (IllegalAccessException e) {
+                    return null;
+                }
+            case LOOKUP:
+                try {
+                    return LOOKUP == null ? null : new HandleConstructorInvoker<>(constructor, Strategy.LOOKUP, unreflectConstructor(constructor));
+                } catch (UnsupportedOperationException e) {
+                    return null;
+                }
+            case JNI:
+                requireNativeLibraries();
+                return new JNIConstructorInvoker<>(constructor, FromReflectedMethod(constructor));
+            default:
+                return null;
+        }
+    }
+
+    // Class.forName can not find hidden classes, nor the classes their loaders do not expose by name
+    @SuppressWarnings("removal")
+    private static void ensureClassInitialized(Class<?> clazz) throws ExceptionInInitializerError {
+        if (UNSAFE != null) {
+            try {
+                UNSAFE.ensureClassInitialized(clazz);
+                return;
+            } catch (NoSuchMethodError ignored) {
+                // Removed from sun.misc.Unsafe in Java 22
+            }
+        }
+        try {
+            Class.forName(clazz.getName(), true, clazz.getClassLoader());
+        } catch (ClassNotFoundException ignored) {
+        }
+    }
+
+    /**
+     * <p>A precompiled handle of a static or instance method, obtained by {@link #methodInvoker(Method)}
+     * or {@link #nonVirtualMethodInvoker(Method)}.
+     *
+     * <p>The typed invocation methods require the exact return type of the method, as
+     * {@link #invokeIntMethod(Object, Method, Object...)} and the others do; {@link #invoke(Object, Object...)}
+     * works on any method, wrapping the primitive return value.
+     *
+     * <p>Each argument for a primitive parameter is unwrapped, and widened if necessary, as
+     * {@link Method#invoke(Object, Object...)} does. If the method is a variable arity method,
+     * the trailing arguments may either be supplied as the array itself, or one by one,
+     * in which case they are collected into a new array.
+     *
+     * <p>For a static method, the {@code object} argument is ignored; it may be null.
+     * For an instance method, a null {@code object} causes a {@code NullPointerException},
+     * and an {@code object} which is not an instance of the class or interface declaring the
+     * method causes an {@code IllegalArgumentException}.
+     *
+     * <p>Any exception or error thrown by the underlying method is wrapped in an
+     * {@link InvocationTargetException}.
+     */
+    public static abstract class MethodInvoker {
+
+        final Method method;
+        final Class<?> returnType;
+        final Class<?> declaringClass;
+        final Class<?>[] parameterTypes;
+        final byte[] parameterCodes;
+        final Class<?> varargsType;
+        final int dispatch;
+
+        MethodInvoker(Method method, int dispatch) {
+            this.method = method;
+            this.returnType = method.getReturnType();
+            this.declaringClass = method.getDeclaringClass();
+            this.parameterTypes = method.getParameterTypes();
+            this.parameterCodes = new byte[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i ++) {
+                parameterCodes[i] = typeCode(parameterTypes[i]);
+            }
+            this.varargsType = method.isVarArgs() ? parameterTypes[parameterTypes.length - 1] : null;
+            this.dispatch = dispatch;
+        }
+
+        /**
+         * Returns the underlying method.
+         *
+         * @return the underlying method
+         */
+        public Method getMethod() {
+            return method;
+        }
+
+        /**
+         * Returns the strategy this invoker resolved.
+         *
+         * @return the strategy of this invoker
+         */
+        public abstract Strategy getStrategy();
+
+        /**
+         * Returns whether this invoker bypasses all overriding methods.
+         *
+         * @return {@code true} if this invoker is non-virtual
+         */
+        public boolean isNonVirtual() {
+            return dispatch == DISPATCH_NONVIRTUAL;
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the specified parameters.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param args the arguments used for the method call
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number of actual
+         *              and formal parameters differ; if an unwrapping
+         *              conversion for primitive arguments fails; or if,
+         *              after possible unwrapping, a parameter value
+         *              cannot be converted to the corresponding formal
+         *              parameter type by a method invocation conversion;
+         *              or if the method had a return value.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the method is an instance method.
+         */
+        public void invokeVoid(Object object, Object... args) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != void.class && returnType != Void.class) throw new IllegalArgumentException("Illegal return type; expected void");
+            Object target = checkObject(object);
+            Object[] arguments = checkArguments(args);
+            try {
+                invokeVoidUnchecked(target, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the specified parameters.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param args the arguments used for the method call
+         * @return the value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number of actual
+         *              and formal parameters differ; if an unwrapping
+         *              conversion for primitive arguments fails; or if,
+         *              after possible unwrapping, a parameter value
+         *              cannot be converted to the corresponding formal
+         *              parameter type by a method invocation conversion;
+         *              or if the returned value is primitive.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the method is an instance method.
+         */
+        public Object invokeObject(Object object, Object... args) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType.isPrimitive()) throw new IllegalArgumentException("Illegal return type; expected non-primitive");
+            Object target = checkObject(object);
+            Object[] arguments = checkArguments(args);
+            try {
+                return invokeObjectUnchecked(target, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the specified parameters.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param args the arguments used for the method call
+         * @return the {@code boolean} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number of actual
+         *              and formal parameters differ; if an unwrapping
+         *              conversion for primitive arguments fails; or if,
+         *              after possible unwrapping, a parameter value
+         *              cannot be converted to the corresponding formal
+         *              parameter type by a method invocation conversion;
+         *              or if the returned value is not {@code boolean}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the method is an instance method.
+         */
+        public boolean invokeBoolean(Object object, Object... args) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != boolean.class) throw new IllegalArgumentException("Illegal return type; expected boolean");
+            Object target = checkObject(object);
+            Object[] arguments = checkArguments(args);
+            try {
+                return invokeBooleanUnchecked(target, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the specified parameters.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param args the arguments used for the method call
+         * @return the {@code byte} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number of actual
+         *              and formal parameters differ; if an unwrapping
+         *              conversion for primitive arguments fails; or if,
+         *              after possible unwrapping, a parameter value
+         *              cannot be converted to the corresponding formal
+         *              parameter type by a method invocation conversion;
+         *              or if the returned value is not {@code byte}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the method is an instance method.
+         */
+        public byte invokeByte(Object object, Object... args) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != byte.class) throw new IllegalArgumentException("Illegal return type; expected byte");
+            Object target = checkObject(object);
+            Object[] arguments = checkArguments(args);
+            try {
+                return invokeByteUnchecked(target, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the specified parameters.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param args the arguments used for the method call
+         * @return the {@code char} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number of actual
+         *              and formal parameters differ; if an unwrapping
+         *              conversion for primitive arguments fails; or if,
+         *              after possible unwrapping, a parameter value
+         *              cannot be converted to the corresponding formal
+         *              parameter type by a method invocation conversion;
+         *              or if the returned value is not {@code char}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the method is an instance method.
+         */
+        public char invokeChar(Object object, Object... args) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != char.class) throw new IllegalArgumentException("Illegal return type; expected char");
+            Object target = checkObject(object);
+            Object[] arguments = checkArguments(args);
+            try {
+                return invokeCharUnchecked(target, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the specified parameters.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param args the arguments used for the method call
+         * @return the {@code short} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number of actual
+         *              and formal parameters differ; if an unwrapping
+         *              conversion for primitive arguments fails; or if,
+         *              after possible unwrapping, a parameter value
+         *              cannot be converted to the corresponding formal
+         *              parameter type by a method invocation conversion;
+         *              or if the returned value is not {@code short}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the method is an instance method.
+         */
+        public short invokeShort(Object object, Object... args) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != short.class) throw new IllegalArgumentException("Illegal return type; expected short");
+            Object target = checkObject(object);
+            Object[] arguments = checkArguments(args);
+            try {
+                return invokeShortUnchecked(target, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the specified parameters.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param args the arguments used for the method call
+         * @return the {@code int} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number of actual
+         *              and formal parameters differ; if an unwrapping
+         *              conversion for primitive arguments fails; or if,
+         *              after possible unwrapping, a parameter value
+         *              cannot be converted to the corresponding formal
+         *              parameter type by a method invocation conversion;
+         *              or if the returned value is not {@code int}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the method is an instance method.
+         */
+        public int invokeInt(Object object, Object... args) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != int.class) throw new IllegalArgumentException("Illegal return type; expected int");
+            Object target = checkObject(object);
+            Object[] arguments = checkArguments(args);
+            try {
+                return invokeIntUnchecked(target, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the specified parameters.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param args the arguments used for the method call
+         * @return the {@code long} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number of actual
+         *              and formal parameters differ; if an unwrapping
+         *              conversion for primitive arguments fails; or if,
+         *              after possible unwrapping, a parameter value
+         *              cannot be converted to the corresponding formal
+         *              parameter type by a method invocation conversion;
+         *              or if the returned value is not {@code long}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the method is an instance method.
+         */
+        public long invokeLong(Object object, Object... args) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != long.class) throw new IllegalArgumentException("Illegal return type; expected long");
+            Object target = checkObject(object);
+            Object[] arguments = checkArguments(args);
+            try {
+                return invokeLongUnchecked(target, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the specified parameters.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param args the arguments used for the method call
+         * @return the {@code float} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number of actual
+         *              and formal parameters differ; if an unwrapping
+         *              conversion for primitive arguments fails; or if,
+         *              after possible unwrapping, a parameter value
+         *              cannot be converted to the corresponding formal
+         *              parameter type by a method invocation conversion;
+         *              or if the returned value is not {@code float}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the method is an instance method.
+         */
+        public float invokeFloat(Object object, Object... args) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != float.class) throw new IllegalArgumentException("Illegal return type; expected float");
+            Object target = checkObject(object);
+            Object[] arguments = checkArguments(args);
+            try {
+                return invokeFloatUnchecked(target, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the specified parameters.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param args the arguments used for the method call
+         * @return the {@code double} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number of actual
+         *              and formal parameters differ; if an unwrapping
+         *              conversion for primitive arguments fails; or if,
+         *              after possible unwrapping, a parameter value
+         *              cannot be converted to the corresponding formal
+         *              parameter type by a method invocation conversion;
+         *              or if the returned value is not {@code double}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the method is an instance method.
+         */
+        public double invokeDouble(Object object, Object... args) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != double.class) throw new IllegalArgumentException("Illegal return type; expected double");
+            Object target = checkObject(object);
+            Object[] arguments = checkArguments(args);
+            try {
+                return invokeDoubleUnchecked(target, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the specified parameters.
+         * If the value returned has a primitive type, it is wrapped in an object;
+         * if the underlying method return type is void, the invocation returns null.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param args the arguments used for the method call
+         * @return the result of dispatching the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number of actual
+         *              and formal parameters differ; if an unwrapping
+         *              conversion for primitive arguments fails; or if,
+         *              after possible unwrapping, a parameter value
+         *              cannot be converted to the corresponding formal
+         *              parameter type by a method invocation conversion.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the method is an instance method.
+         *
+         * @see Scalpel#invokeMethod(Object, Method, Object...)
+         */
+        public Object invoke(Object object, Object... args) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType == void.class) {
+                invokeVoid(object, args);
+                return null;
+            }
+            else if (returnType == boolean.class) return invokeBoolean(object, args);
+            else if (returnType == byte.class) return invokeByte(object, args);
+            else if (returnType == char.class) return invokeChar(object, args);
+            else if (returnType == short.class) return invokeShort(object, args);
+            else if (returnType == int.class) return invokeInt(object, args);
+            else if (returnType == long.class) return invokeLong(object, args);
+            else if (returnType == float.class) return invokeFloat(object, args);
+            else if (returnType == double.class) return invokeDouble(object, args);
+            else return invokeObject(object, args);
+        }
+
+        abstract void invokeVoidUnchecked(Object object, Object[] args) throws Throwable;
+        abstract Object invokeObjectUnchecked(Object object, Object[] args) throws Throwable;
+        abstract boolean invokeBooleanUnchecked(Object object, Object[] args) throws Throwable;
+        abstract byte invokeByteUnchecked(Object object, Object[] args) throws Throwable;
+        abstract char invokeCharUnchecked(Object object, Object[] args) throws Throwable;
+        abstract short invokeShortUnchecked(Object object, Object[] args) throws Throwable;
+        abstract int invokeIntUnchecked(Object object, Object[] args) throws Throwable;
+        abstract long invokeLongUnchecked(Object object, Object[] args) throws Throwable;
+        abstract float invokeFloatUnchecked(Object object, Object[] args) throws Throwable;
+        abstract double invokeDoubleUnchecked(Object object, Object[] args) throws Throwable;
+
+        /**
+         * Invokes the underlying method on the specified object with the arguments of the specified frame,
+         * without wrapping or unwrapping any primitive value.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param frame the arguments used for the method call
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number or the types
+         *              of the arguments in the frame differ from the formal parameters;
+         *              or if the method had a return value.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified frame is null, or if the
+         *              specified object is null and the method is an instance method.
+         */
+        public void invokeVoid(Object object, ArgumentFrame frame) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != void.class && returnType != Void.class) throw new IllegalArgumentException("Illegal return type; expected void");
+            Object target = checkObject(object);
+            checkFrame(frame);
+            try {
+                invokeVoidUnchecked(target, frame);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the arguments of the specified frame,
+         * without wrapping or unwrapping any primitive value.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param frame the arguments used for the method call
+         * @return the value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number or the types
+         *              of the arguments in the frame differ from the formal parameters;
+         *              or if the returned value is primitive.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified frame is null, or if the
+         *              specified object is null and the method is an instance method.
+         */
+        public Object invokeObject(Object object, ArgumentFrame frame) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType.isPrimitive()) throw new IllegalArgumentException("Illegal return type; expected non-primitive");
+            Object target = checkObject(object);
+            checkFrame(frame);
+            try {
+                return invokeObjectUnchecked(target, frame);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the arguments of the specified frame,
+         * without wrapping or unwrapping any primitive value.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param frame the arguments used for the method call
+         * @return the {@code boolean} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number or the types
+         *              of the arguments in the frame differ from the formal parameters;
+         *              or if the returned value is not {@code boolean}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified frame is null, or if the
+         *              specified object is null and the method is an instance method.
+         */
+        public boolean invokeBoolean(Object object, ArgumentFrame frame) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != boolean.class) throw new IllegalArgumentException("Illegal return type; expected boolean");
+            Object target = checkObject(object);
+            checkFrame(frame);
+            try {
+                return invokeBooleanUnchecked(target, frame);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the arguments of the specified frame,
+         * without wrapping or unwrapping any primitive value.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param frame the arguments used for the method call
+         * @return the {@code byte} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number or the types
+         *              of the arguments in the frame differ from the formal parameters;
+         *              or if the returned value is not {@code byte}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified frame is null, or if the
+         *              specified object is null and the method is an instance method.
+         */
+        public byte invokeByte(Object object, ArgumentFrame frame) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != byte.class) throw new IllegalArgumentException("Illegal return type; expected byte");
+            Object target = checkObject(object);
+            checkFrame(frame);
+            try {
+                return invokeByteUnchecked(target, frame);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the arguments of the specified frame,
+         * without wrapping or unwrapping any primitive value.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param frame the arguments used for the method call
+         * @return the {@code char} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number or the types
+         *              of the arguments in the frame differ from the formal parameters;
+         *              or if the returned value is not {@code char}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified frame is null, or if the
+         *              specified object is null and the method is an instance method.
+         */
+        public char invokeChar(Object object, ArgumentFrame frame) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != char.class) throw new IllegalArgumentException("Illegal return type; expected char");
+            Object target = checkObject(object);
+            checkFrame(frame);
+            try {
+                return invokeCharUnchecked(target, frame);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the arguments of the specified frame,
+         * without wrapping or unwrapping any primitive value.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param frame the arguments used for the method call
+         * @return the {@code short} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number or the types
+         *              of the arguments in the frame differ from the formal parameters;
+         *              or if the returned value is not {@code short}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified frame is null, or if the
+         *              specified object is null and the method is an instance method.
+         */
+        public short invokeShort(Object object, ArgumentFrame frame) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != short.class) throw new IllegalArgumentException("Illegal return type; expected short");
+            Object target = checkObject(object);
+            checkFrame(frame);
+            try {
+                return invokeShortUnchecked(target, frame);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the arguments of the specified frame,
+         * without wrapping or unwrapping any primitive value.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param frame the arguments used for the method call
+         * @return the {@code int} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number or the types
+         *              of the arguments in the frame differ from the formal parameters;
+         *              or if the returned value is not {@code int}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified frame is null, or if the
+         *              specified object is null and the method is an instance method.
+         */
+        public int invokeInt(Object object, ArgumentFrame frame) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != int.class) throw new IllegalArgumentException("Illegal return type; expected int");
+            Object target = checkObject(object);
+            checkFrame(frame);
+            try {
+                return invokeIntUnchecked(target, frame);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the arguments of the specified frame,
+         * without wrapping or unwrapping any primitive value.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param frame the arguments used for the method call
+         * @return the {@code long} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number or the types
+         *              of the arguments in the frame differ from the formal parameters;
+         *              or if the returned value is not {@code long}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified frame is null, or if the
+         *              specified object is null and the method is an instance method.
+         */
+        public long invokeLong(Object object, ArgumentFrame frame) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != long.class) throw new IllegalArgumentException("Illegal return type; expected long");
+            Object target = checkObject(object);
+            checkFrame(frame);
+            try {
+                return invokeLongUnchecked(target, frame);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the arguments of the specified frame,
+         * without wrapping or unwrapping any primitive value.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param frame the arguments used for the method call
+         * @return the {@code float} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number or the types
+         *              of the arguments in the frame differ from the formal parameters;
+         *              or if the returned value is not {@code float}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified frame is null, or if the
+         *              specified object is null and the method is an instance method.
+         */
+        public float invokeFloat(Object object, ArgumentFrame frame) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != float.class) throw new IllegalArgumentException("Illegal return type; expected float");
+            Object target = checkObject(object);
+            checkFrame(frame);
+            try {
+                return invokeFloatUnchecked(target, frame);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Invokes the underlying method on the specified object with the arguments of the specified frame,
+         * without wrapping or unwrapping any primitive value.
+         *
+         * @param object  the object the underlying method is invoked from
+         * @param frame the arguments used for the method call
+         * @return the {@code double} value returned by the method
+         *
+         * @throws    IllegalArgumentException  if the method is an
+         *              instance method and the specified object argument
+         *              is not an instance of the class or interface
+         *              declaring the underlying method (or of a subclass
+         *              or implementor thereof); if the number or the types
+         *              of the arguments in the frame differ from the formal parameters;
+         *              or if the returned value is not {@code double}.
+         * @throws    InvocationTargetException if the underlying method
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified frame is null, or if the
+         *              specified object is null and the method is an instance method.
+         */
+        public double invokeDouble(Object object, ArgumentFrame frame) throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            if (returnType != double.class) throw new IllegalArgumentException("Illegal return type; expected double");
+            Object target = checkObject(object);
+            checkFrame(frame);
+            try {
+                return invokeDoubleUnchecked(target, frame);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        abstract void invokeVoidUnchecked(Object object, ArgumentFrame frame) throws Throwable;
+        abstract Object invokeObjectUnchecked(Object object, ArgumentFrame frame) throws Throwable;
+        abstract boolean invokeBooleanUnchecked(Object object, ArgumentFrame frame) throws Throwable;
+        abstract byte invokeByteUnchecked(Object object, ArgumentFrame frame) throws Throwable;
+        abstract char invokeCharUnchecked(Object object, ArgumentFrame frame) throws Throwable;
+        abstract short invokeShortUnchecked(Object object, ArgumentFrame frame) throws Throwable;
+        abstract int invokeIntUnchecked(Object object, ArgumentFrame frame) throws Throwable;
+        abstract long invokeLongUnchecked(Object object, ArgumentFrame frame) throws Throwable;
+        abstract float invokeFloatUnchecked(Object object, ArgumentFrame frame) throws Throwable;
+        abstract double invokeDoubleUnchecked(Object object, ArgumentFrame frame) throws Throwable;
+
+        final Object invokeUnchecked(Object object, Object[] args) throws Throwable {
+            if (returnType == void.class) {
+                invokeVoidUnchecked(object, args);
+                return null;
+            }
+            else if (returnType == boolean.class) return invokeBooleanUnchecked(object, args);
+            else if (returnType == byte.class) return invokeByteUnchecked(object, args);
+            else if (returnType == char.class) return invokeCharUnchecked(object, args);
+            else if (returnType == short.class) return invokeShortUnchecked(object, args);
+            else if (returnType == int.class) return invokeIntUnchecked(object, args);
+            else if (returnType == long.class) return invokeLongUnchecked(object, args);
+            else if (returnType == float.class) return invokeFloatUnchecked(object, args);
+            else if (returnType == double.class) return invokeDoubleUnchecked(object, args);
+            else return invokeObjectUnchecked(object, args);
+        }
+
+        final Object checkObject(Object object) throws IllegalArgumentException, NullPointerException {
+            if (dispatch == DISPATCH_STATIC) return null;
+            else if (object == null) throw new NullPointerException();
+            else if (!declaringClass.isInstance(object))
+                throw new IllegalArgumentException("Illegal object type; expected " + declaringClass.getTypeName());
+            return object;
+        }
+
+        final Object[] checkArguments(Object[] args) throws IllegalArgumentException {
+            return Scalpel.checkArguments(parameterTypes, parameterCodes, varargsType, args);
+        }
+
+        final void checkFrame(ArgumentFrame frame) throws IllegalArgumentException {
+            Scalpel.checkFrame(parameterTypes, parameterCodes, frame);
+        }
+
+    }
+
+    private static Object[] checkArguments(Class<?>[] parameterTypes, byte[] parameterCodes, Class<?> varargsType, Object[] args)
+            throws IllegalArgumentException {
+        if (args == null) args = EMPTY_ARGS;
+        int length = parameterCodes.length;
+        if (varargsType != null && !(args.length == length && (args[length - 1] == null || varargsType.isInstance(args[length - 1]))))
+            args = collectVarargs(varargsType, length - 1, args);
+        else if (args.length != length) throw new IllegalArgumentException("Wrong number of arguments");
+        Object[] checked = args;
+        for (int i = 0; i < length; i ++) {
+            Object arg = checkArgument(parameterCodes[i], parameterTypes[i], args[i]);
+            if (arg != args[i]) {
+                if (checked == args) checked = args.clone();
+                checked[i] = arg;
+            }
+        }
+        return checked;
+    }
+
+    private static void checkFrame(Class<?>[] parameterTypes, byte[] parameterCodes, ArgumentFrame frame) throws IllegalArgumentException {
+        if (frame.size != parameterCodes.length) throw new IllegalArgumentException("Wrong number of arguments");
+        for (int i = 0; i < parameterCodes.length; i ++) {
+            if (frame.codes[i] != parameterCodes[i])
+                throw new IllegalArgumentException("Illegal argument type at " + i + "; expected " + parameterTypes[i].getTypeName());
+            else if (parameterCodes[i] == TYPE_OBJECT && frame.references[i] != null && !parameterTypes[i].isInstance(frame.references[i]))
+                throw new IllegalArgumentException("Incompatible argument type at " + i + "; expected " + parameterTypes[i].getTypeName());
+        }
+    }
+
+    private static Object[] collectVarargs(Class<?> varargsType, int length, Object[] args) throws IllegalArgumentException {
+        if (args.length < length) throw new IllegalArgumentException("Wrong number of arguments");
+        Class<?> componentType = varargsType.getComponentType();
+        byte componentCode = typeCode(componentType);
+        Object varargs = Array.newInstance(componentType, args.length - length);
+        for (int i = length; i < args.length; i ++) {
+            Array.set(varargs, i - length, checkArgument(componentCode, componentType, args[i]));
+        }
+        Object[] collected = new Object[length + 1];
+        System.arraycopy(args, 0, collected, 0, length);
+        collected[length] = varargs;
+        return collected;
+    }
+
+    // Returns the argument itself, or a new wrapper object if a widening conversion is needed
+    private static Object checkArgument(byte code, Class<?> type, Object arg) throws IllegalArgumentException {
+        if (code == TYPE_OBJECT) {
+            if (arg != null && !type.isInstance(arg)) throw new IllegalArgumentException("Incompatible argument type");
+            return arg;
+        }
+        else if (arg == null)
+            throw new IllegalArgumentException("Cannot unbox a null argument; expected " + WRAPPER_CLASSES[code].getSimpleName());
+        else if (arg.getClass() == WRAPPER_CLASSES[code]) return arg;
+        byte from = TYPE_OBJECT;
+        for (byte i = TYPE_BYTE; i < TYPE_DOUBLE; i ++) {
+            if (arg.getClass() == WRAPPER_CLASSES[i]) {
+                from = i;
+                break;
+            }
+        }
+        // byte -> short -> int -> long -> float -> double, and char -> int
+        if (from == TYPE_OBJECT || code <= from || code == TYPE_CHAR || (from == TYPE_CHAR && code == TYPE_SHORT))
+            throw new IllegalArgumentException("Cannot unbox an argument with wrong type; expected " + WRAPPER_CLASSES[code].getSimpleName());
+        Number number = from == TYPE_CHAR ? Integer.valueOf((Character) arg) : (Number) arg;
+        switch (code) {
+            case TYPE_SHORT: return number.shortValue();
+            case TYPE_INT: return number.intValue();
+            case TYPE_LONG: return number.longValue();
+            case TYPE_FLOAT: return number.floatValue();
+            default: return number.doubleValue();
+        }
+    }
+
+    private static final class HandleMethodInvoker extends MethodInvoker {
+
+        private final Strategy strategy;
+        private final MethodHandle target;
+        private final MethodHandle handle;
+        private MethodHandle frameHandle;
+
+        HandleMethodInvoker(Method method, int dispatch, Strategy strategy, MethodHandle handle) {
+            super(method, dispatch);
+            this.strategy = strategy;
+            handle = handle.asFixedArity();
+            if (dispatch == DISPATCH_STATIC) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            Class<?> type = returnType.isPrimitive() ? returnType : Object.class;
+            this.target = handle.asType(handle.type().changeParameterType(0, Object.class).changeReturnType(type));
+            this.handle = handle.asType(MethodType.genericMethodType(parameterTypes.length + 1).changeReturnType(type))
+                    .asSpreader(Object[].class, parameterTypes.length);
+        }
+
+        // Created on demand, since most of the invokers are never called with a frame
+        private MethodHandle frameHandle() {
+            MethodHandle frameHandle = this.frameHandle;
+            if (frameHandle == null) this.frameHandle = frameHandle = adaptToFrame(target, 1, parameterTypes);
+            return frameHandle;
+        }
+
+        @Override
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        @Override
+        void invokeVoidUnchecked(Object object, Object[] args) throws Throwable {
+            if (returnType == void.class) handle.invokeExact(object, args);
+            else {
+                Object ignored = (Object) handle.invokeExact(object, args);
+            }
+        }
+
+        @Override
+        Object invokeObjectUnchecked(Object object, Object[] args) throws Throwable {
+            return (Object) handle.invokeExact(object, args);
+        }
+
+        @Override
+        boolean invokeBooleanUnchecked(Object object, Object[] args) throws Throwable {
+            return (boolean) handle.invokeExact(object, args);
+        }
+
+        @Override
+        byte invokeByteUnchecked(Object object, Object[] args) throws Throwable {
+            return (byte) handle.invokeExact(object, args);
+        }
+
+        @Override
+        char invokeCharUnchecked(Object object, Object[] args) throws Throwable {
+            return (char) handle.invokeExact(object, args);
+        }
+
+        @Override
+        short invokeShortUnchecked(Object object, Object[] args) throws Throwable {
+            return (short) handle.invokeExact(object, args);
+        }
+
+        @Override
+        int invokeIntUnchecked(Object object, Object[] args) throws Throwable {
+            return (int) handle.invokeExact(object, args);
+        }
+
+        @Override
+        long invokeLongUnchecked(Object object, Object[] args) throws Throwable {
+            return (long) handle.invokeExact(object, args);
+        }
+
+        @Override
+        float invokeFloatUnchecked(Object object, Object[] args) throws Throwable {
+            return (float) handle.invokeExact(object, args);
+        }
+
+        @Override
+        double invokeDoubleUnchecked(Object object, Object[] args) throws Throwable {
+            return (double) handle.invokeExact(object, args);
+        }
+
+
+        @Override
+        void invokeVoidUnchecked(Object object, ArgumentFrame frame) throws Throwable {
+            if (returnType == void.class) frameHandle().invokeExact(object, frame);
+            else {
+                Object ignored = (Object) frameHandle().invokeExact(object, frame);
+            }
+        }
+
+        @Override
+        Object invokeObjectUnchecked(Object object, ArgumentFrame frame) throws Throwable {
+            return (Object) frameHandle().invokeExact(object, frame);
+        }
+
+        @Override
+        boolean invokeBooleanUnchecked(Object object, ArgumentFrame frame) throws Throwable {
+            return (boolean) frameHandle().invokeExact(object, frame);
+        }
+
+        @Override
+        byte invokeByteUnchecked(Object object, ArgumentFrame frame) throws Throwable {
+            return (byte) frameHandle().invokeExact(object, frame);
+        }
+
+        @Override
+        char invokeCharUnchecked(Object object, ArgumentFrame frame) throws Throwable {
+            return (char) frameHandle().invokeExact(object, frame);
+        }
+
+        @Override
+        short invokeShortUnchecked(Object object, ArgumentFrame frame) throws Throwable {
+            return (short) frameHandle().invokeExact(object, frame);
+        }
+
+        @Override
+        int invokeIntUnchecked(Object object, ArgumentFrame frame) throws Throwable {
+            return (int) frameHandle().invokeExact(object, frame);
+        }
+
+        @Override
+        long invokeLongUnchecked(Object object, ArgumentFrame frame) throws Throwable {
+            return (long) frameHandle().invokeExact(object, frame);
+        }
+
+        @Override
+        float invokeFloatUnchecked(Object object, ArgumentFrame frame) throws Throwable {
+            return (float) frameHandle().invokeExact(object, frame);
+        }
+
+        @Override
+        double invokeDoubleUnchecked(Object object, ArgumentFrame frame) throws Throwable {
+            return (double) frameHandle().invokeExact(object, frame);
+        }
+
+    }
+
+    private static final class JNIMethodInvoker extends MethodInvoker {
+
+        private final long methodID;
+
+        JNIMethodInvoker(Method method, int dispatch, long methodID) {
+            super(method, dispatch);
+            this.methodID = methodID;
+        }
+
+        @Override
+        public Strategy getStrategy() {
+            return Strategy.JNI;
+        }
+
+        @Override
+        void invokeVoidUnchecked(Object object, Object[] args) {
+            if (dispatch == DISPATCH_STATIC) CallStaticVoidMethodByID(declaringClass, methodID, parameterCodes, args);
+            else if (dispatch == DISPATCH_VIRTUAL) CallVoidMethodByID(object, methodID, parameterCodes, args);
+            else CallNonvirtualVoidMethodByID(object, declaringClass, methodID, parameterCodes, args);
+        }
+
+        @Override
+        Object invokeObjectUnchecked(Object object, Object[] args) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticObjectMethodByID(declaringClass, methodID, parameterCodes, args);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallObjectMethodByID(object, methodID, parameterCodes, args);
+            else return CallNonvirtualObjectMethodByID(object, declaringClass, methodID, parameterCodes, args);
+        }
+
+        @Override
+        boolean invokeBooleanUnchecked(Object object, Object[] args) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticBooleanMethodByID(declaringClass, methodID, parameterCodes, args);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallBooleanMethodByID(object, methodID, parameterCodes, args);
+            else return CallNonvirtualBooleanMethodByID(object, declaringClass, methodID, parameterCodes, args);
+        }
+
+        @Override
+        byte invokeByteUnchecked(Object object, Object[] args) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticByteMethodByID(declaringClass, methodID, parameterCodes, args);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallByteMethodByID(object, methodID, parameterCodes, args);
+            else return CallNonvirtualByteMethodByID(object, declaringClass, methodID, parameterCodes, args);
+        }
+
+        @Override
+        char invokeCharUnchecked(Object object, Object[] args) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticCharMethodByID(declaringClass, methodID, parameterCodes, args);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallCharMethodByID(object, methodID, parameterCodes, args);
+            else return CallNonvirtualCharMethodByID(object, declaringClass, methodID, parameterCodes, args);
+        }
+
+        @Override
+        short invokeShortUnchecked(Object object, Object[] args) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticShortMethodByID(declaringClass, methodID, parameterCodes, args);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallShortMethodByID(object, methodID, parameterCodes, args);
+            else return CallNonvirtualShortMethodByID(object, declaringClass, methodID, parameterCodes, args);
+        }
+
+        @Override
+        int invokeIntUnchecked(Object object, Object[] args) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticIntMethodByID(declaringClass, methodID, parameterCodes, args);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallIntMethodByID(object, methodID, parameterCodes, args);
+            else return CallNonvirtualIntMethodByID(object, declaringClass, methodID, parameterCodes, args);
+        }
+
+        @Override
+        long invokeLongUnchecked(Object object, Object[] args) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticLongMethodByID(declaringClass, methodID, parameterCodes, args);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallLongMethodByID(object, methodID, parameterCodes, args);
+            else return CallNonvirtualLongMethodByID(object, declaringClass, methodID, parameterCodes, args);
+        }
+
+        @Override
+        float invokeFloatUnchecked(Object object, Object[] args) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticFloatMethodByID(declaringClass, methodID, parameterCodes, args);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallFloatMethodByID(object, methodID, parameterCodes, args);
+            else return CallNonvirtualFloatMethodByID(object, declaringClass, methodID, parameterCodes, args);
+        }
+
+        @Override
+        double invokeDoubleUnchecked(Object object, Object[] args) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticDoubleMethodByID(declaringClass, methodID, parameterCodes, args);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallDoubleMethodByID(object, methodID, parameterCodes, args);
+            else return CallNonvirtualDoubleMethodByID(object, declaringClass, methodID, parameterCodes, args);
+        }
+
+
+        @Override
+        void invokeVoidUnchecked(Object object, ArgumentFrame frame) {
+            if (dispatch == DISPATCH_STATIC) CallStaticVoidMethodByIDWithFrame(declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+            else if (dispatch == DISPATCH_VIRTUAL) CallVoidMethodByIDWithFrame(object, methodID, parameterCodes, frame.primitives, frame.references);
+            else CallNonvirtualVoidMethodByIDWithFrame(object, declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+        }
+
+        @Override
+        Object invokeObjectUnchecked(Object object, ArgumentFrame frame) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticObjectMethodByIDWithFrame(declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallObjectMethodByIDWithFrame(object, methodID, parameterCodes, frame.primitives, frame.references);
+            else return CallNonvirtualObjectMethodByIDWithFrame(object, declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+        }
+
+        @Override
+        boolean invokeBooleanUnchecked(Object object, ArgumentFrame frame) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticBooleanMethodByIDWithFrame(declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallBooleanMethodByIDWithFrame(object, methodID, parameterCodes, frame.primitives, frame.references);
+            else return CallNonvirtualBooleanMethodByIDWithFrame(object, declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+        }
+
+        @Override
+        byte invokeByteUnchecked(Object object, ArgumentFrame frame) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticByteMethodByIDWithFrame(declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallByteMethodByIDWithFrame(object, methodID, parameterCodes, frame.primitives, frame.references);
+            else return CallNonvirtualByteMethodByIDWithFrame(object, declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+        }
+
+        @Override
+        char invokeCharUnchecked(Object object, ArgumentFrame frame) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticCharMethodByIDWithFrame(declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallCharMethodByIDWithFrame(object, methodID, parameterCodes, frame.primitives, frame.references);
+            else return CallNonvirtualCharMethodByIDWithFrame(object, declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+        }
+
+        @Override
+        short invokeShortUnchecked(Object object, ArgumentFrame frame) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticShortMethodByIDWithFrame(declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallShortMethodByIDWithFrame(object, methodID, parameterCodes, frame.primitives, frame.references);
+            else return CallNonvirtualShortMethodByIDWithFrame(object, declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+        }
+
+        @Override
+        int invokeIntUnchecked(Object object, ArgumentFrame frame) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticIntMethodByIDWithFrame(declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallIntMethodByIDWithFrame(object, methodID, parameterCodes, frame.primitives, frame.references);
+            else return CallNonvirtualIntMethodByIDWithFrame(object, declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+        }
+
+        @Override
+        long invokeLongUnchecked(Object object, ArgumentFrame frame) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticLongMethodByIDWithFrame(declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallLongMethodByIDWithFrame(object, methodID, parameterCodes, frame.primitives, frame.references);
+            else return CallNonvirtualLongMethodByIDWithFrame(object, declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+        }
+
+        @Override
+        float invokeFloatUnchecked(Object object, ArgumentFrame frame) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticFloatMethodByIDWithFrame(declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallFloatMethodByIDWithFrame(object, methodID, parameterCodes, frame.primitives, frame.references);
+            else return CallNonvirtualFloatMethodByIDWithFrame(object, declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+        }
+
+        @Override
+        double invokeDoubleUnchecked(Object object, ArgumentFrame frame) {
+            if (dispatch == DISPATCH_STATIC) return CallStaticDoubleMethodByIDWithFrame(declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+            else if (dispatch == DISPATCH_VIRTUAL) return CallDoubleMethodByIDWithFrame(object, methodID, parameterCodes, frame.primitives, frame.references);
+            else return CallNonvirtualDoubleMethodByIDWithFrame(object, declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+        }
+
+    }
+
+
+    /**
+     * <p>A precompiled handle of a constructor, obtained by {@link #constructorInvoker(Constructor)}.
+     *
+     * <p>The arguments are unwrapped, widened and collected into varargs as {@link MethodInvoker} does.
+     * Any exception or error thrown by the underlying constructor is wrapped in an
+     * {@link InvocationTargetException}.
+     */
+    public static abstract class ConstructorInvoker<T> {
+
+        final Constructor<T> constructor;
+        final Class<T> declaringClass;
+        final Class<?>[] parameterTypes;
+        final byte[] parameterCodes;
+        final Class<?> varargsType;
+        private final boolean isAbstract;
+        private final boolean isEnum;
+
+        ConstructorInvoker(Constructor<T> constructor) {
+            this.constructor = constructor;
+            this.declaringClass = constructor.getDeclaringClass();
+            this.parameterTypes = constructor.getParameterTypes();
+            this.parameterCodes = new byte[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i ++) {
+                parameterCodes[i] = typeCode(parameterTypes[i]);
+            }
+            this.varargsType = constructor.isVarArgs() ? parameterTypes[parameterTypes.length - 1] : null;
+            this.isAbstract = isAbstract(declaringClass.getModifiers());
+            this.isEnum = declaringClass.isEnum();
+        }
+
+        /**
+         * Returns the underlying constructor.
+         *
+         * @return the underlying constructor
+         */
+        public Constructor<T> getConstructor() {
+            return constructor;
+        }
+
+        /**
+         * Returns the strategy this invoker resolved.
+         *
+         * @return the strategy of this invoker
+         */
+        public abstract Strategy getStrategy();
+
+        /**
+         * Creates and initializes a new instance of the constructor's declaring class,
+         * with the specified initialization parameters.
+         *
+         * @param args array of objects to be passed as arguments to
+         * the constructor call
+         * @return a new object created by calling the constructor
+         *
+         * @throws    IllegalArgumentException  if the number of actual
+         *              and formal parameters differ; if an unwrapping
+         *              conversion for primitive arguments fails; or if,
+         *              after possible unwrapping, a parameter value
+         *              cannot be converted to the corresponding formal
+         *              parameter type by a method invocation conversion; if
+         *              this constructor pertains to an enum class.
+         * @throws    InstantiationException    if the class that declares the
+         *              underlying constructor represents an abstract class.
+         * @throws    InvocationTargetException if the underlying constructor
+         *              throws an exception.
+         *
+         * @see Scalpel#newInstance(Constructor, Object...)
+         */
+        public T newInstance(Object... args) throws InstantiationException, InvocationTargetException, IllegalArgumentException {
+            checkInstantiable();
+            Object[] arguments = checkArguments(parameterTypes, parameterCodes, varargsType, args);
+            try {
+                return newInstanceUnchecked(arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Creates and initializes a new instance of the constructor's declaring class,
+         * with the arguments of the specified frame, without wrapping or unwrapping any primitive value.
+         *
+         * @param frame the arguments used for the constructor call
+         * @return a new object created by calling the constructor
+         *
+         * @throws    IllegalArgumentException  if the number or the types
+         *              of the arguments in the frame differ from the formal parameters;
+         *              if this constructor pertains to an enum class.
+         * @throws    InstantiationException    if the class that declares the
+         *              underlying constructor represents an abstract class.
+         * @throws    InvocationTargetException if the underlying constructor
+         *              throws an exception.
+         * @throws    NullPointerException      if the specified frame is null.
+         */
+        public T newInstance(ArgumentFrame frame) throws InstantiationException, InvocationTargetException, IllegalArgumentException, NullPointerException {
+            checkInstantiable();
+            checkFrame(parameterTypes, parameterCodes, frame);
+            try {
+                return newInstanceUnchecked(frame);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        abstract T newInstanceUnchecked(Object[] args) throws Throwable;
+        abstract T newInstanceUnchecked(ArgumentFrame frame) throws Throwable;
+
+        final void checkInstantiable() throws InstantiationException, IllegalArgumentException {
+            if (isAbstract) throw new InstantiationException(declaringClass.getName());
+            else if (isEnum) throw new IllegalArgumentException("Cannot reflectively create enum objects");
+        }
+
+    }
+
+    private static final class HandleConstructorInvoker<T> extends ConstructorInvoker<T> {
+
+        private final Strategy strategy;
+        private final MethodHandle target;
+        private final MethodHandle handle;
+        private MethodHandle frameHandle;
+
+        HandleConstructorInvoker(Constructor<T> constructor, Strategy strategy, MethodHandle handle) {
+            super(constructor);
+            this.strategy = strategy;
+            handle = handle.asFixedArity();
+            this.target = handle.asType(handle.type().changeReturnType(Object.class));
+            this.handle = handle.asType(MethodType.genericMethodType(parameterTypes.length))
+                    .asSpreader(Object[].class, parameterTypes.length);
+        }
+
+        // Created on demand, since most of the invokers are never called with a frame
+        private MethodHandle frameHandle() {
+            MethodHandle frameHandle = this.frameHandle;
+            if (frameHandle == null) this.frameHandle = frameHandle = adaptToFrame(target, 0, parameterTypes);
+            return frameHandle;
+        }
+
+        @Override
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        @Override
+        T newInstanceUnchecked(Object[] args) throws Throwable {
+            return declaringClass.cast((Object) handle.invokeExact(args));
+        }
+
+        @Override
+        T newInstanceUnchecked(ArgumentFrame frame) throws Throwable {
+            return declaringClass.cast((Object) frameHandle().invokeExact(frame));
+        }
+
+    }
+
+    private static final class JNIConstructorInvoker<T> extends ConstructorInvoker<T> {
+
+        private final long methodID;
+
+        JNIConstructorInvoker(Constructor<T> constructor, long methodID) {
+            super(constructor);
+            this.methodID = methodID;
+        }
+
+        @Override
+        public Strategy getStrategy() {
+            return Strategy.JNI;
+        }
+
+        @Override
+        T newInstanceUnchecked(Object[] args) {
+            return NewObjectByID(declaringClass, methodID, parameterCodes, args);
+        }
+
+        @Override
+        T newInstanceUnchecked(ArgumentFrame frame) {
+            return NewObjectByIDWithFrame(declaringClass, methodID, parameterCodes, frame.primitives, frame.references);
+        }
+
+    }
+
+    /**
+     * <p>A reusable frame of arguments, which passes primitive values to the invokers without wrapping them.
+     *
+     * <p>The arguments are put in the order of the formal parameters, each with the method
+     * matching exactly the type of its parameter; {@link #putReference(Object)} puts
+     * the arguments of all the non-primitive parameters, including the array of a variable arity parameter.
+     * Then the frame is passed to e.g. {@link MethodInvoker#invokeInt(Object, ArgumentFrame)},
+     * and {@link #clear() cleared} before being reused. No primitive value is wrapped along the way, neither
+     * by the {@code Object[]} arguments in Java nor by the {@code jvalue[]} arguments in native code,
+     * so an invocation with primitive arguments allocates nothing.
+     *
+     * <p>A frame is not thread-safe, and is intended to be confined to a thread (e.g. by a {@link ThreadLocal}).
+     *
+     * @see MethodInvoker
+     * @see ConstructorInvoker
+     */
+    public static final class ArgumentFrame {
+
+        final byte[] codes;
+        final long[] primitives;
+        final Object[] references;
+        int size;
+
+        /**
+         * Creates an empty frame which can hold the specified number of arguments.
+         *
+         * @param capacity the maximum number of arguments
+         *
+         * @throws    IllegalArgumentException if the specified capacity is negative.
+         */
+        public ArgumentFrame(int capacity) throws IllegalArgumentException {
+            if (capacity < 0) throw new IllegalArgumentException("Illegal capacity: " + capacity);
+            this.codes = new byte[capacity];
+            this.primitives = new long[capacity];
+            this.references = new Object[capacity];
+        }
+
+        /**
+         * Returns the maximum number of arguments of this frame.
+         *
+         * @return the capacity of this frame
+         */
+        public int capacity() {
+            return codes.length;
+        }
+
+        /**
+         * Returns the number of arguments put in this frame.
+         *
+         * @return the number of arguments
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Removes all the arguments of this frame.
+         *
+         * @return this frame
+         */
+        public ArgumentFrame clear() {
+            Arrays.fill(references, 0, size, null);
+            size = 0;
+            return this;
+        }
+
+        /**
+         * Puts the argument of a {@code boolean} parameter.
+         *
+         * @param value the argument
+         * @return this frame
+         *
+         * @throws    IndexOutOfBoundsException if this frame is full.
+         */
+        public ArgumentFrame putBoolean(boolean value) throws IndexOutOfBoundsException {
+            primitives[next(TYPE_BOOLEAN)] = value ? 1L : 0L;
+            return this;
+        }
+
+        /**
+         * Puts the argument of a {@code byte} parameter.
+         *
+         * @param value the argument
+         * @return this frame
+         *
+         * @throws    IndexOutOfBoundsException if this frame is full.
+         */
+        public ArgumentFrame putByte(byte value) throws IndexOutOfBoundsException {
+            primitives[next(TYPE_BYTE)] = value;
+            return this;
+        }
+
+        /**
+         * Puts the argument of a {@code char} parameter.
+         *
+         * @param value the argument
+         * @return this frame
+         *
+         * @throws    IndexOutOfBoundsException if this frame is full.
+         */
+        public ArgumentFrame putChar(char value) throws IndexOutOfBoundsException {
+            primitives[next(TYPE_CHAR)] = value;
+            return this;
+        }
+
+        /**
+         * Puts the argument of a {@code short} parameter.
+         *
+         * @param value the argument
+         * @return this frame
+         *
+         * @throws    IndexOutOfBoundsException if this frame is full.
+         */
+        public ArgumentFrame putShort(short value) throws IndexOutOfBoundsException {
+            primitives[next(TYPE_SHORT)] = value;
+            return this;
+        }
+
+        /**
+         * Puts the argument of a {@code int} parameter.
+         *
+         * @param value the argument
+         * @return this frame
+         *
+         * @throws    IndexOutOfBoundsException if this frame is full.
+         */
+        public ArgumentFrame putInt(int value) throws IndexOutOfBoundsException {
+            primitives[next(TYPE_INT)] = value;
+            return this;
+        }
+
+        /**
+         * Puts the argument of a {@code long} parameter.
+         *
+         * @param value the argument
+         * @return this frame
+         *
+         * @throws    IndexOutOfBoundsException if this frame is full.
+         */
+        public ArgumentFrame putLong(long value) throws IndexOutOfBoundsException {
+            primitives[next(TYPE_LONG)] = value;
+            return this;
+        }
+
+        /**
+         * Puts the argument of a {@code float} parameter.
+         *
+         * @param value the argument
+         * @return this frame
+         *
+         * @throws    IndexOutOfBoundsException if this frame is full.
+         */
+        public ArgumentFrame putFloat(float value) throws IndexOutOfBoundsException {
+            primitives[next(TYPE_FLOAT)] = Float.floatToRawIntBits(value);
+            return this;
+        }
+
+        /**
+         * Puts the argument of a {@code double} parameter.
+         *
+         * @param value the argument
+         * @return this frame
+         *
+         * @throws    IndexOutOfBoundsException if this frame is full.
+         */
+        public ArgumentFrame putDouble(double value) throws IndexOutOfBoundsException {
+            primitives[next(TYPE_DOUBLE)] = Double.doubleToRawLongBits(value);
+            return this;
+        }
+
+        /**
+         * Puts the argument of a non-primitive parameter.
+         *
+         * @param value the argument
+         * @return this frame
+         *
+         * @throws    IndexOutOfBoundsException if this frame is full.
+         */
+        public ArgumentFrame putReference(Object value) throws IndexOutOfBoundsException {
+            references[next(TYPE_OBJECT)] = value;
+            return this;
+        }
+
+        private int next(byte code) throws IndexOutOfBoundsException {
+            if (size == codes.length) throw new IndexOutOfBoundsException("Frame is full; capacity " + codes.length);
+            codes[size] = code;
+            return size ++;
+        }
+
+        // Read by the method handles adapted to frames
+        boolean booleanAt(int index) {
+            return primitives[index] != 0L;
+        }
+
+        byte byteAt(int index) {
+            return (byte) primitives[index];
+        }
+
+        char charAt(int index) {
+            return (char) primitives[index];
+        }
+
+        short shortAt(int index) {
+            return (short) primitives[index];
+        }
+
+        int intAt(int index) {
+            return (int) primitives[index];
+        }
+
+        long longAt(int index) {
+            return primitives[index];
+        }
+
+        float floatAt(int index) {
+            return Float.intBitsToFloat((int) primitives[index]);
+        }
+
+        double doubleAt(int index) {
+            return Double.longBitsToDouble(primitives[index]);
+        }
+
+        Object referenceAt(int index) {
+            return references[index];
+        }
+
+    }
+
+    private static final MethodHandle[] FRAME_GETTERS = new MethodHandle[TYPE_DOUBLE + 1];
+    static {
+        String[] names = new String[] {"reference", "boolean", "byte", "char", "short", "int", "long", "float", "double"};
+        Class<?>[] types = new Class<?>[] {Object.class, boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class};
+        try {
+            for (int i = 0; i < FRAME_GETTERS.length; i ++) {
+                FRAME_GETTERS[i] = MethodHandles.lookup().findVirtual(ArgumentFrame.class, names[i] + "At", MethodType.methodType(types[i], int.class));
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Replaces the parameters starting at the specified position with a single ArgumentFrame,
+    // from which each of them is read by the getter of its type
+    private static MethodHandle adaptToFrame(MethodHandle target, int position, Class<?>[] parameterTypes) {
+        MethodHandle[] getters = new MethodHandle[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i ++) {
+            MethodHandle getter = MethodHandles.insertArguments(FRAME_GETTERS[typeCode(parameterTypes[i])], 1, i);
+            getters[i] = getter.asType(MethodType.methodType(parameterTypes[i], ArgumentFrame.class));
+        }
+        MethodHandle filtered = MethodHandles.filterArguments(target, position, getters);
+        MethodType type = target.type().dropParameterTypes(position, target.type().parameterCount()).appendParameterTypes(ArgumentFrame.class);
+        int[] reorder = new int[filtered.type().parameterCount()];
+        for (int i = 0; i < reorder.length; i ++) {
+            reorder[i] = Math.min(i, position);
+        }
+        return MethodHandles.permuteArguments(filtered, type, reorder);
+    }
+
+
+    // ---------------- Copy ----------------
+
+    /**
+     * <p>Creates a shallow copy of the specified object, without running any constructor
+     * and regardless of whether its class implements {@link Cloneable}.
+     *
+     * <p>Every instance field declared by the class of the object and its superclasses,
+     * including the private and final ones, is copied to an instance allocated as by
+     * {@link #allocateInstance(Class)}; the referenced objects are shared, not copied.
+     * An array is copied as by {@link Object#clone()}.
+     *
+     * @param object the object to be copied
+     * @return the copy of the object
+     *
+     * @throws InstantiationException    if the class of the object cannot be allocated.
+     * @throws NullPointerException    if the specified object is null
+     *
+     * @see #copyInto(Object, Object)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T shallowCopy(T object) throws InstantiationException, NullPointerException {
+        Class<T> clazz = (Class<T>) object.getClass();
+        if (clazz.isArray()) {
+            int length = Array.getLength(object);
+            T copy = (T) Array.newInstance(clazz.getComponentType(), length);
+            System.arraycopy(object, 0, copy, 0, length);
+            return copy;
+        }
+        T copy = allocateInstance(clazz);
+        COPY_PLAN.get(clazz).copy(object, copy);
+        return copy;
+    }
+
+    /**
+     * <p>Copies every instance field of the source object to the target object, which must be of the same class.
+     *
+     * <p>The fields declared by the class and its superclasses are all copied, including the private
+     * and final ones; the referenced objects are shared, not copied. The elements of an array are
+     * copied to an array of the same length.
+     *
+     * @param source the object to be copied
+     * @param target the object to copy into
+     *
+     * @throws IllegalArgumentException    if the objects are not of the same class,
+     *           or if they are arrays of different lengths.
+     * @throws NullPointerException    if one of the specified objects is null
+     *
+     * @see #shallowCopy(Object)
+     */
+    public static <T> void copyInto(T source, T target) throws IllegalArgumentException, NullPointerException {
+        Class<?> clazz = source.getClass();
+        if (clazz != target.getClass()) throw new IllegalArgumentException("Incompatible object type; expected " + clazz.getTypeName());
+        if (clazz.isArray()) {
+            int length = Array.getLength(source);
+            if (length != Array.getLength(target)) throw new IllegalArgumentException("Array length mismatch");
+            System.arraycopy(source, 0, target, 0, length);
+        }
+        else COPY_PLAN.get(clazz).copy(source, target);
+    }
+
+    // The instance fields of each class and all its superclasses, resolved once
+    private static final ClassValue<CopyPlan> COPY_PLAN = new ClassValue<CopyPlan>() {
+        @Override
+        protected CopyPlan computeValue(Class<?> type) {
+            return new CopyPlan(type);
+        }
+    };
+
+    private static final class CopyPlan {
+
+        // The fields which have offsets are copied through Unsafe directly, skipping the checks of their accessors
+        final long[] offsets;
+        final byte[] codes;
+        final FieldAccessor[] accessors;
+        // The reference fields, which deepClone replaces after the shallow copy
+        final long[] referenceOffsets;
+        final FieldAccessor[] referenceAccessors;
+
+        CopyPlan(Class<?> type) {
+            List<UnsafeFieldAccessor> unsafeAccessors = new ArrayList<>();
+            List<FieldAccessor> accessors = new ArrayList<>();
+            for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (isStatic(field.getModifiers())) continue;
+                    FieldAccessor accessor = fieldAccessor(field);
+                    if (accessor instanceof UnsafeFieldAccessor) unsafeAccessors.add((UnsafeFieldAccessor) accessor);
+                    else accessors.add(accessor);
+                }
+            }
+            this.offsets = new long[unsafeAccessors.size()];
+            this.codes = new byte[unsafeAccessors.size()];
+            for (int i = 0; i < offsets.length; i ++) {
+                offsets[i] = unsafeAccessors.get(i).offset;
+                codes[i] = unsafeAccessors.get(i).typeCode;
+            }
+            this.accessors = accessors.toArray(new FieldAccessor[0]);
+            int length = 0;
+            for (byte code : codes) {
+                if (code == TYPE_OBJECT) length ++;
+            }
+            this.referenceOffsets = new long[length];
+            for (int i = 0, j = 0; i < offsets.length; i ++) {
+                if (codes[i] == TYPE_OBJECT) referenceOffsets[j ++] = offsets[i];
+            }
+            accessors.removeIf(accessor -> accessor.typeCode != TYPE_OBJECT);
+            this.referenceAccessors = accessors.toArray(new FieldAccessor[0]);
+        }
+
+        boolean hasReferences() {
+            return referenceOffsets.length > 0 || referenceAccessors.length > 0;
+        }
+
+        void copy(Object source, Object target) {
+            for (int i = 0; i < offsets.length; i ++) {
+                long offset = offsets[i];
+                switch (codes[i]) {
+                    case TYPE_BOOLEAN: UNSAFE.putBoolean(target, offset, UNSAFE.getBoolean(source, offset)); break;
+                    case TYPE_BYTE: UNSAFE.putByte(target, offset, UNSAFE.getByte(source, offset)); break;
+                    case TYPE_CHAR: UNSAFE.putChar(target, offset, UNSAFE.getChar(source, offset)); break;
+                    case TYPE_SHORT: UNSAFE.putShort(target, offset, UNSAFE.getShort(source, offset)); break;
+                    case TYPE_INT: UNSAFE.putInt(target, offset, UNSAFE.getInt(source, offset)); break;
+                    case TYPE_LONG: UNSAFE.putLong(target, offset, UNSAFE.getLong(source, offset)); break;
+                    case TYPE_FLOAT: UNSAFE.putFloat(target, offset, UNSAFE.getFloat(source, offset)); break;
+                    case TYPE_DOUBLE: UNSAFE.putDouble(target, offset, UNSAFE.getDouble(source, offset)); break;
+                    default: UNSAFE.putObject(target, offset, UNSAFE.getObject(source, offset)); break;
+                }
+            }
+            for (FieldAccessor accessor : accessors) {
+                accessor.copy(source, target);
+            }
+            // Publishes the copied final fields, as a constructor would
+            if (UNSAFE != null) UNSAFE.storeFence();
+        }
+
+    }
+
+    /**
+     * <p>Creates a deep copy of the specified object, without running any constructor
+     * and regardless of whether the classes of the copied objects implement {@link Cloneable}.
+     *
+     * <p>Every object reachable from the specified object through instance fields (including the private
+     * and final ones) and array elements is copied once, as by {@link #shallowCopy(Object)}, and the references
+     * between the copies are redirected accordingly, so shared references and cycles are preserved.
+     * The immutable objects of the following classes are shared instead of copied:
+     * {@link String}, the primitive wrapper classes, {@link Class} and the enum classes.
+     *
+     * <p>The graph is traversed iteratively, so its depth is not limited by the stack.
+     *
+     * @param object the object to be copied; may be null
+     * @return the copy of the object, or null if the object is null
+     *
+     * @throws InstantiationException    if the class of a reachable object cannot be allocated.
+     *
+     * @see #deepClone(Object, ForkJoinPool)
+     */
+    public static <T> T deepClone(T object) throws InstantiationException {
+        return new DeepCloner(null).deepClone(object);
+    }
+
+    /**
+     * <p>Creates a deep copy of the specified object as {@link #deepClone(Object)} does,
+     * copying the large subgraphs in parallel in the specified pool.
+     *
+     * <p>The traversal starts in the calling thread; whenever the pending part of a graph grows large,
+     * half of it is forked as a new task, so that the independent subgraphs are copied concurrently.
+     * This only pays off for large graphs (e.g. of millions of objects); the copied objects must not
+     * be modified during the copy.
+     *
+     * @param object the object to be copied; may be null
+     * @param pool the pool to run the copying tasks
+     * @return the copy of the object, or null if the object is null
+     *
+     * @throws InstantiationException    if the class of a reachable object cannot be allocated.
+     * @throws NullPointerException    if the specified pool is null
+     *
+     * @see #deepClone(Object)
+     */
+    public static <T> T deepClone(T object, ForkJoinPool pool) throws InstantiationException, NullPointerException {
+        return new DeepCloner(Objects.requireNonNull(pool)).deepClone(object);
+    }
+
+    private static boolean isImmutable(Class<?> clazz) {
+        if (clazz == String.class || clazz == Class.class || Enum.class.isAssignableFrom(clazz)) return true;
+        for (int code = TYPE_BOOLEAN; code <= TYPE_DOUBLE; code ++) {
+            if (clazz == WRAPPER_CLASSES[code]) return true;
+        }
+        return false;
+    }
+
+    private static final class DeepCloner {
+
+        // The number of pending copies above which half of them is forked
+        private static final int SPLIT_THRESHOLD = 1024;
+
+        private final ForkJoinPool pool;
+        // Split into segments locked separately, when the graph is copied in parallel
+        private final IdentityMap[] segments;
+        private volatile InstantiationException failure;
+
+        DeepCloner(ForkJoinPool pool) {
+            this.pool = pool;
+            int length = 1;
+            if (pool != null) {
+                while (length < pool.getParallelism() * 4) length <<= 1;
+            }
+            this.segments = new IdentityMap[length];
+            for (int i = 0; i < length; i ++) {
+                segments[i] = new IdentityMap();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T deepClone(T object) throws InstantiationException {
+            ArrayDeque<Object> pending = new ArrayDeque<>();
+            T copy = (T) copyOf(object, pending);
+            if (pool == null) fill(pending);
+            else pool.invoke(new FillTask(this, pending));
+            if (failure != null) throw failure;
+            // Publishes the replaced final fields
+            if (UNSAFE != null) UNSAFE.storeFence();
+            return copy;
+        }
+
+        // Returns the copy of the object, creating it and scheduling the copies of its references if needed
+        private Object copyOf(Object object, ArrayDeque<Object> pending) {
+            if (object == null || isImmutable(object.getClass())) return object;
+            int hash = System.identityHashCode(object);
+            IdentityMap segment = segments[(hash * 0x9E3779B9 >>> 16) & (segments.length - 1)];
+            Object copy;
+            if (pool == null) copy = segment.get(object, hash);
+            else synchronized (segment) {
+                copy = segment.get(object, hash);
+            }
+            if (copy != null) return copy;
+            try {
+                copy = shallowCopy(object);
+            } catch (InstantiationException e) {
+                failure = e;
+                return null;
+            }
+            if (pool == null) segment.put(object, hash, copy);
+            else synchronized (segment) {
+                // Another task may have copied the same object meanwhile
+                Object previous = segment.putIfAbsent(object, hash, copy);
+                if (previous != null) return previous;
+            }
+            Class<?> clazz = copy.getClass();
+            if (clazz.isArray() ? !clazz.getComponentType().isPrimitive() : COPY_PLAN.get(clazz).hasReferences()) pending.addLast(copy);
+            return copy;
+        }
+
+        // Replaces the references of the pending copies, which still point to the originals
+        private void fill(ArrayDeque<Object> pending) {
+            List<FillTask> forked = null;
+            Object copy;
+            while (failure == null && (copy = pending.pollLast()) != null) {
+                Class<?> clazz = copy.getClass();
+                if (clazz.isArray()) {
+                    Object[] array = (Object[]) copy;
+                    for (int i = 0; i < array.length; i ++) {
+                        array[i] = copyOf(array[i], pending);
+                    }
+                }
+                else {
+                    CopyPlan plan = COPY_PLAN.get(clazz);
+                    for (long offset : plan.referenceOffsets) {
+                        UNSAFE.putObject(copy, offset, copyOf(UNSAFE.getObject(copy, offset), pending));
+                    }
+                    for (FieldAccessor accessor : plan.referenceAccessors) {
+                        accessor.setObject(copy, copyOf(accessor.getObject(copy), pending));
+                    }
+                }
+                if (pool != null && pending.size() > SPLIT_THRESHOLD) {
+                    // The oldest pending copies are the roots of the largest subgraphs
+                    ArrayDeque<Object> half = new ArrayDeque<>();
+                    for (int i = pending.size() / 2; i > 0; i --) {
+                        half.addLast(pending.pollFirst());
+                    }
+                    FillTask task = new FillTask(this, half);
+                    task.fork();
+                    if (forked == null) forked = new ArrayList<>();
+                    forked.add(task);
+                }
+            }
+            if (forked != null) {
+                for (FillTask task : forked) {
+                    task.join();
+                }
+            }
+        }
+
+        // Never serialized, though RecursiveAction is Serializable
+        @SuppressWarnings("serial")
+        private static final class FillTask extends RecursiveAction {
+            private final DeepCloner cloner;
+            private final ArrayDeque<Object> pending;
+            FillTask(DeepCloner cloner, ArrayDeque<Object> pending) {
+                this.cloner = cloner;
+                this.pending = pending;
+            }
+            @Override
+            protected void compute() {
+                cloner.fill(pending);
+            }
+        }
+
+    }
+
+    // An open addressing map comparing the keys by identity, with the keys and values
+    // interleaved in one array, probed linearly; unlike IdentityHashMap, the hash is computed by the caller only once,
+    // and kept in a parallel int[] so that it is not recomputed when the map grows
+    private static final class IdentityMap {
+
+        private Object[] table = new Object[64];
+        private int[] hashes = new int[32];
+        private int size;
+
+        private static int indexOf(int hash, int length) {
+            return ((hash << 1) - (hash << 8)) & (length - 1);
+        }
+
+        Object get(Object key, int hash) {
+            Object[] table = this.table;
+            for (int i = indexOf(hash, table.length); ; i = (i + 2) & (table.length - 1)) {
+                Object item = table[i];
+                if (item == key) return table[i + 1];
+                else if (item == null) return null;
+            }
+        }
+
+        // Returns the value of the key if present; otherwise, puts the key with the value and returns null
+        Object putIfAbsent(Object key, int hash, Object value) {
+            Object[] table = this.table;
+            int i = indexOf(hash, table.length);
+            for (Object item; (item = table[i]) != null; i = (i + 2) & (table.length - 1)) {
+                if (item == key) return table[i + 1];
+            }
+            if ((size + 1) * 3 > table.length) {
+                resize();
+                insert(this.table, hashes, key, hash, value);
+            }
+            else {
+                table[i] = key;
+                table[i + 1] = value;
+                hashes[i >> 1] = hash;
+            }
+            size ++;
+            return null;
+        }
+
+        // The key must not be present yet
+        void put(Object key, int hash, Object value) {
+            if ((size + 1) * 3 > table.length) resize();
+            insert(table, hashes, key, hash, value);
+            size ++;
+        }
+
+        private static void insert(Object[] table, int[] hashes, Object key, int hash, Object value) {
+            int i = indexOf(hash, table.length);
+            while (table[i] != null) i = (i + 2) & (table.length - 1);
+            table[i] = key;
+            table[i + 1] = value;
+            hashes[i >> 1] = hash;
+        }
+
+        private void resize() {
+            Object[] table = this.table;
+            int[] hashes = this.hashes;
+            Object[] resized = new Object[table.length << 1];
+            int[] resizedHashes = new int[hashes.length << 1];
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] != null) insert(resized, resizedHashes, table[i], hashes[i >> 1], table[i + 1]);
+            }
+            this.table = resized;
+            this.hashes = resizedHashes;
+        }
+
+    }
+
+    // ---------------- Snapshot ----------------
+
+    private static final int SNAPSHOT_MAGIC = 0x5343414C;
+    private static final byte SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * <p>Writes a binary snapshot of the graph of the specified object to the specified channel.
+     *
+     * <p>Every object reachable from the specified object through instance fields (including the private
+     * and final ones) and array elements is written once, as the values of its fields, so shared references
+     * and cycles are preserved; the classes need not implement {@link java.io.Serializable}, and no
+     * serialization method is called. The fields of each class are written in the order of a schema,
+     * which is written once per snapshot together with the name of the class, and resolved once per class
+     * as the field accessors (see {@link #fieldAccessor(Field)}) are.
+     *
+     * <p>The snapshot is written in chunks through a fixed-size buffer, so the memory used by this method
+     * does not depend on the size of the snapshot, but only on the number of the written objects.
+     *
+     * <p>The values of the fields are written as they are; in particular, the objects which
+     * depend on identity hash codes (e.g. the keys of an {@link java.util.IdentityHashMap})
+     * are not restored consistently by {@link #readSnapshot(ReadableByteChannel, ClassLoader)}.
+     *
+     * @param object the root object of the graph; may be null
+     * @param channel the channel to write the snapshot to
+     *
+     * @throws IOException    if an I/O error occurs.
+     * @throws NullPointerException    if the specified channel is null
+     *
+     * @see #readSnapshot(ReadableByteChannel, ClassLoader)
+     */
+    public static void writeSnapshot(Object object, WritableByteChannel channel) throws IOException, NullPointerException {
+        new SnapshotWriter(ByteBuffer.allocateDirect(SNAPSHOT_CHUNK_SIZE), Objects.requireNonNull(channel)).write(object);
+    }
+
+    /**
+     * <p>Writes a binary snapshot of the graph of the specified object to the specified buffer, as
+     * {@link #writeSnapshot(Object, WritableByteChannel)} does, starting at its position.
+     *
+     * <p>The position of the buffer is advanced to the end of the snapshot; its byte order is not changed.
+     *
+     * @param object the root object of the graph; may be null
+     * @param buffer the buffer to write the snapshot to
+     *
+     * @throws BufferOverflowException    if the remaining space of the buffer is not enough.
+     * @throws ReadOnlyBufferException    if the buffer is read-only.
+     * @throws NullPointerException    if the specified buffer is null
+     *
+     * @see #readSnapshot(ByteBuffer, ClassLoader)
+     */
+    public static void writeSnapshot(Object object, ByteBuffer buffer) throws BufferOverflowException, ReadOnlyBufferException, NullPointerException {
+        ByteOrder order = buffer.order();
+        try {
+            new SnapshotWriter(buffer.order(ByteOrder.BIG_ENDIAN), null).write(object);
+        } catch (IOException e) {
+            // Never thrown without a channel
+            throw new IllegalStateException(e);
+        } finally {
+            buffer.order(order);
+        }
+    }
+
+    /**
+     * <p>Reads a binary snapshot written by {@link #writeSnapshot(Object, WritableByteChannel)}
+     * from the specified channel, and rebuilds the graph of objects.
+     *
+     * <p>The objects are allocated as by {@link #allocateInstance(Class)}, without running any
+     * constructor, and their fields, including the final ones, are written directly.
+     * The classes are loaded by name, as by {@link Class#forName(String, boolean, ClassLoader)}
+     * without being initialized; their fields must match the schemas of the snapshot.
+     *
+     * <p>The snapshot is read in chunks through a fixed-size buffer, so the channel may be read past its end.
+     *
+     * @param channel the channel to read the snapshot from
+     * @param loader the class loader to load the classes of the snapshot
+     * @return the root object of the graph, or null if the root object was null
+     *
+     * @throws IOException    if an I/O error occurs, if the end of the channel is reached before
+     *           the end of the snapshot, or if the snapshot is corrupted.
+     * @throws InvalidClassException    if the fields of a class do not match its schema in the snapshot.
+     * @throws ClassNotFoundException    if a class of the snapshot cannot be found.
+     * @throws InstantiationException    if a class of the snapshot cannot be allocated.
+     * @throws NullPointerException    if the specified channel is null
+     *
+     * @see #writeSnapshot(Object, WritableByteChannel)
+     */
+    public static Object readSnapshot(ReadableByteChannel channel, ClassLoader loader)
+            throws IOException, ClassNotFoundException, InstantiationException, NullPointerException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_CHUNK_SIZE);
+        buffer.flip();
+        return new SnapshotReader(buffer, Objects.requireNonNull(channel), loader).read();
+    }
+
+    /**
+     * <p>Reads a binary snapshot written by {@link #writeSnapshot(Object, ByteBuffer)} from the specified
+     * buffer, starting at its position, as {@link #readSnapshot(ReadableByteChannel, ClassLoader)} does.
+     *
+     * <p>The position of the buffer is advanced to the end of the snapshot; its byte order is not changed.
+     *
+     * @param buffer the buffer to read the snapshot from
+     * @param loader the class loader to load the classes of the snapshot
+     * @return the root object of the graph, or null if the root object was null
+     *
+     * @throws IOException    if the end of the buffer is reached before
+     *           the end of the snapshot, or if the snapshot is corrupted.
+     * @throws InvalidClassException    if the fields of a class do not match its schema in the snapshot.
+     * @throws ClassNotFoundException    if a class of the snapshot cannot be found.
+     * @throws InstantiationException    if a class of the snapshot cannot be allocated.
+     * @throws NullPointerException    if the specified buffer is null
+     *
+     * @see #writeSnapshot(Object, ByteBuffer)
+     */
+    public static Object readSnapshot(ByteBuffer buffer, ClassLoader loader)
+            throws IOException, ClassNotFoundException, InstantiationException, NullPointerException {
+        ByteOrder order = buffer.order();
+        try {
+            return new SnapshotReader(buffer.order(ByteOrder.BIG_ENDIAN), null, loader).read();
+        } finally {
+            buffer.order(order);
+        }
+    }
+
+    // The instance fields of each class and all its superclasses in a stable order:
+    // the fields of the superclasses first, and the fields declared by each class sorted by name
+    private static final ClassValue<FieldAccessor[]> SNAPSHOT_SCHEMA = new ClassValue<FieldAccessor[]>() {
+        @Override
+        protected FieldAccessor[] computeValue(Class<?> type) {
+            List<Class<?>> hierarchy = new ArrayList<>();
+            for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+                hierarchy.add(0, clazz);
+            }
+            List<FieldAccessor> accessors = new ArrayList<>();
+            for (Class<?> clazz : hierarchy) {
+                Field[] fields = clazz.getDeclaredFields();
+                Arrays.sort(fields, (a, b) -> a.getName().compareTo(b.getName()));
+                for (Field field : fields) {
+                    if (!isStatic(field.getModifiers())) accessors.add(fieldAccessor(field));
+                }
+            }
+            return accessors.toArray(new FieldAccessor[0]);
+        }
+    };
+
+    // The classes whose values are written inline, instead of as fields
+    private static boolean hasSchema(Class<?> clazz) {
+        return !clazz.isArray() && !isImmutable(clazz);
+    }
+
+    private static byte wrapperCode(Class<?> clazz) {
+        for (byte code = TYPE_BOOLEAN; code <= TYPE_DOUBLE; code ++) {
+            if (clazz == WRAPPER_CLASSES[code]) return code;
+        }
+        return TYPE_OBJECT;
+    }
+
+    // References are written as varints: 0 for null, the index of a written object plus 1,
+    // or the number of the written objects plus 1 followed by the class and the inline value of a new object.
+    // The fields of the new objects (and the elements of the new arrays) are written after the reference
+    // which reaches them first, in the same order as the objects are created by the reader
+    private static final class SnapshotWriter {
+
+        private final ByteBuffer buffer;
+        private final WritableByteChannel channel;
+        private final IdentityMap ids = new IdentityMap();
+        private int count;
+        private final Map<Class<?>, Integer> classIds = new HashMap<>();
+        private final ArrayDeque<Object> pending = new ArrayDeque<>();
+
+        SnapshotWriter(ByteBuffer buffer, WritableByteChannel channel) {
+            this.buffer = buffer;
+            this.channel = channel;
+        }
+
+        void write(Object root) throws IOException {
+            ensure(5);
+            buffer.putInt(SNAPSHOT_MAGIC).put(SNAPSHOT_VERSION);
+            writeReference(root);
+            Object object;
+            while ((object = pending.pollFirst()) != null) {
+                Class<?> clazz = object.getClass();
+                if (clazz.isArray()) writeElements(object, clazz.getComponentType());
+                else writeFields(object, SNAPSHOT_SCHEMA.get(clazz));
+            }
+            if (channel != null) flush();
+        }
+
+        private void writeReference(Object object) throws IOException {
+            if (object == null) {
+                writeVarint(0);
+                return;
+            }
+            int hash = System.identityHashCode(object);
+            Object id = ids.get(object, hash);
+            if (id != null) {
+                writeVarint((Integer) id + 1);
+                return;
+            }
+            ids.put(object, hash, count ++);
+            writeVarint(count);
+            Class<?> clazz = object.getClass();
+            if (object instanceof Enum) {
+                writeClass(((Enum<?>) object).getDeclaringClass());
+                writeString(((Enum<?>) object).name());
+            }
+            else {
+                writeClass(clazz);
+                if (clazz == String.class) writeString((String) object);
+                else if (clazz == Class.class) writeString(((Class<?>) object).getName());
+                else if (clazz.isArray()) {
+                    writeVarint(Array.getLength(object));
+                    pending.addLast(object);
+                }
+                else {
+                    byte code = wrapperCode(clazz);
+                    if (code == TYPE_OBJECT) pending.addLast(object);
+                    else writePrimitive(code, object);
+                }
+            }
+        }
+
+        private void writeClass(Class<?> clazz) throws IOException {
+            Integer id = classIds.get(clazz);
+            if (id != null) {
+                writeVarint(id + 1);
+                return;
+            }
+            classIds.put(clazz, classIds.size());
+            writeVarint(0);
+            writeString(clazz.getName());
+            if (hasSchema(clazz)) {
+                FieldAccessor[] accessors = SNAPSHOT_SCHEMA.get(clazz);
+                writeVarint(accessors.length);
+                for (FieldAccessor accessor : accessors) {
+                    writeString(accessor.field.getName());
+                    ensure(1);
+                    buffer.put(accessor.typeCode);
+                }
+            }
+        }
+
+        private void writeFields(Object object, FieldAccessor[] accessors) throws IOException {
+            for (FieldAccessor accessor : accessors) {
+                switch (accessor.typeCode) {
+                    case TYPE_BOOLEAN: ensure(1); buffer.put(accessor.getBoolean(object) ? (byte) 1 : (byte) 0); break;
+                    case TYPE_BYTE: ensure(1); buffer.put(accessor.getByte(object)); break;
+                    case TYPE_CHAR: ensure(2); buffer.putChar(accessor.getChar(object)); break;
+                    case TYPE_SHORT: ensure(2); buffer.putShort(accessor.getShort(object)); break;
+                    case TYPE_INT: ensure(4); buffer.putInt(accessor.getInt(object)); break;
+                    case TYPE_LONG: ensure(8); buffer.putLong(accessor.getLong(object)); break;
+                    case TYPE_FLOAT: ensure(4); buffer.putFloat(accessor.getFloat(object)); break;
+                    case TYPE_DOUBLE: ensure(8); buffer.putDouble(accessor.getDouble(object)); break;
+                    default: writeReference(accessor.getObject(object)); break;
+                }
+            }
+        }
+
+        private void writePrimitive(byte code, Object value) throws IOException {
+            switch (code) {
+                case TYPE_BOOLEAN: ensure(1); buffer.put((Boolean) value ? (byte) 1 : (byte) 0); break;
+                case TYPE_BYTE: ensure(1); buffer.put((Byte) value); break;
+                case TYPE_CHAR: ensure(2); buffer.putChar((Character) value); break;
+                case TYPE_SHORT: ensure(2); buffer.putShort((Short) value); break;
+                case TYPE_INT: ensure(4); buffer.putInt((Integer) value); break;
+                case TYPE_LONG: ensure(8); buffer.putLong((Long) value); break;
+                case TYPE_FLOAT: ensure(4); buffer.putFloat((Float) value); break;
+                case TYPE_DOUBLE: ensure(8); buffer.putDouble((Double) value); break;
+            }
+        }
+
+        // The primitive arrays are written in bulk, as many elements as the buffer can hold at a time
+        private void writeElements(Object array, Class<?> componentType) throws IOException {
+            if (!componentType.isPrimitive()) {
+                for (Object element : (Object[]) array) {
+                    writeReference(element);
+                }
+                return;
+            }
+            int length = Array.getLength(array);
+            for (int offset = 0, n; offset < length; offset += n) {
+                switch (typeCode(componentType)) {
+                    case TYPE_BOOLEAN:
+                        n = room(1, length - offset);
+                        for (int i = offset; i < offset + n; i ++) {
+                            buffer.put(((boolean[]) array)[i] ? (byte) 1 : (byte) 0);
+                        }
+                        break;
+                    case TYPE_BYTE: n = room(1, length - offset); buffer.put((byte[]) array, offset, n); break;
+                    case TYPE_CHAR: n = room(2, length - offset); buffer.asCharBuffer().put((char[]) array, offset, n); skip(n << 1); break;
+                    case TYPE_SHORT: n = room(2, length - offset); buffer.asShortBuffer().put((short[]) array, offset, n); skip(n << 1); break;
+                    case TYPE_INT: n = room(4, length - offset); buffer.asIntBuffer().put((int[]) array, offset, n); skip(n << 2); break;
+                    case TYPE_LONG: n = room(8, length - offset); buffer.asLongBuffer().put((long[]) array, offset, n); skip(n << 3); break;
+                    case TYPE_FLOAT: n = room(4, length - offset); buffer.asFloatBuffer().put((float[]) array, offset, n); skip(n << 2); break;
+                    default: n = room(8, length - offset); buffer.asDoubleBuffer().put((double[]) array, offset, n); skip(n << 3); break;
+                }
+            }
+        }
+
+        private void writeString(String string) throws IOException {
+            int length = string.length();
+            writeVarint(length);
+            for (int offset = 0, n; offset < length; offset += n) {
+                n = room(2, length - offset);
+                for (int i = offset; i < offset + n; i ++) {
+                    buffer.putChar(string.charAt(i));
+                }
+            }
+        }
+
+        private void writeVarint(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private void skip(int length) {
+            buffer.position(buffer.position() + length);
+        }
+
+        // Returns the number of the elements of the specified size which can be written at once, at least 1
+        private int room(int size, int length) throws IOException {
+            ensure(size);
+            return Math.min(buffer.remaining() / size, length);
+        }
+
+        private void ensure(int length) throws IOException {
+            if (buffer.remaining() < length) {
+                if (channel == null) throw new BufferOverflowException();
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+    }
+
+    private static final class SnapshotReader {
+
+        private final ByteBuffer buffer;
+        private final ReadableByteChannel channel;
+        private final ClassLoader loader;
+        private final List<Object> objects = new ArrayList<>();
+        private final List<Class<?>> classes = new ArrayList<>();
+        private final ArrayDeque<Object> pending = new ArrayDeque<>();
+
+        SnapshotReader(ByteBuffer buffer, ReadableByteChannel channel, ClassLoader loader) {
+            this.buffer = buffer;
+            this.channel = channel;
+            this.loader = loader;
+        }
+
+        Object read() throws IOException, ClassNotFoundException, InstantiationException {
+            require(5);
+            if (buffer.getInt() != SNAPSHOT_MAGIC) throw new StreamCorruptedException("Not a snapshot");
+            byte version = buffer.get();
+            if (version != SNAPSHOT_VERSION) throw new StreamCorruptedException("Unsupported snapshot version: " + version);
+            Object root = readReference();
+            Object object;
+            while ((object = pending.pollFirst()) != null) {
+                Class<?> clazz = object.getClass();
+                if (clazz.isArray()) readElements(object, clazz.getComponentType());
+                else readFields(object, SNAPSHOT_SCHEMA.get(clazz));
+            }
+            // Publishes the written final fields
+            if (UNSAFE != null) UNSAFE.storeFence();
+            return root;
+        }
+
+        private Object readReference() throws IOException, ClassNotFoundException, InstantiationException {
+            int reference = readVarint();
+            if (reference == 0) return null;
+            else if (reference <= objects.size()) return objects.get(reference - 1);
+            else if (reference != objects.size() + 1) throw new StreamCorruptedException("Invalid reference: " + reference);
+            Class<?> clazz = readClass();
+            Object object;
+            if (clazz == String.class) object = readString();
+            else if (clazz == Class.class) object = classForName(readString());
+            else if (Enum.class.isAssignableFrom(clazz)) object = enumValueOf(clazz, readString());
+            else if (clazz.isArray()) {
+                object = Array.newInstance(clazz.getComponentType(), readVarint());
+                pending.addLast(object);
+            }
+            else {
+                byte code = wrapperCode(clazz);
+                if (code == TYPE_OBJECT) {
+                    object = allocateInstance(clazz);
+                    pending.addLast(object);
+                }
+                else object = readPrimitive(code);
+            }
+            objects.add(object);
+            return object;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Object enumValueOf(Class<?> clazz, String name) throws InvalidObjectException {
+            try {
+                return Enum.valueOf((Class) clazz, name);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidObjectException("No enum constant " + clazz.getName() + "." + name);
+            }
+        }
+
+        private Class<?> readClass() throws IOException, ClassNotFoundException {
+            int reference = readVarint();
+            if (reference > 0) {
+                if (reference > classes.size()) throw new StreamCorruptedException("Invalid class reference: " + reference);
+                return classes.get(reference - 1);
+            }
+            String name = readString();
+            Class<?> clazz = Class.forName(name, false, loader);
+            if (hasSchema(clazz)) {
+                FieldAccessor[] accessors = SNAPSHOT_SCHEMA.get(clazz);
+                int length = readVarint();
+                if (length != accessors.length) throw new InvalidClassException(name, "Incompatible number of fields");
+                for (FieldAccessor accessor : accessors) {
+                    String fieldName = readString();
+                    require(1);
+                    if (!fieldName.equals(accessor.field.getName()) || buffer.get() != accessor.typeCode)
+                        throw new InvalidClassException(name, "Incompatible field " + fieldName);
+                }
+            }
+            classes.add(clazz);
+            return clazz;
+        }
+
+        private Class<?> classForName(String name) throws ClassNotFoundException {
+            switch (name) {
+                case "boolean": return boolean.class;
+                case "byte": return byte.class;
+                case "char": return char.class;
+                case "short": return short.class;
+                case "int": return int.class;
+                case "long": return long.class;
+                case "float": return float.class;
+                case "double": return double.class;
+                case "void": return void.class;
+                default: return Class.forName(name, false, loader);
+            }
+        }
+
+        private void readFields(Object object, FieldAccessor[] accessors) throws IOException, ClassNotFoundException, InstantiationException {
+            for (FieldAccessor accessor : accessors) {
+                switch (accessor.typeCode) {
+                    case TYPE_BOOLEAN: require(1); accessor.setBoolean(object, buffer.get() != 0); break;
+                    case TYPE_BYTE: require(1); accessor.setByte(object, buffer.get()); break;
+                    case TYPE_CHAR: require(2); accessor.setChar(object, buffer.getChar()); break;
+                    case TYPE_SHORT: require(2); accessor.setShort(object, buffer.getShort()); break;
+                    case TYPE_INT: require(4); accessor.setInt(object, buffer.getInt()); break;
+                    case TYPE_LONG: require(8); accessor.setLong(object, buffer.getLong()); break;
+                    case TYPE_FLOAT: require(4); accessor.setFloat(object, buffer.getFloat()); break;
+                    case TYPE_DOUBLE: require(8); accessor.setDouble(object, buffer.getDouble()); break;
+                    default:
+                        Object value = readReference();
+                        if (value != null && !accessor.type.isInstance(value))
+                            throw new InvalidObjectException("Incompatible value of field " + accessor.field.getName());
+                        accessor.setObject(object, value);
+                        break;
+                }
+            }
+        }
+
+        private Object readPrimitive(byte code) throws IOException {
+            switch (code) {
+                case TYPE_BOOLEAN: require(1); return buffer.get() != 0;
+                case TYPE_BYTE: require(1); return buffer.get();
+                case TYPE_CHAR: require(2); return buffer.getChar();
+                case TYPE_SHORT: require(2); return buffer.getShort();
+                case TYPE_INT: require(4); return buffer.getInt();
+                case TYPE_LONG: require(8); return buffer.getLong();
+                case TYPE_FLOAT: require(4); return buffer.getFloat();
+                default: require(8); return buffer.getDouble();
+            }
+        }
+
+        private void readElements(Object array, Class<?> componentType) throws IOException, ClassNotFoundException, InstantiationException {
+            if (!componentType.isPrimitive()) {
+                Object[] elements = (Object[]) array;
+                for (int i = 0; i < elements.length; i ++) {
+                    Object element = readReference();
+                    if (element != null && !componentType.isInstance(element))
+                        throw new InvalidObjectException("Incompatible array element at " + i);
+                    elements[i] = element;
+                }
+                return;
+            }
+            int length = Array.getLength(array);
+            for (int offset = 0, n; offset < length; offset += n) {
+                switch (typeCode(componentType)) {
+                    case TYPE_BOOLEAN:
+                        n = available(1, length - offset);
+                        for (int i = offset; i < offset + n; i ++) {
+                            ((boolean[]) array)[i] = buffer.get() != 0;
+                        }
+                        break;
+                    case TYPE_BYTE: n = available(1, length - offset); buffer.get((byte[]) array, offset, n); break;
+                    case TYPE_CHAR: n = available(2, length - offset); buffer.asCharBuffer().get((char[]) array, offset, n); skip(n << 1); break;
+                    case TYPE_SHORT: n = available(2, length - offset); buffer.asShortBuffer().get((short[]) array, offset, n); skip(n << 1); break;
+                    case TYPE_INT: n = available(4, length - offset); buffer.asIntBuffer().get((int[]) array, offset, n); skip(n << 2); break;
+                    case TYPE_LONG: n = available(8, length - offset); buffer.asLongBuffer().get((long[]) array, offset, n); skip(n << 3); break;
+                    case TYPE_FLOAT: n = available(4, length - offset); buffer.asFloatBuffer().get((float[]) array, offset, n); skip(n << 2); break;
+                    default: n = available(8, length - offset); buffer.asDoubleBuffer().get((double[]) array, offset, n); skip(n << 3); break;
+                }
+            }
+        }
+
+        private String readString() throws IOException {
+            int length = readVarint();
+            StringBuilder builder = new StringBuilder(length);
+            for (int offset = 0, n; offset < length; offset += n) {
+                n = available(2, length - offset);
+                for (int i = 0; i < n; i ++) {
+                    builder.append(buffer.getChar());
+                }
+            }
+            return builder.toString();
+        }
+
+        private int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                require(1);
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    if (value < 0) throw new StreamCorruptedException("Invalid varint");
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Invalid varint");
+        }
+
+        private void skip(int length) {
+            buffer.position(buffer.position() + length);
+        }
+
+        // Returns the number of the elements of the specified size which can be read at once, at least 1
+        private int available(int size, int length) throws IOException {
+            require(size);
+            return Math.min(buffer.remaining() / size, length);
+        }
+
+        private void require(int length) throws IOException {
+            if (buffer.remaining() < length) {
+                if (channel == null) throw new EOFException();
+                buffer.compact();
+                while (buffer.position() < length) {
+                    if (channel.read(buffer) < 0) throw new EOFException();
+                }
+                buffer.flip();
+            }
+        }
+
+    }
+
+    // ---------------- Layout ----------------
+
+    // The fields of an instance start right after its header
+    private static final class HeaderProbe {
+        @SuppressWarnings("unused")
+        private byte value;
+    }
+
+    private static final int OBJECT_ALIGNMENT;
+    static {
+        int alignment = 8;
+        try {
+            // com.sun.management may be unavailable, so it is accessed reflectively
+            Class<?> beanClass = Class.forName("com.sun.management.HotSpotDiagnosticMXBean");
+            Object bean = Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getPlatformMXBean", Class.class).invoke(null, beanClass);
+            Object option = beanClass.getMethod("getVMOption", String.class).invoke(bean, "ObjectAlignmentInBytes");
+            alignment = Integer.parseInt((String) option.getClass().getMethod("getValue").invoke(option));
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError ignored) {
+        }
+        OBJECT_ALIGNMENT = alignment;
+    }
+
+    private static long align(long size) {
+        return (size + OBJECT_ALIGNMENT - 1) & -OBJECT_ALIGNMENT;
+    }
+
+    private static int fieldSize(Class<?> type) {
+        switch (typeCode(type)) {
+            case TYPE_BOOLEAN: case TYPE_BYTE: return 1;
+            case TYPE_CHAR: case TYPE_SHORT: return 2;
+            case TYPE_INT: case TYPE_FLOAT: return 4;
+            case TYPE_LONG: case TYPE_DOUBLE: return 8;
+            default: return Unsafe.ARRAY_OBJECT_INDEX_SCALE;
+        }
+    }
+
+    /**
+     * <p>Returns the memory layout of the instances of the specified class.
+     *
+     * <p>The layout is computed from the field offsets reported by {@code sun.misc.Unsafe}, with the header
+     * size of the running VM, the size of the references (4 bytes with compressed oops) and
+     * the {@code ObjectAlignmentInBytes} of the VM. If the native library has access to JVMTI and
+     * the class is concrete and already initialized, the shallow size is cross-checked against
+     * the JVMTI {@code GetObjectSize} of an instance allocated without running any constructor,
+     * which is trusted if they differ (see {@link ObjectLayout#isVerified()}); this method never initializes the class.
+     *
+     * <p>The layout is computed once per class and cached.
+     *
+     * @param clazz the class of the instances
+     * @return the layout of the instances of the class
+     *
+     * @throws IllegalArgumentException    if the specified class is an array class, a primitive type or an interface.
+     * @throws UnsupportedOperationException    if {@code sun.misc.Unsafe} is not available,
+     *           or if the field offsets of the class are not available (e.g. for the hidden classes and the records).
+     * @throws NullPointerException    if the specified class is null
+     *
+     * @see #sizeOf(Object)
+     */
+    public static ObjectLayout layoutOf(Class<?> clazz) throws IllegalArgumentException, UnsupportedOperationException, NullPointerException {
+        if (clazz.isArray() || clazz.isPrimitive() || clazz.isInterface())
+            throw new IllegalArgumentException("Not an instance class: " + clazz.getTypeName());
+        if (UNSAFE == null) throw new UnsupportedOperationException("sun.misc.Unsafe not available");
+        return OBJECT_LAYOUT.get(clazz);
+    }
+
+    /**
+     * <p>Returns the shallow size of the specified object, including its header and padding.
+     *
+     * <p>The size is reported by the JVMTI {@code GetObjectSize} of the native library if it has access to JVMTI;
+     * otherwise, it is computed by {@link #layoutOf(Class)} for an instance, or from the base offset and the
+     * index scale of {@code sun.misc.Unsafe} for an array.
+     *
+     * @param object the object to be measured
+     * @return the shallow size of the object in bytes
+     *
+     * @throws UnsupportedOperationException    if the size cannot be determined.
+     * @throws NullPointerException    if the specified object is null
+     */
+    public static long sizeOf(Object object) throws UnsupportedOperationException, NullPointerException {
+        Class<?> clazz = object.getClass();
+        long size = isNativeLibrariesAvailable() ? GetObjectSize(object) : -1L;
+        if (size >= 0) return size;
+        if (UNSAFE == null) throw new UnsupportedOperationException("sun.misc.Unsafe not available");
+        if (clazz.isArray()) return align(UNSAFE.arrayBaseOffset(clazz) + (long) UNSAFE.arrayIndexScale(clazz) * Array.getLength(object));
+        else return OBJECT_LAYOUT.get(clazz).getInstanceSize();
+    }
+
+    private static final ClassValue<ObjectLayout> OBJECT_LAYOUT = new ClassValue<ObjectLayout>() {
+        @Override
+        protected ObjectLayout computeValue(Class<?> type) {
+            return new ObjectLayout(type);
+        }
+    };
+
+    /**
+     * <p>The memory layout of the instances of a class, obtained by {@link #layoutOf(Class)}.
+     *
+     * <p>The instance fields of the class and all its superclasses are listed in the order of their offsets,
+     * together with the gaps the VM left before them, e.g. to align a {@code long} field.
+     *
+     * @see #layoutOf(Class)
+     */
+    public static final class ObjectLayout {
+
+        private final Class<?> type;
+        private final int headerSize;
+        private final List<FieldLayout> fields;
+        private final long instanceSize;
+        private final boolean verified;
+
+        ObjectLayout(Class<?> type) throws UnsupportedOperationException {
+            this.type = type;
+            this.headerSize = type == HeaderProbe.class ? 0 : (int) layoutOf(HeaderProbe.class).fields.get(0).offset;
+            List<FieldLayout> fields = new ArrayList<>();
+            for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (!isStatic(field.getModifiers())) fields.add(new FieldLayout(field, UNSAFE.objectFieldOffset(field)));
+                }
+            }
+            fields.sort((a, b) -> Long.compare(a.offset, b.offset));
+            long end = headerSize;
+            for (FieldLayout field : fields) {
+                field.gap = Math.max(0L, field.offset - end);
+                end = Math.max(end, field.offset + field.size);
+            }
+            this.fields = Collections.unmodifiableList(fields);
+            long instanceSize = align(end);
+            boolean verified = false;
+            if (isNativeLibrariesAvailable() && !isAbstract(type.getModifiers()) && IsClassInitialized(type)) {
+                try {
+                    long size = GetObjectSize(UNSAFE.allocateInstance(type));
+                    if (size >= 0) {
+                        instanceSize = size;
+                        verified = true;
+                    }
+                } catch (InstantiationException ignored) {
+                }
+            }
+            this.instanceSize = instanceSize;
+            this.verified = verified;
+        }
+
+        /**
+         * Returns the class of the instances.
+         *
+         * @return the class of the instances
+         */
+        public Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * Returns the size of the object header, which precedes the fields.
+         *
+         * @return the size of the header in bytes
+         */
+        public int getHeaderSize() {
+            return headerSize;
+        }
+
+        /**
+         * Returns the layouts of the instance fields of the class and all its superclasses, in the order of their offsets.
+         *
+         * @return the unmodifiable list of the field layouts
+         */
+        public List<FieldLayout> getFields() {
+            return fields;
+        }
+
+        /**
+         * Returns the shallow size of an instance, including the header and the padding.
+         *
+         * @return the size of an instance in bytes
+         */
+        public long getInstanceSize() {
+            return instanceSize;
+        }
+
+        /**
+         * Returns the total size of the gaps between the header and the fields.
+         *
+         * @return the size of the gaps in bytes
+         */
+        public long getGapSize() {
+            long size = 0;
+            for (FieldLayout field : fields) {
+                size += field.gap;
+            }
+            return size;
+        }
+
+        /**
+         * Returns the size of the padding after the last field, up to the shallow size of an instance.
+         *
+         * @return the size of the padding in bytes
+         */
+        public long getPaddingSize() {
+            long end = headerSize;
+            for (FieldLayout field : fields) {
+                end = Math.max(end, field.offset + field.size);
+            }
+            return instanceSize - end;
+        }
+
+        /**
+         * Returns whether the shallow size was reported by JVMTI, rather than only computed from the field offsets.
+         *
+         * @return {@code true} if the shallow size was reported by JVMTI
+         */
+        public boolean isVerified() {
+            return verified;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(type.getTypeName()).append(" object internals:\n");
+            builder.append(String.format("%8s %6s %s%n", "OFFSET", "SIZE", "DESCRIPTION"));
+            builder.append(String.format("%8d %6d %s%n", 0, headerSize, "(object header)"));
+            long end = headerSize;
+            for (FieldLayout field : fields) {
+                if (field.gap > 0) builder.append(String.format("%8d %6d %s%n", end, field.gap, "(alignment gap)"));
+                builder.append(String.format("%8d %6d %s %s.%s%n", field.offset, field.size,
+                        field.field.getType().getTypeName(), field.field.getDeclaringClass().getSimpleName(), field.field.getName()));
+                end = Math.max(end, field.offset + field.size);
+            }
+            if (instanceSize > end) builder.append(String.format("%8d %6d %s%n", end, instanceSize - end, "(padding)"));
+            return builder.append("Instance size: ").append(instanceSize).append(" bytes").toString();
+        }
+
+    }
+
+    /**
+     * <p>The placement of an instance field, obtained by {@link ObjectLayout#getFields()}.
+     *
+     * @see ObjectLayout
+     */
+    public static final class FieldLayout {
+
+        private final Field field;
+        private final long offset;
+        private final int size;
+        private long gap;
+
+        FieldLayout(Field field, long offset) {
+            this.field = field;
+            this.offset = offset;
+            this.size = fieldSize(field.getType());
+        }
+
+        /**
+         * Returns the underlying field.
+         *
+         * @return the underlying field
+         */
+        public Field getField() {
+            return field;
+        }
+
+        /**
+         * Returns the offset of the field from the start of the object.
+         *
+         * @return the offset in bytes
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Returns the size of the field, which is the size of a reference for a non-primitive field.
+         *
+         * @return the size in bytes
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the size of the unused gap right before the field.
+         *
+         * @return the size of the gap in bytes
+         */
+        public long getGap() {
+            return gap;
+        }
+
+        @Override
+        public String toString() {
+            return field.getName() + "@" + offset + "(" + size + ")";
+        }
+
+    }
+
+    /**
+     * A callback of {@link #walk(Object, Visitor)}, called once for each reachable object.
+     *
+     * @see #walk(Object, Visitor)
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * Visits a reachable object.
+         *
+         * @param object the reached object, never null
+         * @return {@code true} to walk through the references of the object; {@code false} to skip them
+         */
+        boolean visit(Object object);
+
+    }
+
+    /**
+     * <p>Walks the graph of the objects reachable from the specified object, visiting each of them once.
+     *
+     * <p>The graph is traversed through the instance fields of the objects (including the private and final ones,
+     * regardless of the module encapsulation) and the elements of the arrays, depth-first, with an explicit stack,
+     * so its depth is not limited by the stack. The reference fields of each class are resolved once and cached.
+     * A {@link Class} object is visited, but its references, which lead to the VM metadata and the class loader, are not walked.
+     *
+     * @param root the object to walk from; may be null
+     * @param visitor the callback called for each reachable object
+     *
+     * @throws NullPointerException    if the specified visitor is null
+     *
+     * @see #retainedSize(Object)
+     */
+    public static void walk(Object root, Visitor visitor) throws NullPointerException {
+        Objects.requireNonNull(visitor);
+        if (root == null) return;
+        // Each visited object is mapped to itself
+        IdentityMap visited = new IdentityMap();
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        visited.put(root, System.identityHashCode(root), root);
+        pending.addLast(root);
+        Object object;
+        while ((object = pending.pollLast()) != null) {
+            if (!visitor.visit(object)) continue;
+            Class<?> clazz = object.getClass();
+            if (clazz == Class.class) continue;
+            if (clazz.isArray()) {
+                if (clazz.getComponentType().isPrimitive()) continue;
+                for (Object element : (Object[]) object) {
+                    reach(element, visited, pending);
+                }
+            }
+            else {
+                CopyPlan plan = COPY_PLAN.get(clazz);
+                for (long offset : plan.referenceOffsets) {
+                    reach(UNSAFE.getObject(object, offset), visited, pending);
+                }
+                for (FieldAccessor accessor : plan.referenceAccessors) {
+                    reach(accessor.getObject(object), visited, pending);
+                }
+            }
+        }
+    }
+
+    private static void reach(Object object, IdentityMap visited, ArrayDeque<Object> pending) {
+        if (object != null && visited.putIfAbsent(object, System.identityHashCode(object), object) == null) pending.addLast(object);
+    }
+
+    /**
+     * <p>Returns the total shallow size (see {@link #sizeOf(Object)}) of the objects reachable from the specified object,
+     * as walked by {@link #walk(Object, Visitor)}, counting each of them once.
+     *
+     * <p>The {@link Class} objects and the enum constants, which are shared rather than retained by a graph,
+     * are neither counted nor walked through. The objects reachable from outside the graph are counted as well,
+     * so the result is an upper bound of the memory which would be freed if the specified object became unreachable.
+     *
+     * <p>The sizes are computed from the cached layouts of the classes (see {@link #layoutOf(Class)}) whenever possible,
+     * falling back to JVMTI.
+     *
+     * @param root the object to walk from; may be null
+     * @return the total size of the reachable objects in bytes, or 0 if the object is null
+     *
+     * @throws UnsupportedOperationException    if the size of a reachable object cannot be determined.
+     */
+    public static long retainedSize(Object root) throws UnsupportedOperationException {
+        long[] size = new long[1];
+        walk(root, object -> {
+            if (object instanceof Class || object instanceof Enum) return false;
+            size[0] += shallowSize(object);
+            return true;
+        });
+        return size[0];
+    }
+
+    // The shallow size of the instances of each class, or -1 if the layout is not available
+    private static final ClassValue<Long> INSTANCE_SIZE = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            if (UNSAFE == null) return -1L;
+            try {
+                return OBJECT_LAYOUT.get(type).getInstanceSize();
+            } catch (UnsupportedOperationException e) {
+                return -1L;
+            }
+        }
+    };
+
+    // Avoids the native call of sizeOf whenever the size is known from the layout
+    private static long shallowSize(Object object) throws UnsupportedOperationException {
+        Class<?> clazz = object.getClass();
+        if (UNSAFE != null && clazz.isArray())
+            return align(UNSAFE.arrayBaseOffset(clazz) + (long) UNSAFE.arrayIndexScale(clazz) * Array.getLength(object));
+        long size = INSTANCE_SIZE.get(clazz);
+        return size < 0 ? sizeOf(object) : size;
+    }
+
+    // ---------------- ClassAccess ----------------
+
+    private static final ClassValue<ClassAccess> CLASS_ACCESS = new ClassValue<ClassAccess>() {
+        @Override
+        protected ClassAccess computeValue(Class<?> type) {
+            return resolveClassAccess(type);
+        }
+    };
+
+    /**
+     * <p>Returns the index-based accessor of the members declared by the specified class.
+     *
+     * <p>Whenever possible, a subclass of {@link ClassAccess} is generated and defined in the runtime package
+     * of the class, i.e. with the same name of package and with the same {@code ClassLoader},
+     * which accesses the non-private members with plain {@code getfield}, {@code putfield},
+     * {@code invokevirtual} (and so on) instructions selected by a {@code switch} over the index.
+     * The private members, and all the members of a class whose {@code ClassLoader} can not see
+     * {@link ClassAccess} (e.g. the classes of the JRE), are accessed through their cached
+     * {@link #fieldAccessor(Field) accessors} and {@link #methodInvoker(Method) invokers} instead.
+     *
+     * <p>The accessor is created once per class and cached.
+     *
+     * @param clazz the class whose declared members should be accessed
+     * @return the accessor of the members declared by the class
+     *
+     * @throws    IllegalArgumentException if the specified class is a primitive type or an array class.
+     * @throws    NullPointerException if the specified class is null.
+     */
+    public static ClassAccess classAccess(Class<?> clazz) throws IllegalArgumentException, NullPointerException {
+        if (clazz.isPrimitive() || clazz.isArray()) throw new IllegalArgumentException("Illegal class; expected a class or interface");
+        return CLASS_ACCESS.get(clazz);
+    }
+
+    private static ClassAccess resolveClassAccess(Class<?> type) {
+        Field[] fields = type.getDeclaredFields();
+        Method[] methods = type.getDeclaredMethods();
+        Constructor<?>[] constructors = type.getDeclaredConstructors();
+        // Hidden classes can not be referred to by name
+        if (type.getName().indexOf('/') == -1 && isVisible(ClassAccess.class, type)) {
+            String name = type.getName() + "$ScalpelAccess";
+            byte[] bytecode = new ClassAccessWriter(name, type, fields, methods, constructors).toByteArray();
+            if (bytecode != null) {
+                try {
+                    Class<?> accessClass = defineClass(name, type.getClassLoader(), bytecode, 0, bytecode.length, type.getProtectionDomain());
+                    return (ClassAccess) constructorInvoker(accessClass.getDeclaredConstructor(Class.class, Field[].class, Method[].class, Constructor[].class))
+                            .newInstance(type, fields, methods, constructors);
+                } catch (LinkageError | SecurityException | ReflectiveOperationException ignored) {
+                    // e.g. a sealed package, or a package of a named module which can not read this class
+                }
+            }
+        }
+        return new ReflectClassAccess(type, fields, methods, constructors);
+    }
+
+    /**
+     * <p>An index-based accessor of the fields, methods and constructors declared by a class,
+     * obtained by {@link #classAccess(Class)}.
+     *
+     * <p>The members are indexed in the order of {@link Class#getDeclaredFields()},
+     * {@link Class#getDeclaredMethods()} and {@link Class#getDeclaredConstructors()}, which are
+     * available through {@link #getFields()}, {@link #getMethods()} and {@link #getConstructors()}.
+     * Apart from the index, the methods behave the same as the ones of {@link FieldAccessor},
+     * {@link MethodInvoker} and {@link ConstructorInvoker}.
+     *
+     * <p>The {@code protected} methods are the unchecked operations overridden by the generated subclasses.
+     */
+    public static abstract class ClassAccess {
+
+        private final Class<?> type;
+        private final Field[] fields;
+        private final Method[] methods;
+        private final Constructor<?>[] constructors;
+        private final FieldAccessor[] fieldAccessors;
+        private final MethodInvoker[] methodInvokers;
+        private final ConstructorInvoker<?>[] constructorInvokers;
+
+        /**
+         * Creates an accessor of the specified members.
+         *
+         * @param type the class declaring the members
+         * @param fields the fields declared by the class
+         * @param methods the methods declared by the class
+         * @param constructors the constructors declared by the class
+         */
+        protected ClassAccess(Class<?> type, Field[] fields, Method[] methods, Constructor<?>[] constructors) {
+            this.type = type;
+            this.fields = fields;
+            this.methods = methods;
+            this.constructors = constructors;
+            this.fieldAccessors = new FieldAccessor[fields.length];
+            this.methodInvokers = new MethodInvoker[methods.length];
+            this.constructorInvokers = new ConstructorInvoker<?>[constructors.length];
+        }
+
+        /**
+         * Returns the class declaring the members.
+         *
+         * @return the class declaring the members
+         */
+        public Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * Returns whether this accessor is generated, i.e. whether it accesses the non-private members directly.
+         *
+         * @return {@code true} if this accessor is generated; {@code false} otherwise
+         */
+        public boolean isGenerated() {
+            return !(this instanceof ReflectClassAccess);
+        }
+
+        /**
+         * Returns the fields, indexed by their position in the array.
+         *
+         * @return a copy of the fields declared by the class
+         */
+        public Field[] getFields() {
+            return fields.clone();
+        }
+
+        /**
+         * Returns the methods, indexed by their position in the array.
+         *
+         * @return a copy of the methods declared by the class
+         */
+        public Method[] getMethods() {
+            return methods.clone();
+        }
+
+        /**
+         * Returns the constructors, indexed by their position in the array.
+         *
+         * @return a copy of the constructors declared by the class
+         */
+        public Constructor<?>[] getConstructors() {
+            return constructors.clone();
+        }
+
+        /**
+         * Returns the index of the field with the specified name.
+         *
+         * @param name the name of the field
+         * @return the index of the field
+         *
+         * @throws    IllegalArgumentException if there is no such field.
+         * @throws    NullPointerException if the specified name is null.
+         */
+        public int getFieldIndex(String name) throws IllegalArgumentException, NullPointerException {
+            for (int i = 0; i < fields.length; i ++) {
+                if (fields[i].getName().equals(name)) return i;
+            }
+            throw new IllegalArgumentException("No such field: " + name);
+        }
+
+        /**
+         * Returns the index of the method with the specified name and parameter types.
+         *
+         * @param name the name of the method
+         * @param parameterTypes the parameter types of the method
+         * @return the index of the method
+         *
+         * @throws    IllegalArgumentException if there is no such method.
+         * @throws    NullPointerException if the specified name is null.
+         */
+        public int getMethodIndex(String name, Class<?>... parameterTypes) throws IllegalArgumentException, NullPointerException {
+            if (parameterTypes == null) parameterTypes = new Class<?>[0];
+            int index = -1;
+            for (int i = 0; i < methods.length; i ++) {
+                if (methods[i].getName().equals(name) && Arrays.equals(methods[i].getParameterTypes(), parameterTypes)) {
+                    // Prefer the most specific one over the bridge methods
+                    if (index == -1 || methods[index].getReturnType().isAssignableFrom(methods[i].getReturnType())) index = i;
+                }
+            }
+            if (index == -1) throw new IllegalArgumentException("No such method: " + name + Arrays.toString(parameterTypes));
+            return index;
+        }
+
+        /**
+         * Returns the index of the constructor with the specified parameter types.
+         *
+         * @param parameterTypes the parameter types of the constructor
+         * @return the index of the constructor
+         *
+         * @throws    IllegalArgumentException if there is no such constructor.
+         */
+        public int getConstructorIndex(Class<?>... parameterTypes) throws IllegalArgumentException {
+            if (parameterTypes == null) parameterTypes = new Class<?>[0];
+            for (int i = 0; i < constructors.length; i ++) {
+                if (Arrays.equals(constructors[i].getParameterTypes(), parameterTypes)) return i;
+            }
+            throw new IllegalArgumentException("No such constructor: " + Arrays.toString(parameterTypes));
+        }
+
+        /**
+         * Gets the value of the non-primitive field at the specified index.
+         *
+         * @param object the object to extract the value from
+         * @param index the index of the field
+         * @return the value of the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field value is primitive.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#getObject(Object)
+         */
+        public final Object getObject(Object object, int index) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkObjectType();
+            return getObjectUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index);
+        }
+
+        /**
+         * Gets the value of the {@code boolean} field at the specified index.
+         *
+         * @param object the object to extract the value from
+         * @param index the index of the field
+         * @return the value of the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code boolean} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#getBoolean(Object)
+         */
+        public final boolean getBoolean(Object object, int index) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(boolean.class);
+            return getBooleanUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index);
+        }
+
+        /**
+         * Gets the value of the {@code byte} field at the specified index.
+         *
+         * @param object the object to extract the value from
+         * @param index the index of the field
+         * @return the value of the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code byte} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#getByte(Object)
+         */
+        public final byte getByte(Object object, int index) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(byte.class);
+            return getByteUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index);
+        }
+
+        /**
+         * Gets the value of the {@code char} field at the specified index.
+         *
+         * @param object the object to extract the value from
+         * @param index the index of the field
+         * @return the value of the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code char} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#getChar(Object)
+         */
+        public final char getChar(Object object, int index) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(char.class);
+            return getCharUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index);
+        }
+
+        /**
+         * Gets the value of the {@code short} field at the specified index.
+         *
+         * @param object the object to extract the value from
+         * @param index the index of the field
+         * @return the value of the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code short} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#getShort(Object)
+         */
+        public final short getShort(Object object, int index) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(short.class);
+            return getShortUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index);
+        }
+
+        /**
+         * Gets the value of the {@code int} field at the specified index.
+         *
+         * @param object the object to extract the value from
+         * @param index the index of the field
+         * @return the value of the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not an {@code int} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#getInt(Object)
+         */
+        public final int getInt(Object object, int index) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(int.class);
+            return getIntUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index);
+        }
+
+        /**
+         * Gets the value of the {@code long} field at the specified index.
+         *
+         * @param object the object to extract the value from
+         * @param index the index of the field
+         * @return the value of the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code long} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#getLong(Object)
+         */
+        public final long getLong(Object object, int index) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(long.class);
+            return getLongUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index);
+        }
+
+        /**
+         * Gets the value of the {@code float} field at the specified index.
+         *
+         * @param object the object to extract the value from
+         * @param index the index of the field
+         * @return the value of the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code float} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#getFloat(Object)
+         */
+        public final float getFloat(Object object, int index) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(float.class);
+            return getFloatUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index);
+        }
+
+        /**
+         * Gets the value of the {@code double} field at the specified index.
+         *
+         * @param object the object to extract the value from
+         * @param index the index of the field
+         * @return the value of the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code double} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#getDouble(Object)
+         */
+        public final double getDouble(Object object, int index) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(double.class);
+            return getDoubleUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index);
+        }
+
+        /**
+         * Sets the value of the non-primitive field at the specified index.
+         *
+         * @param object the object whose field should be modified
+         * @param index the index of the field
+         * @param value the new value for the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field value is primitive, or if the new value can not be assigned to the field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#setObject(Object, Object)
+         */
+        public final void setObject(Object object, int index, Object value) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkObjectType();
+            accessor.checkValue(value);
+            setObjectUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index, value);
+        }
+
+        /**
+         * Sets the value of the {@code boolean} field at the specified index.
+         *
+         * @param object the object whose field should be modified
+         * @param index the index of the field
+         * @param value the new value for the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code boolean} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#setBoolean(Object, boolean)
+         */
+        public final void setBoolean(Object object, int index, boolean value) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(boolean.class);
+            setBooleanUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index, value);
+        }
+
+        /**
+         * Sets the value of the {@code byte} field at the specified index.
+         *
+         * @param object the object whose field should be modified
+         * @param index the index of the field
+         * @param value the new value for the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code byte} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#setByte(Object, byte)
+         */
+        public final void setByte(Object object, int index, byte value) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(byte.class);
+            setByteUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index, value);
+        }
+
+        /**
+         * Sets the value of the {@code char} field at the specified index.
+         *
+         * @param object the object whose field should be modified
+         * @param index the index of the field
+         * @param value the new value for the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code char} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#setChar(Object, char)
+         */
+        public final void setChar(Object object, int index, char value) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(char.class);
+            setCharUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index, value);
+        }
+
+        /**
+         * Sets the value of the {@code short} field at the specified index.
+         *
+         * @param object the object whose field should be modified
+         * @param index the index of the field
+         * @param value the new value for the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code short} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#setShort(Object, short)
+         */
+        public final void setShort(Object object, int index, short value) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(short.class);
+            setShortUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index, value);
+        }
+
+        /**
+         * Sets the value of the {@code int} field at the specified index.
+         *
+         * @param object the object whose field should be modified
+         * @param index the index of the field
+         * @param value the new value for the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not an {@code int} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#setInt(Object, int)
+         */
+        public final void setInt(Object object, int index, int value) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(int.class);
+            setIntUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index, value);
+        }
+
+        /**
+         * Sets the value of the {@code long} field at the specified index.
+         *
+         * @param object the object whose field should be modified
+         * @param index the index of the field
+         * @param value the new value for the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code long} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#setLong(Object, long)
+         */
+        public final void setLong(Object object, int index, long value) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(long.class);
+            setLongUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index, value);
+        }
+
+        /**
+         * Sets the value of the {@code float} field at the specified index.
+         *
+         * @param object the object whose field should be modified
+         * @param index the index of the field
+         * @param value the new value for the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code float} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#setFloat(Object, float)
+         */
+        public final void setFloat(Object object, int index, float value) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(float.class);
+            setFloatUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index, value);
+        }
+
+        /**
+         * Sets the value of the {@code double} field at the specified index.
+         *
+         * @param object the object whose field should be modified
+         * @param index the index of the field
+         * @param value the new value for the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if the field is not a {@code double} field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#setDouble(Object, double)
+         */
+        public final void setDouble(Object object, int index, double value) throws IllegalArgumentException, NullPointerException {
+            FieldAccessor accessor = fieldAccessor(index);
+            accessor.checkType(double.class);
+            setDoubleUnchecked(accessor.isStatic ? null : accessor.checkObject(object), index, value);
+        }
+
+        /**
+         * Gets the value of the field at the specified index; primitive values are wrapped
+         * in an appropriate object before being returned.
+         *
+         * @param object the object to extract the value from
+         * @param index the index of the field
+         * @return the value of the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range, or if the specified
+         *              object is not an instance of the class declaring the field.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#get(Object)
+         */
+        public final Object get(Object object, int index) throws IllegalArgumentException, NullPointerException {
+            switch (typeCode(fieldAccessor(index).type)) {
+                case TYPE_BOOLEAN: return getBoolean(object, index);
+                case TYPE_BYTE: return getByte(object, index);
+                case TYPE_CHAR: return getChar(object, index);
+                case TYPE_SHORT: return getShort(object, index);
+                case TYPE_INT: return getInt(object, index);
+                case TYPE_LONG: return getLong(object, index);
+                case TYPE_FLOAT: return getFloat(object, index);
+                case TYPE_DOUBLE: return getDouble(object, index);
+                default: return getObject(object, index);
+            }
+        }
+
+        /**
+         * Sets the value of the field at the specified index; primitive values are unwrapped
+         * from the specified value.
+         *
+         * @param object the object whose field should be modified
+         * @param index the index of the field
+         * @param value the new value for the field
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the field;
+         *              or if an unwrapping conversion fails.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the field is an instance field.
+         *
+         * @see FieldAccessor#set(Object, Object)
+         */
+        public final void set(Object object, int index, Object value) throws IllegalArgumentException, NullPointerException {
+            try {
+                switch (typeCode(fieldAccessor(index).type)) {
+                    case TYPE_BOOLEAN: setBoolean(object, index, (Boolean) value); break;
+                    case TYPE_BYTE: setByte(object, index, (Byte) value); break;
+                    case TYPE_CHAR: setChar(object, index, (Character) value); break;
+                    case TYPE_SHORT: setShort(object, index, (Short) value); break;
+                    case TYPE_INT: setInt(object, index, (Integer) value); break;
+                    case TYPE_LONG: setLong(object, index, (Long) value); break;
+                    case TYPE_FLOAT: setFloat(object, index, (Float) value); break;
+                    case TYPE_DOUBLE: setDouble(object, index, (Double) value); break;
+                    default: setObject(object, index, value); break;
+                }
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        /**
+         * Invokes the method at the specified index; a primitive return value is wrapped
+         * in an appropriate object, and {@code null} is returned for a {@code void} method.
+         *
+         * @param object the object the underlying method is invoked from
+         * @param index the index of the method
+         * @param args the arguments used for the method call
+         * @return the result of the method call
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the specified
+         *              object is not an instance of the class declaring the method;
+         *              if the number of actual and formal parameters differ;
+         *              or if an argument can not be converted to its parameter type.
+         * @throws    InvocationTargetException if the underlying method throws an exception.
+         * @throws    NullPointerException      if the specified object is null
+         *              and the method is an instance method.
+         *
+         * @see MethodInvoker#invoke(Object, Object...)
+         */
+        public final Object invoke(Object object, int index, Object... args)
+                throws InvocationTargetException, IllegalArgumentException, NullPointerException {
+            MethodInvoker invoker = methodInvoker(index);
+            Object receiver = invoker.checkObject(object);
+            Object[] arguments = invoker.checkArguments(args);
+            try {
+                return invokeUnchecked(receiver, index, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Creates and initializes a new instance with the constructor at the specified index.
+         *
+         * @param index the index of the constructor
+         * @param args the arguments used for the constructor call
+         * @return a new object created by calling the constructor
+         *
+         * @throws    IllegalArgumentException  if the index is out of range; if the number of
+         *              actual and formal parameters differ; if an argument can not be converted
+         *              to its parameter type; or if the class is an enum class.
+         * @throws    InstantiationException    if the class is an abstract class.
+         * @throws    InvocationTargetException if the underlying constructor throws an exception.
+         *
+         * @see ConstructorInvoker#newInstance(Object...)
+         */
+        public final Object newInstance(int index, Object... args)
+                throws InstantiationException, InvocationTargetException, IllegalArgumentException {
+            ConstructorInvoker<?> invoker = constructorInvoker(index);
+            invoker.checkInstantiable();
+            Object[] arguments = Scalpel.checkArguments(invoker.parameterTypes, invoker.parameterCodes, invoker.varargsType, args);
+            try {
+                return newInstanceUnchecked(index, arguments);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        /**
+         * Gets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @return the value of the field
+         */
+        protected Object getObjectUnchecked(Object object, int index) {
+            return fieldAccessors[index].getObject(object);
+        }
+
+        /**
+         * Gets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @return the value of the field
+         */
+        protected boolean getBooleanUnchecked(Object object, int index) {
+            return fieldAccessors[index].getBoolean(object);
+        }
+
+        /**
+         * Gets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @return the value of the field
+         */
+        protected byte getByteUnchecked(Object object, int index) {
+            return fieldAccessors[index].getByte(object);
+        }
+
+        /**
+         * Gets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @return the value of the field
+         */
+        protected char getCharUnchecked(Object object, int index) {
+            return fieldAccessors[index].getChar(object);
+        }
+
+        /**
+         * Gets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @return the value of the field
+         */
+        protected short getShortUnchecked(Object object, int index) {
+            return fieldAccessors[index].getShort(object);
+        }
+
+        /**
+         * Gets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @return the value of the field
+         */
+        protected int getIntUnchecked(Object object, int index) {
+            return fieldAccessors[index].getInt(object);
+        }
+
+        /**
+         * Gets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @return the value of the field
+         */
+        protected long getLongUnchecked(Object object, int index) {
+            return fieldAccessors[index].getLong(object);
+        }
+
+        /**
+         * Gets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @return the value of the field
+         */
+        protected float getFloatUnchecked(Object object, int index) {
+            return fieldAccessors[index].getFloat(object);
+        }
+
+        /**
+         * Gets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @return the value of the field
+         */
+        protected double getDoubleUnchecked(Object object, int index) {
+            return fieldAccessors[index].getDouble(object);
+        }
+
+        /**
+         * Sets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @param value the checked new value for the field
+         */
+        protected void setObjectUnchecked(Object object, int index, Object value) {
+            fieldAccessors[index].setObject(object, value);
+        }
+
+        /**
+         * Sets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @param value the checked new value for the field
+         */
+        protected void setBooleanUnchecked(Object object, int index, boolean value) {
+            fieldAccessors[index].setBoolean(object, value);
+        }
+
+        /**
+         * Sets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @param value the checked new value for the field
+         */
+        protected void setByteUnchecked(Object object, int index, byte value) {
+            fieldAccessors[index].setByte(object, value);
+        }
+
+        /**
+         * Sets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @param value the checked new value for the field
+         */
+        protected void setCharUnchecked(Object object, int index, char value) {
+            fieldAccessors[index].setChar(object, value);
+        }
+
+        /**
+         * Sets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @param value the checked new value for the field
+         */
+        protected void setShortUnchecked(Object object, int index, short value) {
+            fieldAccessors[index].setShort(object, value);
+        }
+
+        /**
+         * Sets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @param value the checked new value for the field
+         */
+        protected void setIntUnchecked(Object object, int index, int value) {
+            fieldAccessors[index].setInt(object, value);
+        }
+
+        /**
+         * Sets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @param value the checked new value for the field
+         */
+        protected void setLongUnchecked(Object object, int index, long value) {
+            fieldAccessors[index].setLong(object, value);
+        }
+
+        /**
+         * Sets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @param value the checked new value for the field
+         */
+        protected void setFloatUnchecked(Object object, int index, float value) {
+            fieldAccessors[index].setFloat(object, value);
+        }
+
+        /**
+         * Sets the value of the checked field at the specified index.
+         *
+         * @param object the checked object, or null if the field is static
+         * @param index the checked index of the field
+         * @param value the checked new value for the field
+         */
+        protected void setDoubleUnchecked(Object object, int index, double value) {
+            fieldAccessors[index].setDouble(object, value);
+        }
+
+        /**
+         * Invokes the checked method at the specified index.
+         *
+         * @param object the checked object, or null if the method is static
+         * @param index the checked index of the method
+         * @param args the checked arguments, with the variable arity ones collected
+         * @return the wrapped result of the method call, or null for a {@code void} method
+         * @throws Throwable anything thrown by the method
+         */
+        protected Object invokeUnchecked(Object object, int index, Object[] args) throws Throwable {
+            return methodInvokers[index].invokeUnchecked(object, args);
+        }
+
+        /**
+         * Creates and initializes a new instance with the checked constructor at the specified index.
+         *
+         * @param index the checked index of the constructor
+         * @param args the checked arguments, with the variable arity ones collected
+         * @return a new object created by calling the constructor
+         * @throws Throwable anything thrown by the constructor
+         */
+        protected Object newInstanceUnchecked(int index, Object[] args) throws Throwable {
+            return constructorInvokers[index].newInstanceUnchecked(args);
+        }
+
+        private FieldAccessor fieldAccessor(int index) throws IllegalArgumentException {
+            if (index < 0 || index >= fields.length) throw new IllegalArgumentException("Illegal field index: " + index);
+            FieldAccessor accessor = fieldAccessors[index];
+            if (accessor == null) fieldAccessors[index] = accessor = Scalpel.fieldAccessor(fields[index]);
+            return accessor;
+        }
+
+        private MethodInvoker methodInvoker(int index) throws IllegalArgumentException {
+            if (index < 0 || index >= methods.length) throw new IllegalArgumentException("Illegal method index: " + index);
+            MethodInvoker invoker = methodInvokers[index];
+            if (invoker == null) methodInvokers[index] = invoker = Scalpel.methodInvoker(methods[index]);
+            return invoker;
+        }
+
+        private ConstructorInvoker<?> constructorInvoker(int index) throws IllegalArgumentException {
+            if (index < 0 || index >= constructors.length) throw new IllegalArgumentException("Illegal constructor index: " + index);
+            ConstructorInvoker<?> invoker = constructorInvokers[index];
+            if (invoker == null) constructorInvokers[index] = invoker = Scalpel.constructorInvoker(constructors[index]);
+            return invoker;
+        }
+
+    }
+
+    private static final class ReflectClassAccess extends ClassAccess {
+
+        ReflectClassAccess(Class<?> type, Field[] fields, Method[] methods, Constructor<?>[] constructors) {
+            super(type, fields, methods, constructors);
+        }
+
+    }
+
+    // Writes a subclass of ClassAccess, which accesses the non-private members of a class directly.
+    // The class file version is 49, so the methods need no StackMapTable and are verified by type inference.
+    private static final class ClassAccessWriter {
+
+        private static final String CLASS_ACCESS = ClassAccess.class.getName().replace('.', '/');
+
+        private final String name;
+        private final Class<?> type;
+        private final Field[] fields;
+        private final Method[] methods;
+        private final Constructor<?>[] constructors;
+
+        private final Map<String, Integer> constants = new HashMap<>();
+        private final ByteVector pool = new ByteVector();
+        private int poolCount = 1;
+        private final ByteVector methodsVector = new ByteVector();
+        private int methodsCount = 0;
+
+        ClassAccessWriter(String name, Class<?> type, Field[] fields, Method[] methods, Constructor<?>[] constructors) {
+            this.name = name.replace('.', '/');
+            this.type = type;
+            this.fields = fields;
+            this.methods = methods;
+            this.constructors = constructors;
+        }
+
+        // Returns null if no member can be accessed directly
+        byte[] toByteArray() {
+            boolean direct = false;
+            for (int i = 0; i < TYPE_DOUBLE + 1; i ++) {
+                direct |= writeGetter((byte) i);
+                direct |= writeSetter((byte) i);
+            }
+            direct |= writeInvoke();
+            direct |= writeNewInstance();
+            if (!direct) return null;
+            writeConstructor();
+            int thisClass = classConstant(name);
+            int superClass = classConstant(CLASS_ACCESS);
+            ByteVector bytecode = new ByteVector();
+            bytecode.putInt(0xCAFEBABE).putShort(0).putShort(49);
+            bytecode.putShort(poolCount).putBytes(pool);
+            // ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC
+            bytecode.putShort(0x1031).putShort(thisClass).putShort(superClass);
+            bytecode.putShort(0).putShort(0);
+            bytecode.putShort(methodsCount).putBytes(methodsVector);
+            bytecode.putShort(0);
+            return bytecode.toByteArray();
+        }
+
+        private void writeConstructor() {
+            ByteVector code = new ByteVector();
+            code.putByte(ALOAD_0).putByte(ALOAD_1).putByte(ALOAD_2).putByte(ALOAD_3).putByte(ALOAD).putByte(4);
+            code.putByte(INVOKESPECIAL).putShort(memberConstant(METHODREF, CLASS_ACCESS, "<init>",
+                    "(Ljava/lang/Class;[Ljava/lang/reflect/Field;[Ljava/lang/reflect/Method;[Ljava/lang/reflect/Constructor;)V"));
+            code.putByte(RETURN);
+            writeMethod(0x0001, "<init>",
+                    "(Ljava/lang/Class;[Ljava/lang/reflect/Field;[Ljava/lang/reflect/Method;[Ljava/lang/reflect/Constructor;)V", 5, 5, code);
+        }
+
+        // T get<T>Unchecked(Object object, int index)
+        private boolean writeGetter(byte code) {
+            boolean[] direct = new boolean[fields.length];
+            boolean any = false;
+            for (int i = 0; i < fields.length; i ++) {
+                Field field = fields[i];
+                direct[i] = typeCode(field.getType()) == code && !isPrivate(field.getModifiers());
+                any |= direct[i];
+            }
+            if (!any) return false;
+            Class<?> erasedType = code == TYPE_OBJECT ? Object.class : PRIMITIVE_CLASSES[code];
+            String methodName = "get" + typeName(code) + "Unchecked";
+            String methodDescriptor = "(Ljava/lang/Object;I)" + descriptor(erasedType);
+            ByteVector vector = new ByteVector();
+            vector.putByte(ILOAD_2);
+            int[] cases = tableSwitch(vector, fields.length);
+            for (int i = 0; i < fields.length; i ++) {
+                if (!direct[i]) continue;
+                Field field = fields[i];
+                vector.putInt(cases[i], vector.length - cases[fields.length]);
+                int fieldConstant = memberConstant(FIELDREF, internalName(type), field.getName(), descriptor(field.getType()));
+                if (isStatic(field.getModifiers())) vector.putByte(GETSTATIC).putShort(fieldConstant);
+                else vector.putByte(ALOAD_1).putByte(CHECKCAST).putShort(classConstant(internalName(type)))
+                        .putByte(GETFIELD).putShort(fieldConstant);
+                vector.putByte(returnOpcode(erasedType));
+            }
+            defaultCase(vector, cases, fields.length);
+            vector.putByte(ALOAD_0).putByte(ALOAD_1).putByte(ILOAD_2);
+            vector.putByte(INVOKESPECIAL).putShort(memberConstant(METHODREF, CLASS_ACCESS, methodName, methodDescriptor));
+            vector.putByte(returnOpcode(erasedType));
+            writeMethod(0x0004, methodName, methodDescriptor, 4, 3, vector);
+            return true;
+        }
+
+        // void set<T>Unchecked(Object object, int index, T value)
+        private boolean writeSetter(byte code) {
+            boolean[] direct = new boolean[fields.length];
+            boolean any = false;
+            for (int i = 0; i < fields.length; i ++) {
+                Field field = fields[i];
+                int modifiers = field.getModifiers();
+                direct[i] = typeCode(field.getType()) == code && !isPrivate(modifiers) && !isFinal(modifiers) && isAccessible(field.getType());
+                any |= direct[i];
+            }
+            if (!any) return false;
+            Class<?> erasedType = code == TYPE_OBJECT ? Object.class : PRIMITIVE_CLASSES[code];
+            String methodName = "set" + typeName(code) + "Unchecked";
+            String methodDescriptor = "(Ljava/lang/Object;I" + descriptor(erasedType) + ")V";
+            ByteVector vector = new ByteVector();
+            vector.putByte(ILOAD_2);
+            int[] cases = tableSwitch(vector, fields.length);
+            for (int i = 0; i < fields.length; i ++) {
+                if (!direct[i]) continue;
+                Field field = fields[i];
+                vector.putInt(cases[i], vector.length - cases[fields.length]);
+                int fieldConstant = memberConstant(FIELDREF, internalName(type), field.getName(), descriptor(field.getType()));
+                boolean isStatic = isStatic(field.getModifiers());
+                if (!isStatic) vector.putByte(ALOAD_1).putByte(CHECKCAST).putShort(classConstant(internalName(type)));
+                vector.putByte(loadOpcode(erasedType)).putByte(3);
+                if (field.getType() != erasedType) vector.putByte(CHECKCAST).putShort(classConstant(internalName(field.getType())));
+                vector.putByte(isStatic ? PUTSTATIC : PUTFIELD).putShort(fieldConstant);
+                vector.putByte(RETURN);
+            }
+            defaultCase(vector, cases, fields.length);
+            vector.putByte(ALOAD_0).putByte(ALOAD_1).putByte(ILOAD_2).putByte(loadOpcode(erasedType)).putByte(3);
+            vector.putByte(INVOKESPECIAL).putShort(memberConstant(METHODREF, CLASS_ACCESS, methodName, methodDescriptor));
+            vector.putByte(RETURN);
+            writeMethod(0x0004, methodName, methodDescriptor, 5, 3 + slots(erasedType), vector);
+            return true;
+        }
+
+        // Object invokeUnchecked(Object object, int index, Object[] args)
+        private boolean writeInvoke() {
+            boolean[] direct = new boolean[methods.length];
+            boolean any = false;
+            int maxStack = 4;
+            for (int i = 0; i < methods.length; i ++) {
+                Method method = methods[i];
+                int modifiers = method.getModifiers();
+                // Static interface methods need a newer class file version
+                direct[i] = !isPrivate(modifiers) && !(isStatic(modifiers) && type.isInterface()) && isAccessible(method.getParameterTypes());
+                if (direct[i]) maxStack = Math.max(maxStack, 3 + slots(method.getParameterTypes()));
+                any |= direct[i];
+            }
+            if (!any) return false;
+            ByteVector vector = new ByteVector();
+            vector.putByte(ILOAD_2);
+            int[] cases = tableSwitch(vector, methods.length);
+            for (int i = 0; i < methods.length; i ++) {
+                if (!direct[i]) continue;
+                Method method = methods[i];
+                vector.putInt(cases[i], vector.length - cases[methods.length]);
+                boolean isStatic = isStatic(method.getModifiers());
+                if (!isStatic) vector.putByte(ALOAD_1).putByte(CHECKCAST).putShort(classConstant(internalName(type)));
+                loadArguments(vector, method.getParameterTypes(), ALOAD_3);
+                String methodDescriptor = descriptor(method.getReturnType(), method.getParameterTypes());
+                if (isStatic) vector.putByte(INVOKESTATIC)
+                        .putShort(memberConstant(METHODREF, internalName(type), method.getName(), methodDescriptor));
+                else if (type.isInterface()) vector.putByte(INVOKEINTERFACE)
+                        .putShort(memberConstant(INTERFACE_METHODREF, internalName(type), method.getName(), methodDescriptor))
+                        .putByte(1 + slots(method.getParameterTypes())).putByte(0);
+                else vector.putByte(INVOKEVIRTUAL)
+                        .putShort(memberConstant(METHODREF, internalName(type), method.getName(), methodDescriptor));
+                Class<?> returnType = method.getReturnType();
+                if (returnType == void.class) vector.putByte(ACONST_NULL);
+                else if (returnType.isPrimitive()) {
+                    String wrapper = internalName(WRAPPER_CLASSES[typeCode(returnType)]);
+                    vector.putByte(INVOKESTATIC).putShort(memberConstant(METHODREF, wrapper, "valueOf",
+                            "(" + descriptor(returnType) + ")L" + wrapper + ";"));
+                }
+                vector.putByte(ARETURN);
+            }
+            defaultCase(vector, cases, methods.length);
+            vector.putByte(ALOAD_0).putByte(ALOAD_1).putByte(ILOAD_2).putByte(ALOAD_3);
+            vector.putByte(INVOKESPECIAL).putShort(memberConstant(METHODREF, CLASS_ACCESS, "invokeUnchecked",
+                    "(Ljava/lang/Object;I[Ljava/lang/Object;)Ljava/lang/Object;"));
+            vector.putByte(ARETURN);
+            writeMethod(0x0004, "invokeUnchecked", "(Ljava/lang/Object;I[Ljava/lang/Object;)Ljava/lang/Object;", maxStack, 4, vector);
+            return true;
+        }
+
+        // Object newInstanceUnchecked(int index, Object[] args)
+        private boolean writeNewInstance() {
+            if (isAbstract(type.getModifiers()) || Enum.class.isAssignableFrom(type)) return false;
+            boolean[] direct = new boolean[constructors.length];
+            boolean any = false;
+            int maxStack = 3;
+            for (int i = 0; i < constructors.length; i ++) {
+                Constructor<?> constructor = constructors[i];
+                direct[i] = !isPrivate(constructor.getModifiers()) && isAccessible(constructor.getParameterTypes());
+                if (direct[i]) maxStack = Math.max(maxStack, 4 + slots(constructor.getParameterTypes()));
+                any |= direct[i];
+            }
+            if (!any) return false;
+            ByteVector vector = new ByteVector();
+            vector.putByte(ILOAD_1);
+            int[] cases = tableSwitch(vector, constructors.length);
+            for (int i = 0; i < constructors.length; i ++) {
+                if (!direct[i]) continue;
+                Constructor<?> constructor = constructors[i];
+                vector.putInt(cases[i], vector.length - cases[constructors.length]);
+                vector.putByte(NEW).putShort(classConstant(internalName(type))).putByte(DUP);
+                loadArguments(vector, constructor.getParameterTypes(), ALOAD_2);
+                vector.putByte(INVOKESPECIAL).putShort(memberConstant(METHODREF, internalName(type), "<init>",
+                        descriptor(void.class, constructor.getParameterTypes())));
+                vector.putByte(ARETURN);
+            }
+            defaultCase(vector, cases, constructors.length);
+            vector.putByte(ALOAD_0).putByte(ILOAD_1).putByte(ALOAD_2);
+            vector.putByte(INVOKESPECIAL).putShort(memberConstant(METHODREF, CLASS_ACCESS, "newInstanceUnchecked",
+                    "(I[Ljava/lang/Object;)Ljava/lang/Object;"));
+            vector.putByte(ARETURN);
+            writeMethod(0x0004, "newInstanceUnchecked", "(I[Ljava/lang/Object;)Ljava/lang/Object;", maxStack, 3, vector);
+            return true;
+        }
+
+        // Unwraps and casts the elements of the argument array
+        private void loadArguments(ByteVector vector, Class<?>[] parameterTypes, int loadArray) {
+            for (int i = 0; i < parameterTypes.length; i ++) {
+                vector.putByte(loadArray);
+                if (i <= 5) vector.putByte(ICONST_0 + i);
+                else if (i <= Byte.MAX_VALUE) vector.putByte(BIPUSH).putByte(i);
+                else vector.putByte(SIPUSH).putShort(i);
+                vector.putByte(AALOAD);
+                Class<?> parameterType = parameterTypes[i];
+                if (parameterType.isPrimitive()) {
+                    Class<?> wrapper = WRAPPER_CLASSES[typeCode(parameterType)];
+                    vector.putByte(CHECKCAST).putShort(classConstant(internalName(wrapper)));
+                    vector.putByte(INVOKEVIRTUAL).putShort(memberConstant(METHODREF, internalName(wrapper),
+                            parameterType.getName() + "Value", "()" + descriptor(parameterType)));
+                }
+                else if (parameterType != Object.class) vector.putByte(CHECKCAST).putShort(classConstant(internalName(parameterType)));
+            }
+        }
+
+        // Writes a tableswitch over [0, count), returning the positions of the jump offsets,
+        // followed by the position of the instruction itself
+        private static int[] tableSwitch(ByteVector vector, int count) {
+            int[] cases = new int[count + 2];
+            int opcode = vector.length;
+            vector.putByte(TABLESWITCH);
+            while (vector.length % 4 != 0) vector.putByte(0);
+            cases[count + 1] = vector.length;
+            vector.putInt(0).putInt(0).putInt(count - 1);
+            for (int i = 0; i < count; i ++) {
+                cases[i] = vector.length;
+                vector.putInt(0);
+            }
+            cases[count] = opcode;
+            return cases;
+        }
+
+        // Points the default case, and the ones not written, to the current position
+        private static void defaultCase(ByteVector vector, int[] cases, int count) {
+            int offset = vector.length - cases[count];
+            vector.putInt(cases[count + 1], offset);
+            for (int i = 0; i < count; i ++) {
+                if (vector.getInt(cases[i]) == 0) vector.putInt(cases[i], offset);
+            }
+        }
+
+        private void writeMethod(int access, String name, String descriptor, int maxStack, int maxLocals, ByteVector code) {
+            methodsVector.putShort(access).putShort(utf8Constant(name)).putShort(utf8Constant(descriptor));
+            methodsVector.putShort(1).putShort(utf8Constant("Code")).putInt(12 + code.length);
+            methodsVector.putShort(maxStack).putShort(maxLocals).putInt(code.length).putBytes(code);
+            methodsVector.putShort(0).putShort(0);
+            methodsCount ++;
+        }
+
+        // Whether the generated class can refer to all the specified classes
+        private boolean isAccessible(Class<?>... classes) {
+            for (Class<?> clazz : classes) {
+                while (clazz.isArray()) clazz = clazz.getComponentType();
+                if (!clazz.isPrimitive() && !(isVisible(clazz, type) && isExported(clazz, type))) return false;
+            }
+            return true;
+        }
+
+        private static final Method GET_MODULE;
+        private static final Method CAN_READ;
+        private static final Method IS_EXPORTED;
+        static {
+            Method getModule, canRead, isExported;
+            try {
+                // Java 9
+                getModule = Class.class.getMethod("getModule");
+                canRead = getModule.getReturnType().getMethod("canRead", getModule.getReturnType());
+                isExported = getModule.getReturnType().getMethod("isExported", String.class, getModule.getReturnType());
+            } catch (NoSuchMethodException e) {
+                getModule = null;
+                canRead = null;
+                isExported = null;
+            }
+            GET_MODULE = getModule;
+            CAN_READ = canRead;
+            IS_EXPORTED = isExported;
+        }
+
+        // Whether the module of the target class reads the module of the specified class, which exports its package to it
+        private static boolean isExported(Class<?> clazz, Class<?> to) {
+            if (GET_MODULE == null) return true;
+            try {
+                Object module = GET_MODULE.invoke(clazz);
+                Object toModule = GET_MODULE.invoke(to);
+                if (module == toModule) return true;
+                String name = clazz.getName();
+                String packageName = name.lastIndexOf('.') == -1 ? "" : name.substring(0, name.lastIndexOf('.'));
+                return (Boolean) CAN_READ.invoke(toModule, module) && (Boolean) IS_EXPORTED.invoke(module, packageName, toModule);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                return false;
+            }
+        }
+
+        private int utf8Constant(String value) {
+            Integer index = constants.get("1:" + value);
+            if (index == null) {
+                pool.putByte(1).putUTF(value);
+                constants.put("1:" + value, index = poolCount ++);
+            }
+            return index;
+        }
+
+        private int classConstant(String internalName) {
+            Integer index = constants.get("7:" + internalName);
+            if (index == null) {
+                int nameIndex = utf8Constant(internalName);
+                pool.putByte(7).putShort(nameIndex);
+                constants.put("7:" + internalName, index = poolCount ++);
+            }
+            return index;
+        }
+
+        private int memberConstant(int tag, String owner, String name, String descriptor) {
+            String key = tag + ":" + owner + '.' + name + descriptor;
+            Integer index = constants.get(key);
+            if (index == null) {
+                int ownerIndex = classConstant(owner);
+                int nameIndex = utf8Constant(name);
+                int descriptorIndex = utf8Constant(descriptor);
+                String nameAndTypeKey = "12:" + name + ' ' + descriptor;
+                Integer nameAndTypeIndex = constants.get(nameAndTypeKey);
+                if (nameAndTypeIndex == null) {
+                    pool.putByte(12).putShort(nameIndex).putShort(descriptorIndex);
+                    constants.put(nameAndTypeKey, nameAndTypeIndex = poolCount ++);
+                }
+                pool.putByte(tag).putShort(ownerIndex).putShort(nameAndTypeIndex);
+                constants.put(key, index = poolCount ++);
+            }
+            return index;
+        }
+
+        private static String typeName(byte code) {
+            if (code == TYPE_OBJECT) return "Object";
+            String name = PRIMITIVE_CLASSES[code].getName();
+            return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+
+        private static String internalName(Class<?> clazz) {
+            return clazz.isArray() ? descriptor(clazz) : clazz.getName().replace('.', '/');
+        }
+
+        private static String descriptor(Class<?> clazz) {
+            if (clazz.isArray()) return clazz.getName().replace('.', '/');
+            else if (clazz.isPrimitive()) {
+                if (clazz == void.class) return "V";
+                else if (clazz == boolean.class) return "Z";
+                else if (clazz == long.class) return "J";
+                else return String.valueOf(Character.toUpperCase(clazz.getName().charAt(0)));
+            }
+            else return "L" + clazz.getName().replace('.', '/') + ";";
+        }
+
+        private static String descriptor(Class<?> returnType, Class<?>[] parameterTypes) {
+            StringBuilder builder = new StringBuilder("(");
+            for (Class<?> parameterType : parameterTypes) {
+                builder.append(descriptor(parameterType));
+            }
+            return builder.append(')').append(descriptor(returnType)).toString();
+        }
+
+        private static int slots(Class<?>... classes) {
+            int slots = 0;
+            for (Class<?> clazz : classes) {
+                slots += clazz == long.class || clazz == double.class ? 2 : 1;
+            }
+            return slots;
+        }
+
+        private static int loadOpcode(Class<?> clazz) {
+            if (clazz == long.class) return LLOAD;
+            else if (clazz == float.class) return FLOAD;
+            else if (clazz == double.class) return DLOAD;
+            else if (clazz.isPrimitive()) return ILOAD;
+            else return ALOAD;
+        }
+
+        private static int returnOpcode(Class<?> clazz) {
+            if (clazz == long.class) return LRETURN;
+            else if (clazz == float.class) return FRETURN;
+            else if (clazz == double.class) return DRETURN;
+            else if (clazz.isPrimitive()) return IRETURN;
+            else return ARETURN;
+        }
+
+        private static final Class<?>[] PRIMITIVE_CLASSES = new Class<?>[] {
+                null, boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class
+        };
+
+        private static final int FIELDREF = 9;
+        private static final int METHODREF = 10;
+        private static final int INTERFACE_METHODREF = 11;
+
+        private static final int ACONST_NULL = 0x01;
+        private static final int ICONST_0 = 0x03;
+        private static final int BIPUSH = 0x10;
+        private static final int SIPUSH = 0x11;
+        private static final int ILOAD = 0x15;
+        private static final int LLOAD = 0x16;
+        private static final int FLOAD = 0x17;
+        private static final int DLOAD = 0x18;
+        private static final int ALOAD = 0x19;
+        private static final int ILOAD_1 = 0x1b;
+        private static final int ILOAD_2 = 0x1c;
+        private static final int ALOAD_0 = 0x2a;
+        private static final int ALOAD_1 = 0x2b;
+        private static final int ALOAD_2 = 0x2c;
+        private static final int ALOAD_3 = 0x2d;
+        private static final int AALOAD = 0x32;
+        private static final int DUP = 0x59;
+        private static final int TABLESWITCH = 0xaa;
+        private static final int IRETURN = 0xac;
+        private static final int LRETURN = 0xad;
+        private static final int FRETURN = 0xae;
+        private static final int DRETURN = 0xaf;
+        private static final int ARETURN = 0xb0;
+        private static final int RETURN = 0xb1;
+        private static final int GETSTATIC = 0xb2;
+        private static final int PUTSTATIC = 0xb3;
+        private static final int GETFIELD = 0xb4;
+        private static final int PUTFIELD = 0xb5;
+        private static final int INVOKEVIRTUAL = 0xb6;
+        private static final int INVOKESPECIAL = 0xb7;
+        private static final int INVOKESTATIC = 0xb8;
+        private static final int INVOKEINTERFACE = 0xb9;
+        private static final int NEW = 0xbb;
+        private static final int CHECKCAST = 0xc0;
+
+    }
+
+    private static final class ByteVector {
+
+        private byte[] data = new byte[64];
+        private int length = 0;
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > data.length) data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+        }
+
+        ByteVector putByte(int value) {
+            ensureCapacity(length + 1);
+            data[length ++] = (byte) value;
+            return this;
+        }
+
+        ByteVector putShort(int value) {
+            return putByte(value >>> 8).putByte(value);
+        }
+
+        ByteVector putInt(int value) {
+            return putShort(value >>> 16).putShort(value);
+        }
+
+        void putInt(int position, int value) {
+            data[position] = (byte) (value >>> 24);
+            data[position + 1] = (byte) (value >>> 16);
+            data[position + 2] = (byte) (value >>> 8);
+            data[position + 3] = (byte) value;
+        }
+
+        int getInt(int position) {
+            return (data[position] & 0xFF) << 24 | (data[position + 1] & 0xFF) << 16 | (data[position + 2] & 0xFF) << 8 | (data[position + 3] & 0xFF);
+        }
+
+        ByteVector putBytes(ByteVector vector) {
+            ensureCapacity(length + vector.length);
+            System.arraycopy(vector.data, 0, data, length, vector.length);
+            length += vector.length;
+            return this;
+        }
+
+        // The modified UTF-8 of the class file format, as DataOutput#writeUTF(String) writes
+        ByteVector putUTF(String value) {
+            int position = length;
+            putShort(0);
+            for (int i = 0; i < value.length(); i ++) {
+                char c = value.charAt(i);
+                if (c >= 0x0001 && c <= 0x007F) putByte(c);
+                else if (c <= 0x07FF) putByte(0xC0 | c >> 6 & 0x1F).putByte(0x80 | c & 0x3F);
+                else putByte(0xE0 | c >> 12 & 0x0F).putByte(0x80 | c >> 6 & 0x3F).putByte(0x80 | c & 0x3F);
+            }
+            int utfLength = length - position - 2;
+            data[position] = (byte) (utfLength >>> 8);
+            data[position + 1] = (byte) utfLength;
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, length);
+        }
+
+    }
+
+
+    // ---------------- Metrics ----------------
+
+    private static final String KEY_JAVASCALPEL_METRICS = "javascalpel.metrics";
+    private static final String KEY_JAVASCALPEL_JFR = "javascalpel.jfr";
+
+    // Read once, so that the instrumentation of the entry points is folded away when it is disabled
+    private static final boolean METRICS = Boolean.getBoolean(KEY_JAVASCALPEL_METRICS);
+    private static final boolean EVENTS = Boolean.getBoolean(KEY_JAVASCALPEL_JFR);
+    private static final boolean INSTRUMENTED = METRICS || EVENTS;
+
+    // The instrumented entry points, together with all their typed variants
+    private static final int ENTRY_ALLOCATE_INSTANCE = 0;
+    private static final int ENTRY_NEW_INSTANCE = 1;
+    private static final int ENTRY_GET_FIELD = 2;
+    private static final int ENTRY_SET_FIELD = 3;
+    private static final int ENTRY_INVOKE_METHOD = 4;
+    private static final int ENTRY_INVOKE_NONVIRTUAL_METHOD = 5;
+    private static final int ENTRY_DEFINE_CLASS = 6;
+    private static final int ENTRY_DEFINE_CLASSES = 7;
+    private static final String[] ENTRY_POINTS = {
+            "allocateInstance", "newInstance", "getField", "setField", "invokeMethod", "invokeNonVirtualMethod", "defineClass",
+            "defineClasses"
+    };
+
+    // Called by the entry points once a call completes normally, with the strategy which served it
+    private static void record(int entryPoint, Strategy strategy, Object member, long start) {
+        if (METRICS) ScalpelMetrics.record(entryPoint, strategy, start);
+        if (EVENTS && strategy == Strategy.JNI) FlightRecorderEvents.jniFallback(entryPoint, member, start);
+    }
+
+    private static void recordDefineClass(Strategy strategy, String name, ClassLoader classLoader, int size, long start) {
+        if (METRICS) ScalpelMetrics.record(ENTRY_DEFINE_CLASS, strategy, start);
+        if (EVENTS) FlightRecorderEvents.defineClass(strategy, name, classLoader, size, start);
+    }
+
+    // Recorded as a whole, since the native call does not time the classes one by one; always the bootstrap loader
+    private static void recordDefineClasses(String[] names, byte[][] bytecodes, long start) {
+        if (METRICS) ScalpelMetrics.record(ENTRY_DEFINE_CLASSES, Strategy.JNI, start);
+        if (EVENTS) FlightRecorderEvents.defineClasses(names, bytecodes, start);
+    }
+
+    /**
+     * Returns the runtime metrics of the entry points of this class, or {@code null} if they are disabled.
+     *
+     * <p>The metrics are enabled by setting the Java property {@code javascalpel.metrics} to {@code true}
+     * before this class is initialized. They are registered to the platform MBean server as
+     * {@code com.tianscar.util:type=ScalpelMetrics} on first use.
+     *
+     * @return the metrics, or {@code null} if they are disabled
+     */
+    public static ScalpelMetricsMXBean metrics() {
+        return METRICS ? ScalpelMetrics.INSTANCE : null;
+    }
+
+    /**
+     * The runtime metrics of the entry points of {@link Scalpel}, i.e. {@code allocateInstance}, {@code newInstance},
+     * {@code getField}, {@code setField}, {@code invokeMethod}, {@code invokeNonVirtualMethod}, {@code defineClass}
+     * and {@code defineClasses} with all their typed variants.
+     *
+     * <p>Only the calls which complete normally are recorded, under the {@link Strategy} which actually served them.
+     * The keys of the maps are the entry point and the strategy, e.g. {@code "getField/UNSAFE"}; the combinations
+     * which have never been called are omitted.
+     *
+     * @see #metrics()
+     */
+    public interface ScalpelMetricsMXBean {
+
+        /**
+         * Returns the number of calls per entry point and strategy.
+         *
+         * @return the number of calls
+         */
+        Map<String, Long> getCalls();
+
+        /**
+         * Returns the number of calls per entry point, regardless of the strategy.
+         *
+         * @return the number of calls
+         */
+        Map<String, Long> getEntryPointCalls();
+
+        /**
+         * Returns the number of calls per strategy, regardless of the entry point.
+         *
+         * @return the number of calls
+         */
+        Map<String, Long> getStrategyCalls();
+
+        /**
+         * Returns the number of calls which crossed into the native library,
+         * i.e. the calls served by {@link Strategy#JNI}.
+         *
+         * @return the number of JNI transitions
+         */
+        long getJNITransitions();
+
+        /**
+         * Returns the latency histogram per entry point and strategy.
+         * The element {@code i} of a histogram is the number of calls which took
+         * at least {@code 2^i} and less than {@code 2^(i+1)} nanoseconds (the element {@code 0} includes 0).
+         *
+         * @return the latency histograms, of length 64
+         */
+        Map<String, long[]> getLatencyHistograms();
+
+        /**
+         * Resets all the counters to zero.
+         */
+        void reset();
+
+    }
+
+    private static final class ScalpelMetrics implements ScalpelMetricsMXBean {
+
+        private static final Strategy[] STRATEGIES = Strategy.values();
+        private static final int BUCKETS = 64;
+
+        static final ScalpelMetrics INSTANCE = new ScalpelMetrics();
+        static {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName("com.tianscar.util:type=ScalpelMetrics"));
+            } catch (JMException | SecurityException ignored) {
+                // e.g. already registered by a copy of this class in another ClassLoader; still usable through metrics()
+            }
+        }
+
+        // Indexed by entry point and strategy; LongAdder, since the entry points are called from any thread
+        private final LongAdder[] calls = new LongAdder[ENTRY_POINTS.length * STRATEGIES.length];
+        private final LongAdder[] latencies = new LongAdder[calls.length * BUCKETS];
+
+        private ScalpelMetrics() {
+            for (int i = 0; i < calls.length; i ++) {
+                calls[i] = new LongAdder();
+            }
+            for (int i = 0; i < latencies.length; i ++) {
+                latencies[i] = new LongAdder();
+            }
+        }
+
+        static void record(int entryPoint, Strategy strategy, long start) {
+            long elapsed = System.nanoTime() - start;
+            int index = entryPoint * STRATEGIES.length + strategy.ordinal();
+            INSTANCE.calls[index].increment();
+            INSTANCE.latencies[index * BUCKETS + (elapsed <= 0L ? 0 : 63 - Long.numberOfLeadingZeros(elapsed))].increment();
+        }
+
+        @Override
+        public Map<String, Long> getCalls() {
+            Map<String, Long> result = new HashMap<>();
+            for (int i = 0; i < calls.length; i ++) {
+                long count = calls[i].sum();
+                if (count != 0L) result.put(key(i), count);
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getEntryPointCalls() {
+            Map<String, Long> result = new HashMap<>();
+            for (int i = 0; i < calls.length; i ++) {
+                long count = calls[i].sum();
+                if (count != 0L) result.merge(ENTRY_POINTS[i / STRATEGIES.length], count, Long::sum);
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getStrategyCalls() {
+            Map<String, Long> result = new HashMap<>();
+            for (int i = 0; i < calls.length; i ++) {
+                long count = calls[i].sum();
+                if (count != 0L) result.merge(STRATEGIES[i % STRATEGIES.length].name(), count, Long::sum);
+            }
+            return result;
+        }
+
+        @Override
+        public long getJNITransitions() {
+            long count = 0L;
+            for (int i = Strategy.JNI.ordinal(); i < calls.length; i += STRATEGIES.length) {
+                count += calls[i].sum();
+            }
+            return count;
+        }
+
+        @Override
+        public Map<String, long[]> getLatencyHistograms() {
+            Map<String, long[]> result = new HashMap<>();
+            for (int i = 0; i < calls.length; i ++) {
+                if (calls[i].sum() == 0L) continue;
+                long[] histogram = new long[BUCKETS];
+                for (int j = 0; j < BUCKETS; j ++) {
+                    histogram[j] = latencies[i * BUCKETS + j].sum();
+                }
+                result.put(key(i), histogram);
+            }
+            return result;
+        }
+
+        @Override
+        public void reset() {
+            for (LongAdder adder : calls) {
+                adder.reset();
+            }
+            for (LongAdder adder : latencies) {
+                adder.reset();
+            }
+        }
+
+        private static String key(int index) {
+            return ENTRY_POINTS[index / STRATEGIES.length] + "/" + STRATEGIES[index % STRATEGIES.length].name();
+        }
+
+    }
+
+
+    // ---------------- Events ----------------
+
+    private static final String KEY_JAVASCALPEL_JFR_THRESHOLD = "javascalpel.jfr.threshold";
+    private static final String KEY_JAVASCALPEL_JFR_SAMPLING = "javascalpel.jfr.sampling";
+
+    // The JDK Flight Recorder events, enabled by the Java property javascalpel.jfr:
+    //   com.tianscar.util.DefineClass, for each class definition which took at least javascalpel.jfr.threshold ns (0 by default);
+    //   com.tianscar.util.JNIFallback, for one in javascalpel.jfr.sampling (1024 by default) calls served by JNI.
+    // The event types are created by jdk.jfr.EventFactory through reflection, so that nothing of jdk.jfr is linked
+    // on the JDKs without it (e.g. Java 8), where the events are silently dropped. Since the events are committed
+    // after the call, its duration is reported by the elapsed field rather than by the duration of the event.
+    private static final class FlightRecorderEvents {
+
+        private static final long THRESHOLD = Long.getLong(KEY_JAVASCALPEL_JFR_THRESHOLD, 0L);
+        private static final int SAMPLING = Math.max(1, Integer.getInteger(KEY_JAVASCALPEL_JFR_SAMPLING, 1024));
+
+        private static final DynamicEvent DEFINE_CLASS;
+        private static final DynamicEvent JNI_FALLBACK;
+        static {
+            DynamicEvent defineClass, jniFallback;
+            try {
+                defineClass = new DynamicEvent("com.tianscar.util.DefineClass", "Define Class",
+                        "A class defined by Scalpel.defineClass or Scalpel.defineClasses; for the JVM_DefineClasses path,"
+                                + " the elapsed time is the one of the whole batch",
+                        field(String.class, "name", "Class Name", null, null),
+                        field(String.class, "classLoader", "Class Loader", null, null),
+                        field(int.class, "size", "Bytecode Size", "jdk.jfr.DataAmount", "BYTES"),
+                        field(String.class, "path", "Path", null, null),
+                        field(long.class, "elapsed", "Elapsed Time", "jdk.jfr.Timespan", "NANOSECONDS"));
+                jniFallback = new DynamicEvent("com.tianscar.util.JNIFallback", "JNI Fallback",
+                        "A sampled call of a Scalpel entry point which fell back to the JNI functions",
+                        field(String.class, "entryPoint", "Entry Point", null, null),
+                        field(String.class, "member", "Member", null, null),
+                        field(String.class, "reason", "Fallback Reason", null, null),
+                        field(long.class, "elapsed", "Elapsed Time", "jdk.jfr.Timespan", "NANOSECONDS"));
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                // No jdk.jfr
+                defineClass = jniFallback = null;
+            }
+            DEFINE_CLASS = defineClass;
+            JNI_FALLBACK = jniFallback;
+        }
+
+        static void defineClass(Strategy strategy, String name, ClassLoader classLoader, int size, long start) {
+            long elapsed = System.nanoTime() - start;
+            if (DEFINE_CLASS == null || elapsed < THRESHOLD || !DEFINE_CLASS.isEnabled()) return;
+            DEFINE_CLASS.commit(name, classLoader == null ? "bootstrap" : classLoader.getClass().getName(), size,
+                    strategy == Strategy.JNI ? "JVM_DefineClass" : "ClassLoader.defineClass", elapsed);
+        }
+
+        static void defineClasses(String[] names, byte[][] bytecodes, long start) {
+            long elapsed = System.nanoTime() - start;
+            if (DEFINE_CLASS == null || elapsed < THRESHOLD || !DEFINE_CLASS.isEnabled()) return;
+            for (int i = 0; i < names.length; i ++) {
+                DEFINE_CLASS.commit(names[i], "bootstrap", bytecodes[i].length, "JVM_DefineClasses", elapsed);
+            }
+        }
+
+        static void jniFallback(int entryPoint, Object member, long start) {
+            long elapsed = System.nanoTime() - start;
+            if (JNI_FALLBACK == null || ThreadLocalRandom.current().nextInt(SAMPLING) != 0 || !JNI_FALLBACK.isEnabled()) return;
+            JNI_FALLBACK.commit(ENTRY_POINTS[entryPoint], String.valueOf(member), fallbackReason(entryPoint, member), elapsed);
+        }
+
+        // Why the strategies tried before JNI (see the resolvers) were not available for the member
+        private static String fallbackReason(int entryPoint, Object member) {
+            switch (entryPoint) {
+                case ENTRY_ALLOCATE_INSTANCE:
+                    return "Unsafe not available";
+                case ENTRY_GET_FIELD:
+                case ENTRY_SET_FIELD:
+                    return (UNSAFE == null ? "Unsafe not available" : "No stable field offset") + "; "
+                            + (isFinal(((Field) member).getModifiers()) ? "final field" : "not accessible by reflection");
+                case ENTRY_INVOKE_NONVIRTUAL_METHOD:
+                    return LOOKUP == null ? "Full privilege lookup not available" : "Not accessible by the full privilege lookup";
+                default:
+                    return "Not accessible by reflection; "
+                            + (LOOKUP == null ? "full privilege lookup not available" : "not accessible by the full privilege lookup");
+            }
+        }
+
+        private static Object annotation(String type, Object value) throws ReflectiveOperationException {
+            return Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class)
+                    .newInstance(Class.forName(type), value);
+        }
+
+        private static Object field(Class<?> type, String name, String label, String annotationType, Object annotationValue)
+                throws ReflectiveOperationException {
+            List<Object> annotations = new ArrayList<>(2);
+            annotations.add(annotation("jdk.jfr.Label", label));
+            if (annotationType != null) annotations.add(annotation(annotationType, annotationValue));
+            return Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class)
+                    .newInstance(type, name, annotations);
+        }
+
+        private static final class DynamicEvent {
+
+            // Strongly reachable, since the event type is unregistered once its factory is collected
+            private final Object factory;
+            private final MethodHandle isEnabled;
+            private final MethodHandle newEvent;
+            private final MethodHandle set;
+            private final MethodHandle commit;
+
+            DynamicEvent(String name, String label, String description, Object... fields) throws ReflectiveOperationException {
+                Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+                Class<?> eventClass = Class.forName("jdk.jfr.Event");
+                Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType");
+                List<Object> annotations = Arrays.asList(
+                        annotation("jdk.jfr.Name", name),
+                        annotation("jdk.jfr.Label", label),
+                        annotation("jdk.jfr.Description", description),
+                        annotation("jdk.jfr.Category", new String[] {"Scalpel"}));
+                factory = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, Arrays.asList(fields));
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Object eventType = factoryClass.getMethod("getEventType").invoke(factory);
+                isEnabled = lookup.findVirtual(eventTypeClass, "isEnabled", MethodType.methodType(boolean.class)).bindTo(eventType);
+                newEvent = lookup.findVirtual(factoryClass, "newEvent", MethodType.methodType(eventClass)).bindTo(factory)
+                        .asType(MethodType.methodType(Object.class));
+                set = lookup.findVirtual(eventClass, "set", MethodType.methodType(void.class, int.class, Object.class))
+                        .asType(MethodType.methodType(void.class, Object.class, int.class, Object.class));
+                commit = lookup.findVirtual(eventClass, "commit", MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(void.class, Object.class));
+            }
+
+            boolean isEnabled() {
+                try {
+                    return (boolean) isEnabled.invokeExact();
+                } catch (Throwable e) {
+                    return false;
+                }
+            }
+
+            void commit(Object... values) {
+                try {
+                    Object event = (Object) newEvent.invokeExact();
+                    for (int i = 0; i < values.length; i ++) {
+                        set.invokeExact(event, i, values[i]);
+                    }
+                    commit.invokeExact(event);
+                } catch (Throwable ignored) {
+                    // Never fail the recorded call
+                }
+            }
+
+        }
+
+    }
+
+
+    // ---------------- JNI ----------------
+
+    private static native<T> T AllocObject(Class<T> clazz) throws InstantiationException;
+
+    private static native Class<?> JVM_DefineClass(String name, ClassLoader loader, byte[] buf, int off, int len, ProtectionDomain pd) throws ClassFormatError, NoClassDefFoundError, IndexOutOfBoundsException;
+    private static native Class<?> JVM_DefineClass(String name, ClassLoader loader, ByteBuffer buf, int off, int len, ProtectionDomain pd) throws ClassFormatError, NoClassDefFoundError;
+    private static native Class<?>[] JVM_DefineClasses(String[] names, ClassLoader loader, byte[][] bufs, ProtectionDomain pd) throws ClassFormatError, NoClassDefFoundError;
+
+    private static native long FromReflectedField(Field field);
+
+    private static native Object GetObjectFieldByID(Object obj, long fieldID);
+    private static native boolean GetBooleanFieldByID(Object obj, long fieldID);
+    private static native byte GetByteFieldByID(Object obj, long fieldID);
+    private static native char GetCharFieldByID(Object obj, long fieldID);
+    private static native short GetShortFieldByID(Object obj, long fieldID);
+    private static native int GetIntFieldByID(Object obj, long fieldID);
+    private static native long GetLongFieldByID(Object obj, long fieldID);
+    private static native float GetFloatFieldByID(Object obj, long fieldID);
+    private static native double GetDoubleFieldByID(Object obj, long fieldID);
+
+    private static native void SetObjectFieldByID(Object obj, long fieldID, Object value);
+    private static native void SetBooleanFieldByID(Object obj, long fieldID, boolean value);
+    private static native void SetByteFieldByID(Object obj, long fieldID, byte value);
+    private static native void SetCharFieldByID(Object obj, long fieldID, char value);
+    private static native void SetShortFieldByID(Object obj, long fieldID, short value);
+    private static native void SetIntFieldByID(Object obj, long fieldID, int value);
+    private static native void SetLongFieldByID(Object obj, long fieldID, long value);
+    private static native void SetFloatFieldByID(Object obj, long fieldID, float value);
+    private static native void SetDoubleFieldByID(Object obj, long fieldID, double value);
+
+    private static native Object GetStaticObjectFieldByID(Class<?> clazz, long fieldID);
+    private static native boolean GetStaticBooleanFieldByID(Class<?> clazz, long fieldID);
+    private static native byte GetStaticByteFieldByID(Class<?> clazz, long fieldID);
+    private static native char GetStaticCharFieldByID(Class<?> clazz, long fieldID);
+    private static native short GetStaticShortFieldByID(Class<?> clazz, long fieldID);
+    private static native int GetStaticIntFieldByID(Class<?> clazz, long fieldID);
+    private static native long GetStaticLongFieldByID(Class<?> clazz, long fieldID);
+    private static native float GetStaticFloatFieldByID(Class<?> clazz, long fieldID);
+    private static native double GetStaticDoubleFieldByID(Class<?> clazz, long fieldID);
+
+    private static native void SetStaticObjectFieldByID(Class<?> clazz, long fieldID, Object value);
+    private static native void SetStaticBooleanFieldByID(Class<?> clazz, long fieldID, boolean value);
+    private static native void SetStaticByteFieldByID(Class<?> clazz, long fieldID, byte value);
+    private static native void SetStaticCharFieldByID(Class<?> clazz, long fieldID, char value);
+    private static native void SetStaticShortFieldByID(Class<?> clazz, long fieldID, short value);
+    private static native void SetStaticIntFieldByID(Class<?> clazz, long fieldID, int value);
+    private static native void SetStaticLongFieldByID(Class<?> clazz, long fieldID, long value);
+    private static native void SetStaticFloatFieldByID(Class<?> clazz, long fieldID, float value);
+    private static native void SetStaticDoubleFieldByID(Class<?> clazz, long fieldID, double value);
+
+    private static native long FromReflectedMethod(Executable executable);
+
+    private static native long GetObjectSize(Object object);
+    private static native boolean IsClassInitialized(Class<?> clazz);
+
+    private static native<T> T NewObjectByID(Class<T> clazz, long methodID, byte[] codes, Object[] args);
+
+    private static native void CallVoidMethodByID(Object obj, long methodID, byte[] codes, Object[] args);
+    private static native Object CallObjectMethodByID(Object obj, long methodID, byte[] codes, Object[] args);
+    private static native boolean CallBooleanMethodByID(Object obj, long methodID, byte[] codes, Object[] args);
+    private static native byte CallByteMethodByID(Object obj, long methodID, byte[] codes, Object[] args);
+    private static native char CallCharMethodByID(Object obj, long methodID, byte[] codes, Object[] args);
+    private static native short CallShortMethodByID(Object obj, long methodID, byte[] codes, Object[] args);
+    private static native int CallIntMethodByID(Object obj, long methodID, byte[] codes, Object[] args);
+    private static native long CallLongMethodByID(Object obj, long methodID, byte[] codes, Object[] args);
+    private static native float CallFloatMethodByID(Object obj, long methodID, byte[] codes, Object[] args);
+    private static native double CallDoubleMethodByID(Object obj, long methodID, byte[] codes, Object[] args);
+
+    private static native void CallNonvirtualVoidMethodByID(Object obj, Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native Object CallNonvirtualObjectMethodByID(Object obj, Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native boolean CallNonvirtualBooleanMethodByID(Object obj, Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native byte CallNonvirtualByteMethodByID(Object obj, Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native char CallNonvirtualCharMethodByID(Object obj, Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native short CallNonvirtualShortMethodByID(Object obj, Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native int CallNonvirtualIntMethodByID(Object obj, Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native long CallNonvirtualLongMethodByID(Object obj, Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native float CallNonvirtualFloatMethodByID(Object obj, Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native double CallNonvirtualDoubleMethodByID(Object obj, Class<?> clazz, long methodID, byte[] codes, Object[] args);
+
+    private static native void CallStaticVoidMethodByID(Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native Object CallStaticObjectMethodByID(Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native boolean CallStaticBooleanMethodByID(Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native byte CallStaticByteMethodByID(Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native char CallStaticCharMethodByID(Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native short CallStaticShortMethodByID(Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native int CallStaticIntMethodByID(Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native long CallStaticLongMethodByID(Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native float CallStaticFloatMethodByID(Class<?> clazz, long methodID, byte[] codes, Object[] args);
+    private static native double CallStaticDoubleMethodByID(Class<?> clazz, long methodID, byte[] codes, Object[] args);
+
+    private static native void CallVoidMethodByIDWithFrame(Object obj, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native Object CallObjectMethodByIDWithFrame(Object obj, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native boolean CallBooleanMethodByIDWithFrame(Object obj, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native byte CallByteMethodByIDWithFrame(Object obj, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native char CallCharMethodByIDWithFrame(Object obj, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native short CallShortMethodByIDWithFrame(Object obj, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native int CallIntMethodByIDWithFrame(Object obj, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native long CallLongMethodByIDWithFrame(Object obj, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native float CallFloatMethodByIDWithFrame(Object obj, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native double CallDoubleMethodByIDWithFrame(Object obj, long methodID, byte[] codes, long[] primitives, Object[] references);
+
+    private static native void CallNonvirtualVoidMethodByIDWithFrame(Object obj, Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native Object CallNonvirtualObjectMethodByIDWithFrame(Object obj, Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native boolean CallNonvirtualBooleanMethodByIDWithFrame(Object obj, Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native byte CallNonvirtualByteMethodByIDWithFrame(Object obj, Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native char CallNonvirtualCharMethodByIDWithFrame(Object obj, Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native short CallNonvirtualShortMethodByIDWithFrame(Object obj, Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native int CallNonvirtualIntMethodByIDWithFrame(Object obj, Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native long CallNonvirtualLongMethodByIDWithFrame(Object obj, Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native float CallNonvirtualFloatMethodByIDWithFrame(Object obj, Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native double CallNonvirtualDoubleMethodByIDWithFrame(Object obj, Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+
+    private static native void CallStaticVoidMethodByIDWithFrame(Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native Object CallStaticObjectMethodByIDWithFrame(Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native boolean CallStaticBooleanMethodByIDWithFrame(Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native byte CallStaticByteMethodByIDWithFrame(Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native char CallStaticCharMethodByIDWithFrame(Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native short CallStaticShortMethodByIDWithFrame(Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native int CallStaticIntMethodByIDWithFrame(Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native long CallStaticLongMethodByIDWithFrame(Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native float CallStaticFloatMethodByIDWithFrame(Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+    private static native double CallStaticDoubleMethodByIDWithFrame(Class<?> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
+
+    private static native<T> T NewObjectByIDWithFrame(Class<T> clazz, long methodID, byte[] codes, long[] primitives, Object[] references);
 
 }
@@ -0,0 +1,64 @@
+package com.tianscar.util;
+
+import com.tianscar.util.test.ScalpelTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.AbstractList;
+
+// The fallback strategies, which the public API only takes when the preferred ones are not available
+public class ScalpelStrategyTest {
+
+    @Test
+    public void testStrategy() {
+        try {
+            ScalpelTest.TestClassD object = new ScalpelTest.TestClassD();
+            Field field = ScalpelTest.TestClassD.class.getDeclaredField("privateInt");
+            for (Scalpel.Strategy strategy : new Scalpel.Strategy[] {Scalpel.Strategy.REFLECTION, Scalpel.Strategy.UNSAFE, Scalpel.Strategy.JNI}) {
+                Scalpel.FieldAccessor accessor = Scalpel.fieldAccessor(field, strategy);
+                Assertions.assertEquals(strategy, accessor.getStrategy());
+                Assertions.assertEquals(1, accessor.getInt(object));
+            }
+            Assertions.assertThrows(UnsupportedOperationException.class, () -> Scalpel.fieldAccessor(field, Scalpel.Strategy.LOOKUP));
+            Method add = ScalpelTest.TestClassD.class.getDeclaredMethod("add", int.class, long.class);
+            for (Scalpel.Strategy strategy : new Scalpel.Strategy[] {Scalpel.Strategy.REFLECTION, Scalpel.Strategy.LOOKUP, Scalpel.Strategy.JNI}) {
+                Scalpel.MethodInvoker invoker = Scalpel.methodInvoker(add, strategy);
+                Assertions.assertEquals(strategy, invoker.getStrategy());
+                Assertions.assertEquals(3L, invoker.invokeLong(object, 1, 2L));
+                ScalpelTest.TestClassD instance = Scalpel.constructorInvoker(ScalpelTest.TestClassD.class.getDeclaredConstructor(int.class), strategy).newInstance(2);
+                Assertions.assertEquals(2, Scalpel.getIntField(instance, field));
+            }
+            Assertions.assertThrows(UnsupportedOperationException.class, () -> Scalpel.methodInvoker(add, Scalpel.Strategy.UNSAFE));
+            Assertions.assertNotSame(Scalpel.methodInvoker(add, Scalpel.Strategy.JNI), Scalpel.methodInvoker(add, Scalpel.Strategy.JNI));
+            Method returnInt = ScalpelTest.TestClassA.class.getDeclaredMethod("returnInt");
+            for (Scalpel.Strategy strategy : new Scalpel.Strategy[] {Scalpel.Strategy.LOOKUP, Scalpel.Strategy.JNI}) {
+                Scalpel.MethodInvoker invoker = Scalpel.nonVirtualMethodInvoker(returnInt, strategy);
+                Assertions.assertEquals(strategy, invoker.getStrategy());
+                Assertions.assertTrue(invoker.isNonVirtual());
+                Assertions.assertEquals(0, invoker.invokeInt(new ScalpelTest.TestClassB()));
+            }
+            Assertions.assertThrows(UnsupportedOperationException.class, () -> Scalpel.nonVirtualMethodInvoker(returnInt, Scalpel.Strategy.REFLECTION));
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testAllocateInstanceWithoutUnsafe() {
+        try {
+            ScalpelTest.TestClassD object = Scalpel.allocateInstance(ScalpelTest.TestClassD.class, Scalpel.Strategy.JNI);
+            Assertions.assertNull(object.publicString);
+            Assertions.assertEquals(0, Scalpel.getIntField(object, ScalpelTest.TestClassD.class.getDeclaredField("privateInt")));
+            Assertions.assertThrows(InstantiationException.class, () -> Scalpel.allocateInstance(AbstractList.class, Scalpel.Strategy.JNI));
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+}
@@ -4,14 +4,47 @@ import com.tianscar.util.Scalpel;
 import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.CtMethod;
+import javassist.CtNewConstructor;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.awt.EventQueue;
 import java.awt.AWTEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.lang.management.ManagementFactory;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import javax.management.ObjectName;
 
 public class ScalpelTest {
 
@@ -35,7 +68,62 @@ public class ScalpelTest {
         }
     }
 
+    public static class TestClassD {
+        private int privateInt = 1;
+        protected long protectedLong = 2L;
+        public String publicString = "3";
+        static double staticDouble = 4.0;
+        final int finalInt = 5;
+        public TestClassD() {
+        }
+        private TestClassD(int privateInt) {
+            this.privateInt = privateInt;
+        }
+        private int privateMethod() {
+            return privateInt;
+        }
+        public long add(int a, long b) {
+            return a + b;
+        }
+        static String join(String... strings) {
+            return String.join(",", strings);
+        }
+        void fail() throws Exception {
+            throw new Exception();
+        }
+    }
+
+    public static class TestClassE extends TestClassD {
+        private final Object privateObject;
+        public TestClassE(Object privateObject) {
+            this.privateObject = privateObject;
+        }
+    }
+
+    public interface TestUnsignedStringFunction {
+        String apply(int value, int shift);
+    }
+
+    public interface TestIntArrayFunction {
+        int apply(int[] values);
+    }
+
+    public interface TestStringFunction extends Function<String, Integer> {
+        @Override
+        Integer apply(String string);
+    }
+
     private static final int TEST_FIELD = 0;
+    private static final long TEST_ACCESSOR_FIELD = 0L;
+    private static final Object TEST_HANDLE_FIELD = new Object();
+
+    private static int sum(int... values) {
+        int sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
+    }
 
     @BeforeAll
     public static void setupNativeLibraries() {
@@ -50,6 +138,12 @@ public class ScalpelTest {
             TestClassB object = new TestClassB();
             Assertions.assertEquals(1, Scalpel.invokeIntMethod(object, method));
             Assertions.assertEquals(0, Scalpel.invokeNonVirtualIntMethod(object, method));
+            Scalpel.MethodInvoker invoker = Scalpel.nonVirtualMethodInvoker(method);
+            Assertions.assertSame(invoker, Scalpel.nonVirtualMethodInvoker(method));
+            Assertions.assertEquals(Scalpel.Strategy.LOOKUP, invoker.getStrategy());
+            Assertions.assertTrue(invoker.isNonVirtual());
+            Assertions.assertEquals(0, invoker.invokeInt(object));
+            Assertions.assertEquals(0, Scalpel.invokeNonVirtualMethod(object, method));
         }
         catch (Throwable e) {
             e.printStackTrace();
@@ -84,6 +178,647 @@ public class ScalpelTest {
         }
     }
 
+    @Test
+    public void testFieldAccessor() {
+        try {
+            String string = "STRING";
+            Scalpel.FieldAccessor hashAccessor = Scalpel.fieldAccessor(String.class.getDeclaredField("hash"));
+            Assertions.assertEquals(string.hashCode(), hashAccessor.getInt(string));
+            Assertions.assertEquals(string.hashCode(), hashAccessor.get(string));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> hashAccessor.getLong(string));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> hashAccessor.getInt(new Object()));
+            Assertions.assertThrows(NullPointerException.class, () -> hashAccessor.getInt(null));
+            Assertions.assertSame(hashAccessor, Scalpel.fieldAccessor(String.class.getDeclaredField("hash")));
+            Field field = ScalpelTest.class.getDeclaredField("TEST_ACCESSOR_FIELD");
+            Scalpel.FieldAccessor staticAccessor = Scalpel.fieldAccessor(field);
+            staticAccessor.setLong(null, 1L);
+            Assertions.assertEquals(1L, staticAccessor.getLong(null));
+            Assertions.assertEquals(1L, field.getLong(null));
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testUnsafeFieldAccessor() {
+        try {
+            Scalpel.FieldAccessor hashAccessor = Scalpel.fieldAccessor(String.class.getDeclaredField("hash"));
+            Assertions.assertEquals(Scalpel.Strategy.UNSAFE, hashAccessor.getStrategy());
+            AtomicInteger atomic = new AtomicInteger(1);
+            Scalpel.FieldAccessor valueAccessor = Scalpel.fieldAccessor(AtomicInteger.class.getDeclaredField("value"));
+            Assertions.assertEquals(Scalpel.Strategy.UNSAFE, valueAccessor.getStrategy());
+            valueAccessor.setInt(atomic, 2);
+            Assertions.assertEquals(2, atomic.get());
+            Assertions.assertEquals(2, valueAccessor.getInt(atomic));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> valueAccessor.setObject(atomic, 3));
+            Scalpel.FieldAccessor staticAccessor = Scalpel.fieldAccessor(Integer.class.getDeclaredField("MAX_VALUE"));
+            Assertions.assertEquals(Integer.MAX_VALUE, staticAccessor.getInt(null));
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testReadWriteFields() {
+        try {
+            Field[] fields = new Field[] {
+                    TestClassD.class.getDeclaredField("privateInt"),
+                    TestClassD.class.getDeclaredField("protectedLong"),
+                    TestClassD.class.getDeclaredField("publicString"),
+                    TestClassD.class.getDeclaredField("staticDouble"),
+                    TestClassD.class.getDeclaredField("finalInt")
+            };
+            long[] primitives = new long[fields.length];
+            Object[] references = new Object[fields.length];
+            TestClassD object = new TestClassD();
+            Scalpel.readFields(object, fields, primitives, references);
+            Assertions.assertEquals(1L, primitives[0]);
+            Assertions.assertEquals(2L, primitives[1]);
+            Assertions.assertEquals("3", references[2]);
+            Assertions.assertEquals(4.0, Double.longBitsToDouble(primitives[3]));
+            Assertions.assertEquals(5L, primitives[4]);
+            primitives[0] = -1L;
+            references[2] = "STRING";
+            primitives[4] = 6L;
+            Scalpel.writeFields(object, fields, primitives, references);
+            Assertions.assertEquals(-1, fields[0].getInt(object));
+            Assertions.assertEquals("STRING", object.publicString);
+            Assertions.assertEquals(6, fields[4].getInt(object));
+            references[2] = new Object();
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Scalpel.writeFields(object, fields, primitives, references));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Scalpel.readFields(new Object(), fields, primitives, references));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Scalpel.readFields(object, fields, new long[1], references));
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testShallowCopy() {
+        try {
+            Object shared = new Object();
+            TestClassE object = new TestClassE(shared);
+            object.publicString = "STRING";
+            Scalpel.setIntField(object, TestClassD.class.getDeclaredField("finalInt"), 6);
+            TestClassE copy = Scalpel.shallowCopy(object);
+            Assertions.assertNotSame(object, copy);
+            Assertions.assertSame(shared, copy.privateObject);
+            Assertions.assertEquals("STRING", copy.publicString);
+            Assertions.assertEquals(6, Scalpel.getIntField(copy, TestClassD.class.getDeclaredField("finalInt")));
+            TestClassE target = new TestClassE(null);
+            Scalpel.copyInto(object, target);
+            Assertions.assertSame(shared, target.privateObject);
+            Assertions.assertEquals(2L, target.protectedLong);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Scalpel.copyInto(new TestClassD(), object));
+            int[] array = new int[] {1, 2, 3};
+            Assertions.assertArrayEquals(array, Scalpel.shallowCopy(array));
+            Assertions.assertEquals("STRING", Scalpel.shallowCopy(new StringBuilder("STRING")).toString());
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testDeepClone() {
+        try {
+            Object[] cycle = new Object[3];
+            cycle[0] = cycle;
+            cycle[1] = new TestClassE(new int[] {1, 2, 3});
+            cycle[2] = ((TestClassE) cycle[1]).privateObject;
+            Object[] copy = Scalpel.deepClone(cycle);
+            Assertions.assertNotSame(cycle, copy);
+            Assertions.assertSame(copy, copy[0]);
+            Assertions.assertNotSame(cycle[1], copy[1]);
+            Assertions.assertNotSame(cycle[2], copy[2]);
+            Assertions.assertSame(copy[2], ((TestClassE) copy[1]).privateObject);
+            Assertions.assertArrayEquals(new int[] {1, 2, 3}, (int[]) copy[2]);
+            Assertions.assertSame("3", ((TestClassE) copy[1]).publicString);
+            Assertions.assertNull(Scalpel.deepClone(null));
+            List<Object> list = new ArrayList<>();
+            for (int i = 0; i < 100000; i ++) {
+                list.add(new LinkedList<>(Collections.singleton(new StringBuilder().append(i))));
+            }
+            list.add(list);
+            List<Object> listCopy = Scalpel.deepClone(list, ForkJoinPool.commonPool());
+            Assertions.assertEquals(list.size(), listCopy.size());
+            Assertions.assertSame(listCopy, listCopy.get(100000));
+            Assertions.assertEquals("99999", ((List<?>) listCopy.get(99999)).get(0).toString());
+            Assertions.assertNotSame(((List<?>) list.get(99999)).get(0), ((List<?>) listCopy.get(99999)).get(0));
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        try {
+            TestClassE object = new TestClassE(new Object[] {"STRING", 1, Thread.State.NEW, int.class, new double[] {0.5, 1.5}, null});
+            ((Object[]) object.privateObject)[5] = object;
+            Scalpel.setIntField(object, TestClassD.class.getDeclaredField("finalInt"), 6);
+            char[] chars = new char[100000];
+            Arrays.fill(chars, 'c');
+            object.publicString = new String(chars);
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            Scalpel.writeSnapshot(object, Channels.newChannel(stream));
+            TestClassE copy = (TestClassE) Scalpel.readSnapshot(Channels.newChannel(new ByteArrayInputStream(stream.toByteArray())),
+                    ScalpelTest.class.getClassLoader());
+            Object[] array = (Object[]) copy.privateObject;
+            Assertions.assertEquals("STRING", array[0]);
+            Assertions.assertEquals(1, array[1]);
+            Assertions.assertSame(Thread.State.NEW, array[2]);
+            Assertions.assertSame(int.class, array[3]);
+            Assertions.assertArrayEquals(new double[] {0.5, 1.5}, (double[]) array[4]);
+            Assertions.assertSame(copy, array[5]);
+            Assertions.assertEquals(object.publicString, copy.publicString);
+            Assertions.assertEquals(6, Scalpel.getIntField(copy, TestClassD.class.getDeclaredField("finalInt")));
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+            Scalpel.writeSnapshot(new int[] {1, 2, 3}, buffer);
+            buffer.flip();
+            Assertions.assertArrayEquals(new int[] {1, 2, 3}, (int[]) Scalpel.readSnapshot(buffer, null));
+            Assertions.assertFalse(buffer.hasRemaining());
+            Assertions.assertThrows(BufferOverflowException.class, () -> Scalpel.writeSnapshot(object, ByteBuffer.allocate(1024)));
+            Assertions.assertThrows(EOFException.class, () -> Scalpel.readSnapshot(ByteBuffer.wrap(stream.toByteArray(), 0, 1024), ScalpelTest.class.getClassLoader()));
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testLayout() {
+        try {
+            Scalpel.ObjectLayout layout = Scalpel.layoutOf(TestClassE.class);
+            Assertions.assertSame(layout, Scalpel.layoutOf(TestClassE.class));
+            Assertions.assertTrue(layout.isVerified());
+            Assertions.assertEquals(5, layout.getFields().size());
+            long end = layout.getHeaderSize();
+            for (Scalpel.FieldLayout field : layout.getFields()) {
+                Assertions.assertTrue(field.getOffset() >= end);
+                end = field.getOffset() + field.getSize();
+            }
+            Assertions.assertTrue(layout.getInstanceSize() >= end);
+            Assertions.assertEquals(0, layout.getInstanceSize() % 8);
+            Assertions.assertEquals(layout.getInstanceSize(), Scalpel.sizeOf(new TestClassE(null)));
+            Assertions.assertTrue(Scalpel.sizeOf(new long[16]) >= 16 * 8);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Scalpel.layoutOf(int[].class));
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testWalk() {
+        try {
+            Object[] cycle = new Object[3];
+            cycle[0] = cycle;
+            cycle[1] = new TestClassE(new long[16]);
+            cycle[2] = Thread.State.NEW;
+            List<Object> visited = new ArrayList<>();
+            Scalpel.walk(cycle, visited::add);
+            Assertions.assertSame(cycle, visited.get(0));
+            Assertions.assertEquals(1, visited.stream().filter(object -> object == cycle).count());
+            Assertions.assertTrue(visited.contains(((TestClassE) cycle[1]).privateObject));
+            Assertions.assertTrue(visited.contains("3"));
+            long expected = Scalpel.sizeOf(cycle) + Scalpel.sizeOf(cycle[1]) + Scalpel.sizeOf(((TestClassE) cycle[1]).privateObject)
+                    + Scalpel.sizeOf("3") + Scalpel.sizeOf("3".getBytes());
+            Assertions.assertEquals(expected, Scalpel.retainedSize(cycle));
+            LinkedList<Object> list = new LinkedList<>();
+            for (int i = 0; i < 1000000; i ++) {
+                list.add(null);
+            }
+            Assertions.assertTrue(Scalpel.retainedSize(list) > 1000000L * 16);
+            Assertions.assertEquals(0L, Scalpel.retainedSize(null));
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testMetricsDisabled() {
+        Assumptions.assumeFalse(Boolean.getBoolean("javascalpel.metrics"), "javascalpel.metrics is set");
+        Assertions.assertNull(Scalpel.metrics());
+    }
+
+    @Test
+    public void testMetrics() {
+        Assumptions.assumeTrue(Boolean.getBoolean("javascalpel.metrics"), "javascalpel.metrics is not set");
+        try {
+            // Enabled by the instrumentedTest task
+            Scalpel.ScalpelMetricsMXBean metrics = Scalpel.metrics();
+            Assertions.assertNotNull(metrics);
+            metrics.reset();
+            TestClassD object = new TestClassD();
+            Field field = TestClassD.class.getDeclaredField("privateInt");
+            Scalpel.setIntField(object, field, 2);
+            Assertions.assertEquals(2, Scalpel.getIntField(object, field));
+            Assertions.assertEquals(2, Scalpel.getIntField(object, field));
+            String strategy = Scalpel.fieldAccessor(field).getStrategy().name();
+            Assertions.assertEquals(2L, metrics.getCalls().get("getField/" + strategy));
+            Assertions.assertEquals(1L, metrics.getEntryPointCalls().get("setField"));
+            Assertions.assertEquals(3L, metrics.getStrategyCalls().get(strategy));
+            Assertions.assertEquals(2L, Arrays.stream(metrics.getLatencyHistograms().get("getField/" + strategy)).sum());
+            byte[] bytecode = ClassPool.getDefault().makeClass("com.tianscar.util.test.MetricsProbe").toBytecode();
+            Scalpel.defineClass("com.tianscar.util.test.MetricsProbe", null, bytecode, 0, bytecode.length, null);
+            Assertions.assertEquals(1L, metrics.getCalls().get("defineClass/JNI"));
+            Assertions.assertEquals(metrics.getStrategyCalls().get("JNI"), metrics.getJNITransitions());
+            ObjectName name = new ObjectName("com.tianscar.util:type=ScalpelMetrics");
+            Assertions.assertEquals(metrics.getJNITransitions(), ManagementFactory.getPlatformMBeanServer().getAttribute(name, "JNITransitions"));
+            metrics.reset();
+            Assertions.assertTrue(metrics.getCalls().isEmpty());
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    // jdk.jfr is only looked up reflectively, so the tests still compile on JDKs without it
+    private static Class<?> flightRecorderClass(String name) {
+        try {
+            return Class.forName(name);
+        }
+        catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Object findEvent(List<?> events, String name, Method getEventType, Method getTypeName, Method getString) throws Exception {
+        for (Object event : events) {
+            if (getTypeName.invoke(getEventType.invoke(event)).equals("com.tianscar.util.DefineClass")
+                    && name.equals(getString.invoke(event, "name"))) return event;
+        }
+        throw new AssertionError(name);
+    }
+
+    @Test
+    public void testFlightRecorderEvents() {
+        Class<?> recordingClass = flightRecorderClass("jdk.jfr.Recording");
+        Assumptions.assumeTrue(recordingClass != null, "jdk.jfr is not available");
+        Assumptions.assumeTrue(Boolean.getBoolean("javascalpel.jfr"), "javascalpel.jfr is not set");
+        try {
+            // Enabled by the instrumentedTest task
+            Class<?> recordingFileClass = Class.forName("jdk.jfr.consumer.RecordingFile");
+            Class<?> recordedObjectClass = Class.forName("jdk.jfr.consumer.RecordedObject");
+            Class<?> recordedEventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+            Class<?> flightRecorderClass = Class.forName("jdk.jfr.FlightRecorder");
+            Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType");
+            Method getEventType = recordedEventClass.getMethod("getEventType");
+            Method getTypeName = eventTypeClass.getMethod("getName");
+            Method getString = recordedObjectClass.getMethod("getString", String.class);
+            Method getInt = recordedObjectClass.getMethod("getInt", String.class);
+            Path path = Files.createTempFile("scalpel", ".jfr");
+            byte[] bytecode = ClassPool.getDefault().makeClass("com.tianscar.util.test.EventProbe").toBytecode();
+            byte[] batchBytecode = ClassPool.getDefault().makeClass("com.tianscar.util.test.BatchEventProbe").toBytecode();
+            try (AutoCloseable recording = (AutoCloseable) recordingClass.getConstructor().newInstance()) {
+                Method enable = recordingClass.getMethod("enable", String.class);
+                enable.invoke(recording, "com.tianscar.util.DefineClass");
+                enable.invoke(recording, "com.tianscar.util.JNIFallback");
+                recordingClass.getMethod("start").invoke(recording);
+                Scalpel.defineClass("com.tianscar.util.test.EventProbe", null, bytecode, 0, bytecode.length, null);
+                Scalpel.defineClasses(null, null, Collections.singletonMap("com.tianscar.util.test.BatchEventProbe", batchBytecode));
+                recordingClass.getMethod("stop").invoke(recording);
+                recordingClass.getMethod("dump", Path.class).invoke(recording, path);
+            }
+            List<?> events = (List<?>) recordingFileClass.getMethod("readAllEvents", Path.class).invoke(null, path);
+            Files.delete(path);
+            Object event = findEvent(events, "com.tianscar.util.test.EventProbe", getEventType, getTypeName, getString);
+            Assertions.assertEquals("bootstrap", getString.invoke(event, "classLoader"));
+            Assertions.assertEquals(bytecode.length, getInt.invoke(event, "size"));
+            Assertions.assertEquals("JVM_DefineClass", getString.invoke(event, "path"));
+            Object batchEvent = findEvent(events, "com.tianscar.util.test.BatchEventProbe", getEventType, getTypeName, getString);
+            Assertions.assertEquals(batchBytecode.length, getInt.invoke(batchEvent, "size"));
+            Assertions.assertEquals("JVM_DefineClasses", getString.invoke(batchEvent, "path"));
+            Object flightRecorder = flightRecorderClass.getMethod("getFlightRecorder").invoke(null);
+            boolean registered = false;
+            for (Object type : (List<?>) flightRecorderClass.getMethod("getEventTypes").invoke(flightRecorder)) {
+                if (getTypeName.invoke(type).equals("com.tianscar.util.JNIFallback")) registered = true;
+            }
+            Assertions.assertTrue(registered);
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testDefineClasses() {
+        try {
+            for (ClassLoader classLoader : new ClassLoader[] {null, new ClassLoader(null) {}}) {
+                String prefix = "com.tianscar.util.test.Batch" + (classLoader == null ? "Bootstrap" : "App");
+                ClassPool pool = ClassPool.getDefault();
+                CtClass base = pool.makeClass(prefix + "Base");
+                base.addConstructor(CtNewConstructor.defaultConstructor(base));
+                CtClass iface = pool.makeInterface(prefix + "Interface");
+                CtClass derived = pool.makeClass(prefix + "Derived", base);
+                derived.addInterface(iface);
+                // Dependents first
+                Map<String, byte[]> bytecodes = new LinkedHashMap<>();
+                bytecodes.put(derived.getName(), derived.toBytecode());
+                bytecodes.put(iface.getName(), iface.toBytecode());
+                bytecodes.put(base.getName(), base.toBytecode());
+                Map<String, Class<?>> classes = Scalpel.defineClasses(classLoader, null, bytecodes);
+                Assertions.assertEquals(3, classes.size());
+                Class<?> derivedClass = classes.get(derived.getName());
+                Assertions.assertEquals(classLoader, derivedClass.getClassLoader());
+                Assertions.assertSame(classes.get(base.getName()), derivedClass.getSuperclass());
+                Assertions.assertSame(classes.get(iface.getName()), derivedClass.getInterfaces()[0]);
+                Assertions.assertEquals(derived.getName(), new ArrayList<>(classes.keySet()).get(2));
+            }
+            Assertions.assertThrows(ClassFormatError.class, () -> Scalpel.defineClasses(null, null,
+                    Collections.singletonMap("com.tianscar.util.test.BatchMalformed", new byte[] {0})));
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testDefineClassInPlace() {
+        try {
+            // A slice in the middle of a larger direct buffer
+            byte[] bytecode = ClassPool.getDefault().makeClass("com.tianscar.util.test.SliceProbe").toBytecode();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytecode.length + 32);
+            buffer.position(16);
+            buffer.put(bytecode);
+            buffer.position(16);
+            buffer.limit(16 + bytecode.length);
+            Assertions.assertEquals("com.tianscar.util.test.SliceProbe", Scalpel.defineClass(null, null, buffer, null).getName());
+            // A memory-mapped class file
+            Path path = Files.createTempFile("scalpel", ".class");
+            // Not deleted right away, since the mapping lasts until the buffer is collected
+            path.toFile().deleteOnExit();
+            Files.write(path, ClassPool.getDefault().makeClass("com.tianscar.util.test.PathProbe").toBytecode());
+            ClassLoader classLoader = new ClassLoader(null) {};
+            Class<?> clazz = Scalpel.defineClass("com.tianscar.util.test.PathProbe", classLoader, path, null);
+            Assertions.assertEquals(classLoader, clazz.getClassLoader());
+            Assertions.assertEquals("com.tianscar.util.test.PathProbe", Scalpel.defineClass(null, null, path, null).getName());
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testDefineAll() {
+        try {
+            ClassPool pool = ClassPool.getDefault();
+            CtClass base = pool.makeClass("com.tianscar.util.test.all.Base");
+            base.addConstructor(CtNewConstructor.defaultConstructor(base));
+            CtClass iface = pool.makeInterface("com.tianscar.util.test.all.Interface");
+            CtClass derived = pool.makeClass("com.tianscar.util.test.all.sub.Derived", base);
+            derived.addInterface(iface);
+            CtClass other = pool.makeClass("com.tianscar.util.test.all.Other");
+            Path dir = Files.createTempDirectory("scalpel");
+            Path jar = Files.createTempFile("scalpel", ".jar");
+            jar.toFile().deleteOnExit();
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+                out.putNextEntry(new JarEntry("META-INF/versions/9/com/tianscar/util/test/all/Other.class"));
+                out.write(new byte[] {0});
+                for (CtClass clazz : new CtClass[] {derived, other, iface, base}) {
+                    clazz.writeFile(dir.toString());
+                    out.putNextEntry(new JarEntry(clazz.getName().replace('.', '/') + ".class"));
+                    out.write(clazz.toBytecode());
+                }
+            }
+            for (Path path : new Path[] {dir, jar}) {
+                ClassLoader classLoader = new ClassLoader(null) {};
+                Map<String, Class<?>> classes = Scalpel.defineAll(path, classLoader, null, ForkJoinPool.commonPool()).get();
+                Assertions.assertEquals(4, classes.size());
+                Class<?> derivedClass = classes.get(derived.getName());
+                Assertions.assertEquals(classLoader, derivedClass.getClassLoader());
+                Assertions.assertSame(classes.get(base.getName()), derivedClass.getSuperclass());
+                Assertions.assertSame(classes.get(iface.getName()), derivedClass.getInterfaces()[0]);
+                List<String> names = new ArrayList<>(classes.keySet());
+                Assertions.assertTrue(names.indexOf(derived.getName()) > names.indexOf(base.getName()));
+                Assertions.assertSame(classes.get(other.getName()), classLoader.loadClass(other.getName()));
+            }
+            Files.write(dir.resolve("Malformed.class"), new byte[] {0});
+            ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                    () -> Scalpel.defineAll(dir, new ClassLoader(null) {}, null, ForkJoinPool.commonPool()).get());
+            Assertions.assertInstanceOf(ClassFormatError.class, exception.getCause());
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testBytecodeCache() {
+        try {
+            byte[] original = ClassPool.getDefault().makeClass("com.tianscar.util.test.CacheProbe").toBytecode();
+            AtomicInteger transforms = new AtomicInteger();
+            UnaryOperator<byte[]> transformer = bytecode -> {
+                transforms.incrementAndGet();
+                try {
+                    CtClass clazz = new ClassPool(true).makeClass(new ByteArrayInputStream(bytecode));
+                    clazz.addMethod(CtMethod.make("public String toString() { return \"transformed\"; }", clazz));
+                    return clazz.toBytecode();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+            Path path = Files.createTempFile("scalpel", ".cache");
+            path.toFile().deleteOnExit();
+            Files.delete(path);
+            try (Scalpel.BytecodeCache cache = Scalpel.bytecodeCache(path)) {
+                Class<?> clazz = cache.defineClass("com.tianscar.util.test.CacheProbe", new ClassLoader(null) {}, null,
+                        "toString/1", () -> original, transformer);
+                Assertions.assertEquals("transformed", clazz.getDeclaredConstructor().newInstance().toString());
+            }
+            Assertions.assertEquals(1, transforms.get());
+            try (Scalpel.BytecodeCache cache = Scalpel.bytecodeCache(path)) {
+                Assertions.assertTrue(cache.get("com.tianscar.util.test.CacheProbe", "toString/1").isDirect());
+                Assertions.assertNotNull(cache.get("com.tianscar.util.test.CacheProbe", "toString/1", original));
+                Assertions.assertNull(cache.get("com.tianscar.util.test.CacheProbe", "toString/1", new byte[] {0}));
+                Assertions.assertNull(cache.get("com.tianscar.util.test.CacheProbe", "toString/2"));
+                Class<?> clazz = cache.defineClass("com.tianscar.util.test.CacheProbe", new ClassLoader(null) {}, null,
+                        "toString/1", () -> { throw new AssertionError(); }, transformer);
+                Assertions.assertEquals("transformed", clazz.getDeclaredConstructor().newInstance().toString());
+            }
+            Assertions.assertEquals(1, transforms.get());
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testLookup() {
+        try {
+            Assertions.assertEquals(String.class, Scalpel.lookupFor(String.class).lookupClass());
+            String string = "STRING";
+            MethodHandle hashGetter = Scalpel.unreflectGetter(String.class.getDeclaredField("hash"));
+            Assertions.assertEquals(string.hashCode(), (int) hashGetter.invokeExact(string));
+            Assertions.assertSame(hashGetter, Scalpel.unreflectGetter(String.class.getDeclaredField("hash")));
+            Field field = ScalpelTest.class.getDeclaredField("TEST_HANDLE_FIELD");
+            Scalpel.unreflectSetter(field).invokeExact((Object) "HANDLE");
+            Assertions.assertEquals("HANDLE", field.get(null));
+            MethodHandle toUnsignedString0 = Scalpel.unreflect(Integer.class.getDeclaredMethod("toUnsignedString0", int.class, int.class));
+            Assertions.assertEquals("ff", (String) toUnsignedString0.invokeExact(255, 4));
+            MethodHandle sum = Scalpel.unreflect(ScalpelTest.class.getDeclaredMethod("sum", int[].class));
+            Assertions.assertEquals(6, (int) sum.invokeExact(new int[] {1, 2, 3}));
+            MethodHandle constructor = Scalpel.unreflectConstructor(TestClassC.class.getConstructor());
+            Assertions.assertEquals(2, ((TestClassC) constructor.invokeExact()).returnInt());
+            Assertions.assertEquals(Scalpel.Strategy.LOOKUP,
+                    Scalpel.methodInvoker(Integer.class.getDeclaredMethod("toUnsignedString0", int.class, int.class)).getStrategy());
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBind() {
+        try {
+            Method toUnsignedString0 = Integer.class.getDeclaredMethod("toUnsignedString0", int.class, int.class);
+            BiFunction<Integer, Integer, String> toUnsignedString0Function = Scalpel.bind(toUnsignedString0, BiFunction.class);
+            Assertions.assertEquals("ff", toUnsignedString0Function.apply(255, 4));
+            Assertions.assertEquals("ff", Scalpel.bind(toUnsignedString0, TestUnsignedStringFunction.class).apply(255, 4));
+            Method sum = ScalpelTest.class.getDeclaredMethod("sum", int[].class);
+            Assertions.assertEquals(6, Scalpel.bind(sum, TestIntArrayFunction.class).apply(new int[] {1, 2, 3}));
+            Function<String, Integer> lengthFunction = Scalpel.bind(String.class.getDeclaredMethod("length"), TestStringFunction.class);
+            Assertions.assertEquals(6, lengthFunction.apply("STRING"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Scalpel.bind(sum, IntSupplier.class));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Scalpel.bind(sum, String.class));
+            String string = "STRING";
+            ToIntFunction<String> hashGetter = Scalpel.bindGetter(String.class.getDeclaredField("hash"), ToIntFunction.class);
+            Assertions.assertEquals(string.hashCode(), hashGetter.applyAsInt(string));
+            IntSupplier maxValueGetter = Scalpel.bindGetter(Integer.class.getDeclaredField("MAX_VALUE"), IntSupplier.class);
+            Assertions.assertEquals(Integer.MAX_VALUE, maxValueGetter.getAsInt());
+            AtomicInteger atomic = new AtomicInteger();
+            ObjIntConsumer<AtomicInteger> valueSetter = Scalpel.bindSetter(AtomicInteger.class.getDeclaredField("value"), ObjIntConsumer.class);
+            valueSetter.accept(atomic, 5);
+            Assertions.assertEquals(5, atomic.get());
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testClassAccess() {
+        try {
+            Scalpel.ClassAccess access = Scalpel.classAccess(TestClassD.class);
+            Assertions.assertTrue(access.isGenerated());
+            Assertions.assertSame(access, Scalpel.classAccess(TestClassD.class));
+            TestClassD object = new TestClassD();
+            int privateInt = access.getFieldIndex("privateInt");
+            int protectedLong = access.getFieldIndex("protectedLong");
+            int publicString = access.getFieldIndex("publicString");
+            int staticDouble = access.getFieldIndex("staticDouble");
+            int finalInt = access.getFieldIndex("finalInt");
+            Assertions.assertEquals(1, access.getInt(object, privateInt));
+            Assertions.assertEquals(2L, access.getLong(object, protectedLong));
+            Assertions.assertEquals("3", access.getObject(object, publicString));
+            Assertions.assertEquals(4.0, access.getDouble(null, staticDouble));
+            Assertions.assertEquals(5, access.get(object, finalInt));
+            access.setInt(object, privateInt, 6);
+            access.setLong(object, protectedLong, 7L);
+            access.set(object, publicString, "8");
+            access.setInt(object, finalInt, 9);
+            Assertions.assertEquals(6, object.privateInt);
+            Assertions.assertEquals(7L, object.protectedLong);
+            Assertions.assertEquals("8", object.publicString);
+            Assertions.assertEquals(9, access.getInt(object, finalInt));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> access.getLong(object, privateInt));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> access.setObject(object, publicString, 1));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> access.getInt(new Object(), privateInt));
+            Assertions.assertThrows(NullPointerException.class, () -> access.getInt(null, privateInt));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> access.getInt(object, -1));
+            Assertions.assertEquals(6, access.invoke(object, access.getMethodIndex("privateMethod")));
+            Assertions.assertEquals(3L, access.invoke(object, access.getMethodIndex("add", int.class, long.class), 1, 2));
+            Assertions.assertEquals("a,b", access.invoke(null, access.getMethodIndex("join", String[].class), "a", "b"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> access.invoke(object, access.getMethodIndex("add", int.class, long.class), 1L, 2));
+            Assertions.assertThrows(InvocationTargetException.class, () -> access.invoke(object, access.getMethodIndex("fail")));
+            Assertions.assertEquals(1, ((TestClassD) access.newInstance(access.getConstructorIndex())).privateInt);
+            Assertions.assertEquals(10, ((TestClassD) access.newInstance(access.getConstructorIndex(int.class), 10)).privateInt);
+            Scalpel.ClassAccess stringAccess = Scalpel.classAccess(String.class);
+            Assertions.assertFalse(stringAccess.isGenerated());
+            Assertions.assertEquals("STRING".hashCode(), stringAccess.getInt("STRING", stringAccess.getFieldIndex("hash")));
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testMethodInvoker() {
+        try {
+            Method toUnsignedString0 = Integer.class.getDeclaredMethod("toUnsignedString0", int.class, int.class);
+            Scalpel.MethodInvoker invoker = Scalpel.methodInvoker(toUnsignedString0);
+            Assertions.assertEquals("ff", invoker.invokeObject(null, 255, 4));
+            Assertions.assertEquals("ff", invoker.invokeObject(null, (short) 255, 4));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> invoker.invokeObject(null, 255L, 4));
+            Assertions.assertSame(invoker, Scalpel.methodInvoker(toUnsignedString0));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> invoker.invokeInt(null, 255, 4));
+            Scalpel.MethodInvoker sumInvoker = Scalpel.methodInvoker(ScalpelTest.class.getDeclaredMethod("sum", int[].class));
+            Assertions.assertEquals(6, sumInvoker.invokeInt(null, 1, 2, 3));
+            Assertions.assertEquals(6, sumInvoker.invoke(null, (Object) new int[] {1, 2, 3}));
+            Method returnInt = TestClassA.class.getDeclaredMethod("returnInt");
+            Assertions.assertEquals(2, Scalpel.methodInvoker(returnInt).invokeInt(new TestClassC()));
+            Assertions.assertEquals(0, Scalpel.nonVirtualMethodInvoker(returnInt).invokeInt(new TestClassC()));
+            Assertions.assertEquals(3L, Scalpel.nonVirtualMethodInvoker(TestClassD.class.getDeclaredMethod("add", int.class, long.class))
+                    .invokeLong(new TestClassD(), (short) 1, 2));
+            Assertions.assertEquals(2, Scalpel.constructorInvoker(TestClassC.class.getConstructor()).newInstance().returnInt());
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
+    @Test
+    public void testArgumentFrame() {
+        try {
+            Scalpel.ArgumentFrame frame = new Scalpel.ArgumentFrame(3);
+            Method toUnsignedString0 = Integer.class.getDeclaredMethod("toUnsignedString0", int.class, int.class);
+            Assertions.assertEquals("ff", Scalpel.methodInvoker(toUnsignedString0).invokeObject(null, frame.putInt(255).putInt(4)));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Scalpel.methodInvoker(toUnsignedString0).invokeObject(null, frame.clear().putLong(255L).putInt(4)));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Scalpel.methodInvoker(toUnsignedString0).invokeObject(null, frame.clear().putInt(255)));
+            Assertions.assertEquals(3L, Scalpel.methodInvoker(TestClassD.class.getDeclaredMethod("add", int.class, long.class))
+                    .invokeLong(new TestClassD(), frame.clear().putInt(1).putLong(2L)));
+            Assertions.assertEquals(2.5, Scalpel.methodInvoker(Math.class.getMethod("max", double.class, double.class))
+                    .invokeDouble(null, frame.clear().putDouble(2.5).putDouble(-1.0)));
+            Assertions.assertEquals(6, Scalpel.methodInvoker(ScalpelTest.class.getDeclaredMethod("sum", int[].class))
+                    .invokeInt(null, frame.clear().putReference(new int[] {1, 2, 3})));
+            Method returnInt = TestClassA.class.getDeclaredMethod("returnInt");
+            Assertions.assertEquals(0, Scalpel.nonVirtualMethodInvoker(returnInt).invokeInt(new TestClassC(), frame.clear()));
+            Assertions.assertEquals(7, Scalpel.constructorInvoker(TestClassD.class.getDeclaredConstructor(int.class))
+                    .newInstance(frame.clear().putInt(7)).privateInt);
+            Assertions.assertThrows(InvocationTargetException.class, () -> Scalpel.methodInvoker(TestClassD.class.getDeclaredMethod("fail"))
+                    .invokeVoid(new TestClassD(), frame.clear()));
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> frame.clear().putInt(1).putInt(2).putInt(3).putInt(4));
+        }
+        catch (Throwable e) {
+            e.printStackTrace();
+            Assertions.fail(e);
+        }
+    }
+
     private volatile boolean failed;
 
     @Test